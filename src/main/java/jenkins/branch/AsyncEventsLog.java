@@ -0,0 +1,440 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package jenkins.branch;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import hudson.init.Terminator;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.util.SystemProperties;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+import org.kohsuke.stapler.export.Exported;
+import org.kohsuke.stapler.export.ExportedBean;
+
+/**
+ * Writes a global events log from a background thread so that event threads never wait for disk I/O. Each stream
+ * returned by {@link #open()} buffers what is written to it and hands every completed line over to a bounded ring
+ * buffer, along with any incomplete line when it is closed. A single writer thread, shared by all logs, drains the
+ * ring buffers in batches, opening the underlying log once per batch. Anything still waiting to be written when
+ * Jenkins shuts down is written before it stops.
+ * <p>
+ * The size of the ring buffer, in chunks, is set with the {@code capacity} system property. When the ring buffer is
+ * full, writers wait for room unless the {@code dropWhenFull} system property is set, in which case the chunk is
+ * dropped and counted. The {@code enabled} system property can be set to {@code false} to write synchronously.
+ * <p>
+ * Binary records can be handed over whole with {@link #append(byte[])}, which always writes asynchronously and reports
+ * whether the record was accepted.
+ */
+@Restricted(NoExternalUse.class)
+@ExportedBean
+public final class AsyncEventsLog {
+
+    /**
+     * Our logger.
+     */
+    private static final Logger LOGGER = Logger.getLogger(AsyncEventsLog.class.getName());
+
+    /**
+     * Whether global events logs are written asynchronously.
+     */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "Accessible via System Groovy Scripts")
+    static /* not final */ boolean ENABLED =
+            SystemProperties.getBoolean(AsyncEventsLog.class.getName() + ".enabled", true);
+
+    /**
+     * The number of chunks that the ring buffer holds.
+     */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "Accessible via System Groovy Scripts")
+    static /* not final */ int CAPACITY =
+            SystemProperties.getInteger(AsyncEventsLog.class.getName() + ".capacity", 4096);
+
+    /**
+     * Whether to drop chunks rather than wait when the ring buffer is full.
+     */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "Accessible via System Groovy Scripts")
+    static /* not final */ boolean DROP_WHEN_FULL =
+            SystemProperties.getBoolean(AsyncEventsLog.class.getName() + ".dropWhenFull", false);
+
+    /**
+     * The most chunks to write each time the underlying log is opened.
+     */
+    private static final int MAX_BATCH = 256;
+
+    /**
+     * The number of buffered bytes after which a stream hands its chunk over without waiting for the end of the line.
+     */
+    private static final int CHUNK_SIZE = 8 * 1024;
+
+    /**
+     * How long to wait for each log to be written when Jenkins shuts down.
+     */
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 10;
+
+    /**
+     * The writer thread shared by all logs, which only lives while there is something to write.
+     */
+    private static final ExecutorService WRITER;
+
+    static {
+        ThreadPoolExecutor writer = new ThreadPoolExecutor(1, 1, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                new NamingThreadFactory(new DaemonThreadFactory(), AsyncEventsLog.class.getName()));
+        writer.allowCoreThreadTimeOut(true);
+        WRITER = writer;
+    }
+
+    /**
+     * The logs that have been created and not yet garbage collected.
+     */
+    private static final Set<AsyncEventsLog> LOGS =
+            Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+
+    /**
+     * The name of the log.
+     */
+    private final String name;
+
+    /**
+     * Opens the underlying log.
+     */
+    private final Supplier<OutputStream> target;
+
+    /**
+     * The chunks waiting to be written.
+     */
+    private final BlockingQueue<byte[]> buffer;
+
+    /**
+     * Whether to drop chunks rather than wait when the ring buffer is full.
+     */
+    private final boolean dropWhenFull;
+
+    /**
+     * Whether the writer has been asked to drain the ring buffer.
+     */
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    /**
+     * The number of chunks written.
+     */
+    private final AtomicLong written = new AtomicLong();
+
+    /**
+     * The number of chunks dropped because the ring buffer was full or the log could not be written.
+     */
+    private final AtomicLong dropped = new AtomicLong();
+
+    /**
+     * The number of batches written.
+     */
+    private final AtomicLong batches = new AtomicLong();
+
+    /**
+     * Constructor.
+     *
+     * @param name the name of the log.
+     * @param target opens the underlying log.
+     */
+    public AsyncEventsLog(@NonNull String name, @NonNull Supplier<OutputStream> target) {
+        this(name, target, CAPACITY, DROP_WHEN_FULL);
+    }
+
+    AsyncEventsLog(@NonNull String name, @NonNull Supplier<OutputStream> target, int capacity,
+                   boolean dropWhenFull) {
+        this.name = name;
+        this.target = target;
+        this.buffer = new ArrayBlockingQueue<>(Math.max(1, capacity));
+        this.dropWhenFull = dropWhenFull;
+        LOGS.add(this);
+    }
+
+    /**
+     * Opens a stream that writes to the log, asynchronously if {@link #ENABLED}.
+     *
+     * @return the stream, which must be closed.
+     */
+    @NonNull
+    public OutputStream open() {
+        return ENABLED ? new ChunkOutputStream() : target.get();
+    }
+
+    /**
+     * Hands a record over to the writer thread as a single chunk, so that it is never split or interleaved with other
+     * records. Unlike {@link #open()} this ignores {@link #ENABLED}. A record that is accepted can still be dropped if
+     * the underlying log cannot be written, which is reflected in {@link #getWrittenCount()} and
+     * {@link #getDroppedCount()}.
+     *
+     * @param record the record, which must not be modified afterwards.
+     * @return {@code true} if the record was accepted, {@code false} if it was dropped.
+     */
+    public boolean append(@NonNull byte[] record) {
+        return enqueue(record);
+    }
+
+    /**
+     * Hands a chunk over to the writer thread.
+     *
+     * @param chunk the chunk.
+     * @return {@code true} if the chunk was accepted, {@code false} if it was dropped.
+     */
+    private boolean enqueue(byte[] chunk) {
+        boolean accepted;
+        if (dropWhenFull) {
+            accepted = buffer.offer(chunk);
+        } else {
+            try {
+                buffer.put(chunk);
+                accepted = true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                accepted = false;
+            }
+        }
+        if (!accepted) {
+            dropped.incrementAndGet();
+        }
+        if (scheduled.compareAndSet(false, true)) {
+            WRITER.execute(this::drain);
+        }
+        return accepted;
+    }
+
+    /**
+     * Writes everything in the ring buffer to the underlying log.
+     */
+    private void drain() {
+        // clear first so that anything enqueued from now on schedules another drain
+        scheduled.set(false);
+        List<byte[]> batch = new ArrayList<>(MAX_BATCH);
+        while (buffer.drainTo(batch, MAX_BATCH) > 0) {
+            try (OutputStream out = target.get()) {
+                for (byte[] chunk : batch) {
+                    out.write(chunk);
+                }
+                written.addAndGet(batch.size());
+                batches.incrementAndGet();
+            } catch (IOException | RuntimeException e) {
+                dropped.addAndGet(batch.size());
+                LOGGER.log(Level.WARNING, "Could not write to " + name, e);
+            }
+            batch.clear();
+        }
+    }
+
+    /**
+     * Waits until everything that has been handed over so far has been written.
+     *
+     * @param timeout the maximum time to wait.
+     * @param unit the unit of the timeout.
+     * @throws InterruptedException if interrupted.
+     * @throws TimeoutException if the timeout elapsed.
+     */
+    public void awaitWritten(long timeout, TimeUnit unit) throws InterruptedException, TimeoutException {
+        try {
+            WRITER.submit(this::drain).get(timeout, unit);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Returns the logs that have been created and not yet garbage collected, sorted by name.
+     *
+     * @return the logs.
+     */
+    @NonNull
+    public static List<AsyncEventsLog> getAll() {
+        List<AsyncEventsLog> logs;
+        synchronized (LOGS) {
+            logs = new ArrayList<>(LOGS);
+        }
+        logs.sort(Comparator.comparing(AsyncEventsLog::getName));
+        return logs;
+    }
+
+    /**
+     * Writes whatever is waiting to be written to any of the logs when Jenkins shuts down.
+     */
+    @Terminator
+    public static void drainOnShutdown() {
+        for (AsyncEventsLog log : getAll()) {
+            try {
+                log.awaitWritten(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (TimeoutException e) {
+                LOGGER.log(Level.WARNING, "Timed out writing {0} pending chunks of {1}",
+                        new Object[]{log.getPendingCount(), log.name});
+            }
+        }
+    }
+
+    /**
+     * Returns the name of the log.
+     *
+     * @return the name of the log.
+     */
+    @Exported
+    @NonNull
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the number of chunks written.
+     *
+     * @return the number of chunks written.
+     */
+    @Exported
+    public long getWrittenCount() {
+        return written.get();
+    }
+
+    /**
+     * Returns the number of chunks dropped.
+     *
+     * @return the number of chunks dropped.
+     */
+    @Exported
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * Returns the number of batches written.
+     *
+     * @return the number of batches written.
+     */
+    @Exported
+    public long getBatchCount() {
+        return batches.get();
+    }
+
+    /**
+     * Returns the number of chunks waiting to be written.
+     *
+     * @return the number of chunks waiting to be written.
+     */
+    @Exported
+    public int getPendingCount() {
+        return buffer.size();
+    }
+
+    /**
+     * Buffers what is written and hands it over a line at a time.
+     */
+    private final class ChunkOutputStream extends OutputStream {
+        /**
+         * What has been written since the last complete line was handed over.
+         */
+        private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public synchronized void write(int b) {
+            pending.write(b);
+            if (b == '\n' || pending.size() >= CHUNK_SIZE) {
+                handOver(false);
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public synchronized void write(@NonNull byte[] b, int off, int len) {
+            pending.write(b, off, len);
+            handOver(false);
+        }
+
+        /**
+         * Hands the complete lines over. An incomplete line stays buffered until it is completed or the stream is
+         * closed, so that lines written from different streams are not mixed up.
+         */
+        @Override
+        public synchronized void flush() {
+            handOver(false);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public synchronized void close() {
+            handOver(true);
+        }
+
+        /**
+         * Hands the buffered bytes over to the ring buffer.
+         *
+         * @param all {@code true} to hand over an incomplete line as well.
+         */
+        private void handOver(boolean all) {
+            if (pending.size() == 0) {
+                return;
+            }
+            byte[] bytes = pending.toByteArray();
+            int end = bytes.length;
+            if (!all && bytes.length < CHUNK_SIZE) {
+                while (end > 0 && bytes[end - 1] != '\n') {
+                    end--;
+                }
+                if (end == 0) {
+                    return;
+                }
+            }
+            enqueue(end == bytes.length ? bytes : Arrays.copyOf(bytes, end));
+            pending.reset();
+            pending.write(bytes, end, bytes.length - end);
+        }
+    }
+}
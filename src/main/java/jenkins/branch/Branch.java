@@ -26,8 +26,10 @@ package jenkins.branch;
 import edu.umd.cs.findbugs.annotations.CheckForNull;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import hudson.Extension;
+import hudson.Util;
 import hudson.model.AbstractProject;
 import hudson.model.Action;
+import hudson.model.Items;
 import hudson.model.Job;
 import hudson.model.TaskListener;
 import hudson.scm.NullSCM;
@@ -82,6 +84,11 @@ public class Branch {
      */
     private List<Action> actions;
 
+    /**
+     * The digest of the XStream form of {@link #scm}, computed on first use.
+     */
+    private volatile String scmFingerprint;
+
     /**
      * Constructs a branch instance.
      *
@@ -175,6 +182,22 @@ public class Branch {
         return scm;
     }
 
+    /**
+     * Returns a digest of the configuration of the {@link SCM} for the branch, which is computed once and persisted
+     * with the branch. Two branches with different fingerprints have different {@link SCM} configurations.
+     *
+     * @return a digest of the configuration of the {@link SCM} for the branch.
+     */
+    @NonNull
+    /*package*/ String getScmFingerprint() {
+        String fingerprint = scmFingerprint;
+        if (fingerprint == null) {
+            fingerprint = Util.getDigestOf(Items.XSTREAM2.toXML(scm));
+            scmFingerprint = fingerprint;
+        }
+        return fingerprint;
+    }
+
     /**
      * Tests if a property of a specific type is present.
      *
@@ -0,0 +1,180 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package jenkins.branch;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.model.Item;
+import hudson.model.ItemGroup;
+import hudson.model.Job;
+import hudson.model.listeners.ItemListener;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * The branch jobs of a {@link MultiBranchProject} keyed by {@link Branch#getName()}. The index is built on first use
+ * and then kept current by an {@link ItemListener} as branch jobs are created, deleted, renamed or moved, so looking
+ * up the job of a branch does not need to encode its name every time. The index holds every child regardless of
+ * who is looking, permissions are checked by {@link MultiBranchProject#getItemByBranchName(String)}.
+ *
+ * @param <P> the type of branch job.
+ */
+@Restricted(NoExternalUse.class)
+public final class BranchNameIndex<P extends Job<P, ?>> {
+
+    /**
+     * The branch jobs keyed by branch name.
+     */
+    private final Map<String, P> byBranchName = new HashMap<>();
+
+    /**
+     * The branch names keyed by {@link Item#getName()}, so that the entry of a job can be found again when it goes
+     * away.
+     */
+    private final Map<String, String> branchNameByItemName = new HashMap<>();
+
+    /**
+     * Whether the index has been populated.
+     */
+    private boolean built;
+
+    /**
+     * Returns the branch job with the supplied branch name.
+     *
+     * @param owner the project that owns the index.
+     * @param children all the children of the project, to build the index from on first use.
+     * @param branchName the branch name.
+     * @return the branch job or {@code null} if there is none.
+     */
+    @CheckForNull
+    synchronized P get(@NonNull MultiBranchProject<P, ?> owner, @NonNull Collection<P> children,
+                       @NonNull String branchName) {
+        if (!built) {
+            BranchProjectFactory<P, ?> factory = owner.getProjectFactory();
+            for (P item : children) {
+                if (factory.isProject(item)) {
+                    put(item, factory.getBranch(item).getName());
+                }
+            }
+            built = true;
+        }
+        return byBranchName.get(branchName);
+    }
+
+    /**
+     * Records the current branch of a branch job.
+     *
+     * @param owner the project that owns the index.
+     * @param item the branch job.
+     */
+    synchronized void update(@NonNull MultiBranchProject<P, ?> owner, @NonNull P item) {
+        if (!built) {
+            return;
+        }
+        remove(item.getName());
+        BranchProjectFactory<P, ?> factory = owner.getProjectFactory();
+        if (factory.isProject(item)) {
+            put(item, factory.getBranch(item).getName());
+        }
+    }
+
+    /**
+     * Forgets a branch job.
+     *
+     * @param itemName the {@link Item#getName()} of the branch job.
+     */
+    synchronized void remove(@NonNull String itemName) {
+        String branchName = branchNameByItemName.remove(itemName);
+        if (branchName != null) {
+            P item = byBranchName.get(branchName);
+            if (item != null && itemName.equals(item.getName())) {
+                byBranchName.remove(branchName);
+            }
+        }
+    }
+
+    /**
+     * Forgets everything so that the index will be rebuilt on next use.
+     */
+    synchronized void invalidate() {
+        byBranchName.clear();
+        branchNameByItemName.clear();
+        built = false;
+    }
+
+    private void put(P item, String branchName) {
+        byBranchName.put(branchName, item);
+        branchNameByItemName.put(item.getName(), branchName);
+    }
+
+    /**
+     * Keeps the indices current as branch jobs come and go.
+     */
+    @Extension
+    public static class ListenerImpl extends ItemListener {
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void onCreated(Item item) {
+            ItemGroup<?> parent = item.getParent();
+            if (parent instanceof MultiBranchProject) {
+                ((MultiBranchProject<?, ?>) parent).branchIndexUpdated(item);
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void onDeleted(Item item) {
+            ItemGroup<?> parent = item.getParent();
+            if (parent instanceof MultiBranchProject) {
+                ((MultiBranchProject<?, ?>) parent).branchIndexRemoved(item.getName());
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void onLocationChanged(Item item, String oldFullName, String newFullName) {
+            ItemGroup<?> parent = item.getParent();
+            if (parent instanceof MultiBranchProject) {
+                MultiBranchProject<?, ?> project = (MultiBranchProject<?, ?>) parent;
+                String oldParent = oldFullName.substring(0, Math.max(0, oldFullName.lastIndexOf('/')));
+                if (oldParent.equals(project.getFullName())) {
+                    project.branchIndexRemoved(oldFullName.substring(oldFullName.lastIndexOf('/') + 1));
+                }
+                project.branchIndexUpdated(item);
+            }
+        }
+    }
+}
@@ -160,7 +160,16 @@ public abstract class BranchProjectFactory<P extends Job<P, R> & TopLevelItem,
      */
     @CheckForNull
     public SCMRevision getRevision(P project) {
-        XmlFile file = new XmlFile(new File(project.getRootDir(), "scm-revision-hash.xml"));
+        File legacy = new File(project.getRootDir(), "scm-revision-hash.xml");
+        RevisionStore store = RevisionStore.of(project);
+        if (store != null) {
+            return store.getRevision(project.getName(), legacy);
+        }
+        RevisionCache cache = RevisionCache.get();
+        if (cache != null) {
+            return cache.getRevision(project, RevisionCache.Kind.BUILT);
+        }
+        XmlFile file = new XmlFile(legacy);
         try {
             return (SCMRevision) file.read();
         } catch (IOException e) {
@@ -177,6 +186,16 @@ public abstract class BranchProjectFactory<P extends Job<P, R> & TopLevelItem,
      * @throws IOException if there was an issue persisting the details.
      */
     public void setRevisionHash(P project, SCMRevision revision) throws IOException {
+        RevisionStore store = RevisionStore.of(project);
+        if (store != null) {
+            store.setRevision(project.getName(), revision);
+            return;
+        }
+        RevisionCache cache = RevisionCache.get();
+        if (cache != null) {
+            cache.setRevision(project, RevisionCache.Kind.BUILT, revision);
+            return;
+        }
         XmlFile file = new XmlFile(new File(project.getRootDir(), "scm-revision-hash.xml"));
         file.write(revision);
     }
@@ -189,7 +208,16 @@ public abstract class BranchProjectFactory<P extends Job<P, R> & TopLevelItem,
      */
     @CheckForNull
     public SCMRevision getLastSeenRevision(P project) {
-        XmlFile file = new XmlFile(new File(project.getRootDir(), "scm-last-seen-revision-hash.xml"));
+        File legacy = new File(project.getRootDir(), "scm-last-seen-revision-hash.xml");
+        RevisionStore store = RevisionStore.of(project);
+        if (store != null) {
+            return store.getLastSeenRevision(project.getName(), legacy);
+        }
+        RevisionCache cache = RevisionCache.get();
+        if (cache != null) {
+            return cache.getRevision(project, RevisionCache.Kind.SEEN);
+        }
+        XmlFile file = new XmlFile(legacy);
         try {
             return (SCMRevision) file.read();
         } catch (IOException e) {
@@ -206,6 +234,16 @@ public abstract class BranchProjectFactory<P extends Job<P, R> & TopLevelItem,
      * @throws IOException if there was an issue persisting the details.
      */
     public void setLastSeenRevisionHash(P project, SCMRevision revision) throws IOException {
+        RevisionStore store = RevisionStore.of(project);
+        if (store != null) {
+            store.setLastSeenRevision(project.getName(), revision);
+            return;
+        }
+        RevisionCache cache = RevisionCache.get();
+        if (cache != null) {
+            cache.setRevision(project, RevisionCache.Kind.SEEN, revision);
+            return;
+        }
         XmlFile file = new XmlFile(new File(project.getRootDir(), "scm-last-seen-revision-hash.xml"));
         file.write(revision);
     }
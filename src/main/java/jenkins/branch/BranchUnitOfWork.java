@@ -0,0 +1,235 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package jenkins.branch;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.model.Job;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.model.TopLevelItem;
+import java.io.IOException;
+import jenkins.scm.api.SCMRevision;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+import static hudson.Functions.printStackTrace;
+
+/**
+ * Collects the changes that observing a head makes to the persisted state of its branch project so that each file
+ * of the project is written at most once, when the observation completes. Repeated changes to the same file keep
+ * only the last value and a last seen revision that matches the one on disk is not written again.
+ *
+ * @param <P> the type of branch project.
+ * @param <R> the type of builds of the branch project.
+ */
+@Restricted(NoExternalUse.class)
+public final class BranchUnitOfWork<P extends Job<P, R> & TopLevelItem, R extends Run<P, R>> {
+
+    /**
+     * The project factory.
+     */
+    @NonNull
+    private final BranchProjectFactory<P, R> factory;
+
+    /**
+     * The project being changed, set by the first change.
+     */
+    @CheckForNull
+    private P project;
+
+    /**
+     * Whether the project configuration needs saving.
+     */
+    private boolean save;
+
+    /**
+     * The pending revision hash or {@code null} if it is unchanged.
+     */
+    @CheckForNull
+    private SCMRevision revisionHash;
+
+    /**
+     * The pending last seen revision hash or {@code null} if it is unchanged.
+     */
+    @CheckForNull
+    private SCMRevision lastSeenRevisionHash;
+
+    /**
+     * Whether {@link #lastSeenOnDisk} has been read.
+     */
+    private boolean lastSeenLoaded;
+
+    /**
+     * The last seen revision hash as persisted.
+     */
+    @CheckForNull
+    private SCMRevision lastSeenOnDisk;
+
+    /**
+     * The size of the files written so far.
+     */
+    private long bytesWritten;
+
+    /**
+     * Constructor.
+     *
+     * @param factory the project factory.
+     */
+    public BranchUnitOfWork(@NonNull BranchProjectFactory<P, R> factory) {
+        this.factory = factory;
+    }
+
+    /**
+     * Records that the project configuration needs saving.
+     *
+     * @param project the project.
+     */
+    public void save(@NonNull P project) {
+        bind(project);
+        save = true;
+    }
+
+    /**
+     * Records the {@link SCMRevision} that the project was last built for.
+     *
+     * @param project  the project.
+     * @param revision the revision.
+     * @see BranchProjectFactory#setRevisionHash(Job, SCMRevision)
+     */
+    public void setRevisionHash(@NonNull P project, @NonNull SCMRevision revision) {
+        bind(project);
+        revisionHash = revision;
+    }
+
+    /**
+     * Records the {@link SCMRevision} that the project was last seen for.
+     *
+     * @param project  the project.
+     * @param revision the revision.
+     * @see BranchProjectFactory#setLastSeenRevisionHash(Job, SCMRevision)
+     */
+    public void setLastSeenRevisionHash(@NonNull P project, @NonNull SCMRevision revision) {
+        bind(project);
+        lastSeenRevisionHash = revision;
+    }
+
+    /**
+     * Gets the {@link SCMRevision} that the project was last seen for, including any pending change.
+     *
+     * @param project the project.
+     * @return the revision.
+     * @see BranchProjectFactory#getLastSeenRevision(Job)
+     */
+    @CheckForNull
+    public SCMRevision getLastSeenRevision(@NonNull P project) {
+        bind(project);
+        if (lastSeenRevisionHash != null) {
+            return lastSeenRevisionHash;
+        }
+        if (!lastSeenLoaded) {
+            lastSeenOnDisk = factory.getLastSeenRevision(project);
+            lastSeenLoaded = true;
+        }
+        return lastSeenOnDisk;
+    }
+
+    /**
+     * Writes the pending changes, reporting any failure to the listener.
+     *
+     * @param listener the listener.
+     * @param rawName  the name of the branch.
+     * @return the number of files written.
+     */
+    public int flush(@NonNull TaskListener listener, @NonNull String rawName) {
+        if (project == null) {
+            return 0;
+        }
+        int writes = 0;
+        if (save) {
+            save = false;
+            try {
+                project.save();
+                writes++;
+                bytesWritten += project.getConfigFile().getFile().length();
+            } catch (IOException e) {
+                printStackTrace(e, listener.error("Could not save changes to " + rawName));
+            }
+        }
+        if (revisionHash != null) {
+            SCMRevision revision = revisionHash;
+            revisionHash = null;
+            try {
+                factory.setRevisionHash(project, revision);
+                writes++;
+                bytesWritten += writtenLength(RevisionCache.Kind.BUILT);
+            } catch (IOException e) {
+                printStackTrace(e, listener.error("Could not update last revision hash"));
+            }
+        }
+        if (lastSeenRevisionHash != null) {
+            SCMRevision revision = lastSeenRevisionHash;
+            lastSeenRevisionHash = null;
+            if (!lastSeenLoaded || !revision.equals(lastSeenOnDisk)) {
+                try {
+                    factory.setLastSeenRevisionHash(project, revision);
+                    lastSeenOnDisk = revision;
+                    lastSeenLoaded = true;
+                    writes++;
+                    bytesWritten += writtenLength(RevisionCache.Kind.SEEN);
+                } catch (IOException e) {
+                    printStackTrace(e, listener.error("Could not update last seen revision hash"));
+                }
+            }
+        }
+        return writes;
+    }
+
+    /**
+     * Returns the size of the files written so far.
+     *
+     * @return the size in bytes.
+     */
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    private long writtenLength(@NonNull RevisionCache.Kind kind) {
+        if (RevisionStore.of(project) != null || RevisionCache.get() != null) {
+            // not written to the per-branch file, or not yet
+            return 0L;
+        }
+        return kind.getFile(project).length();
+    }
+
+    private void bind(@NonNull P project) {
+        if (this.project == null) {
+            this.project = project;
+        } else if (this.project != project) {
+            throw new IllegalStateException("A unit of work can only change one project");
+        }
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package jenkins.branch;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.model.TaskListener;
+import hudson.util.StreamTaskListener;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.Future;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * A call to an SCM that runs on a {@link SCMSourceFetchExecutor} with its own log. The log is copied to the
+ * caller's listener when the caller collects the result, so that the output of calls running side by side is not
+ * interleaved and appears in the order that the caller collects the results.
+ *
+ * @param <V> the type of result.
+ */
+@Restricted(NoExternalUse.class)
+public final class BufferedSCMCall<V> {
+
+    /**
+     * The work to perform.
+     *
+     * @param <V> the type of result.
+     */
+    @FunctionalInterface
+    public interface Call<V> {
+        /**
+         * Performs the call.
+         *
+         * @param listener the listener to log to.
+         * @return the result.
+         * @throws IOException if something went wrong.
+         * @throws InterruptedException if interrupted.
+         */
+        V call(@NonNull TaskListener listener) throws IOException, InterruptedException;
+    }
+
+    /**
+     * The log of the call.
+     */
+    private final ByteArrayOutputStream log = new ByteArrayOutputStream();
+
+    /**
+     * The pending result.
+     */
+    private final Future<V> future;
+
+    /**
+     * Whether the log has been copied to the caller's listener.
+     */
+    private boolean replayed;
+
+    private BufferedSCMCall(@NonNull SCMSourceFetchExecutor executor, @NonNull Call<V> call) {
+        final StreamTaskListener listener = new StreamTaskListener(log, StandardCharsets.UTF_8);
+        this.future = executor.submit(() -> {
+            try {
+                return call.call(listener);
+            } finally {
+                listener.getLogger().flush();
+            }
+        });
+    }
+
+    /**
+     * Starts a call.
+     *
+     * @param call the call.
+     * @param <V> the type of result.
+     * @return the pending call.
+     */
+    @NonNull
+    public static <V> BufferedSCMCall<V> submit(@NonNull Call<V> call) {
+        return submit(SCMSourceFetchExecutor.get(), call);
+    }
+
+    /**
+     * Starts a call on the supplied executor.
+     *
+     * @param executor the executor.
+     * @param call the call.
+     * @param <V> the type of result.
+     * @return the pending call.
+     */
+    @NonNull
+    public static <V> BufferedSCMCall<V> submit(@NonNull SCMSourceFetchExecutor executor, @NonNull Call<V> call) {
+        return new BufferedSCMCall<>(executor, call);
+    }
+
+    /**
+     * Waits for the call to complete, copies its log to the supplied listener and returns its result.
+     *
+     * @param listener the listener.
+     * @return the result of the call.
+     * @throws IOException if the call failed.
+     * @throws InterruptedException if the call was interrupted or the caller was interrupted while waiting.
+     */
+    public V get(@NonNull TaskListener listener) throws IOException, InterruptedException {
+        try {
+            return SCMSourceFetchExecutor.get(future);
+        } finally {
+            if (future.isDone() && !replayed) {
+                replayed = true;
+                log.writeTo(listener.getLogger());
+                listener.getLogger().flush();
+            }
+        }
+    }
+
+    /**
+     * Cancels calls that are no longer wanted, interrupting any that are running.
+     *
+     * @param calls the calls.
+     */
+    public static void cancelAll(@NonNull List<? extends BufferedSCMCall<?>> calls) {
+        for (BufferedSCMCall<?> call : calls) {
+            call.future.cancel(true);
+        }
+    }
+}
@@ -0,0 +1,213 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package jenkins.branch;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.XmlFile;
+import hudson.model.Item;
+import hudson.model.ItemGroup;
+import hudson.model.Saveable;
+import hudson.model.listeners.ItemListener;
+import hudson.model.listeners.SaveableListener;
+import hudson.security.ACL;
+import hudson.security.ACLContext;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import jenkins.model.Jenkins;
+import jenkins.scm.api.SCMSource;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * The distinct sources of the buildable children of an {@link OrganizationFolder}. The sources of each child are captured
+ * when the child is created, saved, renamed or has its sources changed, and the union is only recomputed after such
+ * a change, so that {@link OrganizationFolder#getSCMSources()} does not need to visit every child on every call.
+ */
+@Restricted(NoExternalUse.class)
+public final class ChildSourceSnapshot {
+
+    /**
+     * The sources of each buildable child keyed by {@link Item#getName()}.
+     */
+    private final Map<String, List<SCMSource>> sourcesByChild = new HashMap<>();
+
+    /**
+     * Whether {@link #sourcesByChild} has been populated.
+     */
+    private boolean built;
+
+    /**
+     * The immutable union of {@link #sourcesByChild} or {@code null} if it needs to be recomputed.
+     */
+    private List<SCMSource> snapshot;
+
+    /**
+     * Returns the distinct sources of the buildable children, whether or not the current user can see them.
+     *
+     * @param owner the organization folder that owns the snapshot.
+     * @return the immutable list of sources.
+     */
+    @NonNull
+    synchronized List<SCMSource> get(@NonNull OrganizationFolder owner) {
+        if (!built) {
+            // getItems() only returns what the current user can read, but the snapshot is shared by all users
+            try (ACLContext ctx = ACL.as(ACL.SYSTEM)) {
+                for (MultiBranchProject<?, ?> child : owner.getItems(MultiBranchProject::isBuildable)) {
+                    sourcesByChild.put(child.getName(), new ArrayList<>(child.getSCMSources()));
+                }
+            }
+            built = true;
+            snapshot = null;
+        }
+        if (snapshot == null) {
+            Set<SCMSource> result = new LinkedHashSet<>();
+            for (List<SCMSource> sources : sourcesByChild.values()) {
+                result.addAll(sources);
+            }
+            snapshot = Collections.unmodifiableList(new ArrayList<>(result));
+        }
+        return snapshot;
+    }
+
+    /**
+     * Captures the current sources of a child.
+     *
+     * @param child the child.
+     */
+    synchronized void childChanged(@NonNull MultiBranchProject<?, ?> child) {
+        if (!built) {
+            return;
+        }
+        if (child.isBuildable()) {
+            sourcesByChild.put(child.getName(), new ArrayList<>(child.getSCMSources()));
+        } else {
+            sourcesByChild.remove(child.getName());
+        }
+        snapshot = null;
+    }
+
+    /**
+     * Forgets a child.
+     *
+     * @param name the {@link Item#getName()} of the child.
+     */
+    synchronized void childRemoved(@NonNull String name) {
+        if (built && sourcesByChild.remove(name) != null) {
+            snapshot = null;
+        }
+    }
+
+    /**
+     * Forgets everything so that the snapshot will be rebuilt on next use.
+     */
+    synchronized void invalidate() {
+        sourcesByChild.clear();
+        built = false;
+        snapshot = null;
+    }
+
+    private static void changed(Object o) {
+        if (o instanceof MultiBranchProject) {
+            MultiBranchProject<?, ?> child = (MultiBranchProject<?, ?>) o;
+            ItemGroup<?> parent = child.getParent();
+            if (parent instanceof OrganizationFolder) {
+                ((OrganizationFolder) parent).childSourcesChanged(child);
+            }
+        }
+    }
+
+    /**
+     * Keeps the snapshots current as children come and go.
+     */
+    @Extension
+    public static class ItemListenerImpl extends ItemListener {
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void onCreated(Item item) {
+            changed(item);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void onUpdated(Item item) {
+            changed(item);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void onDeleted(Item item) {
+            ItemGroup<?> parent = item.getParent();
+            if (parent instanceof OrganizationFolder) {
+                ((OrganizationFolder) parent).childSourcesRemoved(item.getName());
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void onLocationChanged(Item item, String oldFullName, String newFullName) {
+            int slash = oldFullName.lastIndexOf('/');
+            if (slash > 0) {
+                try (ACLContext ctx = ACL.as(ACL.SYSTEM)) {
+                    OrganizationFolder oldParent = Jenkins.get()
+                            .getItemByFullName(oldFullName.substring(0, slash), OrganizationFolder.class);
+                    if (oldParent != null) {
+                        oldParent.childSourcesRemoved(oldFullName.substring(slash + 1));
+                    }
+                }
+            }
+            changed(item);
+        }
+    }
+
+    /**
+     * Captures the sources of children when they are saved, which covers them being disabled or enabled.
+     */
+    @Extension
+    public static class SaveableListenerImpl extends SaveableListener {
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void onChange(Saveable o, XmlFile file) {
+            changed(o);
+        }
+    }
+}
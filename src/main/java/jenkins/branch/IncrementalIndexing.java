@@ -0,0 +1,241 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package jenkins.branch;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import hudson.Util;
+import hudson.XmlFile;
+import hudson.model.Items;
+import hudson.model.TaskListener;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.scm.api.SCMHead;
+import jenkins.scm.api.SCMRevision;
+import jenkins.scm.api.SCMSource;
+import jenkins.util.SystemProperties;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+import static hudson.Functions.printStackTrace;
+
+/**
+ * The revision of each head of each source as of the last branch indexing, persisted next to a
+ * {@link MultiBranchProject}. When incremental indexing is enabled, a head that is still at the revision it had the
+ * last time, and whose branch project has no changes pending, is only marked as observed, skipping the metadata
+ * fetches, decoration and saves of a full observation. Metadata that changes without a new revision, such as the
+ * title of a change request, is therefore only refreshed by events and by the full indexing that is forced
+ * periodically.
+ * <p>
+ * Enabled with the {@code enabled} system property. The {@code fullIndexHours} system property controls how often a
+ * full indexing is forced. The snapshot is also deleted whenever the configuration of the project is saved or
+ * reloaded, as the sources, traits or project factory may have changed, so the next indexing is a full one.
+ */
+@Restricted(NoExternalUse.class)
+public final class IncrementalIndexing {
+
+    /**
+     * Our logger.
+     */
+    private static final Logger LOGGER = Logger.getLogger(IncrementalIndexing.class.getName());
+
+    /**
+     * Whether incremental indexing is enabled.
+     */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "Accessible via System Groovy Scripts")
+    static /* not final */ boolean ENABLED =
+            SystemProperties.getBoolean(IncrementalIndexing.class.getName() + ".enabled", false);
+
+    /**
+     * How many hours may pass before a full indexing is forced.
+     */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "Accessible via System Groovy Scripts")
+    static /* not final */ int FULL_INDEX_HOURS =
+            SystemProperties.getInteger(IncrementalIndexing.class.getName() + ".fullIndexHours", 24);
+
+    /**
+     * When the last full indexing completed.
+     */
+    private long lastFullIndex;
+
+    /**
+     * The revision of each head as of the last indexing, keyed by {@link SCMSource#getId()} and then by
+     * {@link SCMHead#getName()}.
+     */
+    private Map<String, Map<String, SCMRevision>> revisions = new HashMap<>();
+
+    /**
+     * Whether the current indexing is a full one.
+     */
+    private transient boolean full;
+
+    /**
+     * The revisions being recorded by the current indexing.
+     */
+    private transient Map<String, Map<String, SCMRevision>> next;
+
+    /**
+     * The {@link MultiBranchProject#getConfigGeneration()} when the current indexing started.
+     */
+    private transient int configGeneration;
+
+    /**
+     * The number of heads that took the fast path in the current indexing.
+     */
+    private transient int unchanged;
+
+    /**
+     * Prepares for an indexing of the supplied project.
+     *
+     * @param owner the project.
+     * @param listener the indexing listener.
+     * @return the snapshot or {@code null} if incremental indexing is disabled.
+     */
+    @CheckForNull
+    public static IncrementalIndexing start(@NonNull MultiBranchProject<?, ?> owner, @NonNull TaskListener listener) {
+        if (!ENABLED) {
+            return null;
+        }
+        int configGeneration = owner.getConfigGeneration();
+        IncrementalIndexing snapshot = null;
+        XmlFile file = getFile(owner);
+        if (file.exists()) {
+            try {
+                Object o = file.read();
+                if (o instanceof IncrementalIndexing) {
+                    snapshot = (IncrementalIndexing) o;
+                }
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Could not read indexing snapshot of " + owner.getFullName()
+                        + ", performing a full indexing", e);
+            }
+        }
+        if (snapshot == null) {
+            snapshot = new IncrementalIndexing();
+        }
+        if (snapshot.revisions == null) {
+            snapshot.revisions = new HashMap<>();
+        }
+        long sinceFull = System.currentTimeMillis() - snapshot.lastFullIndex;
+        snapshot.full = snapshot.revisions.isEmpty()
+                || sinceFull >= TimeUnit.HOURS.toMillis(Math.max(0, FULL_INDEX_HOURS));
+        snapshot.next = new HashMap<>();
+        snapshot.configGeneration = configGeneration;
+        snapshot.unchanged = 0;
+        if (snapshot.full) {
+            listener.getLogger().println("Performing a full indexing");
+        } else {
+            listener.getLogger().format("Performing an incremental indexing, last full indexing was %s ago%n",
+                    Util.getTimeSpanString(sinceFull));
+        }
+        return snapshot;
+    }
+
+    /**
+     * Checks if a head is still at the revision it had in the last indexing.
+     *
+     * @param source the source.
+     * @param head the head.
+     * @param revision the current revision of the head.
+     * @return {@code true} if the head can take the fast path.
+     */
+    public boolean isUnchanged(@NonNull SCMSource source, @NonNull SCMHead head, @NonNull SCMRevision revision) {
+        if (full || !revision.isDeterministic()) {
+            return false;
+        }
+        Map<String, SCMRevision> heads = revisions.get(source.getId());
+        return heads != null && revision.equals(heads.get(head.getName()));
+    }
+
+    /**
+     * Records that a head has been observed at a revision that needs no further processing.
+     *
+     * @param source the source.
+     * @param head the head.
+     * @param revision the revision.
+     * @param fastPath whether the head took the fast path.
+     */
+    public synchronized void record(@NonNull SCMSource source, @NonNull SCMHead head, @NonNull SCMRevision revision,
+                                    boolean fastPath) {
+        next.computeIfAbsent(source.getId(), k -> new HashMap<>()).put(head.getName(), revision);
+        if (fastPath) {
+            unchanged++;
+        }
+    }
+
+    /**
+     * Persists the revisions recorded by an indexing that completed normally. Heads that were not observed are
+     * forgotten.
+     *
+     * @param owner the project.
+     * @param listener the indexing listener.
+     */
+    public synchronized void finish(@NonNull MultiBranchProject<?, ?> owner, @NonNull TaskListener listener) {
+        revisions = next;
+        next = new HashMap<>();
+        if (full) {
+            lastFullIndex = System.currentTimeMillis();
+        } else {
+            listener.getLogger().format("%d unchanged heads were only marked as present%n", unchanged);
+        }
+        if (owner.getConfigGeneration() != configGeneration) {
+            listener.getLogger().println("Configuration changed during indexing, not saving indexing snapshot");
+            return;
+        }
+        try {
+            getFile(owner).write(this);
+        } catch (IOException e) {
+            printStackTrace(e, listener.error("Could not save indexing snapshot"));
+        }
+    }
+
+    /**
+     * Deletes the snapshot of a project whose configuration has been saved or reloaded, so that the next indexing is
+     * a full one. An indexing that is already running will not save its snapshot.
+     *
+     * @param owner the project.
+     */
+    public static void invalidate(@NonNull MultiBranchProject<?, ?> owner) {
+        owner.configChanged();
+        File file = getFile(owner).getFile();
+        try {
+            Files.deleteIfExists(file.toPath());
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not delete indexing snapshot of " + owner.getFullName(), e);
+        }
+    }
+
+    private static XmlFile getFile(@NonNull MultiBranchProject<?, ?> owner) {
+        return new XmlFile(Items.XSTREAM2, new File(owner.getRootDir(), "indexing-snapshot.xml"));
+    }
+}
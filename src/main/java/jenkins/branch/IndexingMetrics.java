@@ -0,0 +1,411 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package jenkins.branch;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import hudson.model.Action;
+import hudson.model.Api;
+import java.util.concurrent.TimeUnit;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+import org.kohsuke.stapler.export.Exported;
+import org.kohsuke.stapler.export.ExportedBean;
+
+/**
+ * What one branch indexing of a {@link MultiBranchProject} spent its time on and what it did, attached to the
+ * {@link MultiBranchProject.BranchIndexing} and available at {@code indexing/metrics/} and
+ * {@code indexing/metrics/api/json}. While the indexing runs the values so far are reported.
+ */
+@Restricted(NoExternalUse.class)
+@ExportedBean
+public final class IndexingMetrics implements Action {
+
+    /**
+     * When the indexing started.
+     */
+    private final long started;
+
+    /**
+     * How long the indexing took or {@code -1} while it is running.
+     */
+    private long durationMillis = -1;
+
+    /**
+     * How long fetching the actions of the sources took, in nanoseconds so that short fetches are not lost to
+     * rounding.
+     */
+    private long fetchActionsNanos;
+
+    /**
+     * How long fetching and observing the heads of the sources took, in nanoseconds.
+     */
+    private long fetchNanos;
+
+    /**
+     * How long observing the heads took in total, in nanoseconds.
+     */
+    private long observeNanos;
+
+    /**
+     * The number of heads observed.
+     */
+    private long headsSeen;
+
+    /**
+     * The number of branch projects created.
+     */
+    private long headsCreated;
+
+    /**
+     * The number of existing branch projects whose head changed or that were reopened.
+     */
+    private long headsUpdated;
+
+    /**
+     * The number of existing branch projects whose head did not change.
+     */
+    private long headsUnchanged;
+
+    /**
+     * The number of builds scheduled.
+     */
+    private long buildsScheduled;
+
+    /**
+     * The number of files written for branch projects.
+     */
+    private long saves;
+
+    /**
+     * The size of the files written for branch projects.
+     */
+    private long bytesWritten;
+
+    /**
+     * The percentiles of the time taken to observe a head, captured when the indexing completes.
+     */
+    private double observeP50Millis;
+    private double observeP90Millis;
+    private double observeP99Millis;
+    private double observeMaxMillis;
+
+    /**
+     * The time taken to observe each head while the indexing runs.
+     */
+    @CheckForNull
+    private transient LatencyHistogram observeLatency = new LatencyHistogram();
+
+    /**
+     * Constructor.
+     *
+     * @param started when the indexing started.
+     */
+    public IndexingMetrics(long started) {
+        this.started = started;
+    }
+
+    /**
+     * Records the time spent fetching the actions of the sources.
+     *
+     * @param nanos the elapsed time.
+     */
+    public synchronized void fetchedActions(long nanos) {
+        fetchActionsNanos += nanos;
+    }
+
+    /**
+     * Records the time spent fetching and observing the heads of the sources.
+     *
+     * @param nanos the elapsed time.
+     */
+    public synchronized void fetched(long nanos) {
+        fetchNanos += nanos;
+    }
+
+    /**
+     * Records the observation of a head.
+     *
+     * @param nanos the time taken.
+     */
+    public synchronized void observed(long nanos) {
+        headsSeen++;
+        observeNanos += nanos;
+        if (observeLatency != null) {
+            observeLatency.record(nanos);
+        }
+    }
+
+    /**
+     * Records the creation of a branch project.
+     */
+    public synchronized void created() {
+        headsCreated++;
+    }
+
+    /**
+     * Records a change to the head of an existing branch project.
+     */
+    public synchronized void updated() {
+        headsUpdated++;
+    }
+
+    /**
+     * Records an existing branch project whose head did not change.
+     */
+    public synchronized void unchanged() {
+        headsUnchanged++;
+    }
+
+    /**
+     * Records a scheduled build.
+     */
+    public synchronized void scheduled() {
+        buildsScheduled++;
+    }
+
+    /**
+     * Records files written for a branch project.
+     *
+     * @param files the number of files.
+     * @param bytes their total size.
+     */
+    public synchronized void written(int files, long bytes) {
+        saves += files;
+        bytesWritten += bytes;
+    }
+
+    /**
+     * Records the completion of the indexing.
+     *
+     * @param end when the indexing completed.
+     */
+    public synchronized void finish(long end) {
+        durationMillis = end - started;
+        if (observeLatency != null) {
+            observeP50Millis = observeLatency.getP50Millis();
+            observeP90Millis = observeLatency.getP90Millis();
+            observeP99Millis = observeLatency.getP99Millis();
+            observeMaxMillis = observeLatency.getMaxMillis();
+            observeLatency = null;
+        }
+    }
+
+    /**
+     * Returns when the indexing started.
+     *
+     * @return milliseconds since the epoch.
+     */
+    @Exported
+    public long getStarted() {
+        return started;
+    }
+
+    /**
+     * Returns how long the indexing took.
+     *
+     * @return the duration in milliseconds or {@code -1} while the indexing is running.
+     */
+    @Exported
+    public synchronized long getDurationMillis() {
+        return durationMillis;
+    }
+
+    /**
+     * Returns how long fetching the actions of the sources took.
+     *
+     * @return the time in milliseconds.
+     */
+    @Exported
+    public synchronized long getFetchActionsMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(fetchActionsNanos);
+    }
+
+    /**
+     * Returns how long fetching and observing the heads of the sources took.
+     *
+     * @return the time in milliseconds.
+     */
+    @Exported
+    public synchronized long getFetchMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(fetchNanos);
+    }
+
+    /**
+     * Returns how long observing the heads took in total, which is part of {@link #getFetchMillis()}.
+     *
+     * @return the time in milliseconds.
+     */
+    @Exported
+    public synchronized long getObserveMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(observeNanos);
+    }
+
+    /**
+     * Returns the median time taken to observe a head.
+     *
+     * @return the time in milliseconds.
+     */
+    @Exported
+    public synchronized double getObserveP50Millis() {
+        return observeLatency != null ? observeLatency.getP50Millis() : observeP50Millis;
+    }
+
+    /**
+     * Returns the 90th percentile of the time taken to observe a head.
+     *
+     * @return the time in milliseconds.
+     */
+    @Exported
+    public synchronized double getObserveP90Millis() {
+        return observeLatency != null ? observeLatency.getP90Millis() : observeP90Millis;
+    }
+
+    /**
+     * Returns the 99th percentile of the time taken to observe a head.
+     *
+     * @return the time in milliseconds.
+     */
+    @Exported
+    public synchronized double getObserveP99Millis() {
+        return observeLatency != null ? observeLatency.getP99Millis() : observeP99Millis;
+    }
+
+    /**
+     * Returns the longest time taken to observe a head.
+     *
+     * @return the time in milliseconds.
+     */
+    @Exported
+    public synchronized double getObserveMaxMillis() {
+        return observeLatency != null ? observeLatency.getMaxMillis() : observeMaxMillis;
+    }
+
+    /**
+     * Returns the number of heads observed.
+     *
+     * @return the number of heads.
+     */
+    @Exported
+    public synchronized long getHeadsSeen() {
+        return headsSeen;
+    }
+
+    /**
+     * Returns the number of branch projects created.
+     *
+     * @return the number of branch projects.
+     */
+    @Exported
+    public synchronized long getHeadsCreated() {
+        return headsCreated;
+    }
+
+    /**
+     * Returns the number of existing branch projects whose head changed or that were reopened.
+     *
+     * @return the number of branch projects.
+     */
+    @Exported
+    public synchronized long getHeadsUpdated() {
+        return headsUpdated;
+    }
+
+    /**
+     * Returns the number of existing branch projects whose head did not change.
+     *
+     * @return the number of branch projects.
+     */
+    @Exported
+    public synchronized long getHeadsUnchanged() {
+        return headsUnchanged;
+    }
+
+    /**
+     * Returns the number of builds scheduled.
+     *
+     * @return the number of builds.
+     */
+    @Exported
+    public synchronized long getBuildsScheduled() {
+        return buildsScheduled;
+    }
+
+    /**
+     * Returns the number of files written for branch projects.
+     *
+     * @return the number of files.
+     */
+    @Exported
+    public synchronized long getSaves() {
+        return saves;
+    }
+
+    /**
+     * Returns the size of the files written for branch projects. Revisions whose writing is deferred to the
+     * revision cache or kept in the revision store are not included.
+     *
+     * @return the size in bytes.
+     */
+    @Exported
+    public synchronized long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    /**
+     * Remote API access.
+     *
+     * @return the remote API.
+     */
+    public Api getApi() {
+        return new Api(this);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @CheckForNull
+    @Override
+    public String getIconFileName() {
+        // reachable by URL only
+        return null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getDisplayName() {
+        return Messages.IndexingMetrics_DisplayName();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getUrlName() {
+        return "metrics";
+    }
+}
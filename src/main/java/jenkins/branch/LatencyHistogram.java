@@ -0,0 +1,178 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package jenkins.branch;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+import org.kohsuke.stapler.export.Exported;
+import org.kohsuke.stapler.export.ExportedBean;
+
+/**
+ * A lock-free latency histogram with fixed 1-2-5 buckets from one microsecond up to 1000 seconds. Percentiles are
+ * reported as the upper bound of the bucket that contains them, so they are accurate to within one bucket.
+ */
+@Restricted(NoExternalUse.class)
+@ExportedBean
+public final class LatencyHistogram {
+
+    /**
+     * The inclusive upper bound of each bucket in microseconds. Anything larger goes in an extra overflow bucket.
+     */
+    private static final long[] BOUNDS_MICROS;
+
+    static {
+        BOUNDS_MICROS = new long[30];
+        long decade = 1;
+        for (int i = 0; i < BOUNDS_MICROS.length; i += 3) {
+            BOUNDS_MICROS[i] = decade;
+            BOUNDS_MICROS[i + 1] = decade * 2;
+            BOUNDS_MICROS[i + 2] = decade * 5;
+            decade *= 10;
+        }
+    }
+
+    /**
+     * The number of samples in each bucket.
+     */
+    private final AtomicLongArray buckets = new AtomicLongArray(BOUNDS_MICROS.length + 1);
+
+    /**
+     * The number of samples.
+     */
+    private final AtomicLong count = new AtomicLong();
+
+    /**
+     * The sum of all samples in microseconds.
+     */
+    private final AtomicLong totalMicros = new AtomicLong();
+
+    /**
+     * The largest sample in microseconds.
+     */
+    private final LongAccumulator maxMicros = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Records a sample.
+     *
+     * @param nanos the sample in nanoseconds, negative values are recorded as zero.
+     */
+    public void record(long nanos) {
+        long micros = Math.max(0L, TimeUnit.NANOSECONDS.toMicros(nanos));
+        int index = Arrays.binarySearch(BOUNDS_MICROS, micros);
+        buckets.incrementAndGet(index < 0 ? -index - 1 : index);
+        totalMicros.addAndGet(micros);
+        maxMicros.accumulate(micros);
+        count.incrementAndGet();
+    }
+
+    /**
+     * Returns the number of samples.
+     *
+     * @return the number of samples.
+     */
+    @Exported
+    public long getCount() {
+        return count.get();
+    }
+
+    /**
+     * Returns the mean of the samples in milliseconds.
+     *
+     * @return the mean of the samples in milliseconds.
+     */
+    @Exported
+    public double getMeanMillis() {
+        long c = count.get();
+        return c == 0 ? 0 : totalMicros.get() / 1000.0 / c;
+    }
+
+    /**
+     * Returns the median in milliseconds.
+     *
+     * @return the median in milliseconds.
+     */
+    @Exported
+    public double getP50Millis() {
+        return percentileMillis(0.50);
+    }
+
+    /**
+     * Returns the 90th percentile in milliseconds.
+     *
+     * @return the 90th percentile in milliseconds.
+     */
+    @Exported
+    public double getP90Millis() {
+        return percentileMillis(0.90);
+    }
+
+    /**
+     * Returns the 99th percentile in milliseconds.
+     *
+     * @return the 99th percentile in milliseconds.
+     */
+    @Exported
+    public double getP99Millis() {
+        return percentileMillis(0.99);
+    }
+
+    /**
+     * Returns the largest sample in milliseconds.
+     *
+     * @return the largest sample in milliseconds.
+     */
+    @Exported
+    public double getMaxMillis() {
+        return maxMicros.get() / 1000.0;
+    }
+
+    /**
+     * Returns a percentile in milliseconds.
+     *
+     * @param quantile the quantile, between {@code 0} and {@code 1}.
+     * @return the percentile in milliseconds or {@code 0} if there are no samples.
+     */
+    public double percentileMillis(double quantile) {
+        long c = count.get();
+        if (c == 0) {
+            return 0;
+        }
+        long max = maxMicros.get();
+        long rank = Math.max(1L, (long) Math.ceil(quantile * c));
+        long seen = 0;
+        for (int i = 0; i < BOUNDS_MICROS.length; i++) {
+            seen += buckets.get(i);
+            if (seen >= rank) {
+                return Math.min(BOUNDS_MICROS[i], max) / 1000.0;
+            }
+        }
+        return max / 1000.0;
+    }
+}
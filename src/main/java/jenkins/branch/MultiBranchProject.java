@@ -58,6 +58,7 @@ import hudson.model.View;
 import hudson.model.listeners.ItemListener;
 import hudson.model.listeners.SaveableListener;
 import hudson.scm.PollingResult;
+import hudson.scm.SCM;
 import hudson.security.ACL;
 import hudson.security.Permission;
 import hudson.util.PersistedList;
@@ -67,19 +68,24 @@ import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.IdentityHashMap;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
 import java.util.logging.Level;
 import java.util.logging.LogRecord;
 import java.util.logging.Logger;
@@ -94,6 +100,7 @@ import jenkins.scm.api.SCMHead;
 import jenkins.scm.api.SCMHeadEvent;
 import jenkins.scm.api.SCMHeadMigration;
 import jenkins.scm.api.SCMHeadObserver;
+import jenkins.scm.api.SCMNavigator;
 import jenkins.scm.api.SCMRevision;
 import jenkins.scm.api.SCMSource;
 import jenkins.scm.api.SCMSourceCriteria;
@@ -131,6 +138,22 @@ public abstract class MultiBranchProject<P extends Job<P, R> & TopLevelItem,
     private static /* not final */ boolean FIRE_SCM_SOURCE_BUILDS_AFTER_SAVE =
         SystemProperties.getBoolean(MultiBranchProject.class.getName() + ".fireSCMSourceBuildsAfterSave", true);
 
+    /**
+     * Whether branch indexing fetches from the sources of a project concurrently. Each indexing then uses a thread
+     * per source, and holds the heads of every source in memory until the earlier sources have been processed.
+     */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "Accessible via System Groovy Scripts")
+    static /* not final */ boolean PARALLEL_SOURCE_FETCH =
+        SystemProperties.getBoolean(MultiBranchProject.class.getName() + ".parallelSourceFetch", false);
+
+    /**
+     * How many observed heads ahead branch indexing fetches the metadata of heads and revisions, {@code 0} to fetch
+     * it only when each head is reconciled.
+     */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "Accessible via System Groovy Scripts")
+    static /* not final */ int METADATA_PREFETCH =
+        SystemProperties.getInteger(MultiBranchProject.class.getName() + ".metadataPrefetch", 0);
+
     /**
      * Our logger.
      */
@@ -160,6 +183,16 @@ public abstract class MultiBranchProject<P extends Job<P, R> & TopLevelItem,
 
     private transient String srcDigest, facDigest;
 
+    /**
+     * The branch jobs keyed by branch name.
+     */
+    private transient /*almost final*/ BranchNameIndex<P> branchIndex;
+
+    /**
+     * Incremented whenever the configuration is saved or reloaded.
+     */
+    private transient volatile int configGeneration;
+
     /**
      * Constructor, mandated by {@link TopLevelItem}.
      *
@@ -177,6 +210,7 @@ public abstract class MultiBranchProject<P extends Job<P, R> & TopLevelItem,
     @Override
     public void onLoad(ItemGroup<? extends Item> parent, String name) throws IOException {
         super.onLoad(parent, name);
+        IncrementalIndexing.invalidate(this);
         init2();
         PropertyMigration.applyAll(this);
         try {
@@ -199,6 +233,7 @@ public abstract class MultiBranchProject<P extends Job<P, R> & TopLevelItem,
             LOGGER.log(Level.WARNING, "Could not read persisted state, will be recovered on next index.", e);
             state.reset();
         }
+        SCMEventRoutingIndex.get().update(this);
         // optimize lookup of sources by building a temporary map that is equivalent to getSCMSource(id) in results
         Map<String,SCMSource> sourceMap = new HashMap<>();
         for (BranchSource source : sources) {
@@ -257,6 +292,12 @@ public abstract class MultiBranchProject<P extends Job<P, R> & TopLevelItem,
             nullSCMSource = new NullSCMSource();
         }
         nullSCMSource.setOwner(this);
+        if (branchIndex == null) {
+            branchIndex = new BranchNameIndex<>();
+        } else {
+            // the children may have been reloaded
+            branchIndex.invalidate();
+        }
         for (SCMSource source : getSCMSources()) {
             source.setOwner(this);
         }
@@ -410,6 +451,7 @@ public abstract class MultiBranchProject<P extends Job<P, R> & TopLevelItem,
         if (this.sources.isEmpty() || sources.isEmpty()) {
             // easy
             this.sources.replaceBy(sources);
+            sourcesReplaced();
             return;
         }
         Set<String> oldIds = sourceIds(this.sources);
@@ -417,6 +459,7 @@ public abstract class MultiBranchProject<P extends Job<P, R> & TopLevelItem,
         if (oldIds.containsAll(newIds) || newIds.containsAll(oldIds)) {
             // either adding, removing, or updating without an id change
             this.sources.replaceBy(sources);
+            sourcesReplaced();
             return;
         }
         // Now we need to check if any of the new entries are effectively the same as an old entry that is being removed
@@ -448,6 +491,7 @@ public abstract class MultiBranchProject<P extends Job<P, R> & TopLevelItem,
             }
         }
         this.sources.replaceBy(sources);
+        sourcesReplaced();
         BranchProjectFactory<P,R> factory = getProjectFactory();
         for (P item: getItems(factory::isProject)) {
             Branch oldBranch = factory.getBranch(item);
@@ -459,6 +503,15 @@ public abstract class MultiBranchProject<P extends Job<P, R> & TopLevelItem,
         }
     }
 
+    /**
+     * Refreshes what is remembered about the sources once they have been replaced.
+     */
+    private void sourcesReplaced() {
+        SCMEventRoutingIndex.get().update(this);
+        // the revisions processed for the old sources say nothing about the new ones
+        SCMHeadEventDeduplicator.get().invalidate(getFullName());
+    }
+
     private Set<String> sourceIds(List<BranchSource> sources) {
         Set<String> result = new HashSet<>();
         for (BranchSource s: sources) {
@@ -576,6 +629,8 @@ public abstract class MultiBranchProject<P extends Job<P, R> & TopLevelItem,
     @Override
     protected void computeChildren(final ChildObserver<P> observer, final TaskListener listener)
             throws IOException, InterruptedException {
+        // anything that shed events would have told us will be picked up now
+        SCMEventIngestion.get().computationStarted(this);
         // capture the current digests to prevent unnecessary reindex if re-saving after index
         try {
             srcDigest = Util.getDigestOf(Items.XSTREAM2.toXML(sources));
@@ -589,18 +644,44 @@ public abstract class MultiBranchProject<P extends Job<P, R> & TopLevelItem,
         }
         long start = System.currentTimeMillis();
         listener.getLogger().format("[%tc] Starting branch indexing...%n", start);
+        IndexingMetrics metrics = new IndexingMetrics(start);
+        getComputation().replaceAction(metrics);
+        SCMSourceFetchExecutor fetcher = null;
         try {
             final BranchProjectFactory<P, R> _factory = getProjectFactory();
+            IncrementalIndexing incremental = IncrementalIndexing.start(this, listener);
             List<SCMSource> scmSources = getSCMSources();
+            // with several sources, talk to them all at once but apply the results in source priority order
+            boolean parallel = PARALLEL_SOURCE_FETCH && scmSources.size() > 1;
+            if (parallel) {
+                // our own threads, so that one indexing cannot hold up the event processing or other indexing
+                fetcher = new SCMSourceFetchExecutor(scmSources.size(), 0, SCMEventDispatcher.VIRTUAL_THREADS);
+            }
+            long phaseStarted = System.nanoTime();
+            List<BufferedSCMCall<List<Action>>> actionCalls = new ArrayList<>();
+            if (parallel) {
+                for (SCMSource source : scmSources) {
+                    actionCalls.add(BufferedSCMCall.submit(fetcher, l -> source.fetchActions(null, l)));
+                }
+            }
             Map<String, List<Action>> sourceActions = new LinkedHashMap<>();
-            for (SCMSource source : scmSources) {
-                try {
-                    sourceActions.put(source.getId(), source.fetchActions(null, listener));
-                } catch (IOException | InterruptedException | RuntimeException e) {
-                    listener.error("[%tc] Could not update folder level actions from source %s",
-                            System.currentTimeMillis(), source.getId());
-                    throw e;
+            try {
+                for (int i = 0; i < scmSources.size(); i++) {
+                    SCMSource source = scmSources.get(i);
+                    try {
+                        sourceActions.put(source.getId(), parallel
+                                ? actionCalls.get(i).get(listener)
+                                : source.fetchActions(null, listener));
+                    } catch (IOException | InterruptedException | RuntimeException e) {
+                        listener.error("[%tc] Could not update folder level actions from source %s",
+                                System.currentTimeMillis(), source.getId());
+                        throw e;
+                    }
                 }
+            } finally {
+                // only has an effect if we gave up early
+                BufferedSCMCall.cancelAll(actionCalls);
+                metrics.fetchedActions(System.nanoTime() - phaseStarted);
             }
             // update any persistent actions for the SCMSource
             if (!sourceActions.equals(state.sourceActions)) {
@@ -636,28 +717,69 @@ public abstract class MultiBranchProject<P extends Job<P, R> & TopLevelItem,
                     bc.abort();
                 }
             }
-            for (final SCMSource source : scmSources) {
-                try {
-                    source.fetch(new SCMHeadObserverImpl(source, observer, listener, _factory,
-                            new IndexingCauseFactory(), null), listener);
-                } catch (IOException | InterruptedException | RuntimeException e) {
-                    listener.error("[%tc] Could not fetch branches from source %s",
-                            System.currentTimeMillis(), source.getId());
-                    throw e;
+            phaseStarted = System.nanoTime();
+            List<BufferedSCMCall<RecordingHeadObserver>> headCalls = new ArrayList<>();
+            if (parallel) {
+                for (SCMSource source : scmSources) {
+                    headCalls.add(BufferedSCMCall.submit(fetcher, l -> {
+                        RecordingHeadObserver recorder = new RecordingHeadObserver();
+                        source.fetch(recorder, l);
+                        return recorder;
+                    }));
                 }
             }
+            try {
+                for (int i = 0; i < scmSources.size(); i++) {
+                    SCMSource source = scmSources.get(i);
+                    try {
+                        SCMHeadObserverImpl sourceObserver = new SCMHeadObserverImpl(source, observer, listener,
+                                _factory, new IndexingCauseFactory(), null, incremental, METADATA_PREFETCH, metrics);
+                        try {
+                            if (parallel) {
+                                // replay in source order so that take-overs between sources stay deterministic
+                                headCalls.get(i).get(listener).replay(sourceObserver);
+                            } else {
+                                source.fetch(sourceObserver, listener);
+                            }
+                            sourceObserver.flush();
+                        } finally {
+                            // only has an effect if we gave up early
+                            sourceObserver.cancelPending();
+                        }
+                    } catch (IOException | InterruptedException | RuntimeException e) {
+                        listener.error("[%tc] Could not fetch branches from source %s",
+                                System.currentTimeMillis(), source.getId());
+                        throw e;
+                    }
+                }
+            } finally {
+                // only has an effect if we gave up early
+                BufferedSCMCall.cancelAll(headCalls);
+                metrics.fetched(System.nanoTime() - phaseStarted);
+            }
+            if (incremental != null) {
+                incremental.finish(this, listener);
+            }
         } finally {
+            if (fetcher != null) {
+                fetcher.shutdown();
+            }
+            RevisionCache revisions = RevisionCache.get();
+            if (revisions != null) {
+                revisions.flush(this);
+            }
             long end = System.currentTimeMillis();
+            metrics.finish(end);
             listener.getLogger().format("[%tc] Finished branch indexing. Indexing took %s%n", end,
                     Util.getTimeSpanString(end - start));
         }
     }
 
-    private void scheduleBuild(BranchProjectFactory<P, R> factory, final P item, SCMRevision revision, TaskListener listener, String name, Cause[] causes, Action... actions) {
+    private boolean scheduleBuild(BranchUnitOfWork<P, R> work, final P item, SCMRevision revision, TaskListener listener, String name, Cause[] causes, Action... actions) {
         if (!isBuildable()) {
             listener.getLogger().printf("Did not schedule build for branch: %s (%s is disabled)%n",
                     name, getDisplayName());
-            return;
+            return false;
         }
         // JENKINS-48090 see Queue.Item.getCauses() which only operates on the first CauseAction
         // We need to merge any additional causes with the causes we are supplying
@@ -690,13 +812,11 @@ public abstract class MultiBranchProject<P extends Job<P, R> & TopLevelItem,
         }
         if (ParameterizedJobMixIn.scheduleBuild2(item, -1, _actions) != null) {
             listener.getLogger().println("Scheduled build for branch: " + name);
-            try {
-                factory.setRevisionHash(item, revision);
-            } catch (IOException e) {
-                printStackTrace(e, listener.error("Could not update last revision hash"));
-            }
+            work.setRevisionHash(item, revision);
+            return true;
         } else {
             listener.getLogger().println("Did not schedule build for branch: " + name);
+            return false;
         }
     }
 
@@ -758,7 +878,51 @@ public abstract class MultiBranchProject<P extends Job<P, R> & TopLevelItem,
      */
     @CheckForNull
     public P getItemByBranchName(@NonNull String branchName) {
-        return super.getItem(NameEncoder.encode(branchName));
+        BranchNameIndex<P> index = branchIndex;
+        if (index == null) {
+            return super.getItem(NameEncoder.encode(branchName));
+        }
+        P item = index.get(this, items.values(), branchName);
+        if (item != null && items.get(item.getName()) != item) {
+            // we missed a notification for this job
+            index.remove(item.getName());
+            item = null;
+        }
+        if (item == null) {
+            // a job that is not indexed yet
+            item = items.get(NameEncoder.encode(branchName));
+            if (item == null) {
+                return null;
+            }
+            index.update(this, item);
+        }
+        // subject to the same permission checks as any other lookup
+        return super.getItem(item.getName());
+    }
+
+    /**
+     * Records that a child has been created or moved here.
+     *
+     * @param item the child.
+     */
+    void branchIndexUpdated(@NonNull Item item) {
+        BranchNameIndex<P> index = branchIndex;
+        BranchProjectFactory<P, R> factory = getProjectFactory();
+        if (index != null && factory.isProject(item)) {
+            index.update(this, factory.asProject(item));
+        }
+    }
+
+    /**
+     * Records that a child has gone away.
+     *
+     * @param itemName the {@link Item#getName()} of the child.
+     */
+    void branchIndexRemoved(@NonNull String itemName) {
+        BranchNameIndex<P> index = branchIndex;
+        if (index != null) {
+            index.remove(itemName);
+        }
     }
 
     /**
@@ -900,6 +1064,7 @@ public abstract class MultiBranchProject<P extends Job<P, R> & TopLevelItem,
             }
             setProjectFactory(req.bindJSON(BranchProjectFactory.class, json.getJSONObject("projectFactory")));
         }
+        IncrementalIndexing.invalidate(this);
         fireSCMSourceAfterSave(_sources);
         recalculateAfterSubmitted(updateDigests());
     }
@@ -914,6 +1079,22 @@ public abstract class MultiBranchProject<P extends Job<P, R> & TopLevelItem,
         }
     }
 
+    /**
+     * Returns a number that changes whenever the configuration is saved or reloaded.
+     *
+     * @return a number that changes whenever the configuration is saved or reloaded.
+     */
+    /*package*/ int getConfigGeneration() {
+        return configGeneration;
+    }
+
+    /**
+     * Records that the configuration has been saved or reloaded.
+     */
+    /*package*/ synchronized void configChanged() {
+        configGeneration++;
+    }
+
     /**
      * Updates the digests used to detect changes to the sources and project factories (which would mandate a
      * recalculation).
@@ -1025,6 +1206,16 @@ public abstract class MultiBranchProject<P extends Job<P, R> & TopLevelItem,
             return "indexing/";
         }
 
+        /**
+         * Returns the metrics of this branch indexing.
+         *
+         * @return the metrics or {@code null} if this branch indexing has not started or predates them.
+         */
+        @CheckForNull
+        public IndexingMetrics getMetrics() {
+            return getAction(IndexingMetrics.class);
+        }
+
         @Override
         public void run() {
             long start = System.currentTimeMillis();
@@ -1103,6 +1294,11 @@ public abstract class MultiBranchProject<P extends Job<P, R> & TopLevelItem,
             for (BranchSource branchSource : this) {
                 branchSource.getSource().setOwner((MultiBranchProject) owner);
             }
+            MultiBranchProject<?, ?> project = (MultiBranchProject<?, ?>) owner;
+            SCMEventRoutingIndex.get().update(project);
+            if (project.getParent() instanceof OrganizationFolder) {
+                ((OrganizationFolder) project.getParent()).childSourcesChanged(project);
+            }
         }
     }
 
@@ -1114,6 +1310,9 @@ public abstract class MultiBranchProject<P extends Job<P, R> & TopLevelItem,
 
         private final EventOutputStreams globalEvents = createGlobalEvents();
 
+        private final AsyncEventsLog globalEventsLog =
+                new AsyncEventsLog(MultiBranchProject.class.getName(), globalEvents::get);
+
         private EventOutputStreams createGlobalEvents() {
             File logsDir = new File(Jenkins.get().getRootDir(), "logs");
             if (!logsDir.isDirectory() && !logsDir.mkdirs()) {
@@ -1150,7 +1349,19 @@ public abstract class MultiBranchProject<P extends Job<P, R> & TopLevelItem,
          */
         @Restricted(NoExternalUse.class)
         public StreamTaskListener globalEventsListener() {
-            return new StreamBuildListener(globalEvents.get(), StandardCharsets.UTF_8);
+            return new StreamBuildListener(globalEventsLog.open(), StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Returns the projects that may be interested in the supplied event.
+         *
+         * @param event the event.
+         * @return the candidate projects, or all projects if the event cannot be routed.
+         */
+        @SuppressWarnings("rawtypes")
+        private static List<MultiBranchProject> candidates(SCMEvent<?> event) {
+            List<MultiBranchProject> candidates = SCMEventRoutingIndex.get().candidates(event);
+            return candidates != null ? candidates : Jenkins.get().getAllItems(MultiBranchProject.class);
         }
 
         /**
@@ -1158,7 +1369,47 @@ public abstract class MultiBranchProject<P extends Job<P, R> & TopLevelItem,
          */
         @Override
         public void onSCMHeadEvent(final SCMHeadEvent<?> event) {
+            SCMEventMetrics.get().received(event);
+            if (!SCMEventIngestion.get().process(event, () -> handleHeadEvent(event))) {
+                shed(event, event::isMatch);
+            }
+        }
+
+        /**
+         * Records that an event was shed and requests a catch-up indexing of the projects that it may affect.
+         *
+         * @param event the event.
+         * @param matcher tests if the event matches a source.
+         */
+        private void shed(SCMEvent<?> event, Predicate<SCMSource> matcher) {
             try (StreamTaskListener global = globalEventsListener()) {
+                global.getLogger().format("[%tc] Shed %s %s event from %s with timestamp %tc as the %s lane is full%n",
+                        System.currentTimeMillis(),
+                        StringUtils.defaultIfBlank(event.description(), event.getClass().getName()),
+                        event.getType().name(), event.getOrigin(), event.getTimestamp(),
+                        SCMEventMetrics.Lane.of(event));
+                SCMEventIngestion ingestion = SCMEventIngestion.get();
+                for (MultiBranchProject<?, ?> p : candidates(event)) {
+                    if (!p.isBuildable()) {
+                        continue;
+                    }
+                    for (SCMSource source : p.getSCMSources()) {
+                        if (matcher.test(source)) {
+                            if (ingestion.requestCatchUp(p)) {
+                                global.getLogger().format("Scheduled catch-up indexing of %s%n", p.getFullName());
+                            }
+                            break;
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Could not close global event log file", e);
+            }
+        }
+
+        private void handleHeadEvent(final SCMHeadEvent<?> event) {
+            try (SCMHeadEventMemo memo = SCMHeadEventMemo.open(event);
+                 StreamTaskListener global = globalEventsListener()) {
                 String eventDescription = StringUtils.defaultIfBlank(event.description(), event.getClass().getName());
                 String eventType = event.getType().name();
                 String eventOrigin = event.getOrigin();
@@ -1173,6 +1424,9 @@ public abstract class MultiBranchProject<P extends Job<P, R> & TopLevelItem,
                         }
                 );
                 int matchCount = 0;
+                SCMEventRoutingIndex routing = SCMEventRoutingIndex.get();
+                long generation = routing.getGeneration();
+                List<MultiBranchProject> candidates = candidates(event);
                 // not interested in removal of dead items as that needs to be handled by the computation in order
                 // to ensure that other sources do not want to take ownership and also to ensure that the dead branch
                 // strategy is enforced correctly
@@ -1180,6 +1434,7 @@ public abstract class MultiBranchProject<P extends Job<P, R> & TopLevelItem,
                     if (SCMEvent.Type.CREATED == event.getType()) {
                         matchCount = processHeadCreate(
                                 event,
+                                candidates,
                                 global,
                                 eventDescription,
                                 eventType,
@@ -1190,6 +1445,7 @@ public abstract class MultiBranchProject<P extends Job<P, R> & TopLevelItem,
                     } else if (SCMEvent.Type.UPDATED == event.getType() || SCMEvent.Type.REMOVED == event.getType()) {
                         matchCount = processHeadUpdate(
                                 event,
+                                candidates,
                                 global,
                                 eventDescription,
                                 eventType,
@@ -1198,6 +1454,11 @@ public abstract class MultiBranchProject<P extends Job<P, R> & TopLevelItem,
                                 matchCount
                         );
                     }
+                    // remember a routing key that none of its candidates cares about
+                    String routingKey = candidates.isEmpty() ? null : routing.routingKey(event);
+                    if (routingKey != null && !anyMatch(candidates, memo)) {
+                        routing.noMatch(routingKey, generation);
+                    }
                 } catch (InterruptedException e) {
                     printStackTrace(e, global.error("[%tc] Interrupted while processing %s %s event from %s with timestamp %tc",
                             System.currentTimeMillis(), eventDescription, eventType, eventOrigin, eventTimestamp));
@@ -1212,415 +1473,932 @@ public abstract class MultiBranchProject<P extends Job<P, R> & TopLevelItem,
             }
         }
 
-        private int processHeadCreate(SCMHeadEvent<?> event, TaskListener global, String eventDescription,
+        private int processHeadCreate(SCMHeadEvent<?> event, List<MultiBranchProject> candidates,
+                                      TaskListener global, String eventDescription,
                                       String eventType, String eventOrigin, long eventTimestamp, int matchCount)
-                throws IOException, InterruptedException {
-            Set<String> sourceIds = new HashSet<>();
-            for (MultiBranchProject<?, ?> p : Jenkins.get().getAllItems(MultiBranchProject.class)) {
-                String pFullName = p.getFullName();
+                throws InterruptedException {
+            SCMEventDispatcher dispatcher = SCMEventDispatcher.get();
+            List<Future<Boolean>> tasks = new ArrayList<>();
+            List<MultiBranchProject<?, ?>> projects = buildable(candidates, eventDescription, eventType,
+                    eventTimestamp);
+            SharedHeadFetch shared = dispatcher.isBatchHeadEvents() ? null : SharedHeadFetch.create(event, projects);
+            for (MultiBranchProject<?, ?> p : projects) {
+                if (dispatcher.isBatchHeadEvents()) {
+                    tasks.add(dispatcher.submitBatched(p, event, events -> processHeadBatch(p, events, global)));
+                } else {
+                    tasks.add(dispatcher.submit(p, () -> processHeadCreate(p, event, global, eventDescription,
+                            eventType, eventOrigin, eventTimestamp, shared)));
+                }
+            }
+            return matchCount + dispatcher.awaitMatches(tasks, global);
+        }
+
+        /**
+         * Returns the buildable projects among the candidates for an event.
+         *
+         * @param candidates the {@link #candidates(SCMEvent)} for the event.
+         * @param eventDescription the description of the event.
+         * @param eventType the type of the event.
+         * @param eventTimestamp the timestamp of the event.
+         * @return the buildable candidates.
+         */
+        @SuppressWarnings("rawtypes")
+        private static List<MultiBranchProject<?, ?>> buildable(List<MultiBranchProject> candidates,
+                                                                String eventDescription, String eventType,
+                                                                long eventTimestamp) {
+            List<MultiBranchProject<?, ?>> result = new ArrayList<>();
+            for (MultiBranchProject<?, ?> p : candidates) {
                 if (!p.isBuildable()) {
                     LOGGER.log(Level.FINER, "{0} {1} {2,date} {2,time}: Ignoring {3} because it is disabled",
                             new Object[]{
-                                    eventDescription, eventType, eventTimestamp, pFullName
+                                    eventDescription, eventType, eventTimestamp, p.getFullName()
                             }
                     );
                     continue;
                 }
-                sourceIds.clear();
-                LOGGER.log(Level.FINER, "{0} {1} {2,date} {2,time}: Checking {3} for a match",
+                result.add(p);
+            }
+            return result;
+        }
+
+        /**
+         * Checks whether a source of any of the candidates for an event matches it, reusing the results that the
+         * dispatch of the event left in its memo.
+         *
+         * @param candidates the {@link #candidates(SCMEvent)} for the event.
+         * @param memo the memo of the event.
+         * @return {@code true} if a source of any candidate matches the event.
+         */
+        @SuppressWarnings("rawtypes")
+        private static boolean anyMatch(List<MultiBranchProject> candidates, SCMHeadEventMemo memo) {
+            for (MultiBranchProject<?, ?> p : candidates) {
+                for (SCMSource source : p.getSCMSources()) {
+                    if (memo.isMatch(source)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Works out whether a head that a {@link SCMEvent.Type#CREATED} event reported for a source could create a
+         * new branch job.
+         *
+         * @param p the project.
+         * @param _factory the project factory.
+         * @param source the source that the head was reported for.
+         * @param name the name of the head.
+         * @param sourceIds the ids of the sources with a higher priority than the source.
+         * @param eventDescription the description of the event.
+         * @param eventType the type of the event.
+         * @param eventTimestamp the timestamp of the event.
+         * @return {@code "new"}, {@code "resurrect"} or {@code "takeover"} if the head could create a new branch
+         * job, {@code null} otherwise.
+         */
+        @CheckForNull
+        private static String createReason(MultiBranchProject<?, ?> p, BranchProjectFactory _factory,
+                                           SCMSource source, String name, Set<String> sourceIds,
+                                           String eventDescription, String eventType, long eventTimestamp) {
+            String pFullName = p.getFullName();
+            Job job = p.getItemByBranchName(name);
+            if (job == null) {
+                LOGGER.log(Level.FINE, "{0} {1} {2,date} {2,time}: Project {3}: Source {4}: Match: {5}",
                         new Object[]{
-                                eventDescription, eventType, eventTimestamp, pFullName
+                                eventDescription, eventType, eventTimestamp, pFullName, source.getId(), name
                         }
                 );
-                boolean haveMatch = false;
-                final BranchProjectFactory _factory = p.getProjectFactory();
-                SOURCES:
-                for (SCMSource source : p.getSCMSources()) {
-                    if (event.isMatch(source)) {
-                        LOGGER.log(Level.FINE, "{0} {1} {2,date} {2,time}: Project {3}: Matches source {4}",
-                                new Object[]{
-                                        eventDescription, eventType, eventTimestamp, pFullName, source.getId()
-                                }
-                        );
-                        for (SCMHead h : event.heads(source).keySet()) {
-                            String name = h.getName();
-                            Job job = p.getItemByBranchName(name);
-                            if (job == null) {
-                                LOGGER.log(Level.FINE, "{0} {1} {2,date} {2,time}: Project {3}: Source {4}: Match: {5}",
-                                        new Object[]{
-                                                eventDescription, eventType, eventTimestamp, pFullName, source.getId(), name
-                                        }
-                                );
-                                // only interested in create events that actually could create a new branch
-                                haveMatch = true;
-                                matchCount++;
-                                global.getLogger().format("Found match against %s (new branch %s)%n", pFullName, name);
-                                break SOURCES;
-                            }
-                            Branch branch = _factory.getBranch(job);
-                            if (branch instanceof Branch.Dead) {
-                                LOGGER.log(Level.FINE, "{0} {1} {2,date} {2,time}: Project {3}: Source {4}: Match: {5}",
-                                        new Object[]{
-                                                eventDescription, eventType, eventTimestamp, pFullName, source.getId(), name
-                                        }
-                                );
-                                // only interested in create events that actually could create a new branch
-                                haveMatch = true;
-                                matchCount++;
-                                global.getLogger().format("Found match against %s (resurrect branch %s)%n", pFullName, name);
-                                break SOURCES;
-                            }
-                            String sourceId = branch.getSourceId();
-                            if (StringUtils.equals(sourceId, source.getId())) {
-                                LOGGER.log(Level.FINER,
-                                        "{0} {1} {2,date} {2,time}: Project {3}: Source {4}: Already have: {5}",
-                                        new Object[]{
-                                                eventDescription,
-                                                eventType,
-                                                eventTimestamp,
-                                                pFullName,
-                                                source.getId(),
-                                                name
-                                        }
-                                );
-                                continue;
-                            }
-                            if (sourceIds.contains(sourceId)) {
-                                LOGGER.log(Level.FINER,
-                                        "{0} {1} {2,date} {2,time}: Project {3}: Source {4}: Ignored as "
-                                                + "already have {5} from higher priority source {6}",
-                                        new Object[]{
-                                                eventDescription,
-                                                eventType,
-                                                eventTimestamp,
-                                                pFullName,
-                                                source.getId(),
-                                                name,
-                                                sourceId
-                                        }
-                                );
-                                continue;
+                return "new";
+            }
+            Branch branch = _factory.getBranch(job);
+            if (branch instanceof Branch.Dead) {
+                LOGGER.log(Level.FINE, "{0} {1} {2,date} {2,time}: Project {3}: Source {4}: Match: {5}",
+                        new Object[]{
+                                eventDescription, eventType, eventTimestamp, pFullName, source.getId(), name
+                        }
+                );
+                return "resurrect";
+            }
+            String sourceId = branch.getSourceId();
+            if (StringUtils.equals(sourceId, source.getId())) {
+                LOGGER.log(Level.FINER,
+                        "{0} {1} {2,date} {2,time}: Project {3}: Source {4}: Already have: {5}",
+                        new Object[]{
+                                eventDescription,
+                                eventType,
+                                eventTimestamp,
+                                pFullName,
+                                source.getId(),
+                                name
+                        }
+                );
+                return null;
+            }
+            if (sourceIds.contains(sourceId)) {
+                LOGGER.log(Level.FINER,
+                        "{0} {1} {2,date} {2,time}: Project {3}: Source {4}: Ignored as "
+                                + "already have {5} from higher priority source {6}",
+                        new Object[]{
+                                eventDescription,
+                                eventType,
+                                eventTimestamp,
+                                pFullName,
+                                source.getId(),
+                                name,
+                                sourceId
+                        }
+                );
+                return null;
+            }
+            LOGGER.log(Level.FINE,
+                    "{0} {1} {2,date} {2,time}: Project {3}: Source {4}: Match: {5} "
+                            + "overriding lower priority source {6}",
+                    new Object[]{
+                            eventDescription,
+                            eventType,
+                            eventTimestamp,
+                            pFullName,
+                            source.getId(),
+                            name,
+                            sourceId
+                    }
+            );
+            return "takeover";
+        }
+
+        private boolean processHeadCreate(MultiBranchProject<?, ?> p, SCMHeadEvent<?> event, TaskListener global,
+                                          String eventDescription, String eventType, String eventOrigin,
+                                          long eventTimestamp, SharedHeadFetch shared)
+                throws IOException, InterruptedException {
+            SCMHeadEventMemo memo = SCMHeadEventMemo.of(event);
+            SCMEventMetrics metrics = SCMEventMetrics.get();
+            long matchStarted = System.nanoTime();
+            Set<String> sourceIds = new HashSet<>();
+            String pFullName = p.getFullName();
+            LOGGER.log(Level.FINER, "{0} {1} {2,date} {2,time}: Checking {3} for a match",
+                    new Object[]{
+                            eventDescription, eventType, eventTimestamp, pFullName
+                    }
+            );
+            boolean haveMatch = false;
+            final BranchProjectFactory _factory = p.getProjectFactory();
+            SOURCES:
+            for (SCMSource source : p.getSCMSources()) {
+                if (memo.isMatch(source)) {
+                    LOGGER.log(Level.FINE, "{0} {1} {2,date} {2,time}: Project {3}: Matches source {4}",
+                            new Object[]{
+                                    eventDescription, eventType, eventTimestamp, pFullName, source.getId()
                             }
-                            LOGGER.log(Level.FINE,
-                                    "{0} {1} {2,date} {2,time}: Project {3}: Source {4}: Match: {5} "
-                                            + "overriding lower priority source {6}",
-                                    new Object[]{
-                                            eventDescription,
-                                            eventType,
-                                            eventTimestamp,
-                                            pFullName,
-                                            source.getId(),
-                                            name,
-                                            sourceId
-                                    }
-                            );
+                    );
+                    for (SCMHead h : memo.heads(source).keySet()) {
+                        String name = h.getName();
+                        String reason = createReason(p, _factory, source, name, sourceIds, eventDescription,
+                                eventType, eventTimestamp);
+                        if (reason != null) {
                             // only interested in create events that actually could create a new branch
                             haveMatch = true;
-                            matchCount++;
-                            global.getLogger().format("Found match against %s (takeover branch %s)%n", pFullName, name);
+                            global.getLogger().format("Found match against %s (%s branch %s)%n", pFullName, reason,
+                                    name);
                             break SOURCES;
                         }
-                        LOGGER.log(Level.FINE, "{0} {1} {2,date} {2,time}: Project {3}: No new projects for {4}",
-                                new Object[]{
-                                        eventDescription, eventType, eventTimestamp, pFullName, source.getId()
-                                }
-                        );
-                    } else {
-                        LOGGER.log(Level.FINEST, "{0} {1} {2,date} {2,time}: Project {3}: Does not matches source {4}",
-                                new Object[]{
-                                        eventDescription, eventType,
-                                        eventTimestamp, pFullName,
-                                        source.getId()
-                                }
-                        );
                     }
-                    sourceIds.add(source.getId());
+                    LOGGER.log(Level.FINE, "{0} {1} {2,date} {2,time}: Project {3}: No new projects for {4}",
+                            new Object[]{
+                                    eventDescription, eventType, eventTimestamp, pFullName, source.getId()
+                            }
+                    );
+                } else {
+                    LOGGER.log(Level.FINEST, "{0} {1} {2,date} {2,time}: Project {3}: Does not matches source {4}",
+                            new Object[]{
+                                    eventDescription, eventType,
+                                    eventTimestamp, pFullName,
+                                    source.getId()
+                            }
+                    );
                 }
-                if (haveMatch) {
-                    long start = System.currentTimeMillis();
-                    try (StreamTaskListener listener = p.getComputation().createEventsListener();
-                         ChildObserver childObserver = p.openEventsChildObserver()) {
-                        try {
-                            listener.getLogger().format("[%tc] Received %s %s event from %s with timestamp %tc%n",
-                                    start, eventDescription, eventType, eventOrigin, eventTimestamp);
-                            for (SCMSource source : p.getSCMSources()) {
-                                if (event.isMatch(source)) {
-                                    source.fetch(
-                                            p.getSCMSourceCriteria(source),
-                                            p.new SCMHeadObserverImpl(
-                                                    source,
-                                                    childObserver,
-                                                    listener,
-                                                    _factory,
-                                                    new EventCauseFactory(event),
-                                                    event),
-                                            event,
-                                            listener
-                                    );
-                                }
+                sourceIds.add(source.getId());
+            }
+            metrics.record(SCMEventMetrics.Stage.MATCH, event, matchStarted);
+            if (haveMatch) {
+                long start = System.currentTimeMillis();
+                try (StreamTaskListener listener = p.getComputation().createEventsListener();
+                     ChildObserver childObserver = p.openEventsChildObserver()) {
+                    try {
+                        listener.getLogger().format("[%tc] Received %s %s event from %s with timestamp %tc%n",
+                                start, eventDescription, eventType, eventOrigin, eventTimestamp);
+                        for (SCMSource source : p.getSCMSources()) {
+                            if (memo.isMatch(source)) {
+                                long fetchStarted = System.nanoTime();
+                                SharedHeadFetch.fetch(
+                                        shared,
+                                        p,
+                                        source,
+                                        p.new SCMHeadObserverImpl(
+                                                source,
+                                                childObserver,
+                                                listener,
+                                                _factory,
+                                                new EventCauseFactory(event),
+                                                event),
+                                        event,
+                                        listener
+                                );
+                                metrics.record(SCMEventMetrics.Stage.FETCH, event, fetchStarted);
                             }
-                        } catch (IOException e) {
-                            printStackTrace(e, listener.error(e.getMessage()));
-                        } catch (InterruptedException e) {
-                            listener.error(e.getMessage());
-                            throw e;
-                        } finally {
-                            long end = System.currentTimeMillis();
-                            listener.getLogger()
-                                    .format("[%tc] %s %s event from %s with timestamp %tc processed in %s%n",
-                                            end, eventDescription, eventType, eventOrigin, eventTimestamp,
-                                            Util.getTimeSpanString(end - start));
                         }
                     } catch (IOException e) {
-                        printStackTrace(e, global.error("[%tc] %s encountered an error while processing %s %s event from %s with timestamp %tc",
-                                System.currentTimeMillis(), ModelHyperlinkNote.encodeTo(p), eventDescription, eventType, eventOrigin, eventTimestamp));
+                        printStackTrace(e, listener.error(e.getMessage()));
                     } catch (InterruptedException e) {
-                        global.error("[%tc] %s was interrupted while processing %s %s event from %s with timestamp %tc",
-                                System.currentTimeMillis(), ModelHyperlinkNote.encodeTo(p), eventDescription, eventType, eventOrigin, eventTimestamp);
+                        listener.error(e.getMessage());
                         throw e;
+                    } finally {
+                        long end = System.currentTimeMillis();
+                        listener.getLogger()
+                                .format("[%tc] %s %s event from %s with timestamp %tc processed in %s%n",
+                                        end, eventDescription, eventType, eventOrigin, eventTimestamp,
+                                        Util.getTimeSpanString(end - start));
                     }
+                } catch (IOException e) {
+                    printStackTrace(e, global.error("[%tc] %s encountered an error while processing %s %s event from %s with timestamp %tc",
+                            System.currentTimeMillis(), ModelHyperlinkNote.encodeTo(p), eventDescription, eventType, eventOrigin, eventTimestamp));
+                } catch (InterruptedException e) {
+                    global.error("[%tc] %s was interrupted while processing %s %s event from %s with timestamp %tc",
+                            System.currentTimeMillis(), ModelHyperlinkNote.encodeTo(p), eventDescription, eventType, eventOrigin, eventTimestamp);
+                    throw e;
                 }
             }
-            return matchCount;
+            return haveMatch;
         }
 
-        private int processHeadUpdate(SCMHeadEvent<?> event, TaskListener global, String eventDescription,
+        private int processHeadUpdate(SCMHeadEvent<?> event, List<MultiBranchProject> candidates,
+                                      TaskListener global, String eventDescription,
                                       String eventType, String eventOrigin, long eventTimestamp, int matchCount)
                 throws InterruptedException {
-            Map<SCMSource, SCMHead> matches = new IdentityHashMap<>();
-            Set<String> candidateNames = new HashSet<>();
-            Map<SCMSource, Map<SCMHead,SCMRevision>> revisionMaps = new IdentityHashMap<>();
-            Set<Job<?, ?>> jobs = new HashSet<>();
-            for (MultiBranchProject<?, ?> p : Jenkins.get().getAllItems(MultiBranchProject.class)) {
-                String pFullName = p.getFullName();
-                if (!p.isBuildable()) {
-                    LOGGER.log(Level.FINER, "{0} {1} {2,date} {2,time}: Ignoring {3} because it is disabled",
-                            new Object[]{
-                                    eventDescription, eventType, eventTimestamp, pFullName
-                            }
-                    );
-                    continue;
+            SCMEventDispatcher dispatcher = SCMEventDispatcher.get();
+            SCMHeadEventCoalescer coalescer = SCMHeadEventCoalescer.get();
+            List<Future<Boolean>> tasks = new ArrayList<>();
+            Map<SCMHeadEventCoalescer.Ticket, MultiBranchProject<?, ?>> tickets = new LinkedHashMap<>();
+            List<MultiBranchProject<?, ?>> projects = buildable(candidates, eventDescription, eventType,
+                    eventTimestamp);
+            SharedHeadFetch shared = SharedHeadFetch.create(event, projects);
+            try {
+                for (MultiBranchProject<?, ?> p : projects) {
+                    final SCMHeadEventCoalescer.Ticket ticket = SCMEvent.Type.UPDATED == event.getType()
+                            ? coalescer.register(p, event, () -> eventHeadNames(p, event)) : null;
+                    if (ticket != null) {
+                        tickets.put(ticket, p);
+                        tasks.add(dispatcher.submitDelayed(p, coalescer.getWindowMillis(), TimeUnit.MILLISECONDS,
+                                () -> {
+                                    SCMHeadEvent<?> newest = coalescer.claim(ticket);
+                                    if (newest == null) {
+                                        global.getLogger().format("Merged %s %s event from %s with timestamp %tc "
+                                                        + "into a newer event for %s%n", eventDescription, eventType,
+                                                eventOrigin, eventTimestamp, p.getFullName());
+                                        return false;
+                                    }
+                                    try {
+                                        if (newest == event) {
+                                            return processHeadUpdate(p, event, global, eventDescription, eventType,
+                                                    eventOrigin, eventTimestamp, shared);
+                                        }
+                                        // an event merged into this one is newer, e.g. this one was redelivered
+                                        return processHeadUpdate(p, newest, global,
+                                                StringUtils.defaultIfBlank(newest.description(),
+                                                        newest.getClass().getName()),
+                                                newest.getType().name(), newest.getOrigin(), newest.getTimestamp(),
+                                                null);
+                                    } finally {
+                                        coalescer.completed(ticket);
+                                    }
+                                }));
+                    } else if (SCMEvent.Type.UPDATED == event.getType() && dispatcher.isBatchHeadEvents()) {
+                        tasks.add(dispatcher.submitBatched(p, event, events -> processHeadBatch(p, events, global)));
+                    } else {
+                        tasks.add(dispatcher.submit(p, () -> processHeadUpdate(p, event, global, eventDescription,
+                                eventType, eventOrigin, eventTimestamp, shared)));
+                    }
                 }
-                LOGGER.log(Level.FINER, "{0} {1} {2,date} {2,time}: Checking {3} for a match",
-                        new Object[]{
-                                eventDescription, eventType, eventTimestamp, pFullName
+                return matchCount + dispatcher.awaitMatches(tasks, global);
+            } finally {
+                // tickets whose processing was cancelled are never claimed, but the events merged into them still
+                // need to be processed
+                for (Map.Entry<SCMHeadEventCoalescer.Ticket, MultiBranchProject<?, ?>> entry : tickets.entrySet()) {
+                    List<SCMHeadEvent<?>> orphans = coalescer.discard(entry.getKey());
+                    if (!orphans.isEmpty()) {
+                        resubmitMerged(entry.getValue(), orphans);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Submits the processing of events that were merged into an event whose processing was cancelled. The events
+         * were received by other dispatches, so the processing is submitted even if this dispatch was interrupted and
+         * is not waited for.
+         *
+         * @param p the project.
+         * @param events the events.
+         */
+        private void resubmitMerged(MultiBranchProject<?, ?> p, List<SCMHeadEvent<?>> events) {
+            SCMEventDispatcher dispatcher = SCMEventDispatcher.get();
+            boolean interrupted = Thread.interrupted();
+            try {
+                for (SCMHeadEvent<?> event : events) {
+                    dispatcher.submit(p, () -> {
+                        try (StreamTaskListener global = globalEventsListener()) {
+                            return processHeadUpdate(p, event, global,
+                                    StringUtils.defaultIfBlank(event.description(), event.getClass().getName()),
+                                    event.getType().name(), event.getOrigin(), event.getTimestamp(), null);
                         }
-                );
-                final BranchProjectFactory _factory = p.getProjectFactory();
-                matches.clear();
-                candidateNames.clear();
-                revisionMaps.clear();
-                for (SCMSource source : p.getSCMSources()) {
-                    if (event.isMatch(source)) {
-                        Map<SCMHead, SCMRevision> eventHeads = event.heads(source);
-                        if (!eventHeads.isEmpty()) {
-                            revisionMaps.put(source, eventHeads);
-                            for (SCMHead h : eventHeads.keySet()) {
-                                candidateNames.add(h.getName());
+                    });
+                }
+            } catch (InterruptedException e) {
+                LOGGER.log(Level.WARNING, "Could not process " + events.size() + " merged events for "
+                        + p.getFullName(), e);
+            } finally {
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        /**
+         * Returns the names of the heads of the supplied project that the supplied event concerns. Only called from
+         * the worker that processes the event for the project.
+         *
+         * @param p the project.
+         * @param event the event.
+         * @return the head names.
+         */
+        private static Set<String> eventHeadNames(MultiBranchProject<?, ?> p, SCMHeadEvent<?> event) {
+            SCMHeadEventMemo memo = SCMHeadEventMemo.of(event);
+            Set<String> names = new HashSet<>();
+            for (SCMSource source : p.getSCMSources()) {
+                if (memo.isMatch(source)) {
+                    for (SCMHead h : memo.heads(source).keySet()) {
+                        names.add(h.getName());
+                    }
+                }
+            }
+            return names;
+        }
+
+        /**
+         * Processes a batch of {@link SCMEvent.Type#CREATED} and {@link SCMEvent.Type#UPDATED} events for the same
+         * project with a single observer pass over the union of the heads that the events report. Each event is
+         * subject to the same checks as when it is processed on its own and each fetch is scoped to the events that
+         * reported heads of the source. Only branches that a {@link SCMEvent.Type#REMOVED} event concerns can be
+         * marked as dead.
+         *
+         * @param p the project.
+         * @param events the events in arrival order.
+         * @param global the global events listener.
+         * @return {@code true} if any of the events matched the project.
+         * @throws IOException if something went wrong.
+         * @throws InterruptedException if interrupted.
+         */
+        private boolean processHeadBatch(MultiBranchProject<?, ?> p, List<SCMHeadEvent<?>> events,
+                                         TaskListener global)
+                throws IOException, InterruptedException {
+            if (events.size() == 1) {
+                SCMHeadEvent<?> event = events.get(0);
+                String eventDescription = StringUtils.defaultIfBlank(event.description(), event.getClass().getName());
+                return SCMEvent.Type.CREATED == event.getType()
+                        ? processHeadCreate(p, event, global, eventDescription, event.getType().name(),
+                                event.getOrigin(), event.getTimestamp(), null)
+                        : processHeadUpdate(p, event, global, eventDescription, event.getType().name(),
+                                event.getOrigin(), event.getTimestamp(), null);
+            }
+            String pFullName = p.getFullName();
+            final BranchProjectFactory _factory = p.getProjectFactory();
+            SCMEventMetrics metrics = SCMEventMetrics.get();
+            SCMHeadEventDeduplicator deduplicator = SCMHeadEventDeduplicator.get();
+            long matchStarted = System.nanoTime();
+            // the heads to observe for each source and the events that reported them
+            Map<SCMSource, Set<SCMHead>> heads = new IdentityHashMap<>();
+            Map<SCMSource, Set<SCMHeadEvent<?>>> sourceEvents = new IdentityHashMap<>();
+            // the newest event that reported each head name, for attributing builds
+            Map<String, SCMHeadEvent<?>> eventsByHead = new HashMap<>();
+            // the branch jobs that a removal event concerns, these are dead unless observed
+            Set<Job<?, ?>> removed = new HashSet<>();
+            // the update events to remember as processed
+            Map<SCMHeadEvent<?>, Map<SCMSource, Map<SCMHead, SCMRevision>>> updates = new IdentityHashMap<>();
+            for (SCMHeadEvent<?> event : events) {
+                String eventDescription = StringUtils.defaultIfBlank(event.description(), event.getClass().getName());
+                String eventType = event.getType().name();
+                long eventTimestamp = event.getTimestamp();
+                SCMHeadEventMemo memo = SCMHeadEventMemo.of(event);
+                // apply the same checks as when processing the event on its own
+                Map<SCMSource, Set<SCMHead>> matches = new IdentityHashMap<>();
+                if (SCMEvent.Type.CREATED == event.getType()) {
+                    Set<String> sourceIds = new HashSet<>();
+                    for (SCMSource source : p.getSCMSources()) {
+                        if (memo.isMatch(source)) {
+                            for (SCMHead h : memo.heads(source).keySet()) {
+                                if (createReason(p, _factory, source, h.getName(), sourceIds, eventDescription,
+                                        eventType, eventTimestamp) != null) {
+                                    matches.computeIfAbsent(source, k -> new HashSet<>()).add(h);
+                                }
                             }
                         }
+                        sourceIds.add(source.getId());
                     }
-                }
-                jobs.clear();
-                for (Job i : p.getItems(i -> _factory.isProject(i) && candidateNames.contains(_factory.getBranch(i).getName()))) {
-                    Branch branch = _factory.getBranch(i);
-                    if (branch instanceof Branch.Dead) {
-                        LOGGER.log(Level.FINEST, "{0} {1} {2,date} {2,time}: Checking {3} -> Resurrect dead "
-                                        + "branch {4} (job {5})?",
+                } else {
+                    Map<SCMSource, Map<SCMHead, SCMRevision>> revisionMaps = new IdentityHashMap<>();
+                    Set<String> candidateNames = new HashSet<>();
+                    for (SCMSource source : p.getSCMSources()) {
+                        if (memo.isMatch(source)) {
+                            Map<SCMHead, SCMRevision> eventHeads = memo.heads(source);
+                            if (!eventHeads.isEmpty()) {
+                                revisionMaps.put(source, eventHeads);
+                                for (SCMHead h : eventHeads.keySet()) {
+                                    candidateNames.add(h.getName());
+                                }
+                            }
+                        }
+                    }
+                    if (SCMEvent.Type.UPDATED == event.getType()
+                            && deduplicator.isSuppressed(p, event, revisionMaps)) {
+                        LOGGER.log(Level.FINE, "{0} {1} {2,date} {2,time}: Ignoring {3} as a newer or identical "
+                                        + "event has already been processed",
                                 new Object[]{
-                                        eventDescription, eventType, eventTimestamp, pFullName, branch.getName(),
-                                        i.getName()
+                                        eventDescription, eventType, eventTimestamp, pFullName
                                 }
                         );
-                        // try to bring back from the dead by checking all sources in sequence
-                        // the first to match the event and that contains the head wins!
-                        SOURCES: for (SCMSource src : p.getSCMSources()) {
-                            Map<SCMHead, SCMRevision> revisionMap = revisionMaps.get(src);
-                            if (revisionMap == null) {
-                                continue;
+                        continue;
+                    }
+                    Set<Job<?, ?>> jobs = new HashSet<>();
+                    matchExisting(p, _factory, event, revisionMaps, candidateNames, eventDescription, eventType,
+                            eventTimestamp, matches, jobs);
+                    if (matches.isEmpty()) {
+                        // didn't match an existing branch, maybe the criteria now match against an updated branch
+                        for (Map.Entry<SCMSource, Map<SCMHead, SCMRevision>> entry : revisionMaps.entrySet()) {
+                            for (SCMHead h : entry.getValue().keySet()) {
+                                if (p.getItemByBranchName(h.getName()) == null) {
+                                    matches.computeIfAbsent(entry.getKey(), k -> new HashSet<>()).add(h);
+                                }
                             }
-                            SCMHead head = branch.getHead();
-                            for (SCMHead h: revisionMap.keySet()) {
-                                // for bringing back from the dead we need to check the name as it could be
-                                // back from the dead on a different source from original
-                                if (h.getName().equals(head.getName())) {
-                                    matches.put(src, head);
-                                    jobs.add(i);
-                                    break SOURCES;
+                        }
+                    }
+                    if (SCMEvent.Type.REMOVED == event.getType()) {
+                        for (Job<?, ?> j : jobs) {
+                            String sourceId = _factory.getBranch(j).getSourceId();
+                            for (SCMSource s : matches.keySet()) {
+                                if (sourceId.equals(s.getId())) {
+                                    // only safe to switch to a dead branch if we observe its source
+                                    removed.add(j);
+                                    break;
                                 }
                             }
                         }
-                    } else {
-                        // TODO takeover
+                    } else if (SCMEvent.Type.UPDATED == event.getType()) {
+                        updates.put(event, revisionMaps);
+                    }
+                }
+                for (Map.Entry<SCMSource, Set<SCMHead>> m : matches.entrySet()) {
+                    heads.computeIfAbsent(m.getKey(), k -> new HashSet<>()).addAll(m.getValue());
+                    sourceEvents.computeIfAbsent(m.getKey(), k -> new LinkedHashSet<>()).add(event);
+                    for (SCMHead h : m.getValue()) {
+                        eventsByHead.put(h.getName(), event);
+                    }
+                }
+            }
+            SCMHeadEvent<?> newest = events.get(events.size() - 1);
+            metrics.record(SCMEventMetrics.Stage.MATCH, newest, matchStarted);
+            if (heads.isEmpty()) {
+                return false;
+            }
+            global.getLogger().format("Found match against %s (batch of %d events)%n", pFullName, events.size());
+            long start = System.currentTimeMillis();
+            try (StreamTaskListener listener = p.getComputation().createEventsListener();
+                 ChildObserver childObserver = p.openEventsChildObserver()) {
+                try {
+                    for (SCMHeadEvent<?> event : events) {
+                        listener.getLogger().format("[%tc] Received %s %s event from %s with timestamp %tc%n",
+                                start, StringUtils.defaultIfBlank(event.description(), event.getClass().getName()),
+                                event.getType().name(), event.getOrigin(), event.getTimestamp());
+                    }
+                    CauseFactory causeFactory = new BatchedEventCauseFactory(eventsByHead, newest);
+                    for (SCMSource source : p.getSCMSources()) {
+                        Set<SCMHead> sourceHeads = heads.get(source);
+                        if (sourceHeads == null) {
+                            continue;
+                        }
+                        // scope the fetch to the events that reported heads of this source
+                        Set<SCMHeadEvent<?>> reported = sourceEvents.get(source);
+                        SCMHeadEvent<?> scope = reported.size() == 1
+                                ? reported.iterator().next()
+                                : new BatchedSCMHeadEvent(new ArrayList<>(reported));
+                        long fetchStarted = System.nanoTime();
+                        source.fetch(
+                                p.getSCMSourceCriteria(source),
+                                SCMHeadObserver.filter(
+                                        p.new SCMHeadObserverImpl(
+                                                source,
+                                                childObserver,
+                                                listener,
+                                                _factory,
+                                                causeFactory,
+                                                scope),
+                                        sourceHeads.toArray(new SCMHead[0])
+                                ),
+                                scope,
+                                listener
+                        );
+                        metrics.record(SCMEventMetrics.Stage.FETCH, newest, fetchStarted);
+                    }
+                    // now dis-associate removed branches that no-longer exist
+                    Set<String> observed = childObserver.observed();
+                    for (Job<?, ?> j : removed) {
+                        if (observed.contains(j.getName())) {
+                            continue;
+                        }
+                        Branch branch = _factory.getBranch(j);
+                        if (branch instanceof Branch.Dead) {
+                            continue;
+                        }
+                        _factory.decorate(_factory.setBranch(j, new Branch.Dead(branch)));
+                        j.save();
+                    }
+                    for (Map.Entry<SCMHeadEvent<?>, Map<SCMSource, Map<SCMHead, SCMRevision>>> update
+                            : updates.entrySet()) {
+                        deduplicator.processed(p, update.getKey(), update.getValue());
+                    }
+                } catch (IOException e) {
+                    printStackTrace(e, listener.error(e.getMessage()));
+                } catch (InterruptedException e) {
+                    listener.error(e.getMessage());
+                    throw e;
+                } finally {
+                    long end = System.currentTimeMillis();
+                    listener.getLogger().format("[%tc] Batch of %d events processed in %s%n",
+                            end, events.size(), Util.getTimeSpanString(end - start));
+                }
+            } catch (IOException e) {
+                printStackTrace(e, global.error("[%tc] %s encountered an error while processing a batch of %d events",
+                        System.currentTimeMillis(), ModelHyperlinkNote.encodeTo(p), events.size()));
+            } catch (InterruptedException e) {
+                global.error("[%tc] %s was interrupted while processing a batch of %d events",
+                        System.currentTimeMillis(), ModelHyperlinkNote.encodeTo(p), events.size());
+                throw e;
+            }
+            return true;
+        }
+
+        /**
+         * Works out which existing branch jobs an {@link SCMEvent.Type#UPDATED} or {@link SCMEvent.Type#REMOVED}
+         * event concerns, resurrecting dead branches and letting higher priority sources take over branches.
+         * Updates that report the revision of the last build are ignored.
+         *
+         * @param p the project.
+         * @param _factory the project factory.
+         * @param event the event.
+         * @param revisionMaps the heads and revisions that the event reported for each matching source.
+         * @param candidateNames the names of the heads that the event reported.
+         * @param eventDescription the description of the event.
+         * @param eventType the type of the event.
+         * @param eventTimestamp the timestamp of the event.
+         * @param matches the heads to observe for each source, updated by this method.
+         * @param jobs the branch jobs that the event concerns, updated by this method.
+         */
+        private static void matchExisting(MultiBranchProject<?, ?> p, BranchProjectFactory _factory,
+                                          SCMHeadEvent<?> event,
+                                          Map<SCMSource, Map<SCMHead, SCMRevision>> revisionMaps,
+                                          Set<String> candidateNames, String eventDescription, String eventType,
+                                          long eventTimestamp, Map<SCMSource, Set<SCMHead>> matches,
+                                          Set<Job<?, ?>> jobs) {
+            String pFullName = p.getFullName();
+            for (String candidateName : candidateNames) {
+                Job i = p.getItemByBranchName(candidateName);
+                if (i == null) {
+                    continue;
+                }
+                Branch branch = _factory.getBranch(i);
+                if (branch instanceof Branch.Dead) {
+                    LOGGER.log(Level.FINEST, "{0} {1} {2,date} {2,time}: Checking {3} -> Resurrect dead "
+                                    + "branch {4} (job {5})?",
+                            new Object[]{
+                                    eventDescription, eventType, eventTimestamp, pFullName, branch.getName(),
+                                    i.getName()
+                            }
+                    );
+                    // try to bring back from the dead by checking all sources in sequence
+                    // the first to match the event and that contains the head wins!
+                    SOURCES: for (SCMSource src : p.getSCMSources()) {
+                        Map<SCMHead, SCMRevision> revisionMap = revisionMaps.get(src);
+                        if (revisionMap == null) {
+                            continue;
+                        }
+                        SCMHead head = branch.getHead();
+                        for (SCMHead h: revisionMap.keySet()) {
+                            // for bringing back from the dead we need to check the name as it could be
+                            // back from the dead on a different source from original
+                            if (h.getName().equals(head.getName())) {
+                                matches.computeIfAbsent(src, k -> new HashSet<>()).add(head);
+                                jobs.add(i);
+                                break SOURCES;
+                            }
+                        }
+                    }
+                } else {
+                    // TODO takeover
+                    LOGGER.log(Level.FINEST,
+                            "{0} {1} {2,date} {2,time}: Checking {3} -> Matches existing branch {4} "
+                                    + "(job {5})?",
+                            new Object[]{
+                                    eventDescription, eventType, eventTimestamp, pFullName, branch.getName(),
+                                    i.getName()
+                            }
+                    );
+                    SCMSource src = p.getSCMSource(branch.getSourceId());
+                    if (src == null) {
+                        continue;
+                    }
+                    Map<SCMHead, SCMRevision> revisionMap = revisionMaps.get(src);
+                    if (revisionMap == null) {
+                        // we got here because a source matches the name
+                        // need to find the source that did match the name and compare priorities
+                        // to see if this is a takeover
                         LOGGER.log(Level.FINEST,
-                                "{0} {1} {2,date} {2,time}: Checking {3} -> Matches existing branch {4} "
-                                        + "(job {5})?",
+                                "{0} {1} {2,date} {2,time}: Checking {3} -> Event does not match current "
+                                        + "source of {4} (job {5}), checking for take-over",
                                 new Object[]{
                                         eventDescription, eventType, eventTimestamp, pFullName, branch.getName(),
                                         i.getName()
                                 }
                         );
-                        SCMSource src = p.getSCMSource(branch.getSourceId());
-                        if (src == null) {
-                            continue;
+
+                        // check who has priority
+                        int ourPriority = Integer.MAX_VALUE;
+                        int oldPriority = Integer.MAX_VALUE;
+                        SCMSource ourSource = null;
+                        int priority = 1;
+                        for (SCMSource s : p.getSCMSources()) {
+                            String sId = s.getId();
+                            Map<SCMHead, SCMRevision> rMap = revisionMaps.get(s);
+                            if (ourPriority > priority && oldPriority > priority && rMap != null) {
+                                // only need to check for takeover when the event is higher priority
+                                for (SCMHead h: rMap.keySet()) {
+                                    if (branch.getName().equals(h.getName())) {
+                                        ourPriority = priority;
+                                        ourSource = s;
+                                        break;
+                                    }
+                                }
+                            }
+                            if (sId.equals(src.getId())) {
+                                oldPriority = priority;
+                            }
+                            priority++;
                         }
-                        Map<SCMHead, SCMRevision> revisionMap = revisionMaps.get(src);
-                        if (revisionMap == null) {
-                            // we got here because a source matches the name
-                            // need to find the source that did match the name and compare priorities
-                            // to see if this is a takeover
+                        if (oldPriority < ourPriority) {
                             LOGGER.log(Level.FINEST,
-                                    "{0} {1} {2,date} {2,time}: Checking {3} -> Event does not match current "
-                                            + "source of {4} (job {5}), checking for take-over",
+                                    "{0} {1} {2,date} {2,time}: Checking {3} -> Ignoring event for {4} "
+                                            + "(job {5}) from source #{6} as source #{7} owns the branch name",
                                     new Object[]{
                                             eventDescription, eventType, eventTimestamp, pFullName, branch.getName(),
-                                            i.getName()
+                                            i.getName(), ourPriority, oldPriority
                                     }
                             );
-
-                            // check who has priority
-                            int ourPriority = Integer.MAX_VALUE;
-                            int oldPriority = Integer.MAX_VALUE;
-                            SCMSource ourSource = null;
-                            int priority = 1;
-                            for (SCMSource s : p.getSCMSources()) {
-                                String sId = s.getId();
-                                Map<SCMHead, SCMRevision> rMap = revisionMaps.get(s);
-                                if (ourPriority > priority && oldPriority > priority && rMap != null) {
-                                    // only need to check for takeover when the event is higher priority
-                                    for (SCMHead h: rMap.keySet()) {
-                                        if (branch.getName().equals(h.getName())) {
-                                            ourPriority = priority;
-                                            ourSource = s;
-                                            break;
-                                        }
+                            continue;
+                        } else {
+                            LOGGER.log(Level.FINER,
+                                    "{0} {1} {2,date} {2,time}: Checking {3} -> Takeover event for {4} "
+                                            + "(job {5}) by source #{5} from source #{6}",
+                                    new Object[]{
+                                            eventDescription, eventType, eventTimestamp, pFullName, branch.getName(),
+                                            i.getName(), ourPriority, oldPriority
                                     }
+                            );
+                            assert ourSource != null;
+                            src = ourSource;
+                            revisionMap = revisionMaps.get(ourSource);
+                            assert revisionMap != null;
+                        }
+                    }
+                    SCMHead head = branch.getHead();
+                    // The distinguishing key for branch projects is the name, so check on the name
+                    boolean match = false;
+                    for (SCMHead h: revisionMap.keySet()) {
+                        if (h.getName().equals(head.getName())) {
+                            match = true;
+                            break;
+                        }
+                    }
+                    if (match) {
+                        LOGGER.log(Level.FINE,
+                                "{0} {1} {2,date} {2,time}: Checking {3} -> Event matches source of {4} "
+                                        + "(job {5})",
+                                new Object[]{
+                                        eventDescription, eventType, eventTimestamp, pFullName, branch.getName(),
+                                        i.getName()
                                 }
-                                if (sId.equals(src.getId())) {
-                                    oldPriority = priority;
+                        );
+                        if (SCMEvent.Type.UPDATED == event.getType()) {
+                            SCMRevision revision = revisionMap.get(head);
+                            if (revision != null && revision.isDeterministic()) {
+                                SCMRevision lastBuild = _factory.getRevision(i);
+                                if (revision.equals(lastBuild)) {
+                                    // we are not interested in events that tell us a revision
+                                    // we have already seen
+                                    LOGGER.log(Level.FINE,
+                                            "{0} {1} {2,date} {2,time}: Checking {3} -> Ignoring event as "
+                                                    + "revision {4} is same as last build of {5} (job {6})",
+                                            new Object[]{
+                                                    eventDescription,
+                                                    eventType,
+                                                    eventTimestamp,
+                                                    pFullName,
+                                                    revision,
+                                                    branch.getName(),
+                                                    i.getName()
+                                            }
+                                    );
+                                    continue;
                                 }
-                                priority++;
                             }
-                            if (oldPriority < ourPriority) {
-                                LOGGER.log(Level.FINEST,
-                                        "{0} {1} {2,date} {2,time}: Checking {3} -> Ignoring event for {4} "
-                                                + "(job {5}) from source #{6} as source #{7} owns the branch name",
-                                        new Object[]{
-                                                eventDescription, eventType, eventTimestamp, pFullName, branch.getName(),
-                                                i.getName(), ourPriority, oldPriority
-                                        }
-                                );
+                        }
+                        matches.computeIfAbsent(src, k -> new HashSet<>()).add(head);
+                        jobs.add(i);
+                    }
+                }
+            }
+        }
+
+        private boolean processHeadUpdate(MultiBranchProject<?, ?> p, SCMHeadEvent<?> event, TaskListener global,
+                                          String eventDescription, String eventType, String eventOrigin,
+                                          long eventTimestamp, SharedHeadFetch shared)
+                throws InterruptedException {
+            SCMHeadEventMemo memo = SCMHeadEventMemo.of(event);
+            SCMEventMetrics metrics = SCMEventMetrics.get();
+            long matchStarted = System.nanoTime();
+            String pFullName = p.getFullName();
+            boolean matched = false;
+            LOGGER.log(Level.FINER, "{0} {1} {2,date} {2,time}: Checking {3} for a match",
+                    new Object[]{
+                            eventDescription, eventType, eventTimestamp, pFullName
+                    }
+            );
+            final BranchProjectFactory _factory = p.getProjectFactory();
+            Map<SCMSource, Set<SCMHead>> matches = new IdentityHashMap<>();
+            Set<String> candidateNames = new HashSet<>();
+            Map<SCMSource, Map<SCMHead,SCMRevision>> revisionMaps = new IdentityHashMap<>();
+            for (SCMSource source : p.getSCMSources()) {
+                if (memo.isMatch(source)) {
+                    Map<SCMHead, SCMRevision> eventHeads = memo.heads(source);
+                    if (!eventHeads.isEmpty()) {
+                        revisionMaps.put(source, eventHeads);
+                        for (SCMHead h : eventHeads.keySet()) {
+                            candidateNames.add(h.getName());
+                        }
+                    }
+                }
+            }
+            SCMHeadEventDeduplicator deduplicator = SCMHeadEventDeduplicator.get();
+            boolean deduplicate = SCMEvent.Type.UPDATED == event.getType();
+            if (deduplicate && deduplicator.isSuppressed(p, event, revisionMaps)) {
+                LOGGER.log(Level.FINE, "{0} {1} {2,date} {2,time}: Ignoring {3} as a newer or identical event has "
+                                + "already been processed",
+                        new Object[]{
+                                eventDescription, eventType, eventTimestamp, pFullName
+                        }
+                );
+                return false;
+            }
+            Set<Job<?, ?>> jobs = new HashSet<>();
+            matchExisting(p, _factory, event, revisionMaps, candidateNames, eventDescription, eventType,
+                    eventTimestamp, matches, jobs);
+            metrics.record(SCMEventMetrics.Stage.MATCH, event, matchStarted);
+            if (!matches.isEmpty()) {
+                matched = true;
+                global.getLogger().format("Found match against %s%n", pFullName);
+                long start = System.currentTimeMillis();
+                try (StreamTaskListener listener = p.getComputation().createEventsListener();
+                     ChildObserver childObserver = p.openEventsChildObserver()) {
+                    try {
+                        assert childObserver != null;
+                        listener.getLogger().format("[%tc] Received %s %s event from %s with timestamp %tc%n",
+                                start, eventDescription, eventType, eventOrigin, eventTimestamp);
+                        for (Map.Entry<SCMSource, Set<SCMHead>> m : matches.entrySet()) {
+                            long fetchStarted = System.nanoTime();
+                            SharedHeadFetch.fetch(
+                                    shared,
+                                    p,
+                                    m.getKey(),
+                                    p.new SCMHeadObserverImpl(
+                                            m.getKey(),
+                                            childObserver,
+                                            listener,
+                                            _factory,
+                                            new EventCauseFactory(event),
+                                            event),
+                                    event,
+                                    listener
+                            );
+                            metrics.record(SCMEventMetrics.Stage.FETCH, event, fetchStarted);
+                        }
+                        // now dis-associate branches that no-longer exist
+                        Set<String> names = childObserver.observed();
+                        for (Job<?, ?> j : jobs) {
+                            if (names.contains(j.getName())) {
+                                // observed, so not dead
+                                continue;
+                            }
+                            Branch branch = _factory.getBranch(j);
+                            String sourceId = branch.getSourceId();
+                            boolean foundSource = false;
+                            for (SCMSource s : matches.keySet()) {
+                                if (sourceId.equals(s.getId())) {
+                                    foundSource = true;
+                                }
+                            }
+                            if (!foundSource) {
+                                // not safe to switch to a dead branch
                                 continue;
-                            } else {
-                                LOGGER.log(Level.FINER,
-                                        "{0} {1} {2,date} {2,time}: Checking {3} -> Takeover event for {4} "
-                                                + "(job {5}) by source #{5} from source #{6}",
-                                        new Object[]{
-                                                eventDescription, eventType, eventTimestamp, pFullName, branch.getName(),
-                                                i.getName(), ourPriority, oldPriority
-                                        }
-                                );
-                                assert ourSource != null;
-                                src = ourSource;
-                                revisionMap = revisionMaps.get(ourSource);
-                                assert revisionMap != null;
                             }
+                            _factory.decorate(_factory.setBranch(
+                                    j,
+                                    new Branch.Dead(branch)
+                            ));
+                            j.save();
                         }
-                        SCMHead head = branch.getHead();
-                        // The distinguishing key for branch projects is the name, so check on the name
-                        boolean match = false;
-                        for (SCMHead h: revisionMap.keySet()) {
-                            if (h.getName().equals(head.getName())) {
-                                match = true;
+                        if (deduplicate) {
+                            deduplicator.processed(p, event, revisionMaps);
+                        }
+                    } catch (IOException e) {
+                        printStackTrace(e, listener.error(e.getMessage()));
+                    } catch (InterruptedException e) {
+                        listener.error(e.getMessage());
+                        throw e;
+                    } finally {
+                        long end = System.currentTimeMillis();
+                        listener.getLogger()
+                                .format("[%tc] %s %s event from %s with timestamp %tc processed in %s%n",
+                                        end, eventDescription, eventType, eventOrigin, eventTimestamp,
+                                        Util.getTimeSpanString(end - start));
+                    }
+                } catch (IOException e) {
+                    printStackTrace(e, global.error(
+                            "[%tc] %s encountered an error while processing %s %s event from %s with timestamp %tc",
+                            System.currentTimeMillis(), ModelHyperlinkNote.encodeTo(p), eventDescription, eventType,
+                            eventOrigin, eventTimestamp));
+                } catch (InterruptedException e) {
+                    global.error(
+                            "[%tc] %s was interrupted while processing %s %s event from %s with timestamp %tc",
+                            System.currentTimeMillis(), ModelHyperlinkNote.encodeTo(p), eventDescription, eventType,
+                            eventOrigin, eventTimestamp);
+                    throw e;
+                }
+            } else {
+                // didn't match an existing branch, maybe the criteria now match against an updated branch
+                boolean haveMatch = false;
+                for (SCMSource source : p.getSCMSources()) {
+                    if (memo.isMatch(source)) {
+                        for (SCMHead h : memo.heads(source).keySet()) {
+                            if (p.getItemByBranchName(h.getName()) == null) {
+                                // only interested in create events that actually could create a new branch
+                                haveMatch = true;
                                 break;
                             }
                         }
-                        if (match) {
-                            LOGGER.log(Level.FINE,
-                                    "{0} {1} {2,date} {2,time}: Checking {3} -> Event matches source of {4} "
-                                            + "(job {5})",
-                                    new Object[]{
-                                            eventDescription, eventType, eventTimestamp, pFullName, branch.getName(),
-                                            i.getName()
-                                    }
-                            );
-                            if (SCMEvent.Type.UPDATED == event.getType()) {
-                                SCMRevision revision = revisionMap.get(head);
-                                if (revision != null && revision.isDeterministic()) {
-                                    SCMRevision lastBuild = _factory.getRevision(i);
-                                    if (revision.equals(lastBuild)) {
-                                        // we are not interested in events that tell us a revision
-                                        // we have already seen
-                                        LOGGER.log(Level.FINE,
-                                                "{0} {1} {2,date} {2,time}: Checking {3} -> Ignoring event as "
-                                                        + "revision {4} is same as last build of {5} (job {6})",
-                                                new Object[]{
-                                                        eventDescription,
-                                                        eventType,
-                                                        eventTimestamp,
-                                                        pFullName,
-                                                        revision,
-                                                        branch.getName(),
-                                                        i.getName()
-                                                }
-                                        );
-                                        continue;
-                                    }
-                                }
-                            }
-                            matches.put(src, head);
-                            jobs.add(i);
+                        if (haveMatch) {
+                            matched = true;
+                            global.getLogger().format("Found match against %s%n", pFullName);
+                            break;
                         }
+                        break;
                     }
                 }
-                if (!matches.isEmpty()) {
-                    matchCount++;
-                    global.getLogger().format("Found match against %s%n", pFullName);
+                if (haveMatch) {
                     long start = System.currentTimeMillis();
                     try (StreamTaskListener listener = p.getComputation().createEventsListener();
                          ChildObserver childObserver = p.openEventsChildObserver()) {
+                        listener.getLogger().format("[%tc] Received %s %s event from %s with timestamp %tc%n",
+                                start, eventDescription, eventType, eventOrigin, eventTimestamp);
                         try {
-                            assert childObserver != null;
-                            listener.getLogger().format("[%tc] Received %s %s event from %s with timestamp %tc%n",
-                                    start, eventDescription, eventType, eventOrigin, eventTimestamp);
-                            for (Map.Entry<SCMSource, SCMHead> m : matches.entrySet()) {
-                                m.getKey().fetch(
-                                        p.getSCMSourceCriteria(m.getKey()),
-                                        p.new SCMHeadObserverImpl(
-                                                m.getKey(),
-                                                childObserver,
-                                                listener,
-                                                _factory,
-                                                new EventCauseFactory(event),
-                                                event),
-                                        event,
-                                        listener
-                                );
-                            }
-                            // now dis-associate branches that no-longer exist
-                            Set<String> names = childObserver.observed();
-                            for (Job<?, ?> j : jobs) {
-                                if (names.contains(j.getName())) {
-                                    // observed, so not dead
-                                    continue;
-                                }
-                                Branch branch = _factory.getBranch(j);
-                                String sourceId = branch.getSourceId();
-                                boolean foundSource = false;
-                                for (SCMSource s : matches.keySet()) {
-                                    if (sourceId.equals(s.getId())) {
-                                        foundSource = true;
-                                    }
-                                }
-                                if (!foundSource) {
-                                    // not safe to switch to a dead branch
-                                    continue;
+                            for (SCMSource source : p.getSCMSources()) {
+                                if (memo.isMatch(source)) {
+                                    long fetchStarted = System.nanoTime();
+                                    SharedHeadFetch.fetch(
+                                            shared,
+                                            p,
+                                            source,
+                                            p.new SCMHeadObserverImpl(
+                                                    source,
+                                                    childObserver,
+                                                    listener,
+                                                    _factory,
+                                                    new EventCauseFactory(event),
+                                                    event
+                                            ),
+                                            event,
+                                            listener
+                                    );
+                                    metrics.record(SCMEventMetrics.Stage.FETCH, event, fetchStarted);
                                 }
-                                _factory.decorate(_factory.setBranch(
-                                        j,
-                                        new Branch.Dead(branch)
-                                ));
-                                j.save();
+                            }
+                            if (deduplicate) {
+                                deduplicator.processed(p, event, revisionMaps);
                             }
                         } catch (IOException e) {
                             printStackTrace(e, listener.error(e.getMessage()));
@@ -1629,97 +2407,28 @@ public abstract class MultiBranchProject<P extends Job<P, R> & TopLevelItem,
                             throw e;
                         } finally {
                             long end = System.currentTimeMillis();
-                            listener.getLogger()
-                                    .format("[%tc] %s %s event from %s with timestamp %tc processed in %s%n",
-                                            end, eventDescription, eventType, eventOrigin, eventTimestamp,
-                                            Util.getTimeSpanString(end - start));
+                            listener.getLogger().format(
+                                    "[%tc] %s %s event from %s with timestamp %tc processed in %s%n",
+                                    end, eventDescription, eventType, eventOrigin, eventTimestamp,
+                                    Util.getTimeSpanString(end - start));
                         }
                     } catch (IOException e) {
                         printStackTrace(e, global.error(
-                                "[%tc] %s encountered an error while processing %s %s event from %s with timestamp %tc",
+                                "[%tc] %s encountered an error while processing %s %s event from %s with "
+                                        + "timestamp %tc",
                                 System.currentTimeMillis(), ModelHyperlinkNote.encodeTo(p), eventDescription, eventType,
                                 eventOrigin, eventTimestamp));
                     } catch (InterruptedException e) {
                         global.error(
-                                "[%tc] %s was interrupted while processing %s %s event from %s with timestamp %tc",
+                                "[%tc] %s was interrupted while processing %s %s event from %s with "
+                                        + "timestamp %tc",
                                 System.currentTimeMillis(), ModelHyperlinkNote.encodeTo(p), eventDescription, eventType,
                                 eventOrigin, eventTimestamp);
                         throw e;
                     }
-                } else {
-                    // didn't match an existing branch, maybe the criteria now match against an updated branch
-                    boolean haveMatch = false;
-                    for (SCMSource source : p.getSCMSources()) {
-                        if (event.isMatch(source)) {
-                            for (SCMHead h : event.heads(source).keySet()) {
-                                if (p.getItemByBranchName(h.getName()) == null) {
-                                    // only interested in create events that actually could create a new branch
-                                    haveMatch = true;
-                                    break;
-                                }
-                            }
-                            if (haveMatch) {
-                                matchCount++;
-                                global.getLogger().format("Found match against %s%n", pFullName);
-                                break;
-                            }
-                            break;
-                        }
-                    }
-                    if (haveMatch) {
-                        long start = System.currentTimeMillis();
-                        try (StreamTaskListener listener = p.getComputation().createEventsListener();
-                             ChildObserver childObserver = p.openEventsChildObserver()) {
-                            listener.getLogger().format("[%tc] Received %s %s event from %s with timestamp %tc%n",
-                                    start, eventDescription, eventType, eventOrigin, eventTimestamp);
-                            try {
-                                for (SCMSource source : p.getSCMSources()) {
-                                    if (event.isMatch(source)) {
-                                        source.fetch(
-                                                p.getSCMSourceCriteria(source),
-                                                p.new SCMHeadObserverImpl(
-                                                        source,
-                                                        childObserver,
-                                                        listener,
-                                                        _factory,
-                                                        new EventCauseFactory(event),
-                                                        event
-                                                ),
-                                                event,
-                                                listener
-                                        );
-                                    }
-                                }
-                            } catch (IOException e) {
-                                printStackTrace(e, listener.error(e.getMessage()));
-                            } catch (InterruptedException e) {
-                                listener.error(e.getMessage());
-                                throw e;
-                            } finally {
-                                long end = System.currentTimeMillis();
-                                listener.getLogger().format(
-                                        "[%tc] %s %s event from %s with timestamp %tc processed in %s%n",
-                                        end, eventDescription, eventType, eventOrigin, eventTimestamp,
-                                        Util.getTimeSpanString(end - start));
-                            }
-                        } catch (IOException e) {
-                            printStackTrace(e, global.error(
-                                    "[%tc] %s encountered an error while processing %s %s event from %s with "
-                                            + "timestamp %tc",
-                                    System.currentTimeMillis(), ModelHyperlinkNote.encodeTo(p), eventDescription, eventType,
-                                    eventOrigin, eventTimestamp));
-                        } catch (InterruptedException e) {
-                            global.error(
-                                    "[%tc] %s was interrupted while processing %s %s event from %s with "
-                                            + "timestamp %tc",
-                                    System.currentTimeMillis(), ModelHyperlinkNote.encodeTo(p), eventDescription, eventType,
-                                    eventOrigin, eventTimestamp);
-                            throw e;
-                        }
-                    }
                 }
             }
-            return matchCount;
+            return matched;
         }
 
         /**
@@ -1727,6 +2436,15 @@ public abstract class MultiBranchProject<P extends Job<P, R> & TopLevelItem,
          */
         @Override
         public void onSCMSourceEvent(SCMSourceEvent<?> event) {
+            SCMEventMetrics.get().received(event);
+            if (SCMEvent.Type.UPDATED != event.getType()) {
+                handleSourceEvent(event);
+            } else if (!SCMEventIngestion.get().process(event, () -> handleSourceEvent(event))) {
+                shed(event, event::isMatch);
+            }
+        }
+
+        private void handleSourceEvent(SCMSourceEvent<?> event) {
             try (StreamTaskListener global = globalEventsListener()) {
                 String eventDescription = StringUtils.defaultIfBlank(event.description(), event.getClass().getName());
                 long started = System.currentTimeMillis();
@@ -1738,9 +2456,10 @@ public abstract class MultiBranchProject<P extends Job<P, R> & TopLevelItem,
                 // not interested in removal as that is an event for org folders
                 if (SCMEvent.Type.UPDATED == event.getType()) {
                     // we are only interested in updates as they would trigger the actions being updated
+                    SCMEventDispatcher dispatcher = SCMEventDispatcher.get();
+                    List<Future<Boolean>> tasks = new ArrayList<>();
                     try {
-                        for (MultiBranchProject<?, ?> p : Jenkins.get()
-                                .getAllItems(MultiBranchProject.class)) {
+                        for (MultiBranchProject<?, ?> p : candidates(event)) {
                             if (!p.isBuildable()) {
                                 if (LOGGER.isLoggable(Level.FINER)) {
                                     LOGGER.log(Level.FINER,
@@ -1753,84 +2472,10 @@ public abstract class MultiBranchProject<P extends Job<P, R> & TopLevelItem,
                                 }
                                 continue;
                             }
-                            boolean haveMatch = false;
-                            List<SCMSource> scmSources = p.getSCMSources();
-                            for (SCMSource s : scmSources) {
-                                if (event.isMatch(s)) {
-                                    matchCount++;
-                                    global.getLogger().format("Found match against %s%n", p.getFullName());
-                                    haveMatch = true;
-                                    break;
-                                }
-                            }
-                            if (haveMatch) {
-                                try (StreamTaskListener listener = p.getComputation().createEventsListener()) {
-                                    try {
-                                        Map<String, List<Action>> stateActions = new HashMap<>();
-                                        for (SCMSource source : scmSources) {
-                                            List<Action> oldActions = p.state.sourceActions.get(source.getId());
-                                            List<Action> newActions;
-                                            try {
-                                                newActions = source.fetchActions(event, listener);
-                                            } catch (IOException e) {
-                                                printStackTrace(e,
-                                                        listener.error("Could not refresh actions for source %s",
-                                                                source.getId()
-                                                        ));
-                                                // preserve previous actions if we have some transient error fetching now (e.g.
-
-
-                                                // API rate limit)
-                                                newActions = oldActions;
-                                            }
-                                            if (oldActions == null || !oldActions.equals(newActions)) {
-                                                stateActions.put(source.getId(), newActions);
-                                            }
-                                        }
-                                        if (!stateActions.isEmpty()) {
-                                            boolean saveProject = false;
-                                            for (List<Action> actions : stateActions.values()) {
-                                                for (Action a : actions) {
-                                                    // undo any hacks that attached the contributed actions without
-                                                    // attribution
-                                                    saveProject = p.removeActions(a.getClass()) || saveProject;
-                                                }
-                                            }
-                                            BulkChange bc = new BulkChange(p.state);
-                                            try {
-                                                p.state.sourceActions.putAll(stateActions);
-                                                bc.commit();
-                                                if (saveProject) {
-                                                    p.save();
-                                                }
-                                            } finally {
-                                                bc.abort();
-                                            }
-                                        }
-                                    } catch (IOException e) {
-                                        printStackTrace(e, listener.error(e.getMessage()));
-                                    } catch (InterruptedException e) {
-                                        listener.error(e.getMessage());
-                                        throw e;
-                                    }
-                                } catch (IOException e) {
-                                    printStackTrace(e, global.error(
-                                            "[%tc] %s encountered an error while processing %s %s event from %s with "
-                                                    + "timestamp %tc",
-                                            System.currentTimeMillis(), ModelHyperlinkNote.encodeTo(p),
-                                            eventDescription, event.getType().name(),
-                                            event.getOrigin(), event.getTimestamp()));
-                                } catch (InterruptedException e) {
-                                    global.error(
-                                            "[%tc] %s was interrupted while processing %s %s event from %s with "
-                                                    + "timestamp %tc",
-                                            System.currentTimeMillis(), ModelHyperlinkNote.encodeTo(p),
-                                            eventDescription, event.getType().name(),
-                                            event.getOrigin(), event.getTimestamp());
-                                    throw e;
-                                }
-                            }
+                            tasks.add(dispatcher.submit(p, () -> processSourceUpdate(p, event, global,
+                                    eventDescription)));
                         }
+                        matchCount += dispatcher.awaitMatches(tasks, global);
                     } catch (InterruptedException e) {
                         printStackTrace(e, global.error(
                                 "[%tc] Interrupted while processing %s %s event from %s with timestamp %tc",
@@ -1848,6 +2493,112 @@ public abstract class MultiBranchProject<P extends Job<P, R> & TopLevelItem,
             }
         }
 
+        private boolean processSourceUpdate(MultiBranchProject<?, ?> p, SCMSourceEvent<?> event, TaskListener global,
+                                            String eventDescription)
+                throws InterruptedException {
+            SCMEventMetrics metrics = SCMEventMetrics.get();
+            long matchStarted = System.nanoTime();
+            boolean haveMatch = false;
+            List<SCMSource> scmSources = p.getSCMSources();
+            for (SCMSource s : scmSources) {
+                if (event.isMatch(s)) {
+                    global.getLogger().format("Found match against %s%n", p.getFullName());
+                    haveMatch = true;
+                    break;
+                }
+            }
+            metrics.record(SCMEventMetrics.Stage.MATCH, event, matchStarted);
+            if (haveMatch) {
+                try (StreamTaskListener listener = p.getComputation().createEventsListener()) {
+                    try {
+                        Map<String, List<Action>> stateActions = new HashMap<>();
+                        long refreshStarted = System.currentTimeMillis();
+                        // the sources are independent, so refresh them all at once and collect in source order
+                        List<BufferedSCMCall<List<Action>>> refreshes = new ArrayList<>(scmSources.size());
+                        for (SCMSource source : scmSources) {
+                            refreshes.add(BufferedSCMCall.submit(l -> {
+                                long fetchStarted = System.nanoTime();
+                                try {
+                                    return source.fetchActions(event, l);
+                                } finally {
+                                    metrics.record(SCMEventMetrics.Stage.FETCH, event, fetchStarted);
+                                }
+                            }));
+                        }
+                        try {
+                            for (int i = 0; i < scmSources.size(); i++) {
+                                SCMSource source = scmSources.get(i);
+                                List<Action> oldActions = p.state.sourceActions.get(source.getId());
+                                List<Action> newActions;
+                                try {
+                                    newActions = refreshes.get(i).get(listener);
+                                } catch (IOException e) {
+                                    printStackTrace(e,
+                                            listener.error("Could not refresh actions for source %s",
+                                                    source.getId()
+                                            ));
+                                    // preserve previous actions if we have some transient error fetching now (e.g.
+                                    // API rate limit)
+                                    newActions = oldActions;
+                                }
+                                if (oldActions == null || !oldActions.equals(newActions)) {
+                                    stateActions.put(source.getId(), newActions);
+                                }
+                            }
+                        } finally {
+                            // only has an effect if we gave up early
+                            BufferedSCMCall.cancelAll(refreshes);
+                        }
+                        long refreshed = System.currentTimeMillis() - refreshStarted;
+                        listener.getLogger().format("[%tc] Refreshed actions of %d sources in %s%n",
+                                System.currentTimeMillis(), scmSources.size(), Util.getTimeSpanString(refreshed));
+                        global.getLogger().format("Refreshed actions of %s in %dms%n", p.getFullName(), refreshed);
+                        if (!stateActions.isEmpty()) {
+                            boolean saveProject = false;
+                            for (List<Action> actions : stateActions.values()) {
+                                for (Action a : actions) {
+                                    // undo any hacks that attached the contributed actions without
+                                    // attribution
+                                    saveProject = p.removeActions(a.getClass()) || saveProject;
+                                }
+                            }
+                            BulkChange bc = new BulkChange(p.state);
+                            try {
+                                p.state.sourceActions.putAll(stateActions);
+                                bc.commit();
+                                if (saveProject) {
+                                    p.save();
+                                }
+                            } finally {
+                                bc.abort();
+                            }
+                        }
+                    } catch (IOException e) {
+                        printStackTrace(e, listener.error(e.getMessage()));
+                    } catch (InterruptedException e) {
+                        listener.error(e.getMessage());
+                        throw e;
+                    }
+                } catch (IOException e) {
+                    printStackTrace(e, global.error(
+                            "[%tc] %s encountered an error while processing %s %s event from %s with "
+                                    + "timestamp %tc",
+                            System.currentTimeMillis(), ModelHyperlinkNote.encodeTo(p),
+                            eventDescription, event.getType().name(),
+                            event.getOrigin(), event.getTimestamp()));
+                } catch (InterruptedException e) {
+                    global.error(
+                            "[%tc] %s was interrupted while processing %s %s event from %s with "
+                                    + "timestamp %tc",
+                            System.currentTimeMillis(), ModelHyperlinkNote.encodeTo(p),
+                            eventDescription, event.getType().name(),
+                            event.getOrigin(), event.getTimestamp());
+                    throw e;
+                }
+            }
+            return haveMatch;
+        }
+
     }
 
     /**
@@ -1860,10 +2611,11 @@ public abstract class MultiBranchProject<P extends Job<P, R> & TopLevelItem,
          * {@link Cause#onAddedTo(Run)}.
          *
          * @return an array of new cause instances.
-         * @param source
+         * @param source the source.
+         * @param head the head that is being built.
          */
         @NonNull
-        abstract Cause[] create(SCMSource source);
+        abstract Cause[] create(SCMSource source, SCMHead head);
     }
 
     /**
@@ -1872,11 +2624,10 @@ public abstract class MultiBranchProject<P extends Job<P, R> & TopLevelItem,
     private static class IndexingCauseFactory extends CauseFactory {
         /**
          * {@inheritDoc}
-         * @param source
          */
         @NonNull
         @Override
-        Cause[] create(SCMSource source) {
+        Cause[] create(SCMSource source, SCMHead head) {
             return new Cause[]{new BranchIndexingCause()};
         }
     }
@@ -1897,11 +2648,10 @@ public abstract class MultiBranchProject<P extends Job<P, R> & TopLevelItem,
 
         /**
          * {@inheritDoc}
-         * @param source
          */
         @NonNull
         @Override
-        Cause[] create(SCMSource source) {
+        Cause[] create(SCMSource source, SCMHead head) {
             Cause[] eventCauses = event.asCauses();
             Cause[] result = new Cause[eventCauses.length + 1];
             result[0] = new BranchEventCause(event, event.descriptionFor(source));
@@ -1912,6 +2662,131 @@ public abstract class MultiBranchProject<P extends Job<P, R> & TopLevelItem,
         }
     }
 
+    /**
+     * A cause factory for a batch of events that attributes each head to the newest event that reported it.
+     */
+    private static class BatchedEventCauseFactory extends CauseFactory {
+        /**
+         * The newest event that reported each head, keyed by head name.
+         */
+        @NonNull
+        private final Map<String, SCMHeadEvent<?>> events;
+        /**
+         * The event to attribute heads that none of the events reported.
+         */
+        @NonNull
+        private final SCMHeadEvent<?> fallback;
+
+        BatchedEventCauseFactory(@NonNull Map<String, SCMHeadEvent<?>> events, @NonNull SCMHeadEvent<?> fallback) {
+            this.events = events;
+            this.fallback = fallback;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @NonNull
+        @Override
+        Cause[] create(SCMSource source, SCMHead head) {
+            SCMHeadEvent<?> event = events.get(head.getName());
+            return new EventCauseFactory(event == null ? fallback : event).create(source, head);
+        }
+    }
+
+    /**
+     * The events of a batch that reported heads of the same source, used to scope the fetch for the batch.
+     */
+    private static class BatchedSCMHeadEvent extends SCMHeadEvent<List<SCMHeadEvent<?>>> {
+
+        BatchedSCMHeadEvent(@NonNull List<SCMHeadEvent<?>> events) {
+            super(typeOf(events), events.get(events.size() - 1).getTimestamp(), events,
+                    events.get(events.size() - 1).getOrigin());
+        }
+
+        private static Type typeOf(List<SCMHeadEvent<?>> events) {
+            Type type = events.get(0).getType();
+            for (SCMHeadEvent<?> event : events) {
+                if (event.getType() != type) {
+                    return Type.UPDATED;
+                }
+            }
+            return type;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String description() {
+            return "Batch of " + getPayload().size() + " events";
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean isMatch(@NonNull SCMNavigator navigator) {
+            for (SCMHeadEvent<?> event : getPayload()) {
+                if (event.isMatch(navigator)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean isMatch(@NonNull SCMSource source) {
+            for (SCMHeadEvent<?> event : getPayload()) {
+                if (SCMHeadEventMemo.of(event).isMatch(source)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @NonNull
+        @Override
+        public String getSourceName() {
+            return getPayload().get(getPayload().size() - 1).getSourceName();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @NonNull
+        @Override
+        public Map<SCMHead, SCMRevision> heads(@NonNull SCMSource source) {
+            // newer events report newer revisions
+            Map<SCMHead, SCMRevision> result = new HashMap<>();
+            for (SCMHeadEvent<?> event : getPayload()) {
+                SCMHeadEventMemo memo = SCMHeadEventMemo.of(event);
+                if (memo.isMatch(source)) {
+                    result.putAll(memo.heads(source));
+                }
+            }
+            return result;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean isMatch(@NonNull SCM scm) {
+            for (SCMHeadEvent<?> event : getPayload()) {
+                if (event.isMatch(scm)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
     /**
      * Our observer.
      */
@@ -1946,6 +2821,24 @@ public abstract class MultiBranchProject<P extends Job<P, R> & TopLevelItem,
          */
         @CheckForNull
         private final SCMHeadEvent<?> event;
+        /**
+         * The optional snapshot of the previous indexing, only supplied when incremental indexing is enabled.
+         */
+        @CheckForNull
+        private final IncrementalIndexing incremental;
+        /**
+         * How many observed heads may wait for their metadata before the oldest is reconciled.
+         */
+        private final int prefetchDepth;
+        /**
+         * The observed heads that have not been reconciled yet, in observation order.
+         */
+        private final Deque<Prefetch> pending = new ArrayDeque<>();
+        /**
+         * The optional metrics of the branch indexing.
+         */
+        @CheckForNull
+        private final IndexingMetrics metrics;
 
         /**
          * Constructor.
@@ -1960,12 +2853,37 @@ public abstract class MultiBranchProject<P extends Job<P, R> & TopLevelItem,
         public SCMHeadObserverImpl(@NonNull SCMSource source, @NonNull ChildObserver<P> observer,
                                    @NonNull TaskListener listener, @NonNull BranchProjectFactory<P, R> _factory,
                                    @NonNull CauseFactory causeFactory, @CheckForNull SCMHeadEvent<?> event) {
+            this(source, observer, listener, _factory, causeFactory, event, null, 0, null);
+        }
+
+        /**
+         * Constructor.
+         *
+         * @param source       The source that we are observing.
+         * @param observer     The child observer.
+         * @param listener     The task listener.
+         * @param _factory     The project factory.
+         * @param causeFactory A source of {@link Cause} instances to use when triggering builds.
+         * @param event        The optional event to use when scoping queries.
+         * @param incremental  The optional snapshot of the previous indexing.
+         * @param prefetchDepth How many observed heads ahead to fetch metadata, if this is non-zero then
+         *                     {@link #flush()} must be called once the fetch completes.
+         * @param metrics      The optional metrics of the branch indexing.
+         */
+        public SCMHeadObserverImpl(@NonNull SCMSource source, @NonNull ChildObserver<P> observer,
+                                   @NonNull TaskListener listener, @NonNull BranchProjectFactory<P, R> _factory,
+                                   @NonNull CauseFactory causeFactory, @CheckForNull SCMHeadEvent<?> event,
+                                   @CheckForNull IncrementalIndexing incremental, int prefetchDepth,
+                                   @CheckForNull IndexingMetrics metrics) {
             this.source = source;
             this.observer = observer;
             this.listener = listener;
             this._factory = _factory;
             this.causeFactory = causeFactory;
             this.event = event;
+            this.incremental = incremental;
+            this.prefetchDepth = Math.max(0, prefetchDepth);
+            this.metrics = metrics;
         }
 
         /**
@@ -1973,37 +2891,118 @@ public abstract class MultiBranchProject<P extends Job<P, R> & TopLevelItem,
          */
         @Override
         public void observe(@NonNull SCMHead head, @NonNull SCMRevision revision) throws IOException, InterruptedException {
+            if (prefetchDepth == 0) {
+                reconcile(head, revision, null);
+                return;
+            }
+            // heads that will most likely take the incremental fast path do not need their metadata
+            boolean skip = incremental != null && incremental.isUnchanged(source, head, revision);
+            pending.add(skip ? new Prefetch(head, revision) : new Prefetch(head, revision, source));
+            while (pending.size() > prefetchDepth) {
+                Prefetch next = pending.remove();
+                reconcile(next.head, next.revision, next);
+            }
+        }
+
+        /**
+         * Reconciles the heads that are still waiting for their metadata.
+         *
+         * @throws IOException if reconciliation failed.
+         * @throws InterruptedException if interrupted.
+         */
+        public void flush() throws IOException, InterruptedException {
+            while (!pending.isEmpty()) {
+                Prefetch next = pending.remove();
+                reconcile(next.head, next.revision, next);
+            }
+        }
+
+        /**
+         * Abandons the heads that are still waiting for their metadata.
+         */
+        public void cancelPending() {
+            for (Prefetch p : pending) {
+                p.cancel();
+            }
+            pending.clear();
+        }
+
+        private void reconcile(@NonNull SCMHead head, @NonNull SCMRevision revision, @CheckForNull Prefetch prefetch)
+                throws IOException, InterruptedException {
+            long observeStarted = System.nanoTime();
             Branch branch = newBranch(source, head);
             String rawName = branch.getName();
             String encodedName = branch.getEncodedName();
             P project = observer.shouldUpdate(encodedName);
+            BranchUnitOfWork<P, R> work = new BranchUnitOfWork<>(_factory);
             try {
+                if (isStillPresent(head, revision, project)) {
+                    if (prefetch != null) {
+                        prefetch.cancel();
+                    }
+                    // only needs to be marked as observed so that it is not treated as an orphan
+                    incremental.record(source, head, revision, true);
+                    if (metrics != null) {
+                        metrics.unchanged();
+                    }
+                    listener.getLogger().format("Unchanged since last indexing: %s (still at %s)%n",
+                            rawName, revision);
+                    return;
+                }
                 Branch origBranch = getOrigBranch(project);
-                setBranchActions(head, branch, origBranch);
-                Action[] revisionActions = getRevisionActions(revision, rawName);
+                setBranchActions(head, branch, origBranch, prefetch);
+                Action[] revisionActions = getRevisionActions(revision, rawName, prefetch);
                 if (project != null) {
                     if (origBranch == null) {
                         return;
                     }
-                    observeExisting(head, revision, branch, rawName, project, origBranch, revisionActions);
+                    observeExisting(head, revision, branch, rawName, project, origBranch, revisionActions, work);
                 } else {
-                    observeNew(head, revision, branch, rawName, encodedName, revisionActions);
+                    observeNew(head, revision, branch, rawName, encodedName, revisionActions, work);
                 }
             } finally {
+                // everything this head changed on disk is written once, before anyone else may touch the branch
+                int writes = work.flush(listener, rawName);
                 observer.completed(encodedName);
+                if (event != null) {
+                    SCMEventMetrics.get().record(SCMEventMetrics.Stage.OBSERVE, event, observeStarted);
+                }
+                if (metrics != null) {
+                    metrics.written(writes, work.getBytesWritten());
+                    metrics.observed(System.nanoTime() - observeStarted);
+                }
             }
         }
 
-        private void observeExisting(@NonNull SCMHead head, @NonNull SCMRevision revision, @NonNull Branch branch, String rawName, P project, Branch origBranch, Action[] revisionActions) {
+        /**
+         * Checks if an existing branch project can skip a full observation because its head is at the same
+         * revision as it was in the previous indexing and the project was last built for that revision.
+         */
+        private boolean isStillPresent(@NonNull SCMHead head, @NonNull SCMRevision revision, @CheckForNull P project) {
+            if (incremental == null || project == null || event != null || !_factory.isProject(project)) {
+                return false;
+            }
+            Branch origBranch = _factory.getBranch(project);
+            return !(origBranch instanceof Branch.Dead)
+                    && source.getId().equals(origBranch.getSourceId())
+                    && head.equals(origBranch.getHead())
+                    && incremental.isUnchanged(source, head, revision)
+                    // an event may have moved the project on since the snapshot was taken
+                    && revision.equals(_factory.getRevision(project));
+        }
+
+        private void observeExisting(@NonNull SCMHead head, @NonNull SCMRevision revision, @NonNull Branch branch, String rawName, P project, Branch origBranch, Action[] revisionActions, BranchUnitOfWork<P, R> work) {
             boolean rebuild = (origBranch instanceof Branch.Dead && !(branch instanceof Branch.Dead))
                     || !(source.getId().equals(origBranch.getSourceId()));
             boolean needSave = !branch.equals(origBranch)
                     || !branch.getActions().equals(origBranch.getActions())
-                    || !Util.getDigestOf(Items.XSTREAM2.toXML(branch.getScm()))
-                    .equals(Util.getDigestOf(Items.XSTREAM2.toXML(origBranch.getScm())));
+                    || !branch.getScmFingerprint().equals(origBranch.getScmFingerprint());
             _factory.decorate(_factory.setBranch(project, branch));
             if (rebuild) {
                 needSave = true;
+                if (metrics != null) {
+                    metrics.updated();
+                }
                 listener.getLogger().format(
                         "%s reopened: %s (%s)%n",
                         StringUtils.defaultIfEmpty(head.getPronoun(), "Branch"),
@@ -2013,7 +3012,7 @@ public abstract class MultiBranchProject<P extends Job<P, R> & TopLevelItem,
                 // the previous "revision" for this head is not a revision for the current source
                 // either because the head was removed and then recreated, or because the head
                 // was taken over by a different source, thus the previous revision is null
-                doAutomaticBuilds(head, revision, rawName, project, revisionActions, null, null);
+                doAutomaticBuilds(head, revision, rawName, project, revisionActions, null, null, work);
             } else {
                 // get the previous revision
                 SCMRevision scmLastBuiltRevision = _factory.getRevision(project);
@@ -2023,26 +3022,31 @@ public abstract class MultiBranchProject<P extends Job<P, R> & TopLevelItem,
                             .format("Changes detected: %s (%s → %s)%n", rawName, scmLastBuiltRevision, revision);
 
                     needSave = true;
+                    if (metrics != null) {
+                        metrics.updated();
+                    }
                     // get the previous seen revision
-                    SCMRevision scmLastSeenRevision = lastSeenRevisionOrDefault(project, scmLastBuiltRevision);
-                    doAutomaticBuilds(head, revision, rawName, project, revisionActions, scmLastBuiltRevision, scmLastSeenRevision);
+                    SCMRevision scmLastSeenRevision = lastSeenRevisionOrDefault(project, scmLastBuiltRevision, work);
+                    doAutomaticBuilds(head, revision, rawName, project, revisionActions, scmLastBuiltRevision, scmLastSeenRevision, work);
 
                 } else {
                     listener.getLogger().format("No changes detected: %s (still at %s)%n", rawName, revision);
+                    if (metrics != null) {
+                        metrics.unchanged();
+                    }
+                    if (incremental != null) {
+                        incremental.record(source, head, revision, false);
+                    }
                 }
 
             }
 
-            try {
-                if (needSave) {
-                    project.save();
-                }
-            } catch (IOException e) {
-                printStackTrace(e, listener.error("Could not save changes to " + rawName));
+            if (needSave) {
+                work.save(project);
             }
         }
 
-        private void observeNew(@NonNull SCMHead head, @NonNull SCMRevision revision, @NonNull Branch branch, String rawName, String encodedName, Action[] revisionActions) {
+        private void observeNew(@NonNull SCMHead head, @NonNull SCMRevision revision, @NonNull Branch branch, String rawName, String encodedName, Action[] revisionActions, BranchUnitOfWork<P, R> work) {
             P project;
             if (!observer.mayCreate(encodedName)) {
                 listener.getLogger().println("Ignoring duplicate branch project " + rawName);
@@ -2080,7 +3084,11 @@ public abstract class MultiBranchProject<P extends Job<P, R> & TopLevelItem,
             _factory.decorate(project);
             // ok it is now up to the observer to ensure it does the actual save.
             observer.created(project);
-            doAutomaticBuilds(head, revision, rawName, project, revisionActions, null, null);
+            if (metrics != null) {
+                metrics.created();
+                metrics.written(1, project.getConfigFile().getFile().length());
+            }
+            doAutomaticBuilds(head, revision, rawName, project, revisionActions, null, null, work);
         }
 
         private boolean changesDetected(@NonNull SCMRevision revision, @NonNull P project, SCMRevision scmLastBuiltRevision) {
@@ -2111,10 +3119,13 @@ public abstract class MultiBranchProject<P extends Job<P, R> & TopLevelItem,
             return changesDetected;
         }
 
-        private Action[] getRevisionActions(@NonNull SCMRevision revision, String rawName) {
+        private Action[] getRevisionActions(@NonNull SCMRevision revision, String rawName,
+                                            @CheckForNull Prefetch prefetch) {
             Action[] revisionActions = new Action[0];
             try {
-                List<Action> actions = source.fetchActions(revision, event, listener);
+                List<Action> actions = prefetch != null && prefetch.revisionActions != null
+                        ? prefetch.revisionActions.get(listener)
+                        : source.fetchActions(revision, event, listener);
                 revisionActions = actions.toArray(new Action[actions.size()]);
             } catch (IOException | InterruptedException e) {
                 printStackTrace(e, listener.error("Could not fetch metadata for revision %s of branch %s",
@@ -2123,9 +3134,12 @@ public abstract class MultiBranchProject<P extends Job<P, R> & TopLevelItem,
             return revisionActions;
         }
 
-        private void setBranchActions(@NonNull SCMHead head, @NonNull Branch branch, @CheckForNull Branch origBranch) {
+        private void setBranchActions(@NonNull SCMHead head, @NonNull Branch branch, @CheckForNull Branch origBranch,
+                                      @CheckForNull Prefetch prefetch) {
             try {
-                branch.setActions(source.fetchActions(head, event, listener));
+                branch.setActions(prefetch != null && prefetch.headActions != null
+                        ? prefetch.headActions.get(listener)
+                        : source.fetchActions(head, event, listener));
             } catch (IOException | InterruptedException e) {
                 printStackTrace(e, listener.error("Could not fetch metadata of branch %s", branch.getName()));
                 if (origBranch != null) {
@@ -2185,38 +3199,37 @@ public abstract class MultiBranchProject<P extends Job<P, R> & TopLevelItem,
             return origBranch;
         }
 
-        private SCMRevision lastSeenRevisionOrDefault(@NonNull P project, SCMRevision scmLastBuiltRevision) {
-            SCMRevision scmLastSeenRevision = _factory.getLastSeenRevision(project);
+        private SCMRevision lastSeenRevisionOrDefault(@NonNull P project, SCMRevision scmLastBuiltRevision,
+                                                      @NonNull BranchUnitOfWork<P, R> work) {
+            SCMRevision scmLastSeenRevision = work.getLastSeenRevision(project);
             if (scmLastSeenRevision == null && scmLastBuiltRevision != null) {
                 scmLastSeenRevision = scmLastBuiltRevision;
-                try {
-                    _factory.setLastSeenRevisionHash(project, scmLastBuiltRevision);
-                } catch (IOException e) {
-                    printStackTrace(e, listener.error("Could not update last seen revision hash"));
-                }
+                work.setLastSeenRevisionHash(project, scmLastBuiltRevision);
             }
             return scmLastSeenRevision;
         }
 
-        private void doAutomaticBuilds(@NonNull SCMHead head, @NonNull SCMRevision revision, @NonNull String rawName, @NonNull P project, Action[] revisionActions, SCMRevision scmLastBuiltRevision, SCMRevision scmLastSeenRevision) {
+        private void doAutomaticBuilds(@NonNull SCMHead head, @NonNull SCMRevision revision, @NonNull String rawName, @NonNull P project, Action[] revisionActions, SCMRevision scmLastBuiltRevision, SCMRevision scmLastSeenRevision, @NonNull BranchUnitOfWork<P, R> work) {
             if (isAutomaticBuild(head, revision, scmLastBuiltRevision, scmLastSeenRevision)) {
-                scheduleBuild(
-                        _factory,
+                boolean scheduled = scheduleBuild(
+                        work,
                         project,
                         revision,
                         listener,
                         rawName,
-                        causeFactory.create(source),
+                        causeFactory.create(source, head),
                         revisionActions
                 );
+                if (scheduled && metrics != null) {
+                    metrics.scheduled();
+                }
+                if (scheduled && event != null) {
+                    SCMEventMetrics.get().recordSinceReceipt(SCMEventMetrics.Stage.SCHEDULE, event);
+                }
             } else {
                 listener.getLogger().format("No automatic build triggered for %s%n", rawName);
             }
-            try {
-                _factory.setLastSeenRevisionHash(project, revision);
-            } catch (IOException e) {
-                printStackTrace(e, listener.error("Could not update last seen revision hash"));
-            }
+            work.setLastSeenRevisionHash(project, revision);
         }
 
         /**
@@ -2257,6 +3270,68 @@ public abstract class MultiBranchProject<P extends Job<P, R> & TopLevelItem,
         }
     }
 
+    /**
+     * An observed head whose metadata is being fetched ahead of its reconciliation.
+     */
+    private static class Prefetch {
+        /**
+         * The head.
+         */
+        @NonNull
+        private final SCMHead head;
+        /**
+         * The revision.
+         */
+        @NonNull
+        private final SCMRevision revision;
+        /**
+         * The pending metadata of the head or {@code null} if it is fetched on reconciliation.
+         */
+        @CheckForNull
+        private final BufferedSCMCall<List<Action>> headActions;
+        /**
+         * The pending metadata of the revision or {@code null} if it is fetched on reconciliation.
+         */
+        @CheckForNull
+        private final BufferedSCMCall<List<Action>> revisionActions;
+
+        /**
+         * Constructor for a head whose metadata is fetched on reconciliation.
+         *
+         * @param head     the head.
+         * @param revision the revision.
+         */
+        Prefetch(@NonNull SCMHead head, @NonNull SCMRevision revision) {
+            this.head = head;
+            this.revision = revision;
+            this.headActions = null;
+            this.revisionActions = null;
+        }
+
+        /**
+         * Constructor that starts fetching the metadata of the head and revision.
+         *
+         * @param head     the head.
+         * @param revision the revision.
+         * @param source   the source of the head.
+         */
+        Prefetch(@NonNull SCMHead head, @NonNull SCMRevision revision, @NonNull SCMSource source) {
+            this.head = head;
+            this.revision = revision;
+            this.headActions = BufferedSCMCall.submit(l -> source.fetchActions(head, null, l));
+            this.revisionActions = BufferedSCMCall.submit(l -> source.fetchActions(revision, null, l));
+        }
+
+        /**
+         * Abandons any metadata that is still being fetched.
+         */
+        void cancel() {
+            if (headActions != null) {
+                BufferedSCMCall.cancelAll(Arrays.asList(headActions, revisionActions));
+            }
+        }
+    }
+
     /**
      * Adds the {@link MultiBranchProject.State#sourceActions} to
      * {@link MultiBranchProject#getAllActions()}.
@@ -72,7 +72,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import edu.umd.cs.findbugs.annotations.CheckForNull;
@@ -182,6 +184,11 @@ public final class OrganizationFolder extends ComputedFolder<MultiBranchProject<
      */
     private transient String bbsDigest;
 
+    /**
+     * The sources of the buildable children.
+     */
+    private transient /*almost final*/ ChildSourceSnapshot childSources = new ChildSourceSnapshot();
+
     /**
      * {@inheritDoc}
      */
@@ -224,6 +231,12 @@ public final class OrganizationFolder extends ComputedFolder<MultiBranchProject<
     @Override
     public void onLoad(ItemGroup<? extends Item> parent, String name) throws IOException {
         super.onLoad(parent, name);
+        if (childSources == null) {
+            childSources = new ChildSourceSnapshot();
+        } else {
+            // the children may have been reloaded
+            childSources.invalidate();
+        }
         navigators.setOwner(this);
         projectFactories.setOwner(this);
         if (buildStrategies == null) {
@@ -460,6 +473,8 @@ public final class OrganizationFolder extends ComputedFolder<MultiBranchProject<
      */
     @Override
     protected void computeChildren(final ChildObserver<MultiBranchProject<?,?>> observer, final TaskListener listener) throws IOException, InterruptedException {
+        // anything that shed events would have told us will be picked up now
+        SCMEventIngestion.get().computationStarted(this);
         // capture the current digests to prevent unnecessary rescan if re-saving after scan
         try {
             navDigest = Util.getDigestOf(Items.XSTREAM2.toXML(navigators));
@@ -609,11 +624,62 @@ public final class OrganizationFolder extends ComputedFolder<MultiBranchProject<
      */
     @Override
     public List<SCMSource> getSCMSources() {
-        Set<SCMSource> result = new HashSet<>();
-        for (MultiBranchProject<?,?> child : getItems(MultiBranchProject::isBuildable)) {
-            result.addAll(child.getSCMSources());
+        return childSources.get(this);
+    }
+
+    /**
+     * Records that the sources of a child may have changed.
+     *
+     * @param child the child.
+     */
+    void childSourcesChanged(@NonNull MultiBranchProject<?, ?> child) {
+        ChildSourceSnapshot snapshot = childSources;
+        if (snapshot != null) {
+            snapshot.childChanged(child);
         }
-        return new ArrayList<>(result);
+    }
+
+    /**
+     * Records that a child has gone away.
+     *
+     * @param name the {@link Item#getName()} of the child.
+     */
+    void childSourcesRemoved(@NonNull String name) {
+        ChildSourceSnapshot snapshot = childSources;
+        if (snapshot != null) {
+            snapshot.childRemoved(name);
+        }
+    }
+
+    /**
+     * Returns {@code true} if a buildable child has a source that matches the supplied event. When the event can be
+     * routed only the children that the {@link SCMEventRoutingIndex} names are consulted.
+     *
+     * @param event the event.
+     * @return {@code true} if a buildable child has a source that matches the supplied event.
+     */
+    @SuppressWarnings("rawtypes")
+    boolean isMatchedByChildSource(@NonNull SCMHeadEvent<?> event) {
+        SCMHeadEventMemo memo = SCMHeadEventMemo.of(event);
+        List<MultiBranchProject> candidates = SCMEventRoutingIndex.get().candidates(event);
+        if (candidates == null) {
+            for (SCMSource s : getSCMSources()) {
+                if (memo.isMatch(s)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        for (MultiBranchProject<?, ?> child : candidates) {
+            if (child.getParent() == this && child.isBuildable()) {
+                for (SCMSource s : child.getSCMSources()) {
+                    if (memo.isMatch(s)) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
     }
 
     /**
@@ -938,6 +1004,9 @@ public final class OrganizationFolder extends ComputedFolder<MultiBranchProject<
 
         private final EventOutputStreams globalEvents = createGlobalEvents();
 
+        private final AsyncEventsLog globalEventsLog =
+                new AsyncEventsLog(OrganizationFolder.class.getName(), globalEvents::get);
+
         private EventOutputStreams createGlobalEvents() {
             File logsDir = new File(Jenkins.get().getRootDir(), "logs");
             if (!logsDir.isDirectory() && !logsDir.mkdirs()) {
@@ -973,7 +1042,19 @@ public final class OrganizationFolder extends ComputedFolder<MultiBranchProject<
          */
         @Restricted(NoExternalUse.class)
         public StreamTaskListener globalEventsListener() {
-            return new StreamBuildListener(globalEvents.get(), StandardCharsets.UTF_8);
+            return new StreamBuildListener(globalEventsLog.open(), StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Returns the organization folders that may be interested in the supplied event. Events that the
+         * {@link SCMNavigatorRoutingIndex} can route only go to the candidate folders.
+         *
+         * @param event the event.
+         * @return the candidate organization folders, or all organization folders if the event cannot be routed.
+         */
+        private static List<OrganizationFolder> candidates(SCMEvent<?> event) {
+            List<OrganizationFolder> folders = SCMNavigatorRoutingIndex.get().candidates(event);
+            return folders != null ? folders : Jenkins.get().getAllItems(OrganizationFolder.class);
         }
 
         /**
@@ -981,7 +1062,47 @@ public final class OrganizationFolder extends ComputedFolder<MultiBranchProject<
          */
         @Override
         public void onSCMHeadEvent(SCMHeadEvent<?> event) {
+            SCMEventMetrics.get().received(event);
+            if (CREATED != event.getType() && UPDATED != event.getType()) {
+                handleHeadEvent(event);
+            } else if (!SCMEventIngestion.get().process(event, () -> handleHeadEvent(event))) {
+                shed(event, event::isMatch);
+            }
+        }
+
+        /**
+         * Records that an event was shed and requests a catch-up scan of the organization folders that it may affect.
+         *
+         * @param event the event.
+         * @param matcher tests if the event matches a navigator.
+         */
+        private void shed(SCMEvent<?> event, Predicate<SCMNavigator> matcher) {
             try (StreamTaskListener global = globalEventsListener()) {
+                global.getLogger().format("[%tc] Shed %s %s event from %s with timestamp %tc as the %s lane is full%n",
+                        System.currentTimeMillis(), event.getClass().getName(), event.getType().name(),
+                        event.getOrigin(), event.getTimestamp(), SCMEventMetrics.Lane.of(event));
+                SCMEventIngestion ingestion = SCMEventIngestion.get();
+                for (OrganizationFolder p : candidates(event)) {
+                    if (!p.isBuildable()) {
+                        continue;
+                    }
+                    for (SCMNavigator n : p.getSCMNavigators()) {
+                        if (matcher.test(n)) {
+                            if (ingestion.requestCatchUp(p)) {
+                                global.getLogger().format("Scheduled catch-up scan of %s%n", p.getFullName());
+                            }
+                            break;
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Could not close global event log file", e);
+            }
+        }
+
+        private void handleHeadEvent(SCMHeadEvent<?> event) {
+            try (SCMHeadEventMemo memo = SCMHeadEventMemo.open(event);
+                 StreamTaskListener global = globalEventsListener()) {
                 String globalEventDescription = StringUtils.defaultIfBlank(event.description(), event.getClass().getName());
                 long started = System.currentTimeMillis();
                 global.getLogger().format("[%tc] Received %s %s event from %s with timestamp %tc%n",
@@ -991,8 +1112,10 @@ public final class OrganizationFolder extends ComputedFolder<MultiBranchProject<
                         event.getOrigin(), event.getTimestamp());
                 int matchCount = 0;
                 if (CREATED == event.getType() || UPDATED == event.getType()) {
+                    SCMEventDispatcher dispatcher = SCMEventDispatcher.get();
+                    List<Future<Boolean>> tasks = new ArrayList<>();
                     try {
-                        for (OrganizationFolder p : Jenkins.get().getAllItems(OrganizationFolder.class)) {
+                        for (OrganizationFolder p : candidates(event)) {
                             if (!p.isBuildable()) {
                                 if (LOGGER.isLoggable(Level.FINER)) {
                                     LOGGER.log(Level.FINER,
@@ -1005,83 +1128,10 @@ public final class OrganizationFolder extends ComputedFolder<MultiBranchProject<
                                 }
                                 continue;
                             }
-                            // we want to catch when a branch is created / updated and consequently becomes eligible
-                            // against the criteria. First check if the event matches one of the navigators
-                            SCMNavigator navigator = null;
-                            for (SCMNavigator n : p.getSCMNavigators()) {
-                                if (event.isMatch(n)) {
-                                    matchCount++;
-                                    global.getLogger().format("Found match against %s%n", p.getFullName());
-                                    navigator = n;
-                                    break;
-                                }
-                            }
-                            if (navigator == null) {
-                                continue;
-                            }
-                            // ok, now check if any of the sources are a match... if they are then this event is not our
-                            // concern
-                            for (SCMSource s : p.getSCMSources()) {
-                                if (event.isMatch(s)) {
-                                    // already have a source that will see this
-                                    global.getLogger()
-                                            .format("Project %s already has a corresponding sub-project%n",
-                                                    p.getFullName());
-                                    navigator = null;
-                                    break;
-                                }
-                            }
-                            if (navigator != null) {
-                                global.getLogger()
-                                        .format("Project %s does not have a corresponding sub-project%n",
-                                                p.getFullName());
-                                String localEventDescription = StringUtils.defaultIfBlank(
-                                        event.descriptionFor(navigator),
-                                        globalEventDescription
-                                );
-                                try (StreamTaskListener listener = p.getComputation().createEventsListener();
-                                     ChildObserver childObserver = p.openEventsChildObserver()) {
-                                    long start = System.currentTimeMillis();
-                                    listener.getLogger()
-                                            .format("[%tc] Received %s %s event from %s with timestamp %tc%n",
-                                                    start, localEventDescription, event.getType().name(),
-                                                    event.getOrigin(),
-                                                    event.getTimestamp());
-                                    try {
-                                        navigator.visitSources(
-                                                p.new SCMSourceObserverImpl(listener, childObserver, navigator, event),
-                                                event);
-                                    } catch (IOException e) {
-                                        printStackTrace(e, listener.error(e.getMessage()));
-                                    } catch (InterruptedException e) {
-                                        listener.error(e.getMessage());
-                                        throw e;
-                                    } finally {
-                                        long end = System.currentTimeMillis();
-                                        listener.getLogger().format(
-                                                "[%tc] %s %s event from %s with timestamp %tc processed in %s%n",
-                                                end, localEventDescription, event.getType().name(),
-                                                event.getOrigin(), event.getTimestamp(),
-                                                Util.getTimeSpanString(end - start));
-                                    }
-                                } catch (IOException e) {
-                                    printStackTrace(e, global.error(
-                                            "[%tc] %s encountered an error while processing %s %s event from %s with "
-                                                    + "timestamp %tc",
-                                            System.currentTimeMillis(), ModelHyperlinkNote.encodeTo(p),
-                                            globalEventDescription, event.getType().name(),
-                                            event.getOrigin(), event.getTimestamp()));
-                                } catch (InterruptedException e) {
-                                    global.error(
-                                            "[%tc] %s was interrupted while processing %s %s event from %s with "
-                                                    + "timestamp %tc",
-                                            System.currentTimeMillis(), ModelHyperlinkNote.encodeTo(p),
-                                            globalEventDescription, event.getType().name(),
-                                            event.getOrigin(), event.getTimestamp());
-                                    throw e;
-                                }
-                            }
+                            tasks.add(dispatcher.submit(p, () -> processHeadEvent(p, event, global,
+                                    globalEventDescription)));
                         }
+                        matchCount += dispatcher.awaitMatches(tasks, global);
                     } catch (InterruptedException e) {
                         printStackTrace(e, global.error(
                                 "[%tc] Interrupted while processing %s %s event from %s with timestamp %tc",
@@ -1105,6 +1155,15 @@ public final class OrganizationFolder extends ComputedFolder<MultiBranchProject<
          */
         @Override
         public void onSCMNavigatorEvent(SCMNavigatorEvent<?> event) {
+            SCMEventMetrics.get().received(event);
+            if (UPDATED != event.getType()) {
+                handleNavigatorEvent(event);
+            } else if (!SCMEventIngestion.get().process(event, () -> handleNavigatorEvent(event))) {
+                shed(event, event::isMatch);
+            }
+        }
+
+        private void handleNavigatorEvent(SCMNavigatorEvent<?> event) {
             try (StreamTaskListener global = globalEventsListener()) {
                 long started = System.currentTimeMillis();
                 global.getLogger().format("[%tc] Received %s %s event from %s with timestamp %tc%n",
@@ -1112,79 +1171,13 @@ public final class OrganizationFolder extends ComputedFolder<MultiBranchProject<
                         event.getOrigin(), event.getTimestamp());
                 int matchCount = 0;
                 if (UPDATED == event.getType()) {
-                    Set<SCMNavigator> matches = new HashSet<>();
+                    SCMEventDispatcher dispatcher = SCMEventDispatcher.get();
+                    List<Future<Boolean>> tasks = new ArrayList<>();
                     try {
-                        for (OrganizationFolder p : Jenkins.get().getAllItems(OrganizationFolder.class)) {
-                            matches.clear();
-                            for (SCMNavigator n : p.getSCMNavigators()) {
-                                if (event.isMatch(n)) {
-                                    matches.add(n);
-                                }
-                            }
-                            if (!matches.isEmpty()) {
-                                matchCount++;
-                                try (StreamTaskListener listener = p.getComputation().createEventsListener()) {
-                                    Map<SCMNavigator, List<Action>> navigatorActions = new HashMap<>();
-                                    for (SCMNavigator navigator : matches) {
-                                        try {
-                                            List<Action> newActions = navigator.fetchActions(p, event, listener);
-                                            List<Action> oldActions = p.state.getActions(navigator);
-                                            if (oldActions == null || !oldActions.equals(newActions)) {
-                                                navigatorActions.put(navigator, newActions);
-                                            }
-                                        } catch (IOException e) {
-                                            printStackTrace(e,
-                                                    listener.error("Could not fetch metadata from %s", navigator));
-                                        } catch (InterruptedException e) {
-                                            listener.error(e.getMessage());
-                                            throw e;
-                                        }
-                                    }
-                                    // update any persistent actions for the SCMNavigator
-                                    if (!navigatorActions.isEmpty()) {
-                                        boolean saveProject = false;
-                                        for (List<Action> actions : navigatorActions.values()) {
-                                            for (Action a : actions) {
-                                                // undo any hacks that attached the contributed actions without attribution
-
-                                                saveProject = p.removeActions(a.getClass()) || saveProject;
-                                            }
-                                        }
-                                        BulkChange bc = new BulkChange(p.state);
-                                        try {
-                                            for (Map.Entry<SCMNavigator, List<Action>> entry : navigatorActions
-                                                    .entrySet()) {
-                                                p.state.setActions(entry.getKey(), entry.getValue());
-                                            }
-                                            bc.commit();
-                                            if (saveProject) {
-                                                p.save();
-                                            }
-                                        } catch (IOException e) {
-                                            printStackTrace(e, listener.error("Could not persist updated metadata"));
-                                        } finally {
-                                            bc.abort();
-                                        }
-                                    }
-                                } catch (IOException e) {
-                                    printStackTrace(e, global.error(
-                                            "[%tc] %s encountered an error while processing %s %s event from %s with "
-                                                    + "timestamp %tc",
-
-                                            System.currentTimeMillis(), ModelHyperlinkNote.encodeTo(p),
-                                            event.getClass().getName(), event.getType().name(),
-                                            event.getOrigin(), event.getTimestamp()));
-                                } catch (InterruptedException e) {
-                                    global.error(
-                                            "[%tc] %s was interrupted while processing %s %s event from %s with "
-                                                    + "timestamp %tc",
-                                            System.currentTimeMillis(), ModelHyperlinkNote.encodeTo(p),
-                                            event.getClass().getName(), event.getType().name(),
-                                            event.getOrigin(), event.getTimestamp());
-                                    throw e;
-                                }
-                            }
+                        for (OrganizationFolder p : candidates(event)) {
+                            tasks.add(dispatcher.submit(p, () -> processNavigatorEvent(p, event, global)));
                         }
+                        matchCount += dispatcher.awaitMatches(tasks, global);
                     } catch (InterruptedException e) {
                         printStackTrace(e, global.error(
                                 "[%tc] Interrupted while processing %s %s event from %s with timestamp %tc",
@@ -1207,6 +1200,15 @@ public final class OrganizationFolder extends ComputedFolder<MultiBranchProject<
          */
         @Override
         public void onSCMSourceEvent(SCMSourceEvent<?> event) {
+            SCMEventMetrics.get().received(event);
+            if (CREATED != event.getType()) {
+                handleSourceEvent(event);
+            } else if (!SCMEventIngestion.get().process(event, () -> handleSourceEvent(event))) {
+                shed(event, event::isMatch);
+            }
+        }
+
+        private void handleSourceEvent(SCMSourceEvent<?> event) {
             try (StreamTaskListener global = globalEventsListener()) {
                 long started = System.currentTimeMillis();
                 global.getLogger().format("[%tc] Received %s %s event from %s with timestamp %tc%n",
@@ -1214,69 +1216,13 @@ public final class OrganizationFolder extends ComputedFolder<MultiBranchProject<
                         event.getOrigin(), event.getTimestamp());
                 int matchCount = 0;
                 if (CREATED == event.getType()) {
+                    SCMEventDispatcher dispatcher = SCMEventDispatcher.get();
+                    List<Future<Boolean>> tasks = new ArrayList<>();
                     try {
-                        for (OrganizationFolder p : Jenkins.get().getAllItems(OrganizationFolder.class)) {
-                            boolean haveMatch = false;
-                            for (SCMNavigator n : p.getSCMNavigators()) {
-                                if (event.isMatch(n)) {
-                                    global.getLogger().format("Found match against %s%n", p.getFullName());
-                                    haveMatch = true;
-                                    break;
-                                }
-                            }
-                            if (haveMatch) {
-                                matchCount++;
-                                try (StreamTaskListener listener = p.getComputation().createEventsListener();
-                                     ChildObserver childObserver = p.openEventsChildObserver()) {
-                                    long start = System.currentTimeMillis();
-                                    listener.getLogger()
-                                            .format("[%tc] Received %s %s event from %s with timestamp %tc%n",
-                                                    start, event.getClass().getName(), event.getType().name(),
-                                                    event.getOrigin(), event.getTimestamp());
-                                    try {
-                                        for (SCMNavigator n : p.getSCMNavigators()) {
-                                            if (event.isMatch(n)) {
-                                                try {
-                                                    n.visitSources(
-                                                            p.new SCMSourceObserverImpl(listener, childObserver, n,
-                                                                    event),
-                                                            event
-                                                    );
-                                                } catch (IOException e) {
-                                                    printStackTrace(e, listener.error(e.getMessage()));
-                                                }
-                                            }
-                                        }
-                                    } catch (InterruptedException e) {
-                                        listener.error(e.getMessage());
-                                        throw e;
-                                    } finally {
-                                        long end = System.currentTimeMillis();
-                                        listener.getLogger().format(
-                                                "[%tc] %s %s event from %s with timestamp %tc processed in %s%n",
-                                                end, event.getClass().getName(), event.getType().name(),
-                                                event.getOrigin(), event.getTimestamp(),
-                                                Util.getTimeSpanString(end - start));
-                                    }
-                                } catch (IOException e) {
-                                    printStackTrace(e, global.error(
-                                            "[%tc] %s encountered an error while processing %s %s event from %s with "
-                                                    + "timestamp %tc",
-
-                                            System.currentTimeMillis(), ModelHyperlinkNote.encodeTo(p),
-                                            event.getClass().getName(), event.getType().name(),
-                                            event.getOrigin(), event.getTimestamp()));
-                                } catch (InterruptedException e) {
-                                    global.error(
-                                            "[%tc] %s was interrupted while processing %s %s event from %s with "
-                                                    + "timestamp %tc",
-                                            System.currentTimeMillis(), ModelHyperlinkNote.encodeTo(p),
-                                            event.getClass().getName(), event.getType().name(),
-                                            event.getOrigin(), event.getTimestamp());
-                                    throw e;
-                                }
-                            }
+                        for (OrganizationFolder p : candidates(event)) {
+                            tasks.add(dispatcher.submit(p, () -> processSourceEvent(p, event, global)));
                         }
+                        matchCount += dispatcher.awaitMatches(tasks, global);
                     } catch (InterruptedException e) {
                         printStackTrace(e, global.error(
                                 "[%tc] Interrupted while processing %s %s event from %s with timestamp %tc",
@@ -1294,6 +1240,230 @@ public final class OrganizationFolder extends ComputedFolder<MultiBranchProject<
             }
 
         }
+
+        private boolean processHeadEvent(OrganizationFolder p, SCMHeadEvent<?> event, TaskListener global,
+                                         String globalEventDescription)
+                throws InterruptedException {
+            boolean matched = false;
+            // we want to catch when a branch is created / updated and consequently becomes eligible
+            // against the criteria. First check if the event matches one of the navigators
+            SCMNavigator navigator = null;
+            for (SCMNavigator n : p.getSCMNavigators()) {
+                if (event.isMatch(n)) {
+                    matched = true;
+                    global.getLogger().format("Found match against %s%n", p.getFullName());
+                    navigator = n;
+                    break;
+                }
+            }
+            if (navigator == null) {
+                return false;
+            }
+            // ok, now check if any of the sources are a match... if they are then this event is not our
+            // concern
+            if (p.isMatchedByChildSource(event)) {
+                // already have a source that will see this
+                global.getLogger()
+                        .format("Project %s already has a corresponding sub-project%n",
+                                p.getFullName());
+                navigator = null;
+            }
+            if (navigator != null) {
+                global.getLogger()
+                        .format("Project %s does not have a corresponding sub-project%n",
+                                p.getFullName());
+                String localEventDescription = StringUtils.defaultIfBlank(
+                        event.descriptionFor(navigator),
+                        globalEventDescription
+                );
+                try (StreamTaskListener listener = p.getComputation().createEventsListener();
+                     ChildObserver childObserver = p.openEventsChildObserver()) {
+                    long start = System.currentTimeMillis();
+                    listener.getLogger()
+                            .format("[%tc] Received %s %s event from %s with timestamp %tc%n",
+                                    start, localEventDescription, event.getType().name(),
+                                    event.getOrigin(),
+                                    event.getTimestamp());
+                    try {
+                        navigator.visitSources(
+                                p.new SCMSourceObserverImpl(listener, childObserver, navigator, event),
+                                event);
+                    } catch (IOException e) {
+                        printStackTrace(e, listener.error(e.getMessage()));
+                    } catch (InterruptedException e) {
+                        listener.error(e.getMessage());
+                        throw e;
+                    } finally {
+                        long end = System.currentTimeMillis();
+                        listener.getLogger().format(
+                                "[%tc] %s %s event from %s with timestamp %tc processed in %s%n",
+                                end, localEventDescription, event.getType().name(),
+                                event.getOrigin(), event.getTimestamp(),
+                                Util.getTimeSpanString(end - start));
+                    }
+                } catch (IOException e) {
+                    printStackTrace(e, global.error(
+                            "[%tc] %s encountered an error while processing %s %s event from %s with "
+                                    + "timestamp %tc",
+                            System.currentTimeMillis(), ModelHyperlinkNote.encodeTo(p),
+                            globalEventDescription, event.getType().name(),
+                            event.getOrigin(), event.getTimestamp()));
+                } catch (InterruptedException e) {
+                    global.error(
+                            "[%tc] %s was interrupted while processing %s %s event from %s with "
+                                    + "timestamp %tc",
+                            System.currentTimeMillis(), ModelHyperlinkNote.encodeTo(p),
+                            globalEventDescription, event.getType().name(),
+                            event.getOrigin(), event.getTimestamp());
+                    throw e;
+                }
+            }
+            return matched;
+        }
+
+        private boolean processNavigatorEvent(OrganizationFolder p, SCMNavigatorEvent<?> event, TaskListener global)
+                throws InterruptedException {
+            SCMEventMetrics metrics = SCMEventMetrics.get();
+            long matchStarted = System.nanoTime();
+            boolean matched = false;
+            Set<SCMNavigator> matches = new HashSet<>();
+            for (SCMNavigator n : p.getSCMNavigators()) {
+                if (event.isMatch(n)) {
+                    matches.add(n);
+                }
+            }
+            metrics.record(SCMEventMetrics.Stage.MATCH, event, matchStarted);
+            if (!matches.isEmpty()) {
+                matched = true;
+                try (StreamTaskListener listener = p.getComputation().createEventsListener()) {
+                    Map<SCMNavigator, List<Action>> navigatorActions = new HashMap<>();
+                    for (SCMNavigator navigator : matches) {
+                        long fetchStarted = System.nanoTime();
+                        try {
+                            List<Action> newActions = navigator.fetchActions(p, event, listener);
+                            metrics.record(SCMEventMetrics.Stage.FETCH, event, fetchStarted);
+                            List<Action> oldActions = p.state.getActions(navigator);
+                            if (oldActions == null || !oldActions.equals(newActions)) {
+                                navigatorActions.put(navigator, newActions);
+                            }
+                        } catch (IOException e) {
+                            printStackTrace(e,
+                                    listener.error("Could not fetch metadata from %s", navigator));
+                        } catch (InterruptedException e) {
+                            listener.error(e.getMessage());
+                            throw e;
+                        }
+                    }
+                    // update any persistent actions for the SCMNavigator
+                    if (!navigatorActions.isEmpty()) {
+                        boolean saveProject = false;
+                        for (List<Action> actions : navigatorActions.values()) {
+                            for (Action a : actions) {
+                                // undo any hacks that attached the contributed actions without attribution
+
+                                saveProject = p.removeActions(a.getClass()) || saveProject;
+                            }
+                        }
+                        BulkChange bc = new BulkChange(p.state);
+                        try {
+                            for (Map.Entry<SCMNavigator, List<Action>> entry : navigatorActions
+                                    .entrySet()) {
+                                p.state.setActions(entry.getKey(), entry.getValue());
+                            }
+                            bc.commit();
+                            if (saveProject) {
+                                p.save();
+                            }
+                        } catch (IOException e) {
+                            printStackTrace(e, listener.error("Could not persist updated metadata"));
+                        } finally {
+                            bc.abort();
+                        }
+                    }
+                } catch (IOException e) {
+                    printStackTrace(e, global.error(
+                            "[%tc] %s encountered an error while processing %s %s event from %s with "
+                                    + "timestamp %tc",
+
+                            System.currentTimeMillis(), ModelHyperlinkNote.encodeTo(p),
+                            event.getClass().getName(), event.getType().name(),
+                            event.getOrigin(), event.getTimestamp()));
+                } catch (InterruptedException e) {
+                    global.error(
+                            "[%tc] %s was interrupted while processing %s %s event from %s with "
+                                    + "timestamp %tc",
+                            System.currentTimeMillis(), ModelHyperlinkNote.encodeTo(p),
+                            event.getClass().getName(), event.getType().name(),
+                            event.getOrigin(), event.getTimestamp());
+                    throw e;
+                }
+            }
+            return matched;
+        }
+
+        private boolean processSourceEvent(OrganizationFolder p, SCMSourceEvent<?> event, TaskListener global)
+                throws InterruptedException {
+            boolean haveMatch = false;
+            for (SCMNavigator n : p.getSCMNavigators()) {
+                if (event.isMatch(n)) {
+                    global.getLogger().format("Found match against %s%n", p.getFullName());
+                    haveMatch = true;
+                    break;
+                }
+            }
+            if (haveMatch) {
+                try (StreamTaskListener listener = p.getComputation().createEventsListener();
+                     ChildObserver childObserver = p.openEventsChildObserver()) {
+                    long start = System.currentTimeMillis();
+                    listener.getLogger()
+                            .format("[%tc] Received %s %s event from %s with timestamp %tc%n",
+                                    start, event.getClass().getName(), event.getType().name(),
+                                    event.getOrigin(), event.getTimestamp());
+                    try {
+                        for (SCMNavigator n : p.getSCMNavigators()) {
+                            if (event.isMatch(n)) {
+                                try {
+                                    n.visitSources(
+                                            p.new SCMSourceObserverImpl(listener, childObserver, n,
+                                                    event),
+                                            event
+                                    );
+                                } catch (IOException e) {
+                                    printStackTrace(e, listener.error(e.getMessage()));
+                                }
+                            }
+                        }
+                    } catch (InterruptedException e) {
+                        listener.error(e.getMessage());
+                        throw e;
+                    } finally {
+                        long end = System.currentTimeMillis();
+                        listener.getLogger().format(
+                                "[%tc] %s %s event from %s with timestamp %tc processed in %s%n",
+                                end, event.getClass().getName(), event.getType().name(),
+                                event.getOrigin(), event.getTimestamp(),
+                                Util.getTimeSpanString(end - start));
+                    }
+                } catch (IOException e) {
+                    printStackTrace(e, global.error(
+                            "[%tc] %s encountered an error while processing %s %s event from %s with "
+                                    + "timestamp %tc",
+
+                            System.currentTimeMillis(), ModelHyperlinkNote.encodeTo(p),
+                            event.getClass().getName(), event.getType().name(),
+                            event.getOrigin(), event.getTimestamp()));
+                } catch (InterruptedException e) {
+                    global.error(
+                            "[%tc] %s was interrupted while processing %s %s event from %s with "
+                                    + "timestamp %tc",
+                            System.currentTimeMillis(), ModelHyperlinkNote.encodeTo(p),
+                            event.getClass().getName(), event.getType().name(),
+                            event.getOrigin(), event.getTimestamp());
+                    throw e;
+                }
+            }
+            return haveMatch;
+        }
     }
 
     private class SCMSourceObserverImpl extends SCMSourceObserver {
@@ -0,0 +1,89 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package jenkins.branch;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import jenkins.scm.api.SCMHead;
+import jenkins.scm.api.SCMHeadObserver;
+import jenkins.scm.api.SCMRevision;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * Remembers the heads and revisions that a fetch observed, in observation order, so that they can be replayed to
+ * another observer later.
+ */
+@Restricted(NoExternalUse.class)
+public final class RecordingHeadObserver extends SCMHeadObserver {
+
+    /**
+     * The observed heads and revisions in observation order.
+     */
+    private final Map<SCMHead, SCMRevision> observed = new LinkedHashMap<>();
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void observe(@NonNull SCMHead head, @NonNull SCMRevision revision) {
+        observed.put(head, revision);
+    }
+
+    /**
+     * Returns the observed heads and revisions in observation order.
+     *
+     * @return a copy of the observed heads and revisions.
+     */
+    @NonNull
+    public synchronized Map<SCMHead, SCMRevision> getObserved() {
+        return new LinkedHashMap<>(observed);
+    }
+
+    /**
+     * Replays the observed heads to another observer, stopping early if it loses interest.
+     *
+     * @param target the observer.
+     * @throws IOException if the observer failed.
+     * @throws InterruptedException if interrupted.
+     */
+    public void replay(@NonNull SCMHeadObserver target) throws IOException, InterruptedException {
+        List<Map.Entry<SCMHead, SCMRevision>> entries;
+        synchronized (this) {
+            entries = new ArrayList<>(observed.entrySet());
+        }
+        for (Map.Entry<SCMHead, SCMRevision> entry : entries) {
+            if (!target.isObserving()) {
+                return;
+            }
+            target.observe(entry.getKey(), entry.getValue());
+        }
+    }
+}
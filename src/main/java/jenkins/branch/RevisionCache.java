@@ -0,0 +1,480 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package jenkins.branch;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import hudson.Extension;
+import hudson.XmlFile;
+import hudson.init.Terminator;
+import hudson.model.Item;
+import hudson.model.Job;
+import hudson.model.listeners.ItemListener;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.scm.api.SCMRevision;
+import jenkins.util.SystemProperties;
+import jenkins.util.Timer;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * Keeps the last built and last seen {@link SCMRevision} of recently used branch projects in memory, so that they
+ * are only deserialized once, and writes changes to them shortly after they are made instead of immediately.
+ * The pending changes of a multi-branch project are written when its branch indexing completes, all pending changes
+ * are written when Jenkins shuts down, and they are discarded when the branch project is deleted. A change that
+ * cannot be written is queued again and only dropped, with a warning, if the retry fails too. The location of a
+ * branch project is only resolved when its changes are written, so changes made before a rename or move end up in
+ * the new location.
+ * <p>
+ * Enabled with the {@code enabled} system property. The {@code maximumSize} system property bounds the number of
+ * branch projects kept in memory and the {@code writeBehindMillis} system property controls how long changes may
+ * wait before being written.
+ */
+@Restricted(NoExternalUse.class)
+public final class RevisionCache {
+
+    /**
+     * Our logger.
+     */
+    private static final Logger LOGGER = Logger.getLogger(RevisionCache.class.getName());
+
+    /**
+     * Whether branch revisions are cached.
+     */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "Accessible via System Groovy Scripts")
+    static /* not final */ boolean ENABLED =
+            SystemProperties.getBoolean(RevisionCache.class.getName() + ".enabled", false);
+
+    /**
+     * The maximum number of branch projects whose revisions are cached.
+     */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "Accessible via System Groovy Scripts")
+    static /* not final */ int MAXIMUM_SIZE =
+            SystemProperties.getInteger(RevisionCache.class.getName() + ".maximumSize", 10000);
+
+    /**
+     * How long a change may wait before it is written.
+     */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "Accessible via System Groovy Scripts")
+    static /* not final */ long WRITE_BEHIND_MILLIS =
+            SystemProperties.getLong(RevisionCache.class.getName() + ".writeBehindMillis", 5000L);
+
+    /**
+     * The singleton instance.
+     */
+    private static final RevisionCache INSTANCE = new RevisionCache(MAXIMUM_SIZE);
+
+    /**
+     * The kinds of revision that are kept for a branch project.
+     */
+    public enum Kind {
+        /**
+         * The revision that the project was last built for.
+         */
+        BUILT("scm-revision-hash.xml"),
+        /**
+         * The revision that the project was last seen for.
+         */
+        SEEN("scm-last-seen-revision-hash.xml");
+
+        /**
+         * The file in the project directory that holds the revision.
+         */
+        private final String fileName;
+
+        Kind(String fileName) {
+            this.fileName = fileName;
+        }
+
+        /**
+         * Returns the file in the directory of the supplied project that holds the revision.
+         *
+         * @param project the project.
+         * @return the file.
+         */
+        @NonNull
+        public File getFile(@NonNull Job<?, ?> project) {
+            return new File(project.getRootDir(), fileName);
+        }
+    }
+
+    /**
+     * Marks a revision that has not been read yet.
+     */
+    private static final Object UNKNOWN = new Object();
+
+    /**
+     * The revisions of recently used projects.
+     */
+    private final Cache<Job<?, ?>, Entry> cache;
+
+    /**
+     * The projects with changes that have not been written yet. Guarded by {@code this}.
+     */
+    private final Map<Job<?, ?>, Entry> dirty = new IdentityHashMap<>();
+
+    /**
+     * The projects whose changes are being written. Guarded by {@code this}.
+     */
+    private final Map<Job<?, ?>, Entry> inFlight = new IdentityHashMap<>();
+
+    /**
+     * The pending write of the changes. Guarded by {@code this}.
+     */
+    @CheckForNull
+    private ScheduledFuture<?> scheduled;
+
+    /**
+     * Serializes writes so that an older value cannot overwrite a newer one.
+     */
+    private final Object writeLock = new Object();
+
+    RevisionCache(int maximumSize) {
+        this.cache = Caffeine.newBuilder()
+                .weakKeys()
+                .maximumSize(Math.max(1, maximumSize))
+                .build();
+    }
+
+    /**
+     * Returns the singleton instance if revisions are cached.
+     *
+     * @return the singleton instance or {@code null} if revisions are not cached.
+     */
+    @CheckForNull
+    public static RevisionCache get() {
+        return ENABLED ? INSTANCE : null;
+    }
+
+    /**
+     * Gets a revision of a project, reading it on first use.
+     *
+     * @param project the project.
+     * @param kind    the kind of revision.
+     * @return the revision or {@code null} if there is none.
+     */
+    @CheckForNull
+    public SCMRevision getRevision(@NonNull Job<?, ?> project, @NonNull Kind kind) {
+        synchronized (this) {
+            Entry entry = entry(project);
+            Object value = entry.get(kind);
+            if (value != UNKNOWN) {
+                return (SCMRevision) value;
+            }
+        }
+        SCMRevision revision = null;
+        try {
+            revision = (SCMRevision) new XmlFile(kind.getFile(project)).read();
+        } catch (IOException e) {
+            // ignore
+        }
+        synchronized (this) {
+            Entry entry = entry(project);
+            Object value = entry.get(kind);
+            if (value != UNKNOWN) {
+                // changed while we were reading
+                return (SCMRevision) value;
+            }
+            entry.set(kind, revision, false);
+            return revision;
+        }
+    }
+
+    /**
+     * Sets a revision of a project, writing it later.
+     *
+     * @param project  the project.
+     * @param kind     the kind of revision.
+     * @param revision the revision.
+     */
+    public synchronized void setRevision(@NonNull Job<?, ?> project, @NonNull Kind kind,
+                                         @NonNull SCMRevision revision) {
+        Entry entry = entry(project);
+        entry.set(kind, revision, true);
+        dirty.put(project, entry);
+        scheduleFlush();
+    }
+
+    /**
+     * Schedules a write of the pending changes unless one is already scheduled.
+     */
+    private void scheduleFlush() {
+        assert Thread.holdsLock(this);
+        if (scheduled == null) {
+            scheduled = Timer.get().schedule(this::scheduledFlush, Math.max(0L, WRITE_BEHIND_MILLIS),
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Writes all pending changes.
+     */
+    public void flush() {
+        flush(project -> true);
+    }
+
+    /**
+     * Writes the pending changes of the branch projects of a multi-branch project.
+     *
+     * @param owner the multi-branch project.
+     */
+    public void flush(@NonNull MultiBranchProject<?, ?> owner) {
+        flush(project -> project.getParent() == owner);
+    }
+
+    /**
+     * Writes the pending changes of the matching projects.
+     *
+     * @param filter selects the projects to write.
+     */
+    private void flush(@NonNull Predicate<Job<?, ?>> filter) {
+        synchronized (writeLock) {
+            List<Write> writes = new ArrayList<>();
+            List<Job<?, ?>> flushing = new ArrayList<>();
+            synchronized (this) {
+                for (Iterator<Map.Entry<Job<?, ?>, Entry>> i = dirty.entrySet().iterator(); i.hasNext(); ) {
+                    Map.Entry<Job<?, ?>, Entry> e = i.next();
+                    if (!filter.test(e.getKey())) {
+                        continue;
+                    }
+                    for (Kind kind : Kind.values()) {
+                        if (e.getValue().isDirty(kind)) {
+                            writes.add(new Write(e.getKey(), kind, e.getValue().get(kind),
+                                    e.getValue().isRetry(kind)));
+                        }
+                    }
+                    e.getValue().clean();
+                    // until written, the file is older than the entry, which must not be read back from it
+                    inFlight.put(e.getKey(), e.getValue());
+                    flushing.add(e.getKey());
+                    i.remove();
+                }
+            }
+            try {
+                write(writes);
+            } finally {
+                synchronized (this) {
+                    for (Job<?, ?> project : flushing) {
+                        inFlight.remove(project);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes changes, queueing those that cannot be written to be written again.
+     *
+     * @param writes the changes.
+     */
+    private void write(@NonNull List<Write> writes) {
+        assert Thread.holdsLock(writeLock);
+        for (Write write : writes) {
+            if (!write.project.getRootDir().isDirectory()) {
+                // deleted since the change was made
+                continue;
+            }
+            File file = write.kind.getFile(write.project);
+            try {
+                new XmlFile(file).write(write.revision);
+            } catch (IOException e) {
+                if (write.retry) {
+                    LOGGER.log(Level.WARNING, "Could not write " + file + " after retrying, dropping the change",
+                            e);
+                } else {
+                    LOGGER.log(Level.FINE, "Could not write " + file + ", will retry", e);
+                    requeue(write);
+                }
+            }
+        }
+    }
+
+    /**
+     * Queues a change that could not be written to be written again, unless it has been superseded.
+     *
+     * @param write the change.
+     */
+    private synchronized void requeue(@NonNull Write write) {
+        Entry entry = entry(write.project);
+        if (entry.isDirty(write.kind) || entry.get(write.kind) != write.revision) {
+            // a newer change will be written instead
+            return;
+        }
+        entry.retry(write.kind);
+        dirty.put(write.project, entry);
+        scheduleFlush();
+    }
+
+    /**
+     * Forgets a project, discarding any pending changes.
+     *
+     * @param project the project.
+     */
+    public synchronized void invalidate(@NonNull Job<?, ?> project) {
+        dirty.remove(project);
+        inFlight.remove(project);
+        cache.invalidate(project);
+    }
+
+    /**
+     * Returns whether a project has changes that have not been written yet.
+     *
+     * @param project the project.
+     * @return {@code true} if the project has pending changes.
+     */
+    synchronized boolean isDirty(@NonNull Job<?, ?> project) {
+        return dirty.containsKey(project);
+    }
+
+    private void scheduledFlush() {
+        synchronized (this) {
+            scheduled = null;
+        }
+        flush();
+    }
+
+    @NonNull
+    private Entry entry(@NonNull Job<?, ?> project) {
+        // dirty entries, and those being written, must survive eviction from the cache
+        Entry entry = dirty.get(project);
+        if (entry == null) {
+            entry = inFlight.get(project);
+        }
+        if (entry == null) {
+            entry = cache.get(project, k -> new Entry());
+        }
+        return entry;
+    }
+
+    /**
+     * Writes any pending changes when Jenkins shuts down.
+     */
+    @Terminator
+    public static void flushOnShutdown() {
+        INSTANCE.flush();
+    }
+
+    /**
+     * The revisions of one project.
+     */
+    private static final class Entry {
+        private Object built = UNKNOWN;
+        private Object seen = UNKNOWN;
+        private boolean builtDirty;
+        private boolean seenDirty;
+        private boolean builtRetry;
+        private boolean seenRetry;
+
+        Object get(Kind kind) {
+            return kind == Kind.BUILT ? built : seen;
+        }
+
+        void set(Kind kind, @CheckForNull SCMRevision revision, boolean changed) {
+            if (kind == Kind.BUILT) {
+                built = revision;
+                builtDirty |= changed;
+                builtRetry &= !changed;
+            } else {
+                seen = revision;
+                seenDirty |= changed;
+                seenRetry &= !changed;
+            }
+        }
+
+        boolean isDirty(Kind kind) {
+            return kind == Kind.BUILT ? builtDirty : seenDirty;
+        }
+
+        boolean isRetry(Kind kind) {
+            return kind == Kind.BUILT ? builtRetry : seenRetry;
+        }
+
+        void retry(Kind kind) {
+            if (kind == Kind.BUILT) {
+                builtDirty = true;
+                builtRetry = true;
+            } else {
+                seenDirty = true;
+                seenRetry = true;
+            }
+        }
+
+        void clean() {
+            builtDirty = false;
+            seenDirty = false;
+            builtRetry = false;
+            seenRetry = false;
+        }
+    }
+
+    /**
+     * A change to write.
+     */
+    private static final class Write {
+        private final Job<?, ?> project;
+        private final Kind kind;
+        private final Object revision;
+        private final boolean retry;
+
+        Write(Job<?, ?> project, Kind kind, Object revision, boolean retry) {
+            this.project = project;
+            this.kind = kind;
+            this.revision = revision;
+            this.retry = retry;
+        }
+    }
+
+    /**
+     * Discards the revisions of deleted projects.
+     */
+    @Extension
+    public static class ItemListenerImpl extends ItemListener {
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void onDeleted(Item item) {
+            if (item instanceof Job) {
+                INSTANCE.invalidate((Job<?, ?>) item);
+            }
+        }
+    }
+}
@@ -0,0 +1,646 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package jenkins.branch;
+
+import com.thoughtworks.xstream.XStreamException;
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import hudson.Extension;
+import hudson.model.Item;
+import hudson.model.ItemGroup;
+import hudson.model.Items;
+import hudson.model.Job;
+import hudson.model.listeners.ItemListener;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+import jenkins.scm.api.SCMRevision;
+import jenkins.util.SystemProperties;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * Keeps the last built and last seen {@link SCMRevision} of every branch project of a {@link MultiBranchProject} in
+ * a single {@code revisions.log} file in the directory of the multibranch project, instead of one
+ * {@code scm-revision-hash.xml} and one {@code scm-last-seen-revision-hash.xml} per branch project.
+ * <p>
+ * The file is a header followed by records that are only ever appended. Each record carries its length and a CRC32
+ * so that a record torn by a crash is detected on load and dropped along with anything after it. The whole file is
+ * read once, when first needed, and the revisions are then served from memory. When most records have been
+ * superseded the live records are written to a new file that atomically replaces the old one.
+ * <p>
+ * Branches without a record fall back to the per-branch files and are migrated into the store the first time they
+ * are read. The per-branch files are left in place but are no longer updated, so disabling the store again is lossy:
+ * branches revert to the revisions that their per-branch files held when they were migrated. Enabled with the
+ * {@code enabled} system property.
+ * <p>
+ * A file that cannot be read completely is never written to, so that the records it holds are not lost. If it could
+ * not be read because of an I/O error, reading it is attempted again the next time a revision is needed.
+ */
+@Restricted(NoExternalUse.class)
+public final class RevisionStore {
+
+    /**
+     * Our logger.
+     */
+    private static final Logger LOGGER = Logger.getLogger(RevisionStore.class.getName());
+
+    /**
+     * Whether branch revisions are kept in the store.
+     */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "Accessible via System Groovy Scripts")
+    static /* not final */ boolean ENABLED =
+            SystemProperties.getBoolean(RevisionStore.class.getName() + ".enabled", false);
+
+    /**
+     * The name of the store file.
+     */
+    static final String FILE_NAME = "revisions.log";
+
+    /**
+     * Identifies the file format.
+     */
+    private static final int MAGIC = 0x4d425253;
+
+    /**
+     * The version of the file format.
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * Records the last built revision of a branch.
+     */
+    private static final byte BUILT = 1;
+
+    /**
+     * Records the last seen revision of a branch.
+     */
+    private static final byte SEEN = 2;
+
+    /**
+     * Records the removal of a branch.
+     */
+    private static final byte REMOVED = 3;
+
+    /**
+     * Records larger than this are treated as corrupt.
+     */
+    private static final int MAX_RECORD = 16 * 1024 * 1024;
+
+    /**
+     * The stores of each multibranch project.
+     */
+    private static final Map<MultiBranchProject<?, ?>, RevisionStore> STORES = new WeakHashMap<>();
+
+    /**
+     * The owning multibranch project.
+     */
+    @NonNull
+    private final MultiBranchProject<?, ?> owner;
+
+    /**
+     * The revisions of each branch, keyed by the name of the branch project, or {@code null} until loaded.
+     */
+    @CheckForNull
+    private Map<String, Entry> entries;
+
+    /**
+     * The number of records in the file.
+     */
+    private int records;
+
+    /**
+     * The length of the valid part of the file.
+     */
+    private long length;
+
+    /**
+     * Whether the file is not a revision store, in which case it is never written to.
+     */
+    private boolean foreign;
+
+    RevisionStore(@NonNull MultiBranchProject<?, ?> owner) {
+        this.owner = owner;
+    }
+
+    /**
+     * Returns the store that holds the revisions of the supplied branch project.
+     *
+     * @param project the branch project.
+     * @return the store or {@code null} if the store is disabled or the project is not a branch project.
+     */
+    @CheckForNull
+    public static RevisionStore of(@NonNull Job<?, ?> project) {
+        if (!ENABLED) {
+            return null;
+        }
+        ItemGroup<?> parent = project.getParent();
+        if (!(parent instanceof MultiBranchProject)) {
+            return null;
+        }
+        synchronized (STORES) {
+            return STORES.computeIfAbsent((MultiBranchProject<?, ?>) parent, RevisionStore::new);
+        }
+    }
+
+    /**
+     * Gets the last built revision of a branch project.
+     *
+     * @param name the name of the branch project.
+     * @param legacy the per-branch file to read and migrate if there is no record.
+     * @return the revision or {@code null} if unknown.
+     */
+    @CheckForNull
+    public SCMRevision getRevision(@NonNull String name, @NonNull File legacy) {
+        return get(name, BUILT, legacy);
+    }
+
+    /**
+     * Gets the last seen revision of a branch project.
+     *
+     * @param name the name of the branch project.
+     * @param legacy the per-branch file to read and migrate if there is no record.
+     * @return the revision or {@code null} if unknown.
+     */
+    @CheckForNull
+    public SCMRevision getLastSeenRevision(@NonNull String name, @NonNull File legacy) {
+        return get(name, SEEN, legacy);
+    }
+
+    /**
+     * Sets the last built revision of a branch project.
+     *
+     * @param name the name of the branch project.
+     * @param revision the revision.
+     * @throws IOException if the revision could not be persisted.
+     */
+    public void setRevision(@NonNull String name, @NonNull SCMRevision revision) throws IOException {
+        put(name, BUILT, Items.XSTREAM2.toXML(revision), revision);
+    }
+
+    /**
+     * Sets the last seen revision of a branch project.
+     *
+     * @param name the name of the branch project.
+     * @param revision the revision.
+     * @throws IOException if the revision could not be persisted.
+     */
+    public void setLastSeenRevision(@NonNull String name, @NonNull SCMRevision revision) throws IOException {
+        put(name, SEEN, Items.XSTREAM2.toXML(revision), revision);
+    }
+
+    /**
+     * Forgets the revisions of a branch project.
+     *
+     * @param name the name of the branch project.
+     * @throws IOException if the removal could not be persisted.
+     */
+    public synchronized void remove(@NonNull String name) throws IOException {
+        if (!owner.getRootDir().isDirectory()) {
+            // the multibranch project is being deleted along with its branch projects
+            return;
+        }
+        if (loadForWrite().remove(name) != null) {
+            append(record(REMOVED, name, null));
+            compactIfNeeded();
+        }
+    }
+
+    /**
+     * Moves the revisions of a branch project that has been renamed.
+     *
+     * @param oldName the old name of the branch project.
+     * @param newName the new name of the branch project.
+     * @throws IOException if the move could not be persisted.
+     */
+    public synchronized void rename(@NonNull String oldName, @NonNull String newName) throws IOException {
+        Map<String, Entry> loaded = loadForWrite();
+        Entry entry = loaded.get(oldName);
+        if (entry == null || oldName.equals(newName)) {
+            return;
+        }
+        if (loaded.containsKey(newName)) {
+            // whatever was recorded for the new name must not resurface when the file is read again
+            append(record(REMOVED, newName, null));
+        }
+        // the new records go first so that a crash in between cannot lose the revisions
+        for (byte kind : new byte[]{BUILT, SEEN}) {
+            String xml = entry.xml(kind);
+            if (xml != null) {
+                append(record(kind, newName, xml));
+            }
+        }
+        append(record(REMOVED, oldName, null));
+        loaded.remove(oldName);
+        loaded.put(newName, entry);
+        compactIfNeeded();
+    }
+
+    @CheckForNull
+    private synchronized SCMRevision get(@NonNull String name, byte kind, @NonNull File legacy) {
+        Entry entry = load().get(name);
+        if (entry != null && entry.xml(kind) != null) {
+            return entry.revision(kind);
+        }
+        if (!legacy.isFile()) {
+            return null;
+        }
+        String xml;
+        SCMRevision revision;
+        try {
+            xml = new String(Files.readAllBytes(legacy.toPath()), StandardCharsets.UTF_8);
+            revision = (SCMRevision) Items.XSTREAM2.fromXML(xml);
+        } catch (IOException | XStreamException | ClassCastException e) {
+            LOGGER.log(Level.FINE, "Could not read " + legacy, e);
+            return null;
+        }
+        if (revision != null && isWritable()) {
+            try {
+                put(name, kind, xml, revision);
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Could not migrate " + legacy + " into the revision store of "
+                        + owner.getFullName(), e);
+            }
+        }
+        return revision;
+    }
+
+    private synchronized void put(@NonNull String name, byte kind, @NonNull String xml,
+                                  @NonNull SCMRevision revision) throws IOException {
+        Entry entry = loadForWrite().computeIfAbsent(name, k -> new Entry());
+        if (xml.equals(entry.xml(kind))) {
+            entry.set(kind, xml, revision);
+            return;
+        }
+        append(record(kind, name, xml));
+        entry.set(kind, xml, revision);
+        compactIfNeeded();
+    }
+
+    private File getFile() {
+        return new File(owner.getRootDir(), FILE_NAME);
+    }
+
+    /**
+     * Reads the file, unless it has already been read completely.
+     *
+     * @return the revisions of each branch, which are empty if the file could not be read.
+     */
+    @NonNull
+    private Map<String, Entry> load() {
+        if (entries != null) {
+            return entries;
+        }
+        Map<String, Entry> loaded = new HashMap<>();
+        int count = 0;
+        long valid = 0;
+        foreign = false;
+        File file = getFile();
+        try {
+            Files.deleteIfExists(compactFile(file).toPath());
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Could not remove incomplete compaction of " + file, e);
+        }
+        // a file without a complete header was torn when it was created, before any record was written
+        if (file.isFile() && file.length() >= 8) {
+            try (InputStream raw = Files.newInputStream(file.toPath());
+                 DataInputStream in = new DataInputStream(new BufferedInputStream(raw))) {
+                if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                    LOGGER.log(Level.WARNING, "Ignoring {0} as it is not a revision store, it will not be written to",
+                            file);
+                    foreign = true;
+                } else {
+                    valid = 8;
+                    while (true) {
+                        byte[] payload = readRecord(in, file, valid);
+                        if (payload == null) {
+                            break;
+                        }
+                        apply(loaded, payload);
+                        count++;
+                        valid += 8 + payload.length;
+                    }
+                }
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Could not read " + file + ", falling back to per-branch files and not "
+                        + "writing to it until it can be read", e);
+                // read again next time rather than overwrite the records that could not be read
+                return new HashMap<>();
+            }
+        }
+        records = count;
+        length = valid;
+        entries = loaded;
+        return entries;
+    }
+
+    /**
+     * Reads the file for an update, refusing to if it could not be read completely.
+     *
+     * @return the revisions of each branch.
+     * @throws IOException if the file could not be read completely or is not a revision store.
+     */
+    @NonNull
+    private Map<String, Entry> loadForWrite() throws IOException {
+        Map<String, Entry> loaded = load();
+        if (!isWritable()) {
+            throw new IOException("Refusing to write to " + getFile() + " as it could not be read completely");
+        }
+        return loaded;
+    }
+
+    /**
+     * Checks whether the file has been {@link #load() read} completely and can be written to.
+     *
+     * @return {@code true} if the file can be written to.
+     */
+    private boolean isWritable() {
+        return entries != null && !foreign;
+    }
+
+    /**
+     * Reads the next record.
+     *
+     * @return the payload of the record or {@code null} if there are no more valid records.
+     * @throws IOException if the file could not be read.
+     */
+    @CheckForNull
+    private static byte[] readRecord(DataInputStream in, File file, long offset) throws IOException {
+        try {
+            int size;
+            try {
+                size = in.readInt();
+            } catch (EOFException e) {
+                return null;
+            }
+            if (size <= 0 || size > MAX_RECORD) {
+                LOGGER.log(Level.WARNING, "Dropping corrupt tail of {0} at offset {1}", new Object[]{file, offset});
+                return null;
+            }
+            long crc = in.readInt() & 0xffffffffL;
+            byte[] payload = new byte[size];
+            in.readFully(payload);
+            CRC32 check = new CRC32();
+            check.update(payload);
+            if (check.getValue() != crc) {
+                LOGGER.log(Level.WARNING, "Dropping corrupt tail of {0} at offset {1}", new Object[]{file, offset});
+                return null;
+            }
+            return payload;
+        } catch (EOFException e) {
+            LOGGER.log(Level.WARNING, "Dropping incomplete record at the end of {0}", file);
+            return null;
+        }
+    }
+
+    private static void apply(Map<String, Entry> entries, byte[] payload) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+            byte kind = in.readByte();
+            String name = in.readUTF();
+            if (kind == REMOVED) {
+                entries.remove(name);
+                return;
+            }
+            byte[] xml = new byte[in.readInt()];
+            in.readFully(xml);
+            entries.computeIfAbsent(name, k -> new Entry()).set(kind, new String(xml, StandardCharsets.UTF_8), null);
+        }
+    }
+
+    private static byte[] record(byte kind, @NonNull String name, @CheckForNull String xml) throws IOException {
+        ByteArrayOutputStream payload = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(payload)) {
+            out.writeByte(kind);
+            out.writeUTF(name);
+            if (xml != null) {
+                byte[] bytes = xml.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+        }
+        byte[] bytes = payload.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        ByteBuffer record = ByteBuffer.allocate(8 + bytes.length);
+        record.putInt(bytes.length);
+        record.putInt((int) crc.getValue());
+        record.put(bytes);
+        return record.array();
+    }
+
+    private void append(byte[] record) throws IOException {
+        File file = getFile();
+        if (length == 0) {
+            // a new store, or one whose header was torn before any record was written
+            writeFile(file.toPath(), new byte[][]{record});
+            records = 1;
+            length = 8 + record.length;
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+            // drop any torn record left by a crash before appending after the valid records
+            channel.truncate(length);
+            channel.position(length);
+            ByteBuffer buffer = ByteBuffer.wrap(record);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        }
+        records++;
+        length += record.length;
+    }
+
+    private void compactIfNeeded() throws IOException {
+        int live = 0;
+        for (Entry entry : entries.values()) {
+            live += entry.count();
+        }
+        if (records < 1024 || records < 2 * live) {
+            return;
+        }
+        File file = getFile();
+        byte[][] all = new byte[live][];
+        int i = 0;
+        for (Map.Entry<String, Entry> e : entries.entrySet()) {
+            for (byte kind : new byte[]{BUILT, SEEN}) {
+                String xml = e.getValue().xml(kind);
+                if (xml != null) {
+                    all[i++] = record(kind, e.getKey(), xml);
+                }
+            }
+        }
+        Path tmp = compactFile(file).toPath();
+        long size = writeFile(tmp, all);
+        try {
+            Files.move(tmp, file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        records = live;
+        length = size;
+    }
+
+    private static File compactFile(@NonNull File file) {
+        return new File(file.getPath() + ".compact");
+    }
+
+    private static long writeFile(@NonNull Path path, @NonNull byte[][] records) throws IOException {
+        Files.createDirectories(path.getParent());
+        long size = 8;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(8);
+            header.putInt(MAGIC).putInt(VERSION).flip();
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+            for (byte[] record : records) {
+                ByteBuffer buffer = ByteBuffer.wrap(record);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                size += record.length;
+            }
+            channel.force(false);
+        }
+        return size;
+    }
+
+    /**
+     * The revisions of one branch project, kept in serialized form and deserialized on first use.
+     */
+    private static final class Entry {
+        private String builtXml;
+        private SCMRevision built;
+        private String seenXml;
+        private SCMRevision seen;
+
+        String xml(byte kind) {
+            return kind == BUILT ? builtXml : seenXml;
+        }
+
+        void set(byte kind, String xml, SCMRevision revision) {
+            if (kind == BUILT) {
+                builtXml = xml;
+                built = revision;
+            } else {
+                seenXml = xml;
+                seen = revision;
+            }
+        }
+
+        SCMRevision revision(byte kind) {
+            SCMRevision revision = kind == BUILT ? built : seen;
+            if (revision == null) {
+                String xml = xml(kind);
+                try {
+                    revision = (SCMRevision) Items.XSTREAM2.fromXML(xml);
+                } catch (XStreamException | ClassCastException e) {
+                    LOGGER.log(Level.FINE, "Could not deserialize revision", e);
+                    return null;
+                }
+                set(kind, xml, revision);
+            }
+            return revision;
+        }
+
+        int count() {
+            return (builtXml != null ? 1 : 0) + (seenXml != null ? 1 : 0);
+        }
+    }
+
+    /**
+     * Forgets the revisions of deleted branch projects and the stores of deleted multibranch projects, and moves the
+     * revisions of renamed branch projects.
+     */
+    @Extension
+    public static class ItemListenerImpl extends ItemListener {
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void onDeleted(Item item) {
+            if (item instanceof MultiBranchProject) {
+                synchronized (STORES) {
+                    STORES.remove(item);
+                }
+            } else if (item instanceof Job) {
+                RevisionStore store = of((Job<?, ?>) item);
+                if (store != null) {
+                    try {
+                        store.remove(item.getName());
+                    } catch (IOException e) {
+                        LOGGER.log(Level.WARNING, "Could not remove the revisions of " + item.getFullName(), e);
+                    }
+                }
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void onLocationChanged(Item item, String oldFullName, String newFullName) {
+            if (!(item instanceof Job)) {
+                return;
+            }
+            // the store moves along with its multibranch project, only a rename of the branch project changes its key
+            String oldName = oldFullName.substring(oldFullName.lastIndexOf('/') + 1);
+            RevisionStore store = of((Job<?, ?>) item);
+            if (store == null || oldName.equals(item.getName())) {
+                return;
+            }
+            try {
+                store.rename(oldName, item.getName());
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Could not move the revisions of " + oldFullName + " to " + newFullName, e);
+            }
+        }
+    }
+}
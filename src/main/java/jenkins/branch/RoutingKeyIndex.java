@@ -0,0 +1,477 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package jenkins.branch;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import hudson.model.Item;
+import hudson.model.listeners.ItemListener;
+import hudson.security.ACL;
+import hudson.security.ACLContext;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.model.Jenkins;
+import jenkins.scm.api.SCMEvent;
+import jenkins.util.SystemProperties;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * Maintains a reverse index from the routing keys that the {@link SCMEventRoutingKeyProvider} extensions compute for
+ * the elements (sources or navigators) of some type of item to the items that hold them. The index is populated
+ * lazily on the first routing request and kept current through {@link ItemListener} callbacks and explicit
+ * {@link #update(Item)} calls.
+ * <p>
+ * Routing keys that events were dispatched for without matching any candidate are remembered for a while, so that
+ * further events with the same routing key are discarded without consulting any candidate. Such a routing key is
+ * forgotten as soon as an item that may hold it is added or updated. How long they are remembered and how many are
+ * remembered are set with the {@code noMatchTtlSeconds} and {@code noMatchMaximumSize} system properties.
+ *
+ * @param <T> the type of item.
+ * @param <E> the type of element that routing keys are computed for.
+ */
+@Restricted(NoExternalUse.class)
+public abstract class RoutingKeyIndex<T extends Item, E> extends ItemListener {
+
+    /**
+     * Our logger.
+     */
+    private static final Logger LOGGER = Logger.getLogger(RoutingKeyIndex.class.getName());
+
+    /**
+     * How long a routing key that matched no candidate is remembered, {@code 0} to not remember any.
+     */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "Accessible via System Groovy Scripts")
+    static /* not final */ int NO_MATCH_TTL_SECONDS =
+            SystemProperties.getInteger(RoutingKeyIndex.class.getName() + ".noMatchTtlSeconds", 60);
+
+    /**
+     * The maximum number of routing keys that matched no candidate to remember.
+     */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "Accessible via System Groovy Scripts")
+    static /* not final */ int NO_MATCH_MAXIMUM_SIZE =
+            SystemProperties.getInteger(RoutingKeyIndex.class.getName() + ".noMatchMaximumSize", 10000);
+
+    /**
+     * The type of item.
+     */
+    @NonNull
+    private final Class<T> type;
+
+    /**
+     * The routing keys of each item, keyed by {@link Item#getFullName()} and then by provider.
+     */
+    private final Map<String, Map<SCMEventRoutingKeyProvider, Set<String>>> keysByItem = new HashMap<>();
+
+    /**
+     * The items for each routing key, keyed by provider and then by routing key.
+     */
+    private final Map<SCMEventRoutingKeyProvider, Map<String, Set<String>>> itemsByKey = new HashMap<>();
+
+    /**
+     * The items that have at least one element that the provider could not describe, keyed by provider.
+     */
+    private final Map<SCMEventRoutingKeyProvider, Set<String>> unkeyedItems = new HashMap<>();
+
+    /**
+     * Whether the index has been populated.
+     */
+    private boolean initialized;
+
+    /**
+     * The routing keys, qualified by provider, that matched no candidate, or {@code null} if none are remembered.
+     */
+    @CheckForNull
+    private final Cache<String, Boolean> noMatch;
+
+    /**
+     * Incremented whenever an item is added to the index, so that a routing key is not remembered as matching nothing
+     * if an item that may hold it was added while its event was being dispatched.
+     */
+    private long generation;
+
+    /**
+     * The number of events discarded because their routing key matched no candidate.
+     */
+    private final AtomicLong noMatchHits = new AtomicLong();
+
+    /**
+     * Constructor.
+     *
+     * @param type the type of item.
+     */
+    protected RoutingKeyIndex(@NonNull Class<T> type) {
+        this.type = type;
+        this.noMatch = NO_MATCH_TTL_SECONDS <= 0 ? null : Caffeine.newBuilder()
+                .expireAfterWrite(NO_MATCH_TTL_SECONDS, TimeUnit.SECONDS)
+                .maximumSize(Math.max(1, NO_MATCH_MAXIMUM_SIZE))
+                .build();
+    }
+
+    /**
+     * Returns the elements of an item.
+     *
+     * @param item the item.
+     * @return the elements of the item.
+     */
+    @NonNull
+    protected abstract List<? extends E> elements(@NonNull T item);
+
+    /**
+     * Returns the routing key of an element.
+     *
+     * @param provider the provider.
+     * @param element the element.
+     * @return the routing key or {@code null} if the provider cannot describe the element.
+     */
+    @CheckForNull
+    protected abstract String elementKey(@NonNull SCMEventRoutingKeyProvider provider, @NonNull E element);
+
+    /**
+     * Returns the routing key of an event.
+     *
+     * @param provider the provider.
+     * @param event the event.
+     * @return the routing key or {@code null} if the provider cannot describe the event.
+     */
+    @CheckForNull
+    protected abstract String eventKey(@NonNull SCMEventRoutingKeyProvider provider, @NonNull SCMEvent<?> event);
+
+    /**
+     * Returns the candidate items that may be interested in the supplied event.
+     *
+     * @param event the event.
+     * @return the candidate items, which are empty if the routing key of the event recently matched no candidate, or
+     * {@code null} if the event cannot be routed and every item must be consulted.
+     */
+    @CheckForNull
+    public List<T> candidates(@NonNull SCMEvent<?> event) {
+        List<SCMEventRoutingKeyProvider> providers = SCMEventRoutingKeyProvider.all();
+        if (providers.isEmpty()) {
+            return null;
+        }
+        Set<String> names = null;
+        synchronized (this) {
+            for (SCMEventRoutingKeyProvider provider : providers) {
+                String key = eventKey(provider, event);
+                if (key == null) {
+                    continue;
+                }
+                if (noMatch != null && noMatch.getIfPresent(qualify(provider, key)) != null) {
+                    noMatchHits.incrementAndGet();
+                    return Collections.emptyList();
+                }
+                ensureInitialized();
+                names = new LinkedHashSet<>();
+                Map<String, Set<String>> index = itemsByKey.get(provider);
+                if (index != null && index.containsKey(key)) {
+                    names.addAll(index.get(key));
+                }
+                Set<String> unkeyed = unkeyedItems.get(provider);
+                if (unkeyed != null) {
+                    names.addAll(unkeyed);
+                }
+                break;
+            }
+        }
+        if (names == null) {
+            return null;
+        }
+        List<T> result = new ArrayList<>(names.size());
+        try (ACLContext ctx = ACL.as(ACL.SYSTEM)) {
+            Jenkins j = Jenkins.get();
+            for (String name : names) {
+                T item = j.getItemByFullName(name, type);
+                if (item != null) {
+                    result.add(item);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the routing key of an event, qualified by the provider that computed it.
+     *
+     * @param event the event.
+     * @return the routing key or {@code null} if the event cannot be routed.
+     */
+    @CheckForNull
+    public String routingKey(@NonNull SCMEvent<?> event) {
+        for (SCMEventRoutingKeyProvider provider : SCMEventRoutingKeyProvider.all()) {
+            String key = eventKey(provider, event);
+            if (key != null) {
+                return qualify(provider, key);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the generation of the index, to pass to {@link #noMatch(String, long)}.
+     *
+     * @return the generation of the index.
+     */
+    public synchronized long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Remembers that an event was dispatched to the candidates for its routing key without matching any of them.
+     *
+     * @param routingKey the {@link #routingKey(SCMEvent)} of the event.
+     * @param generation the {@link #getGeneration()} from before the candidates were looked up.
+     */
+    public synchronized void noMatch(@NonNull String routingKey, long generation) {
+        if (noMatch != null && generation == this.generation) {
+            noMatch.put(routingKey, Boolean.TRUE);
+        }
+    }
+
+    /**
+     * Returns the number of events discarded because their routing key recently matched no candidate.
+     *
+     * @return the number of discarded events.
+     */
+    public long getNoMatchHitCount() {
+        return noMatchHits.get();
+    }
+
+    /**
+     * Returns the number of routing keys currently remembered as matching no candidate.
+     *
+     * @return the number of remembered routing keys.
+     */
+    public long getNoMatchSize() {
+        return noMatch == null ? 0L : noMatch.estimatedSize();
+    }
+
+    /**
+     * Recomputes the routing keys of the supplied item.
+     *
+     * @param item the item.
+     */
+    public synchronized void update(@NonNull T item) {
+        if (!initialized) {
+            // will be picked up when the index is populated
+            return;
+        }
+        String fullName = item.getFullName();
+        remove(fullName);
+        add(fullName, item);
+    }
+
+    /**
+     * Forgets everything that is known so that the index will be repopulated on the next routing request.
+     */
+    public synchronized void reset() {
+        keysByItem.clear();
+        itemsByKey.clear();
+        unkeyedItems.clear();
+        initialized = false;
+        generation++;
+        if (noMatch != null) {
+            noMatch.invalidateAll();
+        }
+    }
+
+    /**
+     * Populates the index if it has not been populated already.
+     */
+    private void ensureInitialized() {
+        assert Thread.holdsLock(this);
+        if (initialized) {
+            return;
+        }
+        long start = System.nanoTime();
+        try (ACLContext ctx = ACL.as(ACL.SYSTEM)) {
+            for (T item : Jenkins.get().getAllItems(type)) {
+                add(item.getFullName(), item);
+            }
+        }
+        initialized = true;
+        LOGGER.log(Level.FINE, "Indexed routing keys of {0} {1} instances in {2}ms",
+                new Object[]{keysByItem.size(), type.getSimpleName(), (System.nanoTime() - start) / 1000000L});
+    }
+
+    private void add(@NonNull String fullName, @NonNull T item) {
+        assert Thread.holdsLock(this);
+        Map<SCMEventRoutingKeyProvider, Set<String>> keys = new HashMap<>();
+        for (SCMEventRoutingKeyProvider provider : SCMEventRoutingKeyProvider.all()) {
+            Set<String> elementKeys = new HashSet<>();
+            boolean unkeyed = false;
+            for (E element : elements(item)) {
+                String key;
+                try {
+                    key = elementKey(provider, element);
+                } catch (RuntimeException e) {
+                    LOGGER.log(Level.WARNING, "Could not compute routing key of " + element + " of " + fullName
+                            + " using " + provider, e);
+                    key = null;
+                }
+                if (key == null) {
+                    unkeyed = true;
+                } else {
+                    elementKeys.add(key);
+                }
+            }
+            if (unkeyed) {
+                unkeyedItems.computeIfAbsent(provider, k -> new HashSet<>()).add(fullName);
+            }
+            forgetNoMatch(provider, unkeyed ? null : elementKeys);
+            Map<String, Set<String>> index = itemsByKey.computeIfAbsent(provider, k -> new HashMap<>());
+            for (String key : elementKeys) {
+                index.computeIfAbsent(key, k -> new HashSet<>()).add(fullName);
+            }
+            keys.put(provider, elementKeys);
+        }
+        keysByItem.put(fullName, keys);
+        generation++;
+    }
+
+    /**
+     * Forgets that routing keys matched no candidate, as an item that may hold them has been added.
+     *
+     * @param provider the provider.
+     * @param keys the routing keys or {@code null} for every routing key of the provider, as the item holds elements
+     *             that the provider cannot describe.
+     */
+    private void forgetNoMatch(@NonNull SCMEventRoutingKeyProvider provider, @CheckForNull Set<String> keys) {
+        if (noMatch == null) {
+            return;
+        }
+        if (keys == null) {
+            String prefix = qualify(provider, "");
+            noMatch.asMap().keySet().removeIf(k -> k.startsWith(prefix));
+        } else {
+            for (String key : keys) {
+                noMatch.invalidate(qualify(provider, key));
+            }
+        }
+    }
+
+    private static String qualify(@NonNull SCMEventRoutingKeyProvider provider, @NonNull String key) {
+        return provider.getClass().getName() + '\u0000' + key;
+    }
+
+    private void remove(@NonNull String fullName) {
+        assert Thread.holdsLock(this);
+        Map<SCMEventRoutingKeyProvider, Set<String>> keys = keysByItem.remove(fullName);
+        if (keys != null) {
+            for (Map.Entry<SCMEventRoutingKeyProvider, Set<String>> entry : keys.entrySet()) {
+                Map<String, Set<String>> index = itemsByKey.get(entry.getKey());
+                if (index == null) {
+                    continue;
+                }
+                for (String key : entry.getValue()) {
+                    Set<String> names = index.get(key);
+                    if (names != null) {
+                        names.remove(fullName);
+                        if (names.isEmpty()) {
+                            index.remove(key);
+                        }
+                    }
+                }
+            }
+        }
+        for (Set<String> unkeyed : unkeyedItems.values()) {
+            unkeyed.remove(fullName);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onCreated(Item item) {
+        if (type.isInstance(item)) {
+            update(type.cast(item));
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onUpdated(Item item) {
+        if (type.isInstance(item)) {
+            update(type.cast(item));
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void onDeleted(Item item) {
+        if (!initialized) {
+            return;
+        }
+        // deleting a folder only notifies us of the folder itself, so remove any descendants too
+        String fullName = item.getFullName();
+        String prefix = fullName + "/";
+        for (String name : new ArrayList<>(keysByItem.keySet())) {
+            if (name.equals(fullName) || name.startsWith(prefix)) {
+                remove(name);
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void onLocationChanged(Item item, String oldFullName, String newFullName) {
+        if (!initialized) {
+            return;
+        }
+        // moving or renaming a folder notifies us of each of its descendants as well
+        if (type.isInstance(item)) {
+            remove(oldFullName);
+            add(newFullName, type.cast(item));
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onLoaded() {
+        reset();
+    }
+}
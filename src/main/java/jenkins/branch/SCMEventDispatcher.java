@@ -0,0 +1,490 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package jenkins.branch;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import hudson.model.Item;
+import hudson.model.TaskListener;
+import hudson.security.ACL;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.scm.api.SCMHeadEvent;
+import jenkins.security.ImpersonatingExecutorService;
+import jenkins.util.SystemProperties;
+import jenkins.util.Timer;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+import static hudson.Functions.printStackTrace;
+
+/**
+ * Fans out the per-item processing of SCM events onto a bounded pool of worker threads. Work for different items
+ * runs in parallel while work for the same item is applied strictly in the order it was submitted.
+ * <p>
+ * The pool size and the maximum number of pending tasks can be tuned with the {@code poolSize} and
+ * {@code queueDepth} system properties. Once the queue depth has been reached, submitters block until a
+ * worker has caught up. Setting the {@code virtualThreads} system property runs the work on virtual threads instead
+ * when the Java runtime supports them.
+ */
+@Restricted(NoExternalUse.class)
+public final class SCMEventDispatcher {
+
+    /**
+     * Our logger.
+     */
+    private static final Logger LOGGER = Logger.getLogger(SCMEventDispatcher.class.getName());
+
+    /**
+     * The number of worker threads.
+     */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "Accessible via System Groovy Scripts")
+    static /* not final */ int POOL_SIZE =
+            SystemProperties.getInteger(SCMEventDispatcher.class.getName() + ".poolSize", 10);
+
+    /**
+     * The maximum number of tasks that can be pending across all items.
+     */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "Accessible via System Groovy Scripts")
+    static /* not final */ int QUEUE_DEPTH =
+            SystemProperties.getInteger(SCMEventDispatcher.class.getName() + ".queueDepth", 1024);
+
+    /**
+     * Whether head events that queue up behind other work for the same item should be processed as one batch.
+     */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "Accessible via System Groovy Scripts")
+    static /* not final */ boolean BATCH_HEAD_EVENTS =
+            SystemProperties.getBoolean(SCMEventDispatcher.class.getName() + ".batchHeadEvents", false);
+
+    /**
+     * Whether to run the work on virtual threads when the Java runtime supports them. The pool size still limits the
+     * number of tasks running at once in this mode. Also applies to the {@link SCMSourceFetchExecutor}.
+     */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "Accessible via System Groovy Scripts")
+    static /* not final */ boolean VIRTUAL_THREADS =
+            SystemProperties.getBoolean(SCMEventDispatcher.class.getName() + ".virtualThreads", false);
+
+    /**
+     * The singleton instance, created on first use.
+     */
+    private static SCMEventDispatcher instance;
+
+    /**
+     * The worker threads.
+     */
+    private final ExecutorService executor;
+
+    /**
+     * Whether the work runs on virtual threads.
+     */
+    private final boolean virtual;
+
+    /**
+     * Limits the number of pending tasks.
+     */
+    private final Semaphore capacity;
+
+    /**
+     * Limits the number of tasks running on virtual threads, or {@code null} when the pool size limits them.
+     */
+    private final Semaphore running;
+
+    /**
+     * The tasks that are waiting to run for each item with a running task, keyed by {@link Item#getFullName()}.
+     */
+    private final Map<String, Queue<FutureTask<?>>> lanes = new HashMap<>();
+
+    /**
+     * The batch of head events that is waiting to run for each item, keyed by {@link Item#getFullName()}.
+     * Guarded by {@link #lanes}.
+     */
+    private final Map<String, Batch> openBatches = new HashMap<>();
+
+    /**
+     * The number of head events that were added to an existing batch.
+     */
+    private final AtomicLong batchedEvents = new AtomicLong();
+
+    SCMEventDispatcher(int poolSize, int queueDepth) {
+        this(poolSize, queueDepth, false);
+    }
+
+    SCMEventDispatcher(int poolSize, int queueDepth, boolean virtualThreads) {
+        ExecutorService pool = virtualThreads
+                ? VirtualThreads.newThreadPerTaskExecutor(SCMEventDispatcher.class.getName())
+                : null;
+        this.virtual = pool != null;
+        this.running = virtual ? new Semaphore(poolSize) : null;
+        if (pool == null) {
+            if (virtualThreads) {
+                LOGGER.log(Level.WARNING, "Virtual threads are not supported by this Java runtime, "
+                        + "using a pool of {0} platform threads instead", poolSize);
+            }
+            ThreadPoolExecutor platform = new ThreadPoolExecutor(poolSize, poolSize, 60L, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(),
+                    new NamingThreadFactory(new DaemonThreadFactory(), SCMEventDispatcher.class.getName()));
+            platform.allowCoreThreadTimeOut(true);
+            pool = platform;
+        }
+        this.executor = new ImpersonatingExecutorService(pool, ACL.SYSTEM);
+        this.capacity = new Semaphore(Math.max(1, queueDepth));
+    }
+
+    /**
+     * Returns the singleton instance.
+     *
+     * @return the singleton instance.
+     */
+    @NonNull
+    public static synchronized SCMEventDispatcher get() {
+        if (instance == null) {
+            instance = new SCMEventDispatcher(Math.max(1, POOL_SIZE), QUEUE_DEPTH, VIRTUAL_THREADS);
+        }
+        return instance;
+    }
+
+    /**
+     * Returns {@code true} if the work runs on virtual threads.
+     *
+     * @return {@code true} if the work runs on virtual threads.
+     */
+    public boolean isVirtual() {
+        return virtual;
+    }
+
+    /**
+     * Submits a task to be run after any previously submitted tasks for the same item have completed.
+     *
+     * @param item the item that the task operates on.
+     * @param task the task.
+     * @param <V> the type of result.
+     * @return the future result of the task.
+     * @throws InterruptedException if interrupted while waiting for capacity.
+     */
+    @NonNull
+    public <V> Future<V> submit(@NonNull Item item, @NonNull Callable<V> task) throws InterruptedException {
+        final String key = item.getFullName();
+        capacity.acquire();
+        FutureTask<V> future = new FutureTask<>(task);
+        boolean idle;
+        synchronized (lanes) {
+            // anything submitted after this task must not be merged into a batch queued before it
+            openBatches.remove(key);
+            idle = enqueue(key, future);
+        }
+        if (idle) {
+            executor.execute(() -> runNext(key));
+        }
+        return future;
+    }
+
+    /**
+     * Submits a task to be run once the supplied delay has elapsed and any tasks submitted for the same item before
+     * that have completed. No worker and no place in the item's queue is taken up while the delay elapses, but the
+     * task counts against the queue depth from the moment it is submitted.
+     *
+     * @param item the item that the task operates on.
+     * @param delay the delay.
+     * @param unit the unit of the delay.
+     * @param task the task.
+     * @param <V> the type of result.
+     * @return the future result of the task.
+     * @throws InterruptedException if interrupted while waiting for capacity.
+     */
+    @NonNull
+    public <V> Future<V> submitDelayed(@NonNull Item item, long delay, @NonNull TimeUnit unit,
+                                       @NonNull Callable<V> task) throws InterruptedException {
+        final String key = item.getFullName();
+        capacity.acquire();
+        final FutureTask<V> future = new FutureTask<>(task);
+        try {
+            Timer.get().schedule(() -> {
+                // a task cancelled while waiting still goes through the lane so that its capacity is released
+                boolean idle;
+                synchronized (lanes) {
+                    openBatches.remove(key);
+                    idle = enqueue(key, future);
+                }
+                if (idle) {
+                    executor.execute(() -> runNext(key));
+                }
+            }, delay, unit);
+        } catch (RejectedExecutionException e) {
+            capacity.release();
+            throw e;
+        }
+        return future;
+    }
+
+    /**
+     * Submits a head event for processing. If a batch of head events for the same item is still waiting to run, the
+     * event is added to that batch and will be processed together with the other events of the batch. Otherwise a
+     * new batch is started and submitted as per {@link #submit(Item, Callable)}.
+     *
+     * @param item the item that the event should be processed for.
+     * @param event the event.
+     * @param processor the processor to use if a new batch is started.
+     * @return the future result of the batch that the event was added to.
+     * @throws InterruptedException if interrupted while waiting for capacity.
+     */
+    @NonNull
+    public Future<Boolean> submitBatched(@NonNull Item item, @NonNull SCMHeadEvent<?> event,
+                                         @NonNull BatchProcessor processor) throws InterruptedException {
+        final String key = item.getFullName();
+        synchronized (lanes) {
+            Batch batch = openBatches.get(key);
+            if (batch != null) {
+                batch.events.add(event);
+                batchedEvents.incrementAndGet();
+                return batch.future;
+            }
+        }
+        capacity.acquire();
+        final Batch batch = new Batch(event);
+        FutureTask<Boolean> future = new FutureTask<>(() -> {
+            List<SCMHeadEvent<?>> events;
+            synchronized (lanes) {
+                openBatches.remove(key, batch);
+                events = new ArrayList<>(batch.events);
+            }
+            return processor.process(events);
+        });
+        batch.future = future;
+        boolean idle;
+        synchronized (lanes) {
+            idle = enqueue(key, future);
+            openBatches.put(key, batch);
+        }
+        if (idle) {
+            executor.execute(() -> runNext(key));
+        }
+        return future;
+    }
+
+    /**
+     * Adds a task to the lane of an item.
+     *
+     * @param key the item's full name.
+     * @param future the task.
+     * @return {@code true} if the lane was idle and needs a worker to be scheduled.
+     */
+    private boolean enqueue(String key, FutureTask<?> future) {
+        assert Thread.holdsLock(lanes);
+        Queue<FutureTask<?>> lane = lanes.get(key);
+        boolean idle = lane == null;
+        if (idle) {
+            lane = new ArrayDeque<>();
+            lanes.put(key, lane);
+        }
+        lane.add(future);
+        return idle;
+    }
+
+    /**
+     * Runs the next task of the item and then yields the worker so that other items get their turn.
+     *
+     * @param key the item's full name.
+     */
+    private void runNext(String key) {
+        FutureTask<?> next;
+        synchronized (lanes) {
+            next = lanes.get(key).remove();
+        }
+        if (running != null) {
+            running.acquireUninterruptibly();
+        }
+        try {
+            next.run();
+        } finally {
+            if (running != null) {
+                running.release();
+            }
+            capacity.release();
+            boolean more;
+            synchronized (lanes) {
+                more = !lanes.get(key).isEmpty();
+                if (!more) {
+                    lanes.remove(key);
+                }
+            }
+            if (more) {
+                executor.execute(() -> runNext(key));
+            }
+        }
+    }
+
+    /**
+     * Waits for the supplied tasks to complete and counts the ones that reported a match. Failures are reported to
+     * the supplied listener. If interrupted while waiting, the outstanding tasks are cancelled.
+     *
+     * @param tasks the tasks.
+     * @param global the listener to report failures to.
+     * @return the number of tasks that completed with {@link Boolean#TRUE}.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    public int awaitMatches(@NonNull List<Future<Boolean>> tasks, @NonNull TaskListener global)
+            throws InterruptedException {
+        int matchCount = 0;
+        try {
+            for (Future<Boolean> task : tasks) {
+                try {
+                    if (Boolean.TRUE.equals(task.get())) {
+                        matchCount++;
+                    }
+                } catch (CancellationException e) {
+                    LOGGER.log(Level.FINE, "Event processing task cancelled", e);
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause() == null ? e : e.getCause();
+                    if (cause instanceof InterruptedException) {
+                        // already reported by the task
+                        LOGGER.log(Level.FINE, "Event processing task interrupted", cause);
+                    } else {
+                        printStackTrace(cause, global.error("[%tc] Unexpected failure while processing event",
+                                System.currentTimeMillis()));
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            for (Future<Boolean> task : tasks) {
+                task.cancel(true);
+            }
+            throw e;
+        }
+        return matchCount;
+    }
+
+    /**
+     * Returns the number of tasks waiting to run for the supplied item.
+     *
+     * @param item the item.
+     * @return the number of tasks waiting to run.
+     */
+    public int getQueueDepth(@NonNull Item item) {
+        synchronized (lanes) {
+            Queue<FutureTask<?>> lane = lanes.get(item.getFullName());
+            return lane == null ? 0 : lane.size();
+        }
+    }
+
+    /**
+     * Returns the number of tasks waiting to run for each item that has tasks waiting to run.
+     *
+     * @return the number of tasks waiting to run keyed by {@link Item#getFullName()}.
+     */
+    @NonNull
+    public Map<String, Integer> getQueueDepths() {
+        Map<String, Integer> result = new TreeMap<>();
+        synchronized (lanes) {
+            for (Map.Entry<String, Queue<FutureTask<?>>> entry : lanes.entrySet()) {
+                if (!entry.getValue().isEmpty()) {
+                    result.put(entry.getKey(), entry.getValue().size());
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns {@code true} if head events should be submitted with
+     * {@link #submitBatched(Item, SCMHeadEvent, BatchProcessor)}.
+     *
+     * @return {@code true} if head events should be batched.
+     */
+    public boolean isBatchHeadEvents() {
+        return BATCH_HEAD_EVENTS;
+    }
+
+    /**
+     * Returns the number of head events that were added to an existing batch rather than being processed on their
+     * own.
+     *
+     * @return the number of head events that were added to an existing batch.
+     */
+    public long getBatchedEventCount() {
+        return batchedEvents.get();
+    }
+
+    /**
+     * Stops the worker threads, interrupting any tasks that are still running. The singleton is never shut down, this
+     * is for the dispatchers that tests and benchmarks create.
+     */
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Processes a batch of head events.
+     */
+    @FunctionalInterface
+    public interface BatchProcessor {
+        /**
+         * Processes the events.
+         *
+         * @param events the events in arrival order.
+         * @return {@code true} if the events matched.
+         * @throws Exception if something went wrong.
+         */
+        boolean process(@NonNull List<SCMHeadEvent<?>> events) throws Exception;
+    }
+
+    /**
+     * A batch of head events waiting to be processed.
+     */
+    private static final class Batch {
+        /**
+         * The events in arrival order.
+         */
+        private final List<SCMHeadEvent<?>> events = new ArrayList<>();
+        /**
+         * The future result of processing the batch.
+         */
+        private Future<Boolean> future;
+
+        Batch(SCMHeadEvent<?> event) {
+            events.add(event);
+        }
+    }
+}
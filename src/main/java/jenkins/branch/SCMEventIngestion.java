@@ -0,0 +1,331 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package jenkins.branch;
+
+import com.cloudbees.hudson.plugins.folder.computed.ComputedFolder;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.branch.SCMEventMetrics.Lane;
+import jenkins.scm.api.SCMEvent;
+import jenkins.util.SystemProperties;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+import org.kohsuke.stapler.export.Exported;
+import org.kohsuke.stapler.export.ExportedBean;
+
+/**
+ * Bounds the SCM event work that the listeners take on. The event threads of the SCM API hand every event to every
+ * listener and queue the events they have not got to yet without a bound, so this is where the backlog has to be
+ * bounded. Each kind of event has its own {@link Lane}, so that a flood of one kind of event cannot starve the others.
+ * <p>
+ * Only a limited number of event threads may work in a lane at once. An event that arrives while its lane is busy is
+ * queued and the listener returns straight away, which frees the event thread to take the next event off the SCM
+ * API's queue. The threads working in the lane take the queued events before they return, so an event thread is only
+ * released once the events queued behind it have been processed. When the queue of a lane is full the event is shed
+ * and the affected folders are scheduled for a single catch-up indexing instead, which will pick up whatever the shed
+ * events would have told us.
+ * <p>
+ * The {@code concurrency} system property sets the number of event threads that may work in each lane and the
+ * {@code capacity} system property the number of events that may queue up in each lane. Both can be overridden for
+ * a single lane with {@code concurrency.<LANE>} and {@code capacity.<LANE>}.
+ */
+@Restricted(NoExternalUse.class)
+public final class SCMEventIngestion {
+
+    /**
+     * Our logger.
+     */
+    private static final Logger LOGGER = Logger.getLogger(SCMEventIngestion.class.getName());
+
+    /**
+     * The number of event threads that may work in each lane at once.
+     */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "Accessible via System Groovy Scripts")
+    static /* not final */ int CONCURRENCY =
+            SystemProperties.getInteger(SCMEventIngestion.class.getName() + ".concurrency", 5);
+
+    /**
+     * The number of events that may queue up in each lane.
+     */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "Accessible via System Groovy Scripts")
+    static /* not final */ int CAPACITY =
+            SystemProperties.getInteger(SCMEventIngestion.class.getName() + ".capacity", 1024);
+
+    /**
+     * The singleton instance.
+     */
+    private static final SCMEventIngestion INSTANCE = new SCMEventIngestion(CONCURRENCY, CAPACITY);
+
+    /**
+     * The state of each lane.
+     */
+    private final Map<Lane, LaneState> lanes = new EnumMap<>(Lane.class);
+
+    /**
+     * The full names of the folders with a catch-up indexing that has been requested but not yet started.
+     */
+    private final Set<String> catchUps = ConcurrentHashMap.newKeySet();
+
+    /**
+     * The number of catch-up indexings requested.
+     */
+    private final AtomicLong catchUpCount = new AtomicLong();
+
+    SCMEventIngestion(int concurrency, int capacity) {
+        for (Lane lane : Lane.values()) {
+            lanes.put(lane, new LaneState(lane,
+                    Math.max(1, SystemProperties.getInteger(
+                            SCMEventIngestion.class.getName() + ".concurrency." + lane.name(), concurrency)),
+                    Math.max(0, SystemProperties.getInteger(
+                            SCMEventIngestion.class.getName() + ".capacity." + lane.name(), capacity))));
+        }
+    }
+
+    /**
+     * Returns the singleton instance.
+     *
+     * @return the singleton instance.
+     */
+    @NonNull
+    public static SCMEventIngestion get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Processes the work for an event in the event's lane. If the lane has room the work runs on the calling thread,
+     * followed by any work queued in the lane in the meantime. Otherwise the work is queued if the lane's queue has
+     * room, or shed if it has not.
+     *
+     * @param event the event.
+     * @param work the work.
+     * @return {@code false} if the event was shed, {@code true} if the work was run or queued.
+     */
+    public boolean process(@NonNull SCMEvent<?> event, @NonNull Runnable work) {
+        LaneState lane = lanes.get(Lane.of(event));
+        synchronized (lane) {
+            if (lane.running >= lane.concurrency) {
+                if (lane.queue.size() >= lane.capacity) {
+                    long count = lane.shed.incrementAndGet();
+                    LOGGER.log(Level.FINE, "Shedding {0} event from {1} as the {2} lane is full ({3} shed so far)",
+                            new Object[]{event.getType(), event.getOrigin(), lane.lane, count});
+                    return false;
+                }
+                lane.queue.add(work);
+                lane.admitted.incrementAndGet();
+                return true;
+            }
+            lane.running++;
+        }
+        lane.admitted.incrementAndGet();
+        boolean running = true;
+        try {
+            Runnable next = work;
+            while (true) {
+                try {
+                    next.run();
+                } catch (RuntimeException e) {
+                    // queued work belongs to other events, so keep going
+                    LOGGER.log(Level.WARNING, "Unexpected failure while processing an SCM event", e);
+                }
+                synchronized (lane) {
+                    next = lane.queue.poll();
+                    if (next == null) {
+                        lane.running--;
+                        running = false;
+                        return true;
+                    }
+                }
+            }
+        } finally {
+            if (running) {
+                synchronized (lane) {
+                    lane.running--;
+                }
+            }
+        }
+    }
+
+    /**
+     * Requests a catch-up indexing of a folder that was affected by a shed event. Only one catch-up will be
+     * requested until the folder starts its next computation.
+     *
+     * @param folder the folder.
+     * @return {@code true} if a catch-up was scheduled by this call.
+     */
+    public boolean requestCatchUp(@NonNull ComputedFolder<?> folder) {
+        String fullName = folder.getFullName();
+        if (!catchUps.add(fullName)) {
+            return false;
+        }
+        if (!folder.scheduleBuild(0, new BranchIndexingCause())) {
+            catchUps.remove(fullName);
+            return false;
+        }
+        catchUpCount.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Records that a folder has started a computation, which will pick up anything that shed events would have
+     * told us.
+     *
+     * @param folder the folder.
+     */
+    public void computationStarted(@NonNull ComputedFolder<?> folder) {
+        catchUps.remove(folder.getFullName());
+    }
+
+    /**
+     * Returns the state of every lane.
+     *
+     * @return the state of every lane.
+     */
+    @NonNull
+    public List<LaneState> getLanes() {
+        return new ArrayList<>(lanes.values());
+    }
+
+    /**
+     * Returns the state of a lane.
+     *
+     * @param lane the lane.
+     * @return the state of the lane.
+     */
+    @NonNull
+    public LaneState getLane(@NonNull Lane lane) {
+        return lanes.get(lane);
+    }
+
+    /**
+     * Returns the number of catch-up indexings requested because of shed events.
+     *
+     * @return the number of catch-up indexings requested.
+     */
+    public long getCatchUpCount() {
+        return catchUpCount.get();
+    }
+
+    /**
+     * The state of one lane.
+     */
+    @ExportedBean
+    public static final class LaneState {
+        /**
+         * The lane.
+         */
+        private final Lane lane;
+        /**
+         * The number of event threads that may work in the lane at once.
+         */
+        private final int concurrency;
+        /**
+         * The number of events that may queue up in the lane.
+         */
+        private final int capacity;
+        /**
+         * The queued work. Guarded by this.
+         */
+        private final Queue<Runnable> queue = new ArrayDeque<>();
+        /**
+         * The number of event threads working in the lane. Guarded by this.
+         */
+        private int running;
+        /**
+         * The number of events that were run or queued.
+         */
+        private final AtomicLong admitted = new AtomicLong();
+        /**
+         * The number of events that were shed.
+         */
+        private final AtomicLong shed = new AtomicLong();
+
+        LaneState(Lane lane, int concurrency, int capacity) {
+            this.lane = lane;
+            this.concurrency = concurrency;
+            this.capacity = capacity;
+        }
+
+        /**
+         * Returns the lane.
+         *
+         * @return the lane.
+         */
+        @Exported
+        public Lane getLane() {
+            return lane;
+        }
+
+        /**
+         * Returns the number of event threads working in the lane.
+         *
+         * @return the number of event threads working in the lane.
+         */
+        @Exported
+        public synchronized int getRunning() {
+            return running;
+        }
+
+        /**
+         * Returns the number of events queued in the lane.
+         *
+         * @return the number of events queued in the lane.
+         */
+        @Exported
+        public synchronized int getQueued() {
+            return queue.size();
+        }
+
+        /**
+         * Returns the number of events that were run or queued.
+         *
+         * @return the number of events that were run or queued.
+         */
+        @Exported
+        public long getAdmittedCount() {
+            return admitted.get();
+        }
+
+        /**
+         * Returns the number of events that were shed.
+         *
+         * @return the number of events that were shed.
+         */
+        @Exported
+        public long getShedCount() {
+            return shed.get();
+        }
+    }
+}
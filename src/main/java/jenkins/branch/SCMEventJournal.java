@@ -0,0 +1,412 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package jenkins.branch;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import hudson.Extension;
+import hudson.util.XStream2;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+import jenkins.model.Jenkins;
+import jenkins.scm.api.SCMEvent;
+import jenkins.scm.api.SCMEventListener;
+import jenkins.scm.api.SCMHeadEvent;
+import jenkins.scm.api.SCMNavigatorEvent;
+import jenkins.scm.api.SCMSourceEvent;
+import jenkins.util.SystemProperties;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * An optional append-only journal of the SCM events received by this controller, for replaying production traffic
+ * against a test controller with {@link SCMEventReplay}.
+ * <p>
+ * Each record is the length of the payload as an {@code int}, the time the event was received as a {@code long} and
+ * the deflated XStream form of the event. Records are appended whole from a background thread by an
+ * {@link AsyncEventsLog} of their own, which waits for room rather than dropping records whatever the settings of the
+ * global events logs. Events that cannot be serialized or written are counted and left out.
+ * <p>
+ * Journaling is enabled with the {@code enabled} system property. The journal is written to
+ * {@code $JENKINS_HOME/logs/jenkins.branch.SCMEventJournal.journal} unless the {@code file} system property names
+ * another file. Once the journal reaches the size set by the {@code maxSize} system property, in bytes, it is renamed
+ * with a {@code .1} suffix, replacing any previous one, and a new journal is started.
+ */
+@Restricted(NoExternalUse.class)
+public final class SCMEventJournal {
+
+    /**
+     * Our logger.
+     */
+    private static final Logger LOGGER = Logger.getLogger(SCMEventJournal.class.getName());
+
+    /**
+     * Whether received events are journaled.
+     */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "Accessible via System Groovy Scripts")
+    static /* not final */ boolean ENABLED =
+            SystemProperties.getBoolean(SCMEventJournal.class.getName() + ".enabled", false);
+
+    /**
+     * The journal file, or {@code null} to use the default location.
+     */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "Accessible via System Groovy Scripts")
+    static /* not final */ String FILE = SystemProperties.getString(SCMEventJournal.class.getName() + ".file");
+
+    /**
+     * The size in bytes after which the journal is rotated, or {@code 0} to let it grow without bound.
+     */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "Accessible via System Groovy Scripts")
+    static /* not final */ long MAX_SIZE =
+            SystemProperties.getLong(SCMEventJournal.class.getName() + ".maxSize", 64L * 1024 * 1024);
+
+    /**
+     * The XStream instance used to (de)serialize events.
+     */
+    private static final XStream2 XSTREAM = new XStream2();
+
+    /**
+     * The singleton instance.
+     */
+    private static SCMEventJournal instance;
+
+    /**
+     * The journal file.
+     */
+    private final File file;
+
+    /**
+     * Appends records to the journal file.
+     */
+    private final AsyncEventsLog log;
+
+    /**
+     * The number of events that could not be serialized.
+     */
+    private final AtomicLong failed = new AtomicLong();
+
+    SCMEventJournal(@NonNull File file) {
+        this.file = file;
+        this.log = new AsyncEventsLog(file.getName(), this::openForAppend, AsyncEventsLog.CAPACITY, false);
+    }
+
+    /**
+     * Returns the singleton instance.
+     *
+     * @return the singleton instance.
+     */
+    @NonNull
+    public static synchronized SCMEventJournal get() {
+        if (instance == null) {
+            instance = new SCMEventJournal(FILE != null
+                    ? new File(FILE)
+                    : new File(new File(Jenkins.get().getRootDir(), "logs"),
+                            SCMEventJournal.class.getName() + ".journal"));
+        }
+        return instance;
+    }
+
+    /**
+     * Returns the journal file.
+     *
+     * @return the journal file.
+     */
+    @NonNull
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Returns the file that the journal is renamed to when it is rotated.
+     *
+     * @return the file that the journal is renamed to when it is rotated.
+     */
+    @NonNull
+    public File getRotatedFile() {
+        return new File(file.getPath() + ".1");
+    }
+
+    /**
+     * Appends an event to the journal.
+     *
+     * @param event the event.
+     */
+    public void record(@NonNull SCMEvent<?> event) {
+        byte[] record;
+        try {
+            record = encode(System.currentTimeMillis(), event);
+        } catch (IOException | RuntimeException e) {
+            failed.incrementAndGet();
+            LOGGER.log(Level.FINE, "Could not journal " + event.getClass().getName(), e);
+            return;
+        }
+        if (!log.append(record)) {
+            LOGGER.log(Level.FINE, "Could not journal {0}", event.getClass().getName());
+        }
+    }
+
+    /**
+     * Returns the number of events written to the journal.
+     *
+     * @return the number of events written to the journal.
+     */
+    public long getRecordedCount() {
+        return log.getWrittenCount();
+    }
+
+    /**
+     * Returns the number of events that could not be journaled, either because they could not be serialized or
+     * because they could not be written.
+     *
+     * @return the number of events that could not be journaled.
+     */
+    public long getFailedCount() {
+        return failed.get() + log.getDroppedCount();
+    }
+
+    /**
+     * Returns the writer that appends to the journal file.
+     *
+     * @return the writer that appends to the journal file.
+     */
+    @NonNull
+    AsyncEventsLog getLog() {
+        return log;
+    }
+
+    private OutputStream openForAppend() {
+        try {
+            File parent = file.getParentFile();
+            if (parent != null) {
+                Files.createDirectories(parent.toPath());
+            }
+            // only called between batches, so a record is never split across the two files
+            if (MAX_SIZE > 0 && file.length() >= MAX_SIZE) {
+                Files.move(file.toPath(), getRotatedFile().toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            return Files.newOutputStream(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Encodes a single record.
+     *
+     * @param receivedAt when the event was received.
+     * @param event the event.
+     * @return the record.
+     * @throws IOException if the event could not be serialized.
+     */
+    @NonNull
+    static byte[] encode(long receivedAt, @NonNull SCMEvent<?> event) throws IOException {
+        ByteArrayOutputStream payload = new ByteArrayOutputStream();
+        try (Writer w = new OutputStreamWriter(new DeflaterOutputStream(payload), StandardCharsets.UTF_8)) {
+            XSTREAM.toXML(event, w);
+        }
+        ByteArrayOutputStream record = new ByteArrayOutputStream(payload.size() + 12);
+        try (DataOutputStream out = new DataOutputStream(record)) {
+            out.writeInt(payload.size());
+            out.writeLong(receivedAt);
+            payload.writeTo(out);
+        }
+        return record.toByteArray();
+    }
+
+    /**
+     * Opens a journal file for reading.
+     *
+     * @param file the journal file.
+     * @return the reader, which must be closed.
+     * @throws IOException if the file could not be opened.
+     */
+    @NonNull
+    public static Reader read(@NonNull File file) throws IOException {
+        return new Reader(new DataInputStream(new BufferedInputStream(Files.newInputStream(file.toPath()))));
+    }
+
+    /**
+     * Reads the records of a journal in order.
+     */
+    public static final class Reader implements Closeable {
+        /**
+         * The journal.
+         */
+        private final DataInputStream in;
+        /**
+         * The number of records that could not be deserialized.
+         */
+        private long skipped;
+
+        private Reader(DataInputStream in) {
+            this.in = in;
+        }
+
+        /**
+         * Returns the next record, skipping any that cannot be deserialized.
+         *
+         * @return the next record or {@code null} at the end of the journal.
+         * @throws IOException if the journal could not be read.
+         */
+        @CheckForNull
+        public Entry next() throws IOException {
+            while (true) {
+                byte[] payload;
+                long receivedAt;
+                try {
+                    int length = in.readInt();
+                    receivedAt = in.readLong();
+                    payload = new byte[length];
+                    in.readFully(payload);
+                } catch (EOFException e) {
+                    // either the end or a record that was torn by a crash
+                    return null;
+                }
+                try (InputStreamReader r = new InputStreamReader(
+                        new InflaterInputStream(new ByteArrayInputStream(payload)), StandardCharsets.UTF_8)) {
+                    return new Entry(receivedAt, (SCMEvent<?>) XSTREAM.fromXML(r));
+                } catch (IOException | RuntimeException e) {
+                    skipped++;
+                    LOGGER.log(Level.FINE, "Skipping journal record that could not be read", e);
+                }
+            }
+        }
+
+        /**
+         * Returns the number of records that could not be deserialized.
+         *
+         * @return the number of records that could not be deserialized.
+         */
+        public long getSkippedCount() {
+            return skipped;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    /**
+     * A journaled event.
+     */
+    public static final class Entry {
+        /**
+         * When the event was received.
+         */
+        private final long receivedAt;
+        /**
+         * The event.
+         */
+        @NonNull
+        private final SCMEvent<?> event;
+
+        Entry(long receivedAt, @NonNull SCMEvent<?> event) {
+            this.receivedAt = receivedAt;
+            this.event = event;
+        }
+
+        /**
+         * Returns when the event was received.
+         *
+         * @return when the event was received.
+         */
+        public long getReceivedAt() {
+            return receivedAt;
+        }
+
+        /**
+         * Returns the event.
+         *
+         * @return the event.
+         */
+        @NonNull
+        public SCMEvent<?> getEvent() {
+            return event;
+        }
+    }
+
+    /**
+     * Journals the events received when {@link #ENABLED}.
+     */
+    @Extension(ordinal = 1000)
+    public static class ListenerImpl extends SCMEventListener {
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void onSCMHeadEvent(SCMHeadEvent<?> event) {
+            if (ENABLED) {
+                get().record(event);
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void onSCMSourceEvent(SCMSourceEvent<?> event) {
+            if (ENABLED) {
+                get().record(event);
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void onSCMNavigatorEvent(SCMNavigatorEvent<?> event) {
+            if (ENABLED) {
+                get().record(event);
+            }
+        }
+    }
+}
@@ -0,0 +1,439 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package jenkins.branch;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.ExtensionList;
+import hudson.model.Api;
+import hudson.model.RootAction;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import jenkins.model.Jenkins;
+import jenkins.scm.api.SCMEvent;
+import jenkins.scm.api.SCMNavigatorEvent;
+import jenkins.scm.api.SCMSourceEvent;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+import org.kohsuke.stapler.StaplerProxy;
+import org.kohsuke.stapler.export.Exported;
+import org.kohsuke.stapler.export.ExportedBean;
+
+/**
+ * End-to-end latency histograms for the SCM event pipeline, broken down by {@link Stage} and by the
+ * {@link Lane} of the event. The histograms are available to administrators at
+ * {@code /scm-event-metrics/} and {@code /scm-event-metrics/api/json}.
+ */
+@Extension
+@Restricted(NoExternalUse.class)
+@ExportedBean
+public class SCMEventMetrics implements RootAction, StaplerProxy {
+
+    /**
+     * The stages of the pipeline that are timed.
+     */
+    public enum Stage {
+        /**
+         * From the {@link SCMEvent#getTimestamp()} to the event reaching our listeners.
+         */
+        AGE,
+        /**
+         * Deciding whether the event matches a project's sources and which heads it concerns.
+         */
+        MATCH,
+        /**
+         * The {@code SCMSource.fetch} for the event.
+         */
+        FETCH,
+        /**
+         * Observing a single head, including deciding whether to build it.
+         */
+        OBSERVE,
+        /**
+         * From the event reaching our listeners to a build being scheduled because of it.
+         */
+        SCHEDULE
+    }
+
+    /**
+     * The kinds of event that are timed separately and that {@link SCMEventIngestion} admits separately.
+     */
+    public enum Lane {
+        HEAD_CREATED,
+        HEAD_UPDATED,
+        HEAD_REMOVED,
+        SOURCE,
+        NAVIGATOR;
+
+        /**
+         * Returns the lane for the supplied event.
+         *
+         * @param event the event.
+         * @return the lane.
+         */
+        @NonNull
+        public static Lane of(@NonNull SCMEvent<?> event) {
+            if (event instanceof SCMSourceEvent) {
+                return SOURCE;
+            }
+            if (event instanceof SCMNavigatorEvent) {
+                return NAVIGATOR;
+            }
+            switch (event.getType()) {
+                case CREATED:
+                    return HEAD_CREATED;
+                case REMOVED:
+                    return HEAD_REMOVED;
+                default:
+                    return HEAD_UPDATED;
+            }
+        }
+    }
+
+    /**
+     * The histograms keyed by lane and stage.
+     */
+    private final Map<String, StageLatency> histograms = new ConcurrentHashMap<>();
+
+    /**
+     * The {@link System#nanoTime()} at which each event in flight reached our listeners.
+     */
+    private final Map<SCMEvent<?>, Long> receivedAt = new WeakHashMap<>();
+
+    /**
+     * Returns the singleton instance.
+     *
+     * @return the singleton instance.
+     */
+    @NonNull
+    public static SCMEventMetrics get() {
+        return ExtensionList.lookupSingleton(SCMEventMetrics.class);
+    }
+
+    /**
+     * Records that an event has reached our listeners. Only the first call for any event has an effect, so every
+     * listener may call this.
+     *
+     * @param event the event.
+     */
+    public void received(@NonNull SCMEvent<?> event) {
+        synchronized (receivedAt) {
+            if (receivedAt.containsKey(event)) {
+                return;
+            }
+            receivedAt.put(event, System.nanoTime());
+        }
+        histogram(Stage.AGE, event).record(
+                TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis() - event.getTimestamp()));
+    }
+
+    /**
+     * Records the time taken by a stage.
+     *
+     * @param stage the stage.
+     * @param event the event.
+     * @param startNanos the {@link System#nanoTime()} at which the stage started.
+     */
+    public void record(@NonNull Stage stage, @NonNull SCMEvent<?> event, long startNanos) {
+        histogram(stage, event).record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Records the time since the event reached our listeners.
+     *
+     * @param stage the stage.
+     * @param event the event.
+     */
+    public void recordSinceReceipt(@NonNull Stage stage, @NonNull SCMEvent<?> event) {
+        Long start;
+        synchronized (receivedAt) {
+            start = receivedAt.get(event);
+        }
+        if (start != null) {
+            record(stage, event, start);
+        }
+    }
+
+    /**
+     * Returns the histogram for a stage of the supplied event's lane.
+     *
+     * @param stage the stage.
+     * @param event the event.
+     * @return the histogram.
+     */
+    @NonNull
+    public LatencyHistogram histogram(@NonNull Stage stage, @NonNull SCMEvent<?> event) {
+        Lane lane = Lane.of(event);
+        return histograms.computeIfAbsent(lane.name() + "/" + stage.name(), k -> new StageLatency(lane, stage))
+                .getLatency();
+    }
+
+    /**
+     * Returns the histograms that have samples, ordered by lane and stage.
+     *
+     * @return the histograms.
+     */
+    @Exported(name = "histograms", inline = true)
+    public List<StageLatency> getHistograms() {
+        List<StageLatency> result = new ArrayList<>(histograms.values());
+        result.sort(Comparator.comparing(StageLatency::getEventType).thenComparing(StageLatency::getStage));
+        return result;
+    }
+
+    /**
+     * Returns the number of head events discarded because their revisions had already been processed.
+     *
+     * @return the number of duplicate head events.
+     */
+    @Exported
+    public long getSuppressedDuplicateCount() {
+        return SCMHeadEventDeduplicator.get().getDuplicateCount();
+    }
+
+    /**
+     * Returns the number of head events discarded because a newer event had already been processed.
+     *
+     * @return the number of stale head events.
+     */
+    @Exported
+    public long getSuppressedStaleCount() {
+        return SCMHeadEventDeduplicator.get().getStaleCount();
+    }
+
+    /**
+     * Returns the number of head events that were merged into a newer event for the same head by the coalescing
+     * window.
+     *
+     * @return the number of merged head events.
+     */
+    @Exported
+    public long getCoalescedMergedCount() {
+        return SCMHeadEventCoalescer.get().getMergedCount();
+    }
+
+    /**
+     * Returns the number of times head events were processed after waiting for the coalescing window.
+     *
+     * @return the number of processed head events.
+     */
+    @Exported
+    public long getCoalescedExecutedCount() {
+        return SCMHeadEventCoalescer.get().getExecutedCount();
+    }
+
+    /**
+     * Returns the number of head events discarded because their routing key recently matched no project.
+     *
+     * @return the number of discarded head events.
+     */
+    @Exported
+    public long getRoutingNoMatchHitCount() {
+        return SCMEventRoutingIndex.get().getNoMatchHitCount();
+    }
+
+    /**
+     * Returns the number of routing keys currently remembered as matching no project.
+     *
+     * @return the number of remembered routing keys.
+     */
+    @Exported
+    public long getRoutingNoMatchSize() {
+        return SCMEventRoutingIndex.get().getNoMatchSize();
+    }
+
+    /**
+     * Returns the number of event match results that equivalent sources took from the memo of the event.
+     *
+     * @return the number of remembered match results.
+     */
+    @Exported
+    public long getMemoMatchHitCount() {
+        return SCMHeadEventMemo.getMatchHitCount();
+    }
+
+    /**
+     * Returns the number of event match results that the memo of the event had to compute.
+     *
+     * @return the number of computed match results.
+     */
+    @Exported
+    public long getMemoMatchMissCount() {
+        return SCMHeadEventMemo.getMatchMissCount();
+    }
+
+    /**
+     * Returns the number of event heads results that equivalent sources took from the memo of the event.
+     *
+     * @return the number of remembered heads results.
+     */
+    @Exported
+    public long getMemoHeadsHitCount() {
+        return SCMHeadEventMemo.getHeadsHitCount();
+    }
+
+    /**
+     * Returns the number of event heads results that the memo of the event had to compute.
+     *
+     * @return the number of computed heads results.
+     */
+    @Exported
+    public long getMemoHeadsMissCount() {
+        return SCMHeadEventMemo.getHeadsMissCount();
+    }
+
+    /**
+     * Returns the state of the lanes that events are admitted through.
+     *
+     * @return the state of the lanes.
+     */
+    @Exported(name = "ingestion", inline = true)
+    public List<SCMEventIngestion.LaneState> getIngestionLanes() {
+        return SCMEventIngestion.get().getLanes();
+    }
+
+    /**
+     * Returns the number of catch-up indexings requested because events were shed.
+     *
+     * @return the number of catch-up indexings.
+     */
+    @Exported
+    public long getCatchUpCount() {
+        return SCMEventIngestion.get().getCatchUpCount();
+    }
+
+    /**
+     * Returns the global events logs that are written in the background.
+     *
+     * @return the global events logs.
+     */
+    @Exported(name = "eventLogs", inline = true)
+    public List<AsyncEventsLog> getEventLogs() {
+        return AsyncEventsLog.getAll();
+    }
+
+    /**
+     * Remote API access.
+     *
+     * @return the remote API.
+     */
+    public Api getApi() {
+        return new Api(this);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Object getTarget() {
+        Jenkins.get().checkPermission(Jenkins.ADMINISTER);
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @CheckForNull
+    @Override
+    public String getIconFileName() {
+        // reachable by URL only, we do not want another link on the root page
+        return null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getDisplayName() {
+        return Messages.SCMEventMetrics_DisplayName();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getUrlName() {
+        return "scm-event-metrics";
+    }
+
+    /**
+     * The histogram of one stage for one lane.
+     */
+    @ExportedBean
+    public static final class StageLatency {
+        /**
+         * The lane.
+         */
+        private final Lane lane;
+        /**
+         * The stage.
+         */
+        private final Stage stage;
+        /**
+         * The histogram.
+         */
+        private final LatencyHistogram latency = new LatencyHistogram();
+
+        StageLatency(Lane lane, Stage stage) {
+            this.lane = lane;
+            this.stage = stage;
+        }
+
+        /**
+         * Returns the kind of event.
+         *
+         * @return the kind of event.
+         */
+        @Exported
+        public Lane getEventType() {
+            return lane;
+        }
+
+        /**
+         * Returns the stage.
+         *
+         * @return the stage.
+         */
+        @Exported
+        public Stage getStage() {
+            return stage;
+        }
+
+        /**
+         * Returns the histogram.
+         *
+         * @return the histogram.
+         */
+        @Exported(inline = true)
+        public LatencyHistogram getLatency() {
+            return latency;
+        }
+    }
+}
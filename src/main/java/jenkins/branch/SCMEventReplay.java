@@ -0,0 +1,239 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package jenkins.branch;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.ExtensionList;
+import hudson.security.ACL;
+import hudson.security.ACLContext;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.scm.api.SCMEvent;
+import jenkins.scm.api.SCMEventListener;
+import jenkins.scm.api.SCMHeadEvent;
+import jenkins.scm.api.SCMNavigatorEvent;
+import jenkins.scm.api.SCMSourceEvent;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * Replays an {@link SCMEventJournal} through the multi-branch project and organization folder event listeners, for
+ * benchmarking event routing on a test controller. Intended to be run from the script console, e.g.
+ * {@code println(jenkins.branch.SCMEventReplay.replay(new File('/tmp/events.journal'), false))}.
+ * <p>
+ * The events are delivered one at a time on the calling thread, so the reported latency of each event is the time
+ * taken for the listeners to process it. They are delivered as {@link ACL#SYSTEM2}, as when they are received.
+ */
+@Restricted(NoExternalUse.class)
+public final class SCMEventReplay {
+
+    /**
+     * Our logger.
+     */
+    private static final Logger LOGGER = Logger.getLogger(SCMEventReplay.class.getName());
+
+    private SCMEventReplay() {
+        throw new IllegalAccessError("Utility class");
+    }
+
+    /**
+     * Replays a journal through the multi-branch project and organization folder event listeners.
+     *
+     * @param journal the journal file.
+     * @param recordedSpeed {@code true} to wait between events as long as was recorded, {@code false} to replay as
+     *                      fast as possible.
+     * @return the report.
+     * @throws IOException if the journal could not be read.
+     * @throws InterruptedException if interrupted.
+     */
+    @NonNull
+    public static Report replay(@NonNull File journal, boolean recordedSpeed)
+            throws IOException, InterruptedException {
+        return replay(journal, recordedSpeed, Arrays.asList(
+                ExtensionList.lookupSingleton(MultiBranchProject.SCMEventListenerImpl.class),
+                ExtensionList.lookupSingleton(OrganizationFolder.SCMEventListenerImpl.class)
+        ));
+    }
+
+    /**
+     * Replays a journal through the supplied listeners.
+     *
+     * @param journal the journal file.
+     * @param recordedSpeed {@code true} to wait between events as long as was recorded, {@code false} to replay as
+     *                      fast as possible.
+     * @param listeners the listeners.
+     * @return the report.
+     * @throws IOException if the journal could not be read.
+     * @throws InterruptedException if interrupted.
+     */
+    @NonNull
+    static Report replay(@NonNull File journal, boolean recordedSpeed,
+                         @NonNull List<? extends SCMEventListener> listeners)
+            throws IOException, InterruptedException {
+        Report report = new Report();
+        long started = System.nanoTime();
+        long firstReceivedAt = -1;
+        try (SCMEventJournal.Reader reader = SCMEventJournal.read(journal)) {
+            for (SCMEventJournal.Entry entry = reader.next(); entry != null; entry = reader.next()) {
+                if (firstReceivedAt < 0) {
+                    firstReceivedAt = entry.getReceivedAt();
+                } else if (recordedSpeed) {
+                    long delay = TimeUnit.MILLISECONDS.toNanos(entry.getReceivedAt() - firstReceivedAt)
+                            - (System.nanoTime() - started);
+                    if (delay > 0) {
+                        TimeUnit.NANOSECONDS.sleep(delay);
+                    }
+                }
+                long start = System.nanoTime();
+                // events are received as SYSTEM, whoever runs the replay
+                try (ACLContext ctx = ACL.as2(ACL.SYSTEM2)) {
+                    for (SCMEventListener listener : listeners) {
+                        try {
+                            deliver(listener, entry.getEvent());
+                        } catch (RuntimeException e) {
+                            report.failures++;
+                            LOGGER.log(Level.WARNING, "Listener " + listener + " failed to process a replayed event",
+                                    e);
+                        }
+                    }
+                }
+                report.latency.record(System.nanoTime() - start);
+                report.events++;
+            }
+            report.skipped = reader.getSkippedCount();
+        }
+        report.elapsedNanos = System.nanoTime() - started;
+        return report;
+    }
+
+    private static void deliver(SCMEventListener listener, SCMEvent<?> event) {
+        if (event instanceof SCMHeadEvent) {
+            listener.onSCMHeadEvent((SCMHeadEvent<?>) event);
+        } else if (event instanceof SCMSourceEvent) {
+            listener.onSCMSourceEvent((SCMSourceEvent<?>) event);
+        } else if (event instanceof SCMNavigatorEvent) {
+            listener.onSCMNavigatorEvent((SCMNavigatorEvent<?>) event);
+        }
+    }
+
+    /**
+     * The outcome of a replay.
+     */
+    public static final class Report {
+        /**
+         * The number of events replayed.
+         */
+        private long events;
+        /**
+         * The number of journal records that could not be read.
+         */
+        private long skipped;
+        /**
+         * The number of times a listener failed to process an event.
+         */
+        private long failures;
+        /**
+         * How long the replay took.
+         */
+        private long elapsedNanos;
+        /**
+         * The time taken to process each event.
+         */
+        private final LatencyHistogram latency = new LatencyHistogram();
+
+        /**
+         * Returns the number of events replayed.
+         *
+         * @return the number of events replayed.
+         */
+        public long getEvents() {
+            return events;
+        }
+
+        /**
+         * Returns the number of journal records that could not be read.
+         *
+         * @return the number of journal records that could not be read.
+         */
+        public long getSkipped() {
+            return skipped;
+        }
+
+        /**
+         * Returns the number of times a listener failed to process an event.
+         *
+         * @return the number of times a listener failed to process an event.
+         */
+        public long getFailures() {
+            return failures;
+        }
+
+        /**
+         * Returns how long the replay took in milliseconds.
+         *
+         * @return how long the replay took in milliseconds.
+         */
+        public long getElapsedMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+        }
+
+        /**
+         * Returns the number of events replayed per second.
+         *
+         * @return the number of events replayed per second.
+         */
+        public double getThroughput() {
+            return elapsedNanos == 0 ? 0 : events * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+        }
+
+        /**
+         * Returns the time taken to process each event.
+         *
+         * @return the time taken to process each event.
+         */
+        @NonNull
+        public LatencyHistogram getLatency() {
+            return latency;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String toString() {
+            return String.format(Locale.ENGLISH,
+                    "Replayed %d events (%d skipped, %d failures) in %d ms: %.1f events/s, "
+                            + "latency p50 %.3f ms, p90 %.3f ms, p99 %.3f ms, max %.3f ms",
+                    events, skipped, failures, getElapsedMillis(), getThroughput(), latency.getP50Millis(),
+                    latency.getP90Millis(), latency.getP99Millis(), latency.getMaxMillis());
+        }
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package jenkins.branch;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.ExtensionList;
+import hudson.XmlFile;
+import hudson.model.Saveable;
+import hudson.model.listeners.ItemListener;
+import hudson.model.listeners.SaveableListener;
+import java.util.List;
+import jenkins.scm.api.SCMEvent;
+import jenkins.scm.api.SCMSource;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * Maintains a reverse index from the routing keys of {@link SCMSource} instances (as described by the
+ * {@link SCMEventRoutingKeyProvider} extensions) to the {@link MultiBranchProject} instances that hold them.
+ * The index is kept current through {@link ItemListener} callbacks, {@link MultiBranchProject#setSourcesList(List)}
+ * and saves of the projects, so that event routing only needs to consult the candidate projects.
+ */
+@Restricted(NoExternalUse.class)
+@Extension
+@SuppressWarnings("rawtypes")
+public class SCMEventRoutingIndex extends RoutingKeyIndex<MultiBranchProject, SCMSource> {
+
+    /**
+     * Constructor.
+     */
+    public SCMEventRoutingIndex() {
+        super(MultiBranchProject.class);
+    }
+
+    /**
+     * Returns the singleton instance.
+     *
+     * @return the singleton instance.
+     */
+    @NonNull
+    public static SCMEventRoutingIndex get() {
+        return ExtensionList.lookupSingleton(SCMEventRoutingIndex.class);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @NonNull
+    @Override
+    protected List<SCMSource> elements(@NonNull MultiBranchProject project) {
+        return ((MultiBranchProject<?, ?>) project).getSCMSources();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @CheckForNull
+    @Override
+    protected String elementKey(@NonNull SCMEventRoutingKeyProvider provider, @NonNull SCMSource source) {
+        return provider.sourceKey(source);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @CheckForNull
+    @Override
+    protected String eventKey(@NonNull SCMEventRoutingKeyProvider provider, @NonNull SCMEvent<?> event) {
+        return provider.eventKey(event);
+    }
+
+    /**
+     * Picks up changes to the sources of a multibranch project that are persisted without going through
+     * {@link MultiBranchProject#setSourcesList(List)}.
+     */
+    @Extension
+    public static class SaveableListenerImpl extends SaveableListener {
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void onChange(Saveable o, XmlFile file) {
+            if (o instanceof MultiBranchProject) {
+                get().update((MultiBranchProject) o);
+            }
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package jenkins.branch;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.ExtensionList;
+import hudson.ExtensionPoint;
+import jenkins.scm.api.SCMEvent;
+import jenkins.scm.api.SCMNavigator;
+import jenkins.scm.api.SCMSource;
+
+/**
+ * An extension point that allows SCM implementations to describe the identity of the repository that an
+ * {@link SCMSource} tracks and that an {@link SCMEvent} concerns. When both sides of an event can be described,
+ * events are routed directly to the {@link MultiBranchProject} instances with a source of the same identity rather
+ * than asking every source of every project whether it matches.
+ * <p>
+ * The contract is that whenever this provider returns two different non-null keys for an event and for a source,
+ * {@link jenkins.scm.api.SCMHeadEvent#isMatch(SCMSource)} (and the equivalent methods of the other event types) must
+ * return {@code false} for that pair. Returning {@code null} is always safe: sources without a key will always be
+ * consulted and events without a key will fall back to consulting every project.
+ * <p>
+ * Providers may also describe the identity of the organization (typically the server plus the organization or owner)
+ * that an {@link SCMNavigator} enumerates and that an {@link SCMEvent} concerns, which allows events to be routed
+ * directly to the {@link OrganizationFolder} instances with a navigator of the same identity. The same contract
+ * applies: two different non-null keys mean that {@link SCMEvent#isMatch(SCMNavigator)} must return {@code false}.
+ */
+public abstract class SCMEventRoutingKeyProvider implements ExtensionPoint {
+
+    /**
+     * Returns the routing key of the repository that the supplied source tracks.
+     *
+     * @param source the source.
+     * @return the routing key or {@code null} if this provider does not recognize the source.
+     */
+    @CheckForNull
+    public abstract String sourceKey(@NonNull SCMSource source);
+
+    /**
+     * Returns the routing key of the repository that the supplied event concerns.
+     *
+     * @param event the event.
+     * @return the routing key or {@code null} if this provider does not recognize the event.
+     */
+    @CheckForNull
+    public abstract String eventKey(@NonNull SCMEvent<?> event);
+
+    /**
+     * Returns the routing key of the organization that the supplied navigator enumerates.
+     *
+     * @param navigator the navigator.
+     * @return the routing key or {@code null} if this provider does not recognize the navigator.
+     */
+    @CheckForNull
+    public String navigatorKey(@NonNull SCMNavigator navigator) {
+        return null;
+    }
+
+    /**
+     * Returns the routing key of the organization that the supplied event concerns.
+     *
+     * @param event the event.
+     * @return the routing key or {@code null} if this provider does not recognize the event.
+     */
+    @CheckForNull
+    public String navigatorEventKey(@NonNull SCMEvent<?> event) {
+        return null;
+    }
+
+    /**
+     * Returns all the registered {@link SCMEventRoutingKeyProvider} instances.
+     *
+     * @return all the registered {@link SCMEventRoutingKeyProvider} instances.
+     */
+    @NonNull
+    public static ExtensionList<SCMEventRoutingKeyProvider> all() {
+        return ExtensionList.lookup(SCMEventRoutingKeyProvider.class);
+    }
+}
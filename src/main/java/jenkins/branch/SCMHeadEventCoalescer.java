@@ -0,0 +1,343 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jenkins.branch;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import hudson.model.Item;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import jenkins.scm.api.SCMHeadEvent;
+import jenkins.util.SystemProperties;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * Debounces bursts of {@link jenkins.scm.api.SCMEvent.Type#UPDATED} head events. Each event is registered against
+ * the project it is dispatched to and its processing is submitted with a delay of the coalescing window, see
+ * {@link SCMEventDispatcher#submitDelayed(Item, long, java.util.concurrent.TimeUnit, Callable)}. When the delayed
+ * processing runs, the event is handed over to a newer event registered for the same project that concerns every
+ * head that it concerns, as processing the newer event will observe the newest revisions anyway. Whichever of the
+ * events handed over has the newest {@link SCMHeadEvent#getTimestamp()} is processed when the newer event runs, so
+ * that a redelivered older event cannot cause a newer one to be discarded as stale. Events only count as merged
+ * once the event they were handed over to has run, and are given back by {@link #discard(Ticket)} if it never
+ * runs.
+ * <p>
+ * The heads that an event concerns are only worked out when needed, on the worker that processes the event, so
+ * registering an event does not call {@link SCMHeadEvent#isMatch(jenkins.scm.api.SCMSource)} on the
+ * thread that dispatches it.
+ * <p>
+ * The window is configured in milliseconds with the {@code windowMillis} system property and defaults to
+ * {@code 0} which disables coalescing.
+ */
+@Restricted(NoExternalUse.class)
+public final class SCMHeadEventCoalescer {
+
+    /**
+     * The coalescing window in milliseconds, {@code 0} to disable.
+     */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "Accessible via System Groovy Scripts")
+    static /* not final */ int WINDOW_MILLIS =
+            SystemProperties.getInteger(SCMHeadEventCoalescer.class.getName() + ".windowMillis", 0);
+
+    /**
+     * The singleton instance.
+     */
+    private static final SCMHeadEventCoalescer INSTANCE = new SCMHeadEventCoalescer();
+
+    /**
+     * The registered events that have not been claimed yet for each project in registration order, keyed by
+     * {@link Item#getFullName()}.
+     */
+    private final Map<String, List<Ticket>> pending = new HashMap<>();
+
+    /**
+     * Source of sequence numbers.
+     */
+    private long sequence;
+
+    /**
+     * The number of events that were handed over to a newer event which has since run.
+     */
+    private final AtomicLong merged = new AtomicLong();
+
+    /**
+     * The number of times events were processed after waiting for the window.
+     */
+    private final AtomicLong executed = new AtomicLong();
+
+    /**
+     * Returns the singleton instance.
+     *
+     * @return the singleton instance.
+     */
+    @NonNull
+    public static SCMHeadEventCoalescer get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns {@code true} if coalescing is enabled.
+     *
+     * @return {@code true} if coalescing is enabled.
+     */
+    public boolean isEnabled() {
+        return WINDOW_MILLIS > 0;
+    }
+
+    /**
+     * Returns the coalescing window.
+     *
+     * @return the coalescing window in milliseconds.
+     */
+    public long getWindowMillis() {
+        return Math.max(0L, WINDOW_MILLIS);
+    }
+
+    /**
+     * Registers an event for the supplied project.
+     *
+     * @param project the project.
+     * @param event the event.
+     * @param headNames works out the names of the heads of the project that the event concerns, only called from
+     *                  {@link #claim(Ticket)}.
+     * @return the ticket to pass to {@link #claim(Ticket)} or {@code null} if coalescing is disabled.
+     */
+    @CheckForNull
+    public Ticket register(@NonNull Item project, @NonNull SCMHeadEvent<?> event,
+                           @NonNull Callable<Set<String>> headNames) {
+        if (WINDOW_MILLIS <= 0) {
+            return null;
+        }
+        String key = project.getFullName();
+        synchronized (pending) {
+            Ticket ticket = new Ticket(++sequence, key, event, headNames);
+            pending.computeIfAbsent(key, k -> new ArrayList<>()).add(ticket);
+            return ticket;
+        }
+    }
+
+    /**
+     * Claims a registered event for processing once its coalescing window has elapsed. The caller must process the
+     * returned event and then call {@link #completed(Ticket)}.
+     *
+     * @param ticket the ticket.
+     * @return the newest of the events that the ticket stands for, or {@code null} if the event has been handed over
+     * to a newer event.
+     * @throws Exception if the heads that an event concerns could not be worked out.
+     */
+    @CheckForNull
+    public SCMHeadEvent<?> claim(@NonNull Ticket ticket) throws Exception {
+        List<Ticket> newer;
+        synchronized (pending) {
+            List<Ticket> tickets = pending.get(ticket.project);
+            int index = tickets == null ? -1 : tickets.indexOf(ticket);
+            if (index == -1) {
+                // already claimed or discarded
+                return null;
+            }
+            newer = new ArrayList<>(tickets.subList(index + 1, tickets.size()));
+            tickets.remove(index);
+            if (tickets.isEmpty()) {
+                pending.remove(ticket.project);
+            }
+        }
+        Set<String> heads = ticket.headNames();
+        if (!heads.isEmpty()) {
+            for (int i = newer.size() - 1; i >= 0; i--) {
+                Ticket t = newer.get(i);
+                if (t.headNames().containsAll(heads) && handOver(ticket, t)) {
+                    return null;
+                }
+            }
+        }
+        synchronized (pending) {
+            SCMHeadEvent<?> newest = ticket.event;
+            for (Ticket t : ticket.absorbed) {
+                if (t.event.getTimestamp() > newest.getTimestamp()) {
+                    newest = t.event;
+                }
+            }
+            return newest;
+        }
+    }
+
+    /**
+     * Hands a claimed event, and any events handed over to it, over to a newer event that has not been claimed yet.
+     *
+     * @param ticket the claimed event.
+     * @param newer the newer event.
+     * @return {@code true} if the events were handed over, {@code false} if the newer event has been claimed or
+     * discarded in the meantime.
+     */
+    private boolean handOver(@NonNull Ticket ticket, @NonNull Ticket newer) {
+        synchronized (pending) {
+            List<Ticket> tickets = pending.get(newer.project);
+            if (tickets == null || !tickets.contains(newer)) {
+                return false;
+            }
+            newer.absorbed.addAll(ticket.absorbed);
+            newer.absorbed.add(ticket);
+            ticket.absorbed.clear();
+            return true;
+        }
+    }
+
+    /**
+     * Records that a claimed event has been processed, which makes the events handed over to it count as merged.
+     *
+     * @param ticket the ticket.
+     */
+    public void completed(@NonNull Ticket ticket) {
+        int count;
+        synchronized (pending) {
+            count = ticket.absorbed.size();
+            ticket.absorbed.clear();
+        }
+        merged.addAndGet(count);
+        executed.incrementAndGet();
+    }
+
+    /**
+     * Forgets a registered event that will not be claimed, for example because its processing was cancelled.
+     *
+     * @param ticket the ticket.
+     * @return the events that were handed over to the event and that still need to be processed.
+     */
+    @NonNull
+    public List<SCMHeadEvent<?>> discard(@NonNull Ticket ticket) {
+        synchronized (pending) {
+            List<Ticket> tickets = pending.get(ticket.project);
+            if (tickets == null || !tickets.remove(ticket)) {
+                // claimed, so whoever claimed it is responsible for the events handed over to it
+                return Collections.emptyList();
+            }
+            if (tickets.isEmpty()) {
+                pending.remove(ticket.project);
+            }
+            List<SCMHeadEvent<?>> result = new ArrayList<>(ticket.absorbed.size());
+            for (Ticket t : ticket.absorbed) {
+                result.add(t.event);
+            }
+            ticket.absorbed.clear();
+            return result;
+        }
+    }
+
+    /**
+     * Returns the number of events that were merged into a newer event which has since run.
+     *
+     * @return the number of events that were merged into a newer event.
+     */
+    public long getMergedCount() {
+        return merged.get();
+    }
+
+    /**
+     * Returns the number of events that were processed after waiting for the coalescing window.
+     *
+     * @return the number of events that were processed after waiting for the coalescing window.
+     */
+    public long getExecutedCount() {
+        return executed.get();
+    }
+
+    /**
+     * Identifies a registered event.
+     */
+    public static final class Ticket {
+        /**
+         * The sequence number of the event.
+         */
+        private final long id;
+        /**
+         * The {@link Item#getFullName()} of the project.
+         */
+        private final String project;
+        /**
+         * The event.
+         */
+        private final SCMHeadEvent<?> event;
+        /**
+         * Works out the names of the heads that the event concerns.
+         */
+        private final Callable<Set<String>> computation;
+        /**
+         * The older events that were handed over to this event. Guarded by {@link SCMHeadEventCoalescer#pending}.
+         */
+        private final List<Ticket> absorbed = new ArrayList<>();
+        /**
+         * Guards {@link #headNames}. A lock rather than a monitor, as working the names out may wait on the SCM and
+         * must not pin the carrier thread of a virtual thread.
+         */
+        private final Lock lock = new ReentrantLock();
+        /**
+         * The names of the heads that the event concerns, once worked out.
+         */
+        private Set<String> headNames;
+
+        private Ticket(long id, String project, SCMHeadEvent<?> event, Callable<Set<String>> computation) {
+            this.id = id;
+            this.project = project;
+            this.event = event;
+            this.computation = computation;
+        }
+
+        /**
+         * Returns the names of the heads that the event concerns, working them out on first use.
+         *
+         * @return the names of the heads that the event concerns.
+         * @throws Exception if the names could not be worked out.
+         */
+        private Set<String> headNames() throws Exception {
+            lock.lock();
+            try {
+                if (headNames == null) {
+                    headNames = new HashSet<>(computation.call());
+                }
+                return headNames;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String toString() {
+            return "Ticket{" + project + "#" + id + "}";
+        }
+    }
+}
@@ -0,0 +1,269 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package jenkins.branch;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import hudson.Extension;
+import hudson.model.Item;
+import hudson.model.listeners.ItemListener;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import jenkins.scm.api.SCMHead;
+import jenkins.scm.api.SCMHeadEvent;
+import jenkins.scm.api.SCMRevision;
+import jenkins.scm.api.SCMSource;
+import jenkins.util.SystemProperties;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * Remembers the revision and event timestamp last processed for each head of each project, so that redelivered
+ * {@link SCMHeadEvent}s for a revision that has already been processed, and events that arrive after a newer event
+ * for the same head, can be discarded before any call to the SCM.
+ * <p>
+ * An event is only discarded when every head that it reports for the project is either a duplicate or stale. Events
+ * that do not report a revision are never discarded.
+ */
+@Restricted(NoExternalUse.class)
+public final class SCMHeadEventDeduplicator {
+
+    /**
+     * How long to remember a processed revision, {@code 0} to disable.
+     */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "Accessible via System Groovy Scripts")
+    static /* not final */ int TTL_MINUTES =
+            SystemProperties.getInteger(SCMHeadEventDeduplicator.class.getName() + ".ttlMinutes", 60);
+
+    /**
+     * The maximum number of entries.
+     */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "Accessible via System Groovy Scripts")
+    static /* not final */ int MAXIMUM_SIZE =
+            SystemProperties.getInteger(SCMHeadEventDeduplicator.class.getName() + ".maximumSize", 10000);
+
+    /**
+     * The singleton instance.
+     */
+    private static final SCMHeadEventDeduplicator INSTANCE = new SCMHeadEventDeduplicator(TTL_MINUTES, MAXIMUM_SIZE);
+
+    /**
+     * What we have processed, keyed by project full name, source id and head name.
+     */
+    @CheckForNull
+    private final Cache<String, Processed> processed;
+
+    /**
+     * The number of events discarded because their revisions had already been processed.
+     */
+    private final AtomicLong duplicates = new AtomicLong();
+
+    /**
+     * The number of events discarded because a newer event had already been processed.
+     */
+    private final AtomicLong stale = new AtomicLong();
+
+    SCMHeadEventDeduplicator(int ttlMinutes, int maximumSize) {
+        this.processed = ttlMinutes <= 0 ? null : Caffeine.newBuilder()
+                .expireAfterWrite(ttlMinutes, TimeUnit.MINUTES)
+                .maximumSize(Math.max(1, maximumSize))
+                .build();
+    }
+
+    /**
+     * Returns the singleton instance.
+     *
+     * @return the singleton instance.
+     */
+    @NonNull
+    public static SCMHeadEventDeduplicator get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Checks if an event can be discarded for a project, counting it if so.
+     *
+     * @param project the project.
+     * @param event the event.
+     * @param heads the heads and revisions that the event reports for each source of the project.
+     * @return {@code true} if every head is a duplicate or stale.
+     */
+    public boolean isSuppressed(@NonNull MultiBranchProject<?, ?> project, @NonNull SCMHeadEvent<?> event,
+                                @NonNull Map<SCMSource, Map<SCMHead, SCMRevision>> heads) {
+        if (processed == null || heads.isEmpty()) {
+            return false;
+        }
+        boolean anyStale = false;
+        for (Map.Entry<SCMSource, Map<SCMHead, SCMRevision>> entry : heads.entrySet()) {
+            for (Map.Entry<SCMHead, SCMRevision> head : entry.getValue().entrySet()) {
+                SCMRevision revision = head.getValue();
+                if (revision == null) {
+                    return false;
+                }
+                Processed last = processed.getIfPresent(
+                        keyOf(project, entry.getKey(), head.getKey()));
+                if (last == null) {
+                    return false;
+                }
+                if (event.getTimestamp() < last.timestamp) {
+                    anyStale = true;
+                } else if (!revision.equals(last.revision)) {
+                    return false;
+                }
+            }
+        }
+        (anyStale ? stale : duplicates).incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Records that an event has been processed for a project.
+     *
+     * @param project the project.
+     * @param event the event.
+     * @param heads the heads and revisions that the event reports for each source of the project.
+     */
+    public void processed(@NonNull MultiBranchProject<?, ?> project, @NonNull SCMHeadEvent<?> event,
+                          @NonNull Map<SCMSource, Map<SCMHead, SCMRevision>> heads) {
+        if (processed == null) {
+            return;
+        }
+        long timestamp = event.getTimestamp();
+        for (Map.Entry<SCMSource, Map<SCMHead, SCMRevision>> entry : heads.entrySet()) {
+            for (Map.Entry<SCMHead, SCMRevision> head : entry.getValue().entrySet()) {
+                SCMRevision revision = head.getValue();
+                if (revision == null) {
+                    continue;
+                }
+                processed.asMap().merge(keyOf(project, entry.getKey(), head.getKey()),
+                        new Processed(revision, timestamp),
+                        (old, now) -> old.timestamp > now.timestamp ? old : now);
+            }
+        }
+    }
+
+    /**
+     * Forgets everything that has been processed.
+     */
+    public void invalidateAll() {
+        if (processed != null) {
+            processed.invalidateAll();
+        }
+    }
+
+    /**
+     * Returns the number of events discarded because their revisions had already been processed.
+     *
+     * @return the number of duplicate events.
+     */
+    public long getDuplicateCount() {
+        return duplicates.get();
+    }
+
+    /**
+     * Returns the number of events discarded because a newer event had already been processed.
+     *
+     * @return the number of stale events.
+     */
+    public long getStaleCount() {
+        return stale.get();
+    }
+
+    /**
+     * Forgets what has been processed for a project and its descendants.
+     *
+     * @param fullName the full name of the project.
+     */
+    void invalidate(@NonNull String fullName) {
+        if (processed != null) {
+            String prefix = fullName + '\u0000';
+            String folderPrefix = fullName + '/';
+            processed.asMap().keySet().removeIf(k -> k.startsWith(prefix) || k.startsWith(folderPrefix));
+        }
+    }
+
+    private static String keyOf(MultiBranchProject<?, ?> project, SCMSource source, SCMHead head) {
+        return project.getFullName() + '\u0000' + source.getId() + '\u0000' + head.getName();
+    }
+
+    /**
+     * The revision and event timestamp last processed for a head.
+     */
+    private static final class Processed {
+        /**
+         * The revision.
+         */
+        private final SCMRevision revision;
+        /**
+         * The event timestamp.
+         */
+        private final long timestamp;
+
+        private Processed(SCMRevision revision, long timestamp) {
+            this.revision = revision;
+            this.timestamp = timestamp;
+        }
+    }
+
+    /**
+     * Forgets what has been processed for projects that are deleted or moved, so that a project that is later
+     * created in their place does not inherit their history, and for projects whose configuration is updated, as
+     * their sources may now track different heads.
+     */
+    @Extension
+    public static class ItemListenerImpl extends ItemListener {
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void onDeleted(Item item) {
+            get().invalidate(item.getFullName());
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void onUpdated(Item item) {
+            if (item instanceof MultiBranchProject) {
+                get().invalidate(item.getFullName());
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void onLocationChanged(Item item, String oldFullName, String newFullName) {
+            get().invalidate(oldFullName);
+        }
+    }
+}
@@ -0,0 +1,297 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package jenkins.branch;
+
+import com.thoughtworks.xstream.XStreamException;
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import hudson.Util;
+import hudson.model.Items;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.scm.api.SCMHead;
+import jenkins.scm.api.SCMHeadEvent;
+import jenkins.scm.api.SCMRevision;
+import jenkins.scm.api.SCMSource;
+import jenkins.util.SystemProperties;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * Remembers the results of {@link SCMHeadEvent#isMatch(SCMSource)} and {@link SCMHeadEvent#heads(SCMSource)} for
+ * the duration of the dispatch of a single event, so that the many projects with an equivalent source do not each
+ * repeat the work. Two sources are equivalent when they are of the same class and have the same configuration apart
+ * from their {@link SCMSource#getId()}.
+ * <p>
+ * A memo is {@link #open(SCMHeadEvent) opened} when the dispatch of an event starts and closed when every project
+ * has processed the event. Outside of that window {@link #of(SCMHeadEvent)} returns a memo that remembers nothing.
+ */
+@Restricted(NoExternalUse.class)
+public final class SCMHeadEventMemo implements AutoCloseable {
+
+    /**
+     * Our logger.
+     */
+    private static final Logger LOGGER = Logger.getLogger(SCMHeadEventMemo.class.getName());
+
+    /**
+     * Whether results are remembered.
+     */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "Accessible via System Groovy Scripts")
+    static /* not final */ boolean ENABLED =
+            SystemProperties.getBoolean(SCMHeadEventMemo.class.getName() + ".enabled", true);
+
+    /**
+     * The memos of the events that are being dispatched.
+     */
+    private static final Map<SCMHeadEvent<?>, SCMHeadEventMemo> OPEN =
+            Collections.synchronizedMap(new IdentityHashMap<>());
+
+    /**
+     * The number of {@link SCMHeadEvent#isMatch(SCMSource)} results that were remembered.
+     */
+    private static final AtomicLong MATCH_HITS = new AtomicLong();
+
+    /**
+     * The number of {@link SCMHeadEvent#isMatch(SCMSource)} results that had to be computed.
+     */
+    private static final AtomicLong MATCH_MISSES = new AtomicLong();
+
+    /**
+     * The number of {@link SCMHeadEvent#heads(SCMSource)} results that were remembered.
+     */
+    private static final AtomicLong HEADS_HITS = new AtomicLong();
+
+    /**
+     * The number of {@link SCMHeadEvent#heads(SCMSource)} results that had to be computed.
+     */
+    private static final AtomicLong HEADS_MISSES = new AtomicLong();
+
+    /**
+     * The event.
+     */
+    @NonNull
+    private final SCMHeadEvent<?> event;
+
+    /**
+     * The remembered match results keyed by source equivalence key, or {@code null} if nothing is remembered.
+     */
+    @CheckForNull
+    private final Map<String, Boolean> matches;
+
+    /**
+     * The remembered heads keyed by source equivalence key, or {@code null} if nothing is remembered.
+     */
+    @CheckForNull
+    private final Map<String, Map<SCMHead, SCMRevision>> heads;
+
+    /**
+     * The equivalence keys of the sources seen during the dispatch, or {@code null} if nothing is remembered. Sources
+     * can be reconfigured in place through their {@code @DataBoundSetter}s, so a key is only trusted for the duration
+     * of one dispatch.
+     */
+    @CheckForNull
+    private final Map<SCMSource, String> keys;
+
+    /**
+     * How many times the memo has been opened and not yet closed.
+     */
+    private int openCount;
+
+    private SCMHeadEventMemo(@NonNull SCMHeadEvent<?> event, boolean remember) {
+        this.event = event;
+        this.matches = remember ? new ConcurrentHashMap<>() : null;
+        this.heads = remember ? new ConcurrentHashMap<>() : null;
+        this.keys = remember ? Collections.synchronizedMap(new IdentityHashMap<>()) : null;
+    }
+
+    /**
+     * Opens the memo of an event for the duration of its dispatch. Opening the memo of an event that is already
+     * being dispatched returns the same memo, which is only discarded when every opener has closed it.
+     *
+     * @param event the event.
+     * @return the memo to {@link #close()} once the dispatch has completed.
+     */
+    @NonNull
+    public static SCMHeadEventMemo open(@NonNull SCMHeadEvent<?> event) {
+        synchronized (OPEN) {
+            SCMHeadEventMemo memo = OPEN.computeIfAbsent(event, e -> new SCMHeadEventMemo(e, ENABLED));
+            memo.openCount++;
+            return memo;
+        }
+    }
+
+    /**
+     * Returns the memo of an event.
+     *
+     * @param event the event.
+     * @return the memo of the event if it is being dispatched, otherwise a memo that remembers nothing.
+     */
+    @NonNull
+    public static SCMHeadEventMemo of(@NonNull SCMHeadEvent<?> event) {
+        SCMHeadEventMemo memo = OPEN.get(event);
+        return memo != null ? memo : new SCMHeadEventMemo(event, false);
+    }
+
+    /**
+     * Returns the event.
+     *
+     * @return the event.
+     */
+    @NonNull
+    public SCMHeadEvent<?> getEvent() {
+        return event;
+    }
+
+    /**
+     * Returns {@link SCMHeadEvent#isMatch(SCMSource)} for the supplied source.
+     *
+     * @param source the source.
+     * @return {@code true} if the event matches the source.
+     */
+    public boolean isMatch(@NonNull SCMSource source) {
+        if (matches == null) {
+            return event.isMatch(source);
+        }
+        String key = keyOf(source);
+        Boolean result = matches.get(key);
+        if (result != null) {
+            MATCH_HITS.incrementAndGet();
+            return result;
+        }
+        MATCH_MISSES.incrementAndGet();
+        boolean match = event.isMatch(source);
+        matches.put(key, match);
+        return match;
+    }
+
+    /**
+     * Returns {@link SCMHeadEvent#heads(SCMSource)} for the supplied source.
+     *
+     * @param source the source.
+     * @return the heads and revisions that the event concerns.
+     */
+    @NonNull
+    public Map<SCMHead, SCMRevision> heads(@NonNull SCMSource source) {
+        if (heads == null) {
+            return event.heads(source);
+        }
+        String key = keyOf(source);
+        Map<SCMHead, SCMRevision> result = heads.get(key);
+        if (result != null) {
+            HEADS_HITS.incrementAndGet();
+            return result;
+        }
+        HEADS_MISSES.incrementAndGet();
+        result = Collections.unmodifiableMap(event.heads(source));
+        heads.put(key, result);
+        return result;
+    }
+
+    /**
+     * Releases the memo once the dispatch that opened it has completed.
+     */
+    @Override
+    public void close() {
+        synchronized (OPEN) {
+            if (--openCount <= 0) {
+                OPEN.remove(event, this);
+            }
+        }
+    }
+
+    /**
+     * Returns the equivalence key of a source, as of the first time it was asked for during the dispatch.
+     *
+     * @param source the source.
+     * @return the equivalence key.
+     */
+    @NonNull
+    public String keyOf(@NonNull SCMSource source) {
+        if (keys == null) {
+            return computeKey(source);
+        }
+        return keys.computeIfAbsent(source, SCMHeadEventMemo::computeKey);
+    }
+
+    private static String computeKey(@NonNull SCMSource source) {
+        String xml;
+        try {
+            xml = Items.XSTREAM2.toXML(source);
+        } catch (XStreamException e) {
+            LOGGER.log(Level.FINE, "Could not serialize source " + source.getId()
+                    + ", it will not share results with other sources", e);
+            // unique to this source instance
+            return source.getClass().getName() + "@" + System.identityHashCode(source) + ":" + source.getId();
+        }
+        String id = source.getId();
+        // the id differs between otherwise identical sources and does not influence what an event reports
+        xml = xml.replace("<id>" + Util.xmlEscape(id) + "</id>", "<id/>");
+        return source.getClass().getName() + ":" + Util.getDigestOf(xml);
+    }
+
+    /**
+     * Returns the number of {@link SCMHeadEvent#isMatch(SCMSource)} results that were remembered.
+     *
+     * @return the number of remembered match results.
+     */
+    public static long getMatchHitCount() {
+        return MATCH_HITS.get();
+    }
+
+    /**
+     * Returns the number of {@link SCMHeadEvent#isMatch(SCMSource)} results that had to be computed.
+     *
+     * @return the number of computed match results.
+     */
+    public static long getMatchMissCount() {
+        return MATCH_MISSES.get();
+    }
+
+    /**
+     * Returns the number of {@link SCMHeadEvent#heads(SCMSource)} results that were remembered.
+     *
+     * @return the number of remembered heads results.
+     */
+    public static long getHeadsHitCount() {
+        return HEADS_HITS.get();
+    }
+
+    /**
+     * Returns the number of {@link SCMHeadEvent#heads(SCMSource)} results that had to be computed.
+     *
+     * @return the number of computed heads results.
+     */
+    public static long getHeadsMissCount() {
+        return HEADS_MISSES.get();
+    }
+}
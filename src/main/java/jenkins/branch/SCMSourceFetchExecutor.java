@@ -0,0 +1,222 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package jenkins.branch;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import hudson.security.ACL;
+import hudson.security.ACLContext;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import jenkins.model.Jenkins;
+import jenkins.util.SystemProperties;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+import org.springframework.security.core.Authentication;
+
+/**
+ * A bounded pool for calls to an SCM that are independent of each other, such as fetching the actions or heads of
+ * the different sources of a project. Tasks run as the {@link Authentication} of the thread that submitted them.
+ * <p>
+ * The pool size can be tuned with the {@code poolSize} system property. When {@link SCMEventDispatcher} is set to use
+ * virtual threads the tasks run on virtual threads too, still at most {@code poolSize} at a time. At most
+ * {@code queueDepth} tasks wait for a thread, further tasks are run by the caller instead of being queued. Callers
+ * must only wait for their own tasks and the tasks must not submit further tasks, so that waiting cannot starve the
+ * pool.
+ */
+@Restricted(NoExternalUse.class)
+public final class SCMSourceFetchExecutor {
+
+    /**
+     * The maximum number of tasks running at once.
+     */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "Accessible via System Groovy Scripts")
+    static /* not final */ int POOL_SIZE =
+            SystemProperties.getInteger(SCMSourceFetchExecutor.class.getName() + ".poolSize", 8);
+
+    /**
+     * The maximum number of tasks waiting for a thread.
+     */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "Accessible via System Groovy Scripts")
+    static /* not final */ int QUEUE_DEPTH =
+            SystemProperties.getInteger(SCMSourceFetchExecutor.class.getName() + ".queueDepth", 64);
+
+    /**
+     * The singleton instance, created on first use.
+     */
+    private static SCMSourceFetchExecutor instance;
+
+    /**
+     * The threads.
+     */
+    private final ExecutorService executor;
+
+    /**
+     * Limits the number of tasks running on virtual threads, or {@code null} when the pool size limits them.
+     */
+    private final Semaphore running;
+
+    /**
+     * Limits the number of tasks that have been submitted and not yet completed.
+     */
+    private final Semaphore submitted;
+
+    SCMSourceFetchExecutor(int poolSize, int queueDepth, boolean virtualThreads) {
+        this.submitted = new Semaphore(poolSize + Math.max(0, queueDepth));
+        ExecutorService virtual = virtualThreads
+                ? VirtualThreads.newThreadPerTaskExecutor(SCMSourceFetchExecutor.class.getName())
+                : null;
+        if (virtual != null) {
+            this.executor = virtual;
+            this.running = new Semaphore(poolSize);
+        } else {
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(poolSize, poolSize, 60L, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(),
+                    new NamingThreadFactory(new DaemonThreadFactory(), SCMSourceFetchExecutor.class.getName()));
+            pool.allowCoreThreadTimeOut(true);
+            this.executor = pool;
+            this.running = null;
+        }
+    }
+
+    /**
+     * Returns the singleton instance.
+     *
+     * @return the singleton instance.
+     */
+    @NonNull
+    public static synchronized SCMSourceFetchExecutor get() {
+        if (instance == null) {
+            instance = new SCMSourceFetchExecutor(Math.max(1, POOL_SIZE), QUEUE_DEPTH,
+                    SCMEventDispatcher.VIRTUAL_THREADS);
+        }
+        return instance;
+    }
+
+    /**
+     * Submits a task. If {@link #QUEUE_DEPTH} tasks are already waiting for a thread, the task is run by the caller
+     * before this method returns.
+     *
+     * @param task the task.
+     * @param <V> the type of result.
+     * @return the future result of the task.
+     */
+    @NonNull
+    public <V> Future<V> submit(@NonNull Callable<V> task) {
+        if (!submitted.tryAcquire()) {
+            FutureTask<V> inline = new FutureTask<>(task);
+            inline.run();
+            return inline;
+        }
+        final Authentication auth = Jenkins.getAuthentication2();
+        FutureTask<V> future = new FutureTask<V>(() -> {
+            if (running != null) {
+                running.acquire();
+            }
+            try (ACLContext ctx = ACL.as2(auth)) {
+                return task.call();
+            } finally {
+                if (running != null) {
+                    running.release();
+                }
+            }
+        }) {
+            @Override
+            protected void done() {
+                // also called when a task is cancelled before it gets a thread
+                submitted.release();
+            }
+        };
+        try {
+            executor.execute(future);
+        } catch (RejectedExecutionException e) {
+            submitted.release();
+            throw e;
+        }
+        return future;
+    }
+
+    /**
+     * Stops the threads, interrupting any tasks that are still running. The singleton is never shut down, this is for
+     * the executors that are created for a single piece of work.
+     */
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Waits for the result of a task, unwrapping any {@link IOException} or unchecked exception that it failed with.
+     *
+     * @param future the task.
+     * @param <V> the type of result.
+     * @return the result.
+     * @throws IOException if the task failed with an {@link IOException}, or with any other checked exception.
+     * @throws InterruptedException if the task was interrupted or the caller was interrupted while waiting.
+     */
+    public static <V> V get(@NonNull Future<V> future) throws IOException, InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof InterruptedException) {
+                throw (InterruptedException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * Cancels tasks that are no longer wanted, interrupting any that are running.
+     *
+     * @param futures the tasks.
+     */
+    public static void cancelAll(@NonNull List<? extends Future<?>> futures) {
+        for (Future<?> f : futures) {
+            f.cancel(true);
+        }
+    }
+}
@@ -0,0 +1,321 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package jenkins.branch;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import hudson.model.TaskListener;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.scm.api.SCMHead;
+import jenkins.scm.api.SCMHeadEvent;
+import jenkins.scm.api.SCMHeadObserver;
+import jenkins.scm.api.SCMRevision;
+import jenkins.scm.api.SCMSource;
+import jenkins.scm.api.SCMSourceCriteria;
+import jenkins.util.SystemProperties;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * Shares a single {@link SCMSource#fetch(SCMSourceCriteria, SCMHeadObserver, SCMHeadEvent, TaskListener)} between the
+ * projects that an event matches when their sources are equivalent apart from their id and owner. The first project
+ * to fetch performs the fetch on behalf of the whole group with a criteria that consults the criteria of every
+ * member, and the heads that were observed are then replayed to each member's own observer, restricted to the heads
+ * that the member's criteria accepted. If the shared fetch fails, the other members fall back to fetching themselves.
+ * <p>
+ * Sharing is opt-in through the {@code enabled} system property.
+ */
+@Restricted(NoExternalUse.class)
+public final class SharedHeadFetch {
+
+    /**
+     * Our logger.
+     */
+    private static final Logger LOGGER = Logger.getLogger(SharedHeadFetch.class.getName());
+
+    /**
+     * Whether fetches are shared between projects with equivalent sources.
+     */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "Accessible via System Groovy Scripts")
+    static /* not final */ boolean ENABLED =
+            SystemProperties.getBoolean(SharedHeadFetch.class.getName() + ".enabled", false);
+
+    /**
+     * The event.
+     */
+    @NonNull
+    private final SCMHeadEvent<?> event;
+
+    /**
+     * The groups of equivalent sources keyed by {@link SCMHeadEventMemo#keyOf(SCMSource)} of the event's memo.
+     */
+    @NonNull
+    private final Map<String, Group> groups;
+
+    private SharedHeadFetch(@NonNull SCMHeadEvent<?> event, @NonNull Map<String, Group> groups) {
+        this.event = event;
+        this.groups = groups;
+    }
+
+    /**
+     * Groups the matching sources of the supplied projects.
+     *
+     * @param event the event.
+     * @param projects the projects that the event will be dispatched to.
+     * @return the shared fetches or {@code null} if sharing is disabled or no two projects have equivalent sources.
+     */
+    @CheckForNull
+    public static SharedHeadFetch create(@NonNull SCMHeadEvent<?> event,
+                                         @NonNull List<? extends MultiBranchProject<?, ?>> projects) {
+        if (!ENABLED || projects.size() < 2) {
+            return null;
+        }
+        SCMHeadEventMemo memo = SCMHeadEventMemo.of(event);
+        Map<String, List<Member>> members = new LinkedHashMap<>();
+        for (MultiBranchProject<?, ?> p : projects) {
+            for (SCMSource source : p.getSCMSources()) {
+                if (memo.isMatch(source)) {
+                    members.computeIfAbsent(memo.keyOf(source), k -> new ArrayList<>())
+                            .add(new Member(p, source));
+                }
+            }
+        }
+        Map<String, Group> groups = new HashMap<>();
+        for (Map.Entry<String, List<Member>> entry : members.entrySet()) {
+            if (entry.getValue().size() > 1) {
+                groups.put(entry.getKey(), new Group(entry.getValue()));
+            }
+        }
+        return groups.isEmpty() ? null : new SharedHeadFetch(event, groups);
+    }
+
+    /**
+     * Fetches the heads of a project's source that the event concerns, sharing the fetch with the other projects of
+     * the group if possible.
+     *
+     * @param shared the shared fetches or {@code null} to always fetch directly.
+     * @param project the project.
+     * @param source the project's source.
+     * @param observer the project's observer.
+     * @param event the event.
+     * @param listener the listener.
+     * @throws IOException if the fetch failed.
+     * @throws InterruptedException if interrupted.
+     */
+    public static void fetch(@CheckForNull SharedHeadFetch shared, @NonNull MultiBranchProject<?, ?> project,
+                             @NonNull SCMSource source, @NonNull SCMHeadObserver observer,
+                             @NonNull SCMHeadEvent<?> event, @NonNull TaskListener listener)
+            throws IOException, InterruptedException {
+        if (shared != null && shared.event == event) {
+            Group group = shared.groups.get(SCMHeadEventMemo.of(event).keyOf(source));
+            int index = group == null ? -1 : group.indexOf(project, source);
+            if (index >= 0 && group.fetch(index, observer, event, listener)) {
+                return;
+            }
+        }
+        source.fetch(project.getSCMSourceCriteria(source), observer, event, listener);
+    }
+
+    /**
+     * A project and its source.
+     */
+    private static final class Member {
+        /**
+         * The project.
+         */
+        private final MultiBranchProject<?, ?> project;
+        /**
+         * The project's source.
+         */
+        private final SCMSource source;
+
+        private Member(MultiBranchProject<?, ?> project, SCMSource source) {
+            this.project = project;
+            this.source = source;
+        }
+    }
+
+    /**
+     * Projects with equivalent sources that share one fetch.
+     */
+    private static final class Group {
+        /**
+         * The members.
+         */
+        private final List<Member> members;
+        /**
+         * Guards the state of the shared fetch. A lock rather than a monitor, so that members waiting on virtual
+         * threads do not pin their carrier threads.
+         */
+        private final Lock lock = new ReentrantLock();
+        /**
+         * Signalled when the shared fetch has completed.
+         */
+        private final Condition fetched = lock.newCondition();
+        /**
+         * Whether a member has started the shared fetch.
+         */
+        private boolean started;
+        /**
+         * Whether the shared fetch has completed, successfully or not.
+         */
+        private boolean done;
+        /**
+         * The heads and revisions observed by the shared fetch in observation order, or {@code null} if it failed.
+         */
+        @CheckForNull
+        private Map<SCMHead, SCMRevision> observed;
+        /**
+         * The members whose criteria accepted each head, keyed by head name.
+         */
+        private final Map<String, BitSet> accepted = new HashMap<>();
+
+        private Group(List<Member> members) {
+            this.members = members;
+        }
+
+        private int indexOf(MultiBranchProject<?, ?> project, SCMSource source) {
+            for (int i = 0; i < members.size(); i++) {
+                Member m = members.get(i);
+                if (m.project == project && m.source == source) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Replays the shared fetch to a member's observer, performing the fetch first if no member has started it.
+         *
+         * @return {@code false} if the shared fetch failed and the member must fetch by itself.
+         */
+        private boolean fetch(int index, SCMHeadObserver observer, SCMHeadEvent<?> event, TaskListener listener)
+                throws IOException, InterruptedException {
+            boolean leader;
+            lock.lock();
+            try {
+                leader = !started;
+                started = true;
+            } finally {
+                lock.unlock();
+            }
+            if (leader) {
+                Member self = members.get(index);
+                RecordingHeadObserver recorder = new RecordingHeadObserver();
+                boolean success = false;
+                try {
+                    self.source.fetch(new GroupCriteria(), recorder, event, listener);
+                    success = true;
+                } finally {
+                    lock.lock();
+                    try {
+                        observed = success ? recorder.getObserved() : null;
+                        done = true;
+                        fetched.signalAll();
+                    } finally {
+                        lock.unlock();
+                    }
+                }
+                listener.getLogger().format("Fetched %d heads on behalf of %d projects with equivalent sources%n",
+                        recorder.getObserved().size(), members.size());
+            }
+            Map<SCMHead, SCMRevision> heads;
+            lock.lock();
+            try {
+                while (!done) {
+                    fetched.await();
+                }
+                heads = observed;
+            } finally {
+                lock.unlock();
+            }
+            if (heads == null) {
+                LOGGER.log(Level.FINE, "Shared fetch failed, {0} will fetch by itself",
+                        members.get(index).project.getFullName());
+                return false;
+            }
+            for (Map.Entry<SCMHead, SCMRevision> entry : heads.entrySet()) {
+                if (!observer.isObserving()) {
+                    break;
+                }
+                BitSet acceptedBy;
+                lock.lock();
+                try {
+                    acceptedBy = accepted.get(entry.getKey().getName());
+                } finally {
+                    lock.unlock();
+                }
+                if (acceptedBy != null && acceptedBy.get(index)) {
+                    observer.observe(entry.getKey(), entry.getValue());
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Consults the criteria of every member and remembers which members accepted each head.
+         */
+        @SuppressFBWarnings(value = "SE_BAD_FIELD_INNER_CLASS", justification = "Never serialized")
+        private final class GroupCriteria implements SCMSourceCriteria {
+
+            private static final long serialVersionUID = 1L;
+
+            /**
+             * {@inheritDoc}
+             */
+            @Override
+            public boolean isHead(@NonNull Probe probe, @NonNull TaskListener listener) throws IOException {
+                BitSet acceptedBy = new BitSet(members.size());
+                for (int i = 0; i < members.size(); i++) {
+                    Member m = members.get(i);
+                    SCMSourceCriteria criteria = m.project.getSCMSourceCriteria(m.source);
+                    if (criteria == null || criteria.isHead(probe, listener)) {
+                        acceptedBy.set(i);
+                    }
+                }
+                lock.lock();
+                try {
+                    accepted.put(probe.name(), acceptedBy);
+                } finally {
+                    lock.unlock();
+                }
+                return !acceptedBy.isEmpty();
+            }
+        }
+    }
+}
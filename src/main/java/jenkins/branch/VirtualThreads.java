@@ -0,0 +1,155 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package jenkins.branch;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * Access to virtual threads on Java runtimes that support them. The plugin is compiled for older runtimes, so the
+ * API is looked up reflectively and callers must fall back to platform threads when it is not available.
+ * <p>
+ * Virtual threads honour {@link Thread#interrupt()} in the same way as platform threads, so blocking code that
+ * relies on interruption (for example {@link Timeout}) behaves the same on either kind of thread.
+ */
+@Restricted(NoExternalUse.class)
+public final class VirtualThreads {
+
+    /**
+     * Our logger.
+     */
+    private static final Logger LOGGER = Logger.getLogger(VirtualThreads.class.getName());
+
+    /**
+     * {@code Thread.ofVirtual()} or {@code null} if not supported.
+     */
+    @CheckForNull
+    private static final Method OF_VIRTUAL;
+
+    /**
+     * {@code Thread.Builder.name(String, long)} or {@code null} if not supported.
+     */
+    @CheckForNull
+    private static final Method NAME;
+
+    /**
+     * {@code Thread.Builder.factory()} or {@code null} if not supported.
+     */
+    @CheckForNull
+    private static final Method FACTORY;
+
+    /**
+     * {@code Executors.newThreadPerTaskExecutor(ThreadFactory)} or {@code null} if not supported.
+     */
+    @CheckForNull
+    private static final Method NEW_THREAD_PER_TASK_EXECUTOR;
+
+    static {
+        Method ofVirtual = null;
+        Method name = null;
+        Method factory = null;
+        Method newThreadPerTaskExecutor = null;
+        try {
+            Class<?> builder = Class.forName("java.lang.Thread$Builder");
+            ofVirtual = Thread.class.getMethod("ofVirtual");
+            name = builder.getMethod("name", String.class, long.class);
+            factory = builder.getMethod("factory");
+            newThreadPerTaskExecutor = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+            // a preview feature on some runtimes, in which case it fails unless previews are enabled
+            ofVirtual.invoke(null);
+        } catch (ClassNotFoundException | NoSuchMethodException | IllegalAccessException
+                 | InvocationTargetException e) {
+            LOGGER.log(Level.FINE, "Virtual threads are not supported by this Java runtime", e);
+            ofVirtual = null;
+        }
+        OF_VIRTUAL = ofVirtual;
+        NAME = name;
+        FACTORY = factory;
+        NEW_THREAD_PER_TASK_EXECUTOR = newThreadPerTaskExecutor;
+    }
+
+    private VirtualThreads() {
+        throw new IllegalAccessError("Utility class");
+    }
+
+    /**
+     * Returns {@code true} if the Java runtime supports virtual threads.
+     *
+     * @return {@code true} if the Java runtime supports virtual threads.
+     */
+    public static boolean isSupported() {
+        return OF_VIRTUAL != null;
+    }
+
+    /**
+     * Returns a factory of virtual threads.
+     *
+     * @param name the prefix of the thread names.
+     * @return the factory or {@code null} if the Java runtime does not support virtual threads.
+     */
+    @CheckForNull
+    public static ThreadFactory newFactory(@NonNull String name) {
+        if (OF_VIRTUAL == null || NAME == null || FACTORY == null) {
+            return null;
+        }
+        try {
+            Object builder = NAME.invoke(OF_VIRTUAL.invoke(null), name + "-", 1L);
+            return (ThreadFactory) FACTORY.invoke(builder);
+        } catch (IllegalAccessException | InvocationTargetException e) {
+            LOGGER.log(Level.WARNING, "Could not create virtual thread factory", e);
+            return null;
+        }
+    }
+
+    /**
+     * Returns an executor that runs every task on a new virtual thread.
+     *
+     * @param name the prefix of the thread names.
+     * @return the executor or {@code null} if the Java runtime does not support virtual threads.
+     */
+    @CheckForNull
+    public static ExecutorService newThreadPerTaskExecutor(@NonNull String name) {
+        ThreadFactory factory = newFactory(name);
+        if (factory == null || NEW_THREAD_PER_TASK_EXECUTOR == null) {
+            return null;
+        }
+        try {
+            return (ExecutorService) NEW_THREAD_PER_TASK_EXECUTOR.invoke(null, factory);
+        } catch (IllegalAccessException | InvocationTargetException e) {
+            LOGGER.log(Level.WARNING, "Could not create virtual thread executor", e);
+            return null;
+        }
+    }
+}
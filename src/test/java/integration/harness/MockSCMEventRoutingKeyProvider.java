@@ -0,0 +1,62 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package integration.harness;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import jenkins.branch.SCMEventRoutingKeyProvider;
+import jenkins.scm.api.SCMEvent;
+import jenkins.scm.api.SCMSource;
+import jenkins.scm.impl.mock.MockSCMHeadEvent;
+import jenkins.scm.impl.mock.MockSCMSource;
+import jenkins.scm.impl.mock.MockSCMSourceEvent;
+
+/**
+ * Routes the events of the mock SCM by repository name, so that every test exercises the routing index the way a
+ * real SCM implementation would. Events from different controllers that name the same repository still share a key,
+ * which is allowed as the projects are then asked whether they match.
+ */
+@Extension
+public class MockSCMEventRoutingKeyProvider extends SCMEventRoutingKeyProvider {
+
+    @CheckForNull
+    @Override
+    public String sourceKey(@NonNull SCMSource source) {
+        return source instanceof MockSCMSource ? ((MockSCMSource) source).getRepository() : null;
+    }
+
+    @CheckForNull
+    @Override
+    public String eventKey(@NonNull SCMEvent<?> event) {
+        if (event instanceof MockSCMHeadEvent) {
+            return ((MockSCMHeadEvent) event).getSourceName();
+        }
+        if (event instanceof MockSCMSourceEvent) {
+            return ((MockSCMSourceEvent) event).getSourceName();
+        }
+        return null;
+    }
+}
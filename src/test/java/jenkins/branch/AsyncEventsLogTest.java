@@ -0,0 +1,142 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package jenkins.branch;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.is;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.junit.Test;
+
+public class AsyncEventsLogTest {
+
+    private static Supplier<OutputStream> into(ByteArrayOutputStream log) {
+        return () -> new FilterOutputStream(log) {
+            @Override
+            public void close() {
+                // keep the log open for the next batch
+            }
+        };
+    }
+
+    private static void write(AsyncEventsLog log, String text) {
+        try (PrintStream out = new PrintStream(log.open(), false, StandardCharsets.UTF_8)) {
+            out.print(text);
+        }
+    }
+
+    @Test
+    public void chunksAreWrittenInOrder() throws Exception {
+        ByteArrayOutputStream target = new ByteArrayOutputStream();
+        AsyncEventsLog log = new AsyncEventsLog("test", into(target), 16, false);
+        for (int i = 0; i < 100; i++) {
+            write(log, "line " + i + "\n");
+        }
+        log.awaitWritten(10, TimeUnit.SECONDS);
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            expected.append("line ").append(i).append('\n');
+        }
+        assertThat(target.toString(StandardCharsets.UTF_8), is(expected.toString()));
+        assertThat(log.getWrittenCount(), is(100L));
+        assertThat(log.getDroppedCount(), is(0L));
+        assertThat(log.getPendingCount(), is(0));
+    }
+
+    @Test
+    public void chunksAreDroppedWhenFull() throws Exception {
+        ByteArrayOutputStream target = new ByteArrayOutputStream();
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Supplier<OutputStream> delegate = into(target);
+        AsyncEventsLog log = new AsyncEventsLog("test", () -> {
+            writing.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return delegate.get();
+        }, 1, true);
+        write(log, "first\n");
+        // the writer thread now holds the first chunk and is stuck opening the log
+        assertThat(writing.await(10, TimeUnit.SECONDS), is(true));
+        write(log, "second\n");
+        write(log, "third\n");
+        assertThat(log.getDroppedCount(), is(1L));
+        release.countDown();
+        log.awaitWritten(10, TimeUnit.SECONDS);
+        assertThat(target.toString(StandardCharsets.UTF_8), is("first\nsecond\n"));
+        assertThat(log.getWrittenCount(), is(2L));
+    }
+
+    @Test
+    public void completeLinesAreHandedOverBeforeClose() throws Exception {
+        ByteArrayOutputStream target = new ByteArrayOutputStream();
+        AsyncEventsLog log = new AsyncEventsLog("test", into(target), 16, false);
+        try (PrintStream out = new PrintStream(log.open(), false, StandardCharsets.UTF_8)) {
+            out.print("first\nsec");
+            log.awaitWritten(10, TimeUnit.SECONDS);
+            assertThat(target.toString(StandardCharsets.UTF_8), is("first\n"));
+            out.print("ond\nthird");
+            log.awaitWritten(10, TimeUnit.SECONDS);
+            assertThat(target.toString(StandardCharsets.UTF_8), is("first\nsecond\n"));
+        }
+        log.awaitWritten(10, TimeUnit.SECONDS);
+        assertThat(target.toString(StandardCharsets.UTF_8), is("first\nsecond\nthird"));
+        assertThat(log.getWrittenCount(), is(3L));
+    }
+
+    @Test
+    public void pendingChunksAreWrittenOnShutdown() throws Exception {
+        ByteArrayOutputStream target = new ByteArrayOutputStream();
+        AsyncEventsLog log = new AsyncEventsLog("test", into(target), 16, false);
+        write(log, "last words\n");
+        AsyncEventsLog.drainOnShutdown();
+        assertThat(target.toString(StandardCharsets.UTF_8), is("last words\n"));
+        assertThat(log.getPendingCount(), is(0));
+    }
+
+    @Test
+    public void logsAreListedWithTheirCounters() throws Exception {
+        ByteArrayOutputStream target = new ByteArrayOutputStream();
+        AsyncEventsLog log = new AsyncEventsLog("listed", into(target), 16, false);
+        write(log, "one\n");
+        write(log, "two\n");
+        log.awaitWritten(10, TimeUnit.SECONDS);
+        assertThat(AsyncEventsLog.getAll(), hasItem(log));
+        assertThat(log.getName(), is("listed"));
+        assertThat(log.getWrittenCount(), is(2L));
+        assertThat(log.getDroppedCount(), is(0L));
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package jenkins.branch;
+
+import hudson.Util;
+import hudson.model.Items;
+import hudson.scm.NullSCM;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import jenkins.scm.impl.mock.MockSCMHead;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures the per head cost of checking whether the {@link hudson.scm.SCM} of an existing branch changed during
+ * indexing, comparing digests of both serialized configurations against comparing fingerprints where the existing
+ * branch has its fingerprint already. Run with {@code mvn test -Dbenchmark}.
+ */
+@State(Scope.Benchmark)
+public class BranchFingerprintBenchmark {
+
+    /**
+     * The number of extensions configured on the SCM, to vary the size of its serialized form.
+     */
+    @Param({"5", "50"})
+    public int extensions;
+
+    private Branch existing;
+
+    private ConfiguredSCM scm;
+
+    @Setup
+    public void setUp() {
+        existing = branch();
+        existing.getScmFingerprint();
+        scm = newSCM();
+    }
+
+    @Benchmark
+    public boolean serializeBoth() {
+        Branch branch = new Branch("source", new MockSCMHead("master"), scm, Collections.emptyList());
+        return Util.getDigestOf(Items.XSTREAM2.toXML(branch.getScm()))
+                .equals(Util.getDigestOf(Items.XSTREAM2.toXML(existing.getScm())));
+    }
+
+    @Benchmark
+    public boolean compareFingerprints() {
+        Branch branch = new Branch("source", new MockSCMHead("master"), scm, Collections.emptyList());
+        return branch.getScmFingerprint().equals(existing.getScmFingerprint());
+    }
+
+    private Branch branch() {
+        return new Branch("source", new MockSCMHead("master"), newSCM(), Collections.emptyList());
+    }
+
+    private ConfiguredSCM newSCM() {
+        ConfiguredSCM scm = new ConfiguredSCM();
+        scm.remote = "https://scm.example.com/org/repo.git";
+        scm.refSpecs.add("+refs/heads/master:refs/remotes/origin/master");
+        for (int i = 0; i < extensions; i++) {
+            scm.extensions.put("extension-" + i, "value-" + i);
+        }
+        return scm;
+    }
+
+    /**
+     * An SCM with some configuration, standing in for the SCMs of real sources.
+     */
+    public static class ConfiguredSCM extends NullSCM {
+        String remote;
+        List<String> refSpecs = new ArrayList<>();
+        Map<String, String> extensions = new LinkedHashMap<>();
+    }
+}
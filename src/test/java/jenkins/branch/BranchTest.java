@@ -33,8 +33,10 @@ import org.junit.Test;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
 
 public class BranchTest {
 
@@ -79,4 +81,25 @@ public class BranchTest {
         assertThat(b.getSourceId(), is(NullSCMSource.ID));
         assertThat(b.getProperties(), contains(instanceOf(NoTriggerBranchProperty.class)));
     }
+
+    @Test
+    public void given_branch_when_roundTripped_then_scmFingerprintPersisted() throws Exception {
+        Branch b = new Branch("any-id", new MockSCMHead("quicker"), new NullSCM(),
+                Collections.<BranchProperty>emptyList());
+        String fingerprint = b.getScmFingerprint();
+        String xml = Items.XSTREAM2.toXML(b);
+        assertThat(xml, containsString(fingerprint));
+        Branch copy = (Branch) Items.XSTREAM2.fromXML(xml);
+        assertThat(copy.getScmFingerprint(), is(fingerprint));
+    }
+
+    @Test
+    public void given_differentScms_when_fingerprinted_then_fingerprintsDiffer() throws Exception {
+        Branch b = new Branch("any-id", new MockSCMHead("quicker"), new NullSCM(),
+                Collections.<BranchProperty>emptyList());
+        Branch other = new Branch("any-id", new MockSCMHead("quicker"),
+                new BranchFingerprintBenchmark.ConfiguredSCM(), Collections.<BranchProperty>emptyList());
+        assertThat(other.getScmFingerprint(), not(is(b.getScmFingerprint())));
+        assertThat(new Branch.Dead(other).getScmFingerprint(), is(b.getScmFingerprint()));
+    }
 }
@@ -0,0 +1,87 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package jenkins.branch;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import hudson.model.FreeStyleBuild;
+import hudson.model.FreeStyleProject;
+import hudson.model.TaskListener;
+import jenkins.scm.api.SCMRevision;
+import org.junit.Test;
+
+public class BranchUnitOfWorkTest {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void eachFileIsWrittenOnceWithTheLastValue() throws Exception {
+        BranchProjectFactory<FreeStyleProject, FreeStyleBuild> factory = mock(BranchProjectFactory.class);
+        FreeStyleProject project = mock(FreeStyleProject.class);
+        SCMRevision built = mock(SCMRevision.class);
+        SCMRevision seen = mock(SCMRevision.class);
+        BranchUnitOfWork<FreeStyleProject, FreeStyleBuild> work = new BranchUnitOfWork<>(factory);
+
+        assertThat(work.getLastSeenRevision(project), is((SCMRevision) null));
+        work.setLastSeenRevisionHash(project, built);
+        assertThat(work.getLastSeenRevision(project), sameInstance(built));
+        work.setRevisionHash(project, seen);
+        work.setLastSeenRevisionHash(project, seen);
+        work.save(project);
+        work.save(project);
+        verify(project, never()).save();
+
+        assertThat(work.flush(TaskListener.NULL, "master"), is(3));
+        verify(project, times(1)).save();
+        verify(factory, times(1)).setRevisionHash(project, seen);
+        verify(factory, times(1)).setLastSeenRevisionHash(project, seen);
+        verify(factory, never()).setLastSeenRevisionHash(project, built);
+        // nothing left to write
+        assertThat(work.flush(TaskListener.NULL, "master"), is(0));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void unchangedLastSeenRevisionIsNotWritten() throws Exception {
+        BranchProjectFactory<FreeStyleProject, FreeStyleBuild> factory = mock(BranchProjectFactory.class);
+        FreeStyleProject project = mock(FreeStyleProject.class);
+        SCMRevision seen = mock(SCMRevision.class);
+        when(factory.getLastSeenRevision(project)).thenReturn(seen);
+        BranchUnitOfWork<FreeStyleProject, FreeStyleBuild> work = new BranchUnitOfWork<>(factory);
+
+        assertThat(work.getLastSeenRevision(project), sameInstance(seen));
+        work.setLastSeenRevisionHash(project, seen);
+        assertThat(work.flush(TaskListener.NULL, "master"), is(0));
+        verify(factory, never()).setLastSeenRevisionHash(any(), any());
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package jenkins.branch;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.notNullValue;
+
+import hudson.model.FreeStyleProject;
+import integration.harness.BasicMultiBranchProject;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import jenkins.scm.api.SCMEvent;
+import jenkins.scm.api.SCMEvents;
+import jenkins.scm.api.SCMHeadEvent;
+import jenkins.scm.impl.mock.MockSCMController;
+import jenkins.scm.impl.mock.MockSCMDiscoverBranches;
+import jenkins.scm.impl.mock.MockSCMHeadEvent;
+import jenkins.scm.impl.mock.MockSCMSource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+public class HeadEventBatchTest {
+
+    @Rule
+    public JenkinsRule r = new JenkinsRule();
+
+    private boolean batch;
+
+    @Before
+    public void setUp() {
+        batch = SCMEventDispatcher.BATCH_HEAD_EVENTS;
+    }
+
+    @After
+    public void tearDown() {
+        SCMEventDispatcher.BATCH_HEAD_EVENTS = batch;
+    }
+
+    @Test
+    public void batchedEventsKeepTheirOwnChecks() throws Exception {
+        SCMEventDispatcher.BATCH_HEAD_EVENTS = true;
+        try (MockSCMController c = MockSCMController.create()) {
+            c.createRepository("foo");
+            c.createBranch("foo", "feature");
+            BasicMultiBranchProject prj = r.jenkins.createProject(BasicMultiBranchProject.class, "foo");
+            prj.getSourcesList().add(new BranchSource(new MockSCMSource(c, "foo", new MockSCMDiscoverBranches())));
+            prj.scheduleBuild2(0).getFuture().get();
+            r.waitUntilNoActivity();
+            FreeStyleProject master = prj.getItem("master");
+            FreeStyleProject feature = prj.getItem("feature");
+            assertThat(master.getLastBuild().getNumber(), is(1));
+            assertThat(feature.getLastBuild().getNumber(), is(1));
+
+            c.addFile("foo", "feature", "change", "file.txt", "changed".getBytes());
+            c.createBranch("foo", "fresh");
+            SCMEventDispatcher dispatcher = SCMEventDispatcher.get();
+            long batched = dispatcher.getBatchedEventCount();
+            CountDownLatch release = new CountDownLatch(1);
+            // hold up the project so that the events queue up behind this task as one batch
+            Future<Boolean> blocker = dispatcher.submit(prj, () -> release.await(30, TimeUnit.SECONDS));
+            long watermark = SCMEvents.getWatermark();
+            SCMHeadEvent.fireNow(new MockSCMHeadEvent(SCMEvent.Type.UPDATED, c, "foo", "master",
+                    c.getRevision("foo", "master")));
+            SCMHeadEvent.fireNow(new MockSCMHeadEvent(SCMEvent.Type.UPDATED, c, "foo", "feature",
+                    c.getRevision("foo", "feature")));
+            SCMHeadEvent.fireNow(new MockSCMHeadEvent(SCMEvent.Type.CREATED, c, "foo", "fresh",
+                    c.getRevision("foo", "fresh")));
+            long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(30);
+            while (dispatcher.getBatchedEventCount() - batched < 2 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertThat(dispatcher.getBatchedEventCount() - batched, is(2L));
+            release.countDown();
+            assertThat(blocker.get(30, TimeUnit.SECONDS), is(true));
+            SCMEvents.awaitAll(watermark);
+            r.waitUntilNoActivity();
+
+            // the update for the revision that was already built is ignored
+            assertThat(master.getLastBuild().getNumber(), is(1));
+            assertThat(feature.getLastBuild().getNumber(), is(2));
+            FreeStyleProject fresh = prj.getItem("fresh");
+            assertThat(fresh, notNullValue());
+            assertThat(fresh.getLastBuild().getNumber(), is(1));
+            // updates never mark a branch as dead
+            assertThat(prj.getProjectFactory().getBranch(master), not(instanceOf(Branch.Dead.class)));
+        }
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package jenkins.branch;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.notNullValue;
+
+import hudson.model.FreeStyleProject;
+import integration.harness.BasicMultiBranchProject;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import javax.xml.transform.Source;
+import javax.xml.transform.stream.StreamSource;
+import jenkins.scm.api.SCMRevision;
+import jenkins.scm.impl.mock.MockSCMController;
+import jenkins.scm.impl.mock.MockSCMDiscoverBranches;
+import jenkins.scm.impl.mock.MockSCMSource;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+public class IncrementalIndexingTest {
+
+    @Rule
+    public JenkinsRule r = new JenkinsRule();
+
+    @After
+    public void disable() {
+        IncrementalIndexing.ENABLED = false;
+        IncrementalIndexing.FULL_INDEX_HOURS = 24;
+    }
+
+    @Test
+    public void unchangedHeadsTakeTheFastPath() throws Exception {
+        IncrementalIndexing.ENABLED = true;
+        try (MockSCMController c = MockSCMController.create()) {
+            c.createRepository("foo");
+            c.createBranch("foo", "feature");
+            BasicMultiBranchProject prj = r.jenkins.createProject(BasicMultiBranchProject.class, "prj");
+            prj.getSourcesList().add(new BranchSource(new MockSCMSource(c, "foo", new MockSCMDiscoverBranches())));
+            index(prj);
+            // first indexing after the builds records the revisions
+            index(prj);
+            assertThat(log(prj), containsString("No changes detected: master"));
+            index(prj);
+            assertThat(log(prj), containsString("Performing an incremental indexing"));
+            assertThat(log(prj), containsString("Unchanged since last indexing: master"));
+            assertThat(log(prj), containsString("Unchanged since last indexing: feature"));
+            FreeStyleProject master = prj.getItem("master");
+            assertThat(master, notNullValue());
+            assertThat(master.getNextBuildNumber(), is(2));
+        }
+    }
+
+    @Test
+    public void changedAndRemovedHeadsAreStillDetected() throws Exception {
+        IncrementalIndexing.ENABLED = true;
+        try (MockSCMController c = MockSCMController.create()) {
+            c.createRepository("foo");
+            c.createBranch("foo", "feature");
+            BasicMultiBranchProject prj = r.jenkins.createProject(BasicMultiBranchProject.class, "prj");
+            prj.getSourcesList().add(new BranchSource(new MockSCMSource(c, "foo", new MockSCMDiscoverBranches())));
+            index(prj);
+            index(prj);
+            c.addFile("foo", "master", "a change", "file.txt", new byte[]{0});
+            c.deleteBranch("foo", "feature");
+            index(prj);
+            assertThat(log(prj), containsString("Performing an incremental indexing"));
+            assertThat(log(prj), containsString("Changes detected: master"));
+            assertThat(prj.getItem("master").getNextBuildNumber(), is(3));
+            FreeStyleProject feature = prj.getItem("feature");
+            if (feature != null) {
+                assertThat(prj.getProjectFactory().getBranch(feature), instanceOf(Branch.Dead.class));
+            }
+        }
+    }
+
+    @Test
+    public void headsMovedOnByAnEventAreObservedAgain() throws Exception {
+        IncrementalIndexing.ENABLED = true;
+        try (MockSCMController c = MockSCMController.create()) {
+            c.createRepository("foo");
+            BasicMultiBranchProject prj = r.jenkins.createProject(BasicMultiBranchProject.class, "prj");
+            prj.getSourcesList().add(new BranchSource(new MockSCMSource(c, "foo", new MockSCMDiscoverBranches())));
+            index(prj);
+            FreeStyleProject master = prj.getItem("master");
+            SCMRevision original = prj.getProjectFactory().getRevision(master);
+            c.addFile("foo", "master", "a change", "file.txt", new byte[]{0});
+            index(prj);
+            assertThat(master.getNextBuildNumber(), is(3));
+            // as if an event had built another revision after the snapshot was taken
+            prj.getProjectFactory().setRevisionHash(master, original);
+            index(prj);
+            assertThat(log(prj), containsString("Performing an incremental indexing"));
+            assertThat(log(prj), not(containsString("Unchanged since last indexing: master")));
+            assertThat(master.getNextBuildNumber(), is(4));
+        }
+    }
+
+    @Test
+    public void fullIndexingIsForcedPeriodically() throws Exception {
+        IncrementalIndexing.ENABLED = true;
+        IncrementalIndexing.FULL_INDEX_HOURS = 0;
+        try (MockSCMController c = MockSCMController.create()) {
+            c.createRepository("foo");
+            BasicMultiBranchProject prj = r.jenkins.createProject(BasicMultiBranchProject.class, "prj");
+            prj.getSourcesList().add(new BranchSource(new MockSCMSource(c, "foo", new MockSCMDiscoverBranches())));
+            index(prj);
+            index(prj);
+            index(prj);
+            assertThat(log(prj), containsString("Performing a full indexing"));
+            assertThat(log(prj), not(containsString("Unchanged since last indexing")));
+        }
+    }
+
+    @Test
+    public void reloadingTheConfigurationForcesAFullIndexing() throws Exception {
+        IncrementalIndexing.ENABLED = true;
+        try (MockSCMController c = MockSCMController.create()) {
+            c.createRepository("foo");
+            BasicMultiBranchProject prj = r.jenkins.createProject(BasicMultiBranchProject.class, "prj");
+            prj.getSourcesList().add(new BranchSource(new MockSCMSource(c, "foo", new MockSCMDiscoverBranches())));
+            index(prj);
+            index(prj);
+            prj.updateByXml((Source) new StreamSource(prj.getConfigFile().getFile()));
+            index(prj);
+            assertThat(log(prj), containsString("Performing a full indexing"));
+            assertThat(log(prj), not(containsString("Unchanged since last indexing")));
+        }
+    }
+
+    private void index(BasicMultiBranchProject prj) throws Exception {
+        prj.scheduleBuild2(0).getFuture().get();
+        r.waitUntilNoActivity();
+    }
+
+    private static String log(BasicMultiBranchProject prj) throws IOException {
+        return FileUtils.readFileToString(prj.getComputation().getLogFile(), StandardCharsets.UTF_8);
+    }
+}
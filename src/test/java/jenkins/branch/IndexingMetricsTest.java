@@ -0,0 +1,99 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package jenkins.branch;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+
+import integration.harness.BasicMultiBranchProject;
+import java.util.concurrent.TimeUnit;
+import jenkins.scm.impl.mock.MockSCMController;
+import jenkins.scm.impl.mock.MockSCMDiscoverBranches;
+import jenkins.scm.impl.mock.MockSCMSource;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+public class IndexingMetricsTest {
+
+    @Rule
+    public JenkinsRule r = new JenkinsRule();
+
+    @Test
+    public void indexingRecordsMetrics() throws Exception {
+        try (MockSCMController c = MockSCMController.create()) {
+            c.createRepository("foo");
+            c.createBranch("foo", "feature");
+            BasicMultiBranchProject prj = r.jenkins.createProject(BasicMultiBranchProject.class, "prj");
+            prj.getSourcesList().add(new BranchSource(new MockSCMSource(c, "foo", new MockSCMDiscoverBranches())));
+            prj.scheduleBuild2(0).getFuture().get();
+            r.waitUntilNoActivity();
+
+            IndexingMetrics metrics = prj.getIndexing().getMetrics();
+            assertThat(metrics, notNullValue());
+            assertThat(metrics.getDurationMillis(), greaterThanOrEqualTo(0L));
+            assertThat(metrics.getHeadsSeen(), is(2L));
+            assertThat(metrics.getHeadsCreated(), is(2L));
+            assertThat(metrics.getBuildsScheduled(), is(2L));
+            assertThat(metrics.getSaves(), greaterThan(0L));
+            assertThat(metrics.getBytesWritten(), greaterThan(0L));
+
+            c.addFile("foo", "master", "a change", "file.txt", new byte[]{0});
+            prj.scheduleBuild2(0).getFuture().get();
+            r.waitUntilNoActivity();
+
+            metrics = prj.getIndexing().getMetrics();
+            assertThat(metrics.getHeadsSeen(), is(2L));
+            assertThat(metrics.getHeadsCreated(), is(0L));
+            assertThat(metrics.getHeadsUpdated(), is(1L));
+            assertThat(metrics.getHeadsUnchanged(), is(1L));
+            assertThat(metrics.getBuildsScheduled(), is(1L));
+            assertThat(metrics.getObserveMaxMillis(), greaterThanOrEqualTo(metrics.getObserveP50Millis()));
+
+            String json = r.createWebClient().goTo("job/prj/indexing/metrics/api/json", "application/json")
+                    .getWebResponse().getContentAsString();
+            assertThat(json, containsString("\"headsUpdated\":1"));
+            assertThat(json, containsString("\"fetchActionsMillis\""));
+        }
+    }
+
+    @Test
+    public void shortSamplesAddUp() {
+        IndexingMetrics metrics = new IndexingMetrics(0L);
+        for (int i = 0; i < 1000; i++) {
+            metrics.observed(TimeUnit.MICROSECONDS.toNanos(500));
+            metrics.fetched(TimeUnit.MICROSECONDS.toNanos(500));
+            metrics.fetchedActions(TimeUnit.MICROSECONDS.toNanos(500));
+        }
+        assertThat(metrics.getObserveMillis(), is(500L));
+        assertThat(metrics.getFetchMillis(), is(500L));
+        assertThat(metrics.getFetchActionsMillis(), is(500L));
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package jenkins.branch;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.is;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void emptyHistogramReportsZero() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertThat(histogram.getCount(), is(0L));
+        assertThat(histogram.getMeanMillis(), is(0.0));
+        assertThat(histogram.getP99Millis(), is(0.0));
+        assertThat(histogram.getMaxMillis(), is(0.0));
+    }
+
+    @Test
+    public void percentilesAreReportedAtBucketResolution() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 90; i++) {
+            histogram.record(TimeUnit.MILLISECONDS.toNanos(3));
+        }
+        for (int i = 0; i < 9; i++) {
+            histogram.record(TimeUnit.MILLISECONDS.toNanos(40));
+        }
+        histogram.record(TimeUnit.MILLISECONDS.toNanos(700));
+        assertThat(histogram.getCount(), is(100L));
+        // 3ms falls in the (2ms, 5ms] bucket
+        assertThat(histogram.getP50Millis(), is(5.0));
+        assertThat(histogram.getP90Millis(), is(5.0));
+        // 40ms falls in the (20ms, 50ms] bucket
+        assertThat(histogram.getP99Millis(), is(50.0));
+        // the top percentile never exceeds the largest sample
+        assertThat(histogram.percentileMillis(1.0), is(700.0));
+        assertThat(histogram.getMaxMillis(), is(700.0));
+        assertThat(histogram.getMeanMillis(), closeTo((90 * 3 + 9 * 40 + 700) / 100.0, 0.001));
+    }
+
+    @Test
+    public void negativeSamplesAreRecordedAsZero() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-TimeUnit.SECONDS.toNanos(5));
+        assertThat(histogram.getCount(), is(1L));
+        assertThat(histogram.getP50Millis(), is(0.0));
+    }
+}
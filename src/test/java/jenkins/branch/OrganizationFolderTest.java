@@ -179,6 +179,25 @@ public class OrganizationFolderTest {
         }
     }
 
+    @Test
+    public void sourcesFollowChildren() throws Exception {
+        try (MockSCMController c = MockSCMController.create()) {
+            c.createRepository("stuff");
+            c.createRepository("things");
+            OrganizationFolder top = r.jenkins.createProject(OrganizationFolder.class, "top");
+            top.getNavigators().add(new MockSCMNavigator(c, new MockSCMDiscoverBranches()));
+            assertThat(top.getSCMSources(), empty());
+            top.scheduleBuild(0);
+            r.waitUntilNoActivity();
+            MultiBranchProject<?, ?> stuff = top.getItem("stuff");
+            MultiBranchProject<?, ?> things = top.getItem("things");
+            assertThat(top.getSCMSources(), containsInAnyOrder(
+                    stuff.getSCMSources().get(0), things.getSCMSources().get(0)));
+            things.delete();
+            assertThat(top.getSCMSources(), contains(stuff.getSCMSources().get(0)));
+        }
+    }
+
     @Issue("JENKINS-32782")
     @Test
     public void emptyViewEquality() throws Exception {
@@ -0,0 +1,83 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package jenkins.branch;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+
+import hudson.model.FreeStyleProject;
+import integration.harness.BasicMultiBranchProject;
+import jenkins.scm.impl.mock.MockSCMController;
+import jenkins.scm.impl.mock.MockSCMDiscoverBranches;
+import jenkins.scm.impl.mock.MockSCMSource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+public class ParallelSourceFetchTest {
+
+    @Rule
+    public JenkinsRule r = new JenkinsRule();
+
+    @Before
+    public void enableParallelSourceFetch() {
+        MultiBranchProject.PARALLEL_SOURCE_FETCH = true;
+    }
+
+    @After
+    public void resetParallelSourceFetch() {
+        MultiBranchProject.PARALLEL_SOURCE_FETCH = false;
+    }
+
+    @Test
+    public void branchesAreOwnedByTheFirstSourceInPriorityOrder() throws Exception {
+        try (MockSCMController c = MockSCMController.create()) {
+            c.createRepository("foo");
+            c.createRepository("bar");
+            c.createBranch("bar", "feature");
+            BasicMultiBranchProject prj = r.jenkins.createProject(BasicMultiBranchProject.class, "prj");
+            MockSCMSource first = new MockSCMSource(c, "foo", new MockSCMDiscoverBranches());
+            first.setId("first");
+            MockSCMSource second = new MockSCMSource(c, "bar", new MockSCMDiscoverBranches());
+            second.setId("second");
+            prj.getSourcesList().add(new BranchSource(first));
+            prj.getSourcesList().add(new BranchSource(second));
+            for (int i = 0; i < 3; i++) {
+                prj.scheduleBuild2(0).getFuture().get();
+                r.waitUntilNoActivity();
+                FreeStyleProject master = prj.getItem("master");
+                assertThat(master, notNullValue());
+                assertThat(prj.getProjectFactory().getBranch(master).getSourceId(), is("first"));
+                FreeStyleProject feature = prj.getItem("feature");
+                assertThat(feature, notNullValue());
+                assertThat(prj.getProjectFactory().getBranch(feature).getSourceId(), is("second"));
+            }
+        }
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package jenkins.branch;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.notNullValue;
+
+import hudson.XmlFile;
+import hudson.model.FreeStyleProject;
+import hudson.model.Items;
+import integration.harness.BasicMultiBranchProject;
+import java.io.File;
+import jenkins.scm.api.SCMRevision;
+import jenkins.scm.impl.mock.MockSCMController;
+import jenkins.scm.impl.mock.MockSCMDiscoverBranches;
+import jenkins.scm.impl.mock.MockSCMSource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.MockFolder;
+import org.jvnet.hudson.test.RestartableJenkinsRule;
+
+public class RevisionCacheTest {
+
+    @Rule
+    public RestartableJenkinsRule rr = new RestartableJenkinsRule();
+
+    private MockSCMController c;
+
+    @Before
+    public void enable() {
+        RevisionCache.ENABLED = true;
+        RevisionCache.WRITE_BEHIND_MILLIS = 60000L;
+    }
+
+    @After
+    public void disable() {
+        RevisionCache.ENABLED = false;
+        RevisionCache.WRITE_BEHIND_MILLIS = 5000L;
+        if (c != null) {
+            c.close();
+        }
+    }
+
+    @Test
+    public void changesAreWrittenBehind() {
+        rr.then(r -> {
+            BasicMultiBranchProject prj = createProject(r);
+            FreeStyleProject master = prj.getItem("master");
+            SCMRevision other = prj.getProjectFactory().getRevision(prj.getItem("feature"));
+            assertThat(other, notNullValue());
+            // indexing wrote everything out when it completed
+            assertThat(RevisionCache.get().isDirty(master), is(false));
+            prj.getProjectFactory().setRevisionHash(master, other);
+            assertThat(RevisionCache.get().isDirty(master), is(true));
+            assertThat(prj.getProjectFactory().getRevision(master), is(other));
+            assertThat(readRevision(master), is(not(other)));
+            RevisionCache.get().flush();
+            assertThat(RevisionCache.get().isDirty(master), is(false));
+            assertThat(readRevision(master), is(other));
+        });
+    }
+
+    @Test
+    public void onlyTheChangesOfTheIndexedProjectAreWritten() {
+        rr.then(r -> {
+            BasicMultiBranchProject prj = createProject(r);
+            BasicMultiBranchProject other = r.jenkins.createProject(BasicMultiBranchProject.class, "other");
+            FreeStyleProject master = prj.getItem("master");
+            SCMRevision revision = prj.getProjectFactory().getRevision(prj.getItem("feature"));
+            prj.getProjectFactory().setRevisionHash(master, revision);
+            RevisionCache.get().flush(other);
+            assertThat(RevisionCache.get().isDirty(master), is(true));
+            RevisionCache.get().flush(prj);
+            assertThat(RevisionCache.get().isDirty(master), is(false));
+            assertThat(readRevision(master), is(revision));
+        });
+    }
+
+    @Test
+    public void failedWritesAreRetriedOnce() {
+        rr.then(r -> {
+            BasicMultiBranchProject prj = createProject(r);
+            FreeStyleProject master = prj.getItem("master");
+            SCMRevision original = prj.getProjectFactory().getRevision(master);
+            SCMRevision other = prj.getProjectFactory().getRevision(prj.getItem("feature"));
+            File file = RevisionCache.Kind.BUILT.getFile(master);
+            prj.getProjectFactory().setRevisionHash(master, other);
+            // a non-empty directory in the way makes the write fail
+            File blocker = new File(file, "blocker");
+            assertThat(file.delete() && file.mkdir() && blocker.createNewFile(), is(true));
+            RevisionCache.get().flush();
+            assertThat(RevisionCache.get().isDirty(master), is(true));
+            assertThat(blocker.delete() && file.delete(), is(true));
+            RevisionCache.get().flush();
+            assertThat(RevisionCache.get().isDirty(master), is(false));
+            assertThat(readRevision(master), is(other));
+            prj.getProjectFactory().setRevisionHash(master, original);
+            assertThat(file.delete() && file.mkdir() && blocker.createNewFile(), is(true));
+            RevisionCache.get().flush();
+            RevisionCache.get().flush();
+            // dropped after the retry failed
+            assertThat(RevisionCache.get().isDirty(master), is(false));
+        });
+    }
+
+    @Test
+    public void pendingChangesFollowMovedProjects() {
+        rr.then(r -> {
+            BasicMultiBranchProject prj = createProject(r);
+            FreeStyleProject master = prj.getItem("master");
+            SCMRevision other = prj.getProjectFactory().getRevision(prj.getItem("feature"));
+            File oldDir = master.getRootDir();
+            prj.getProjectFactory().setRevisionHash(master, other);
+            MockFolder folder = r.createFolder("folder");
+            Items.move(prj, folder);
+            RevisionCache.get().flush();
+            assertThat(oldDir.exists(), is(false));
+            assertThat(readRevision(master), is(other));
+        });
+    }
+
+    @Test
+    public void pendingChangesOfDeletedProjectsAreDiscarded() {
+        rr.then(r -> {
+            BasicMultiBranchProject prj = createProject(r);
+            FreeStyleProject master = prj.getItem("master");
+            SCMRevision other = prj.getProjectFactory().getRevision(prj.getItem("feature"));
+            File dir = master.getRootDir();
+            prj.getProjectFactory().setRevisionHash(master, other);
+            master.delete();
+            assertThat(RevisionCache.get().isDirty(master), is(false));
+            RevisionCache.get().flush();
+            assertThat(dir.exists(), is(false));
+        });
+    }
+
+    @Test
+    public void pendingChangesAreWrittenOnShutdown() {
+        rr.then(r -> {
+            BasicMultiBranchProject prj = createProject(r);
+            SCMRevision other = prj.getProjectFactory().getRevision(prj.getItem("feature"));
+            prj.getProjectFactory().setRevisionHash(prj.getItem("master"), other);
+        });
+        rr.then(r -> {
+            BasicMultiBranchProject prj = r.jenkins.getItemByFullName("prj", BasicMultiBranchProject.class);
+            SCMRevision other = prj.getProjectFactory().getRevision(prj.getItem("feature"));
+            assertThat(prj.getProjectFactory().getRevision(prj.getItem("master")), is(other));
+        });
+    }
+
+    private BasicMultiBranchProject createProject(JenkinsRule r) throws Exception {
+        c = MockSCMController.create();
+        c.createRepository("foo");
+        c.createBranch("foo", "feature");
+        c.addFile("foo", "feature", "a change", "file.txt", new byte[]{0});
+        BasicMultiBranchProject prj = r.jenkins.createProject(BasicMultiBranchProject.class, "prj");
+        prj.getSourcesList().add(new BranchSource(new MockSCMSource(c, "foo", new MockSCMDiscoverBranches())));
+        prj.scheduleBuild2(0).getFuture().get();
+        r.waitUntilNoActivity();
+        return prj;
+    }
+
+    private static SCMRevision readRevision(FreeStyleProject project) throws Exception {
+        return (SCMRevision) new XmlFile(RevisionCache.Kind.BUILT.getFile(project)).read();
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package jenkins.branch;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThrows;
+
+import hudson.model.FreeStyleProject;
+import integration.harness.BasicMultiBranchProject;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import jenkins.scm.api.SCMRevision;
+import jenkins.scm.impl.mock.MockSCMController;
+import jenkins.scm.impl.mock.MockSCMDiscoverBranches;
+import jenkins.scm.impl.mock.MockSCMSource;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+public class RevisionStoreTest {
+
+    @Rule
+    public JenkinsRule r = new JenkinsRule();
+
+    @After
+    public void disable() {
+        RevisionStore.ENABLED = false;
+    }
+
+    @Test
+    public void revisionsAreKeptInOneFile() throws Exception {
+        RevisionStore.ENABLED = true;
+        try (MockSCMController c = MockSCMController.create()) {
+            c.createRepository("foo");
+            BasicMultiBranchProject prj = createProject(c);
+            FreeStyleProject master = prj.getItem("master");
+            assertThat(master, notNullValue());
+            assertThat(new File(prj.getRootDir(), RevisionStore.FILE_NAME).isFile(), is(true));
+            assertThat(new File(master.getRootDir(), "scm-revision-hash.xml").exists(), is(false));
+            assertThat(new File(master.getRootDir(), "scm-last-seen-revision-hash.xml").exists(), is(false));
+            SCMRevision revision = prj.getProjectFactory().getRevision(master);
+            assertThat(revision, notNullValue());
+            // a store that has to read the file back, as after a restart
+            RevisionStore reloaded = new RevisionStore(prj);
+            assertThat(reloaded.getRevision("master", new File("missing")), is(revision));
+            assertThat(reloaded.getLastSeenRevision("master", new File("missing")), is(revision));
+            // later indexing sees no changes
+            prj.scheduleBuild2(0).getFuture().get();
+            r.waitUntilNoActivity();
+            assertThat(master.getNextBuildNumber(), is(2));
+        }
+    }
+
+    @Test
+    public void revisionsAreMigratedFromPerBranchFiles() throws Exception {
+        try (MockSCMController c = MockSCMController.create()) {
+            c.createRepository("foo");
+            BasicMultiBranchProject prj = createProject(c);
+            FreeStyleProject master = prj.getItem("master");
+            SCMRevision revision = prj.getProjectFactory().getRevision(master);
+            assertThat(revision, notNullValue());
+            assertThat(new File(prj.getRootDir(), RevisionStore.FILE_NAME).exists(), is(false));
+
+            RevisionStore.ENABLED = true;
+            assertThat(prj.getProjectFactory().getRevision(master), is(revision));
+            assertThat(new File(prj.getRootDir(), RevisionStore.FILE_NAME).isFile(), is(true));
+            assertThat(new RevisionStore(prj).getRevision("master", new File("missing")), is(revision));
+        }
+    }
+
+    @Test
+    public void tornRecordIsDropped() throws Exception {
+        RevisionStore.ENABLED = true;
+        try (MockSCMController c = MockSCMController.create()) {
+            c.createRepository("foo");
+            BasicMultiBranchProject prj = createProject(c);
+            SCMRevision revision = prj.getProjectFactory().getRevision(prj.getItem("master"));
+            File file = new File(prj.getRootDir(), RevisionStore.FILE_NAME);
+            // a record that was only partly written when the process died
+            Files.write(file.toPath(), new byte[]{0, 0, 1, 0, 1, 2, 3}, StandardOpenOption.APPEND);
+            RevisionStore reloaded = new RevisionStore(prj);
+            assertThat(reloaded.getRevision("master", new File("missing")), is(revision));
+            assertThat(reloaded.getRevision("feature", new File("missing")), nullValue());
+            reloaded.setRevision("feature", revision);
+            assertThat(new RevisionStore(prj).getRevision("feature", new File("missing")), is(revision));
+        }
+    }
+
+    @Test
+    public void removedBranchesAreForgotten() throws Exception {
+        RevisionStore.ENABLED = true;
+        try (MockSCMController c = MockSCMController.create()) {
+            c.createRepository("foo");
+            BasicMultiBranchProject prj = createProject(c);
+            prj.getItem("master").delete();
+            assertThat(new RevisionStore(prj).getRevision("master", new File("missing")), nullValue());
+        }
+    }
+
+    @Test
+    public void renamedBranchesKeepTheirRevisions() throws Exception {
+        RevisionStore.ENABLED = true;
+        try (MockSCMController c = MockSCMController.create()) {
+            c.createRepository("foo");
+            BasicMultiBranchProject prj = createProject(c);
+            SCMRevision revision = prj.getProjectFactory().getRevision(prj.getItem("master"));
+            new RevisionStore(prj).rename("master", "renamed");
+            RevisionStore reloaded = new RevisionStore(prj);
+            assertThat(reloaded.getRevision("renamed", new File("missing")), is(revision));
+            assertThat(reloaded.getRevision("master", new File("missing")), nullValue());
+        }
+    }
+
+    @Test
+    public void fileThatIsNotAStoreIsNeverWritten() throws Exception {
+        RevisionStore.ENABLED = true;
+        try (MockSCMController c = MockSCMController.create()) {
+            c.createRepository("foo");
+            BasicMultiBranchProject prj = createProject(c);
+            SCMRevision revision = prj.getProjectFactory().getRevision(prj.getItem("master"));
+            File file = new File(prj.getRootDir(), RevisionStore.FILE_NAME);
+            byte[] foreign = "not a revision store".getBytes(StandardCharsets.UTF_8);
+            Files.write(file.toPath(), foreign);
+            RevisionStore reloaded = new RevisionStore(prj);
+            assertThat(reloaded.getRevision("master", new File("missing")), nullValue());
+            assertThrows(IOException.class, () -> reloaded.setRevision("master", revision));
+            assertThat(Files.readAllBytes(file.toPath()), is(foreign));
+        }
+    }
+
+    private BasicMultiBranchProject createProject(MockSCMController c) throws Exception {
+        BasicMultiBranchProject prj = r.jenkins.createProject(BasicMultiBranchProject.class, "prj");
+        prj.getSourcesList().add(new BranchSource(new MockSCMSource(c, "foo", new MockSCMDiscoverBranches())));
+        prj.scheduleBuild2(0).getFuture().get();
+        r.waitUntilNoActivity();
+        return prj;
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package jenkins.branch;
+
+import hudson.model.Item;
+import hudson.model.TaskListener;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Compares the throughput of the {@link SCMEventDispatcher} on platform threads and on virtual threads when every
+ * task spends its time blocked, as it does when waiting for an SCM to answer. Run with {@code mvn test -Dbenchmark}.
+ */
+@State(Scope.Benchmark)
+public class SCMEventDispatcherBenchmark {
+
+    /**
+     * Whether to use virtual threads. Runtimes without virtual threads fall back to platform threads.
+     */
+    @Param({"false", "true"})
+    public boolean virtualThreads;
+
+    /**
+     * The number of items that each event fans out to.
+     */
+    @Param({"100", "1000"})
+    public int fanOut;
+
+    /**
+     * How long each task blocks for.
+     */
+    @Param({"5"})
+    public int blockMillis;
+
+    private SCMEventDispatcher dispatcher;
+
+    private List<Item> items;
+
+    @Setup
+    public void setUp() {
+        dispatcher = new SCMEventDispatcher(SCMEventDispatcher.POOL_SIZE, Integer.MAX_VALUE, virtualThreads);
+        items = new ArrayList<>(fanOut);
+        for (int i = 0; i < fanOut; i++) {
+            Item item = mock(Item.class);
+            when(item.getFullName()).thenReturn("project-" + i);
+            items.add(item);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        dispatcher.shutdown();
+    }
+
+    @Benchmark
+    public int dispatchBlockingEvent() throws Exception {
+        List<Future<Boolean>> tasks = new ArrayList<>(fanOut);
+        for (Item item : items) {
+            tasks.add(dispatcher.submit(item, () -> {
+                Thread.sleep(blockMillis);
+                return true;
+            }));
+        }
+        return dispatcher.awaitMatches(tasks, TaskListener.NULL);
+    }
+}
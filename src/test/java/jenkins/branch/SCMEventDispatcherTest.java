@@ -0,0 +1,199 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package jenkins.branch;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasEntry;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.Assume.assumeTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import hudson.model.Item;
+import hudson.model.TaskListener;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import jenkins.scm.api.SCMHeadEvent;
+import org.junit.Test;
+
+public class SCMEventDispatcherTest {
+
+    private static Item item(String fullName) {
+        Item item = mock(Item.class);
+        when(item.getFullName()).thenReturn(fullName);
+        return item;
+    }
+
+    @Test
+    public void tasksForTheSameItemRunInSubmissionOrder() throws Exception {
+        SCMEventDispatcher dispatcher = new SCMEventDispatcher(4, 100);
+        Item foo = item("foo");
+        List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+        List<Future<Boolean>> tasks = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            final int n = i;
+            tasks.add(dispatcher.submit(foo, () -> {
+                Thread.sleep(1);
+                order.add(n);
+                return n % 2 == 0;
+            }));
+        }
+        assertThat(dispatcher.awaitMatches(tasks, TaskListener.NULL), is(10));
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            expected.add(i);
+        }
+        assertThat(order, is(expected));
+        assertThat(dispatcher.getQueueDepth(foo), is(0));
+    }
+
+    @Test
+    public void tasksForDifferentItemsRunInParallel() throws Exception {
+        SCMEventDispatcher dispatcher = new SCMEventDispatcher(2, 100);
+        Item foo = item("foo");
+        Item bar = item("bar");
+        CountDownLatch fooStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<Boolean> blocked = dispatcher.submit(foo, () -> {
+            fooStarted.countDown();
+            return release.await(10, TimeUnit.SECONDS);
+        });
+        Future<Boolean> queued = dispatcher.submit(foo, () -> true);
+        assertThat(fooStarted.await(10, TimeUnit.SECONDS), is(true));
+        // bar is not held up behind foo
+        assertThat(dispatcher.submit(bar, () -> true).get(10, TimeUnit.SECONDS), is(true));
+        assertThat(dispatcher.getQueueDepth(foo), is(1));
+        assertThat(dispatcher.getQueueDepths(), hasEntry("foo", 1));
+        release.countDown();
+        assertThat(blocked.get(10, TimeUnit.SECONDS), is(true));
+        assertThat(queued.get(10, TimeUnit.SECONDS), is(true));
+    }
+
+    @Test
+    public void headEventsQueuedBehindOtherWorkAreBatched() throws Exception {
+        SCMEventDispatcher dispatcher = new SCMEventDispatcher(2, 100);
+        Item foo = item("foo");
+        CountDownLatch release = new CountDownLatch(1);
+        Future<Boolean> blocker = dispatcher.submit(foo, () -> release.await(10, TimeUnit.SECONDS));
+        List<List<SCMHeadEvent<?>>> batches = Collections.synchronizedList(new ArrayList<>());
+        SCMHeadEvent<?> first = mock(SCMHeadEvent.class);
+        SCMHeadEvent<?> second = mock(SCMHeadEvent.class);
+        SCMHeadEvent<?> third = mock(SCMHeadEvent.class);
+        List<Future<Boolean>> tasks = new ArrayList<>();
+        for (SCMHeadEvent<?> event : Arrays.asList(first, second, third)) {
+            tasks.add(dispatcher.submitBatched(foo, event, events -> batches.add(events)));
+        }
+        release.countDown();
+        assertThat(blocker.get(10, TimeUnit.SECONDS), is(true));
+        assertThat(dispatcher.awaitMatches(tasks, TaskListener.NULL), is(3));
+        assertThat(batches, contains(Arrays.asList(first, second, third)));
+        // a batch that has started does not accept more events
+        assertThat(dispatcher.submitBatched(foo, first, events -> batches.add(events)).get(), is(true));
+        assertThat(batches.size(), is(2));
+    }
+
+    @Test
+    public void delayedTaskDoesNotHoldUpTheItem() throws Exception {
+        SCMEventDispatcher dispatcher = new SCMEventDispatcher(1, 100);
+        Item foo = item("foo");
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        Future<Boolean> delayed =
+                dispatcher.submitDelayed(foo, 200, TimeUnit.MILLISECONDS, () -> order.add("delayed"));
+        // the single worker and the lane of foo are free while the delay elapses
+        assertThat(dispatcher.submit(foo, () -> order.add("immediate")).get(10, TimeUnit.SECONDS), is(true));
+        assertThat(dispatcher.getQueueDepth(foo), is(0));
+        assertThat(delayed.get(10, TimeUnit.SECONDS), is(true));
+        assertThat(order, contains("immediate", "delayed"));
+    }
+
+    @Test
+    public void virtualThreadsKeepOrderingAndInterruption() throws Exception {
+        assumeTrue(VirtualThreads.isSupported());
+        SCMEventDispatcher dispatcher = new SCMEventDispatcher(1, 100, true);
+        assertThat(dispatcher.isVirtual(), is(true));
+        Item foo = item("foo");
+        CountDownLatch started = new CountDownLatch(1);
+        AtomicBoolean interrupted = new AtomicBoolean();
+        CountDownLatch finished = new CountDownLatch(1);
+        Future<Boolean> blocked = dispatcher.submit(foo, () -> {
+            started.countDown();
+            try {
+                Thread.sleep(TimeUnit.SECONDS.toMillis(30));
+                return true;
+            } catch (InterruptedException e) {
+                interrupted.set(true);
+                throw e;
+            } finally {
+                finished.countDown();
+            }
+        });
+        List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+        List<Future<Boolean>> tasks = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            final int n = i;
+            tasks.add(dispatcher.submit(foo, () -> order.add(n)));
+        }
+        assertThat(started.await(10, TimeUnit.SECONDS), is(true));
+        blocked.cancel(true);
+        assertThat(finished.await(10, TimeUnit.SECONDS), is(true));
+        assertThat(interrupted.get(), is(true));
+        assertThat(dispatcher.awaitMatches(tasks, TaskListener.NULL), is(5));
+        assertThat(order, contains(0, 1, 2, 3, 4));
+    }
+
+    @Test
+    public void virtualThreadsAreLimitedByThePoolSize() throws Exception {
+        assumeTrue(VirtualThreads.isSupported());
+        SCMEventDispatcher dispatcher = new SCMEventDispatcher(2, 100, true);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger mostRunning = new AtomicInteger();
+        List<Future<Boolean>> tasks = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            tasks.add(dispatcher.submit(item("item" + i), () -> {
+                mostRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                    return release.await(10, TimeUnit.SECONDS);
+                } finally {
+                    running.decrementAndGet();
+                }
+            }));
+        }
+        Thread.sleep(500);
+        assertThat(running.get(), is(2));
+        release.countDown();
+        assertThat(dispatcher.awaitMatches(tasks, TaskListener.NULL), is(6));
+        assertThat(mostRunning.get(), lessThanOrEqualTo(2));
+    }
+}
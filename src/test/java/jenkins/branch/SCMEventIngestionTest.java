@@ -0,0 +1,108 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package jenkins.branch;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import jenkins.branch.SCMEventMetrics.Lane;
+import jenkins.scm.api.SCMEvent;
+import jenkins.scm.api.SCMHeadEvent;
+import org.junit.Test;
+
+public class SCMEventIngestionTest {
+
+    private static SCMHeadEvent<?> headEvent(SCMEvent.Type type) {
+        SCMHeadEvent<?> event = mock(SCMHeadEvent.class);
+        when(event.getType()).thenReturn(type);
+        return event;
+    }
+
+    @Test
+    public void eventsQueueBehindABusyLaneAndAreShedWhenItIsFull() throws Exception {
+        SCMEventIngestion ingestion = new SCMEventIngestion(1, 1);
+        List<String> ran = new CopyOnWriteArrayList<>();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread first = new Thread(() -> ingestion.process(headEvent(SCMEvent.Type.UPDATED), () -> {
+            started.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                throw new AssertionError(e);
+            }
+            ran.add("first");
+        }));
+        first.start();
+        assertThat(started.await(10, TimeUnit.SECONDS), is(true));
+        // queued, the listener returns straight away
+        assertThat(ingestion.process(headEvent(SCMEvent.Type.UPDATED), () -> ran.add("second")), is(true));
+        assertThat(ingestion.getLane(Lane.HEAD_UPDATED).getQueued(), is(1));
+        // the queue is full
+        assertThat(ingestion.process(headEvent(SCMEvent.Type.UPDATED), () -> ran.add("third")), is(false));
+        assertThat(ingestion.getLane(Lane.HEAD_UPDATED).getShedCount(), is(1L));
+        release.countDown();
+        first.join(10000);
+        // the thread working in the lane took the queued event before returning
+        assertThat(ran, contains("first", "second"));
+        assertThat(ingestion.getLane(Lane.HEAD_UPDATED).getQueued(), is(0));
+        assertThat(ingestion.getLane(Lane.HEAD_UPDATED).getRunning(), is(0));
+        assertThat(ingestion.getLane(Lane.HEAD_UPDATED).getAdmittedCount(), is(2L));
+    }
+
+    @Test
+    public void lanesAreIndependent() throws Exception {
+        SCMEventIngestion ingestion = new SCMEventIngestion(1, 0);
+        List<String> ran = new CopyOnWriteArrayList<>();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread first = new Thread(() -> ingestion.process(headEvent(SCMEvent.Type.UPDATED), () -> {
+            started.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                throw new AssertionError(e);
+            }
+        }));
+        first.start();
+        try {
+            assertThat(started.await(10, TimeUnit.SECONDS), is(true));
+            assertThat(ingestion.process(headEvent(SCMEvent.Type.CREATED), () -> ran.add("created")), is(true));
+            assertThat(ingestion.process(headEvent(SCMEvent.Type.REMOVED), () -> ran.add("removed")), is(true));
+            assertThat(ran, contains("created", "removed"));
+            assertThat(ingestion.process(headEvent(SCMEvent.Type.UPDATED), () -> ran.add("updated")), is(false));
+        } finally {
+            release.countDown();
+            first.join(10000);
+        }
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package jenkins.branch;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.scm.SCM;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import jenkins.scm.api.SCMEventListener;
+import jenkins.scm.api.SCMHead;
+import jenkins.scm.api.SCMHeadEvent;
+import jenkins.scm.api.SCMNavigator;
+import jenkins.scm.api.SCMRevision;
+import jenkins.scm.api.SCMSource;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class SCMEventJournalTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void eventsRoundTrip() throws Exception {
+        File file = new File(tmp.getRoot(), "logs/events.journal");
+        SCMEventJournal journal = new SCMEventJournal(file);
+        journal.record(new PushEvent(1000L, "foo", "origin-1"));
+        journal.record(new PushEvent(2000L, "bar", "origin-2"));
+        journal.getLog().awaitWritten(10, TimeUnit.SECONDS);
+        assertThat(journal.getRecordedCount(), is(2L));
+        try (SCMEventJournal.Reader reader = SCMEventJournal.read(file)) {
+            SCMEventJournal.Entry first = reader.next();
+            assertThat(first.getEvent(), instanceOf(PushEvent.class));
+            assertThat(first.getEvent().getPayload(), is("foo"));
+            assertThat(first.getEvent().getTimestamp(), is(1000L));
+            assertThat(first.getEvent().getOrigin(), is("origin-1"));
+            SCMEventJournal.Entry second = reader.next();
+            assertThat(second.getEvent().getPayload(), is("bar"));
+            assertThat(second.getReceivedAt() >= first.getReceivedAt(), is(true));
+            assertThat(reader.next(), nullValue());
+        }
+    }
+
+    @Test
+    public void recordsThatCannotBeWrittenAreNotCounted() throws Exception {
+        File file = tmp.newFolder("events.journal");
+        SCMEventJournal journal = new SCMEventJournal(file);
+        journal.record(new PushEvent(1000L, "foo", null));
+        journal.getLog().awaitWritten(10, TimeUnit.SECONDS);
+        assertThat(journal.getRecordedCount(), is(0L));
+        assertThat(journal.getFailedCount(), is(1L));
+    }
+
+    @Test
+    public void journalIsRotatedWhenFull() throws Exception {
+        File file = new File(tmp.getRoot(), "events.journal");
+        SCMEventJournal journal = new SCMEventJournal(file);
+        SCMEventJournal.MAX_SIZE = 1;
+        try {
+            journal.record(new PushEvent(1000L, "foo", null));
+            journal.getLog().awaitWritten(10, TimeUnit.SECONDS);
+            journal.record(new PushEvent(2000L, "bar", null));
+            journal.getLog().awaitWritten(10, TimeUnit.SECONDS);
+        } finally {
+            SCMEventJournal.MAX_SIZE = 64L * 1024 * 1024;
+        }
+        assertThat(journal.getRecordedCount(), is(2L));
+        try (SCMEventJournal.Reader reader = SCMEventJournal.read(journal.getRotatedFile())) {
+            assertThat(reader.next().getEvent().getPayload(), is("foo"));
+            assertThat(reader.next(), nullValue());
+        }
+        try (SCMEventJournal.Reader reader = SCMEventJournal.read(file)) {
+            assertThat(reader.next().getEvent().getPayload(), is("bar"));
+            assertThat(reader.next(), nullValue());
+        }
+    }
+
+    @Test
+    public void tornTailIsIgnored() throws Exception {
+        File file = tmp.newFile("events.journal");
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            byte[] record = SCMEventJournal.encode(1L, new PushEvent(1000L, "foo", null));
+            out.write(record);
+            out.write(record, 0, record.length / 2);
+        }
+        try (SCMEventJournal.Reader reader = SCMEventJournal.read(file)) {
+            assertThat(reader.next().getEvent().getPayload(), is("foo"));
+            assertThat(reader.next(), nullValue());
+        }
+    }
+
+    @Test
+    public void replayDeliversEventsInOrder() throws Exception {
+        File file = tmp.newFile("events.journal");
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            for (int i = 0; i < 5; i++) {
+                out.write(SCMEventJournal.encode(i, new PushEvent(1000L + i, "event-" + i, null)));
+            }
+        }
+        List<Object> seen = new ArrayList<>();
+        SCMEventListener listener = new SCMEventListener() {
+            @Override
+            public void onSCMHeadEvent(SCMHeadEvent<?> event) {
+                seen.add(event.getPayload());
+            }
+        };
+        SCMEventReplay.Report report = SCMEventReplay.replay(file, false, Collections.singletonList(listener));
+        assertThat(seen, contains("event-0", "event-1", "event-2", "event-3", "event-4"));
+        assertThat(report.getEvents(), is(5L));
+        assertThat(report.getLatency().getCount(), is(5L));
+        assertThat(report.getFailures(), is(0L));
+    }
+
+    public static class PushEvent extends SCMHeadEvent<String> {
+
+        public PushEvent(long timestamp, String payload, String origin) {
+            super(Type.UPDATED, timestamp, payload, origin);
+        }
+
+        @Override
+        public boolean isMatch(@NonNull SCMNavigator navigator) {
+            return false;
+        }
+
+        @NonNull
+        @Override
+        public String getSourceName() {
+            return getPayload();
+        }
+
+        @NonNull
+        @Override
+        public Map<SCMHead, SCMRevision> heads(@NonNull SCMSource source) {
+            return Collections.emptyMap();
+        }
+
+        @Override
+        public boolean isMatch(@NonNull SCM scm) {
+            return false;
+        }
+    }
+}
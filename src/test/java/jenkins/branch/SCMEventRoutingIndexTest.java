@@ -0,0 +1,117 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package jenkins.branch;
+
+import integration.harness.BasicMultiBranchProject;
+import java.util.Collections;
+import jenkins.scm.api.SCMEvent;
+import jenkins.scm.impl.mock.MockSCMController;
+import jenkins.scm.impl.mock.MockSCMDiscoverBranches;
+import jenkins.scm.impl.mock.MockSCMHeadEvent;
+import jenkins.scm.impl.mock.MockSCMSource;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+
+public class SCMEventRoutingIndexTest {
+
+    @Rule
+    public JenkinsRule r = new JenkinsRule();
+
+    @Test
+    public void eventsAreRoutedToProjectsWithMatchingKeys() throws Exception {
+        try (MockSCMController c = MockSCMController.create()) {
+            c.createRepository("foo");
+            c.createRepository("bar");
+            BasicMultiBranchProject foo = r.jenkins.createProject(BasicMultiBranchProject.class, "foo");
+            foo.getSourcesList().add(new BranchSource(new MockSCMSource(c, "foo", new MockSCMDiscoverBranches())));
+            BasicMultiBranchProject bar = r.jenkins.createProject(BasicMultiBranchProject.class, "bar");
+            bar.getSourcesList().add(new BranchSource(new MockSCMSource(c, "bar", new MockSCMDiscoverBranches())));
+            SCMEventRoutingIndex index = SCMEventRoutingIndex.get();
+            assertThat(index.candidates(new MockSCMHeadEvent(SCMEvent.Type.UPDATED, c, "foo", "master", "junk")),
+                    contains(foo));
+            assertThat(index.candidates(new MockSCMHeadEvent(SCMEvent.Type.UPDATED, c, "bar", "master", "junk")),
+                    contains(bar));
+            assertThat(index.candidates(new MockSCMHeadEvent(SCMEvent.Type.UPDATED, c, "baz", "master", "junk")),
+                    empty());
+        }
+    }
+
+    @Test
+    public void indexFollowsSourceChangesRenamesAndDeletes() throws Exception {
+        try (MockSCMController c = MockSCMController.create()) {
+            c.createRepository("foo");
+            c.createRepository("bar");
+            BasicMultiBranchProject prj = r.jenkins.createProject(BasicMultiBranchProject.class, "foo");
+            prj.getSourcesList().add(new BranchSource(new MockSCMSource(c, "foo", new MockSCMDiscoverBranches())));
+            SCMEventRoutingIndex index = SCMEventRoutingIndex.get();
+            MockSCMHeadEvent fooEvent = new MockSCMHeadEvent(SCMEvent.Type.UPDATED, c, "foo", "master", "junk");
+            MockSCMHeadEvent barEvent = new MockSCMHeadEvent(SCMEvent.Type.UPDATED, c, "bar", "master", "junk");
+            assertThat(index.candidates(fooEvent), contains(prj));
+            prj.setSourcesList(Collections.singletonList(
+                    new BranchSource(new MockSCMSource(c, "bar", new MockSCMDiscoverBranches()))));
+            assertThat(index.candidates(fooEvent), empty());
+            assertThat(index.candidates(barEvent), contains(prj));
+            prj.renameTo("renamed");
+            assertThat(index.candidates(barEvent), contains(prj));
+            prj.delete();
+            assertThat(index.candidates(barEvent), empty());
+        }
+    }
+
+    @Test
+    public void routingKeysThatMatchedNothingAreForgottenWhenAProjectMayHoldThem() throws Exception {
+        try (MockSCMController c = MockSCMController.create()) {
+            c.createRepository("foo");
+            c.createRepository("bar");
+            BasicMultiBranchProject prj = r.jenkins.createProject(BasicMultiBranchProject.class, "foo");
+            prj.getSourcesList().add(new BranchSource(new MockSCMSource(c, "foo", new MockSCMDiscoverBranches())));
+            SCMEventRoutingIndex index = SCMEventRoutingIndex.get();
+            MockSCMHeadEvent fooEvent = new MockSCMHeadEvent(SCMEvent.Type.UPDATED, c, "foo", "master", "junk");
+            assertThat(index.candidates(fooEvent), contains(prj));
+            long hits = index.getNoMatchHitCount();
+            index.noMatch(index.routingKey(fooEvent), index.getGeneration());
+            assertThat(index.candidates(fooEvent), empty());
+            assertThat(index.getNoMatchHitCount() - hits, is(1L));
+
+            // the sources of the project changed, so it may now match
+            prj.setSourcesList(Collections.singletonList(
+                    new BranchSource(new MockSCMSource(c, "foo", new MockSCMDiscoverBranches()))));
+            assertThat(index.candidates(fooEvent), contains(prj));
+
+            // a project was added while the event was being dispatched
+            long generation = index.getGeneration();
+            BasicMultiBranchProject bar = r.jenkins.createProject(BasicMultiBranchProject.class, "bar");
+            bar.getSourcesList().add(new BranchSource(new MockSCMSource(c, "bar", new MockSCMDiscoverBranches())));
+            index.noMatch(index.routingKey(fooEvent), generation);
+            assertThat(index.candidates(fooEvent), contains(prj));
+        }
+    }
+}
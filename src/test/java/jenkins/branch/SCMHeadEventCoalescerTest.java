@@ -0,0 +1,165 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package jenkins.branch;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import hudson.model.Item;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import jenkins.scm.api.SCMHeadEvent;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SCMHeadEventCoalescerTest {
+
+    private int window;
+
+    private Item project;
+
+    @Before
+    public void setUp() {
+        window = SCMHeadEventCoalescer.WINDOW_MILLIS;
+        project = mock(Item.class);
+        when(project.getFullName()).thenReturn("foo");
+    }
+
+    @After
+    public void tearDown() {
+        SCMHeadEventCoalescer.WINDOW_MILLIS = window;
+    }
+
+    @Test
+    public void disabledByDefault() {
+        SCMHeadEventCoalescer.WINDOW_MILLIS = 0;
+        assertThat(SCMHeadEventCoalescer.get().register(project, event(1000L),
+                () -> Collections.singleton("master")), nullValue());
+    }
+
+    @Test
+    public void olderEventIsMergedIntoNewer() throws Exception {
+        SCMHeadEventCoalescer.WINDOW_MILLIS = 50;
+        SCMHeadEventCoalescer coalescer = SCMHeadEventCoalescer.get();
+        long merged = coalescer.getMergedCount();
+        long executed = coalescer.getExecutedCount();
+        SCMHeadEvent<?> older = event(1000L);
+        SCMHeadEvent<?> newer = event(2000L);
+        SCMHeadEventCoalescer.Ticket first = coalescer.register(project, older, () -> Collections.singleton("master"));
+        SCMHeadEventCoalescer.Ticket second = coalescer.register(project, newer, () -> Collections.singleton("master"));
+        assertThat(first, notNullValue());
+        assertThat(second, notNullValue());
+        assertThat(coalescer.claim(first), nullValue());
+        // only counted once the newer event has run
+        assertThat(coalescer.getMergedCount() - merged, is(0L));
+        assertThat(coalescer.claim(second), sameInstance(newer));
+        coalescer.completed(second);
+        assertThat(coalescer.getMergedCount() - merged, is(1L));
+        assertThat(coalescer.getExecutedCount() - executed, is(1L));
+    }
+
+    @Test
+    public void newestEventIsProcessedWhenAnOlderOneIsRedelivered() throws Exception {
+        SCMHeadEventCoalescer.WINDOW_MILLIS = 50;
+        SCMHeadEventCoalescer coalescer = SCMHeadEventCoalescer.get();
+        SCMHeadEvent<?> newest = event(2000L);
+        SCMHeadEvent<?> redelivered = event(1000L);
+        SCMHeadEventCoalescer.Ticket first = coalescer.register(project, newest, () -> Collections.singleton("master"));
+        SCMHeadEventCoalescer.Ticket second =
+                coalescer.register(project, redelivered, () -> Collections.singleton("master"));
+        assertThat(coalescer.claim(first), nullValue());
+        assertThat(coalescer.claim(second), sameInstance(newest));
+        coalescer.completed(second);
+    }
+
+    @Test
+    public void partiallySupersededEventIsProcessed() throws Exception {
+        SCMHeadEventCoalescer.WINDOW_MILLIS = 10;
+        SCMHeadEventCoalescer coalescer = SCMHeadEventCoalescer.get();
+        SCMHeadEvent<?> older = event(1000L);
+        SCMHeadEvent<?> newer = event(2000L);
+        SCMHeadEventCoalescer.Ticket first =
+                coalescer.register(project, older, () -> new HashSet<>(Arrays.asList("master", "feature")));
+        SCMHeadEventCoalescer.Ticket second = coalescer.register(project, newer, () -> Collections.singleton("master"));
+        assertThat(coalescer.claim(first), sameInstance(older));
+        assertThat(coalescer.claim(second), sameInstance(newer));
+    }
+
+    @Test
+    public void headNamesAreOnlyWorkedOutWhenClaimed() throws Exception {
+        SCMHeadEventCoalescer.WINDOW_MILLIS = 10;
+        SCMHeadEventCoalescer coalescer = SCMHeadEventCoalescer.get();
+        AtomicInteger calls = new AtomicInteger();
+        SCMHeadEvent<?> event = event(1000L);
+        SCMHeadEventCoalescer.Ticket ticket = coalescer.register(project, event, () -> {
+            calls.incrementAndGet();
+            return Collections.singleton("master");
+        });
+        assertThat(calls.get(), is(0));
+        assertThat(coalescer.claim(ticket), sameInstance(event));
+        assertThat(calls.get(), is(1));
+    }
+
+    @Test
+    public void discardedEventDoesNotSupersedeOlder() throws Exception {
+        SCMHeadEventCoalescer.WINDOW_MILLIS = 10;
+        SCMHeadEventCoalescer coalescer = SCMHeadEventCoalescer.get();
+        SCMHeadEvent<?> older = event(1000L);
+        SCMHeadEventCoalescer.Ticket first = coalescer.register(project, older, () -> Collections.singleton("master"));
+        SCMHeadEventCoalescer.Ticket second =
+                coalescer.register(project, event(2000L), () -> Collections.singleton("master"));
+        assertThat(coalescer.discard(second), empty());
+        assertThat(coalescer.claim(first), sameInstance(older));
+        assertThat(coalescer.claim(second), nullValue());
+    }
+
+    @Test
+    public void eventsMergedIntoADiscardedEventAreGivenBack() throws Exception {
+        SCMHeadEventCoalescer.WINDOW_MILLIS = 10;
+        SCMHeadEventCoalescer coalescer = SCMHeadEventCoalescer.get();
+        long merged = coalescer.getMergedCount();
+        SCMHeadEvent<?> older = event(1000L);
+        SCMHeadEventCoalescer.Ticket first = coalescer.register(project, older, () -> Collections.singleton("master"));
+        SCMHeadEventCoalescer.Ticket second =
+                coalescer.register(project, event(2000L), () -> Collections.singleton("master"));
+        assertThat(coalescer.claim(first), nullValue());
+        assertThat(coalescer.discard(second), contains(older));
+        assertThat(coalescer.getMergedCount() - merged, is(0L));
+    }
+
+    private static SCMHeadEvent<?> event(long timestamp) {
+        return new SCMEventJournalTest.PushEvent(timestamp, "repo", "test");
+    }
+}
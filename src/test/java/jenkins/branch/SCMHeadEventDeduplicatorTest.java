@@ -0,0 +1,120 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package jenkins.branch;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+import java.util.Map;
+import jenkins.scm.api.SCMHead;
+import jenkins.scm.api.SCMRevision;
+import jenkins.scm.api.SCMSource;
+import org.junit.Test;
+
+public class SCMHeadEventDeduplicatorTest {
+
+    private static Map<SCMSource, Map<SCMHead, SCMRevision>> heads(SCMSource source, String name, String hash) {
+        SCMHead head = new SCMHead(name);
+        return Collections.singletonMap(source, Collections.singletonMap(head, new Revision(head, hash)));
+    }
+
+    @Test
+    public void duplicateAndStaleEventsAreSuppressed() {
+        SCMHeadEventDeduplicator deduplicator = new SCMHeadEventDeduplicator(60, 100);
+        MultiBranchProject<?, ?> project = mock(MultiBranchProject.class);
+        when(project.getFullName()).thenReturn("foo");
+        SCMSource source = mock(SCMSource.class);
+        SCMEventJournalTest.PushEvent first = new SCMEventJournalTest.PushEvent(1000L, "repo", "test");
+        SCMEventJournalTest.PushEvent second = new SCMEventJournalTest.PushEvent(2000L, "repo", "test");
+
+        assertThat(deduplicator.isSuppressed(project, first, heads(source, "master", "a")), is(false));
+        deduplicator.processed(project, first, heads(source, "master", "a"));
+        // redelivery of the same revision
+        assertThat(deduplicator.isSuppressed(project, first, heads(source, "master", "a")), is(true));
+        assertThat(deduplicator.isSuppressed(project, second, heads(source, "master", "a")), is(true));
+        assertThat(deduplicator.getDuplicateCount(), is(2L));
+        // a newer revision is processed
+        assertThat(deduplicator.isSuppressed(project, second, heads(source, "master", "b")), is(false));
+        deduplicator.processed(project, second, heads(source, "master", "b"));
+        // an older event arriving late is stale
+        assertThat(deduplicator.isSuppressed(project, first, heads(source, "master", "c")), is(true));
+        assertThat(deduplicator.getStaleCount(), is(1L));
+        // other heads are not affected
+        assertThat(deduplicator.isSuppressed(project, first, heads(source, "feature", "a")), is(false));
+
+        deduplicator.invalidate("foo");
+        assertThat(deduplicator.isSuppressed(project, second, heads(source, "master", "b")), is(false));
+    }
+
+    @Test
+    public void updatingTheProjectForgetsWhatWasProcessed() {
+        SCMHeadEventDeduplicator deduplicator = SCMHeadEventDeduplicator.get();
+        MultiBranchProject<?, ?> project = mock(MultiBranchProject.class);
+        when(project.getFullName()).thenReturn("updated");
+        SCMSource source = mock(SCMSource.class);
+        SCMEventJournalTest.PushEvent event = new SCMEventJournalTest.PushEvent(1000L, "repo", "test");
+        deduplicator.processed(project, event, heads(source, "master", "a"));
+        assertThat(deduplicator.isSuppressed(project, event, heads(source, "master", "a")), is(true));
+
+        new SCMHeadEventDeduplicator.ItemListenerImpl().onUpdated(project);
+        assertThat(deduplicator.isSuppressed(project, event, heads(source, "master", "a")), is(false));
+    }
+
+    @Test
+    public void disabledWhenTimeToLiveIsZero() {
+        SCMHeadEventDeduplicator deduplicator = new SCMHeadEventDeduplicator(0, 100);
+        MultiBranchProject<?, ?> project = mock(MultiBranchProject.class);
+        when(project.getFullName()).thenReturn("foo");
+        SCMSource source = mock(SCMSource.class);
+        SCMEventJournalTest.PushEvent event = new SCMEventJournalTest.PushEvent(1000L, "repo", "test");
+        deduplicator.processed(project, event, heads(source, "master", "a"));
+        assertThat(deduplicator.isSuppressed(project, event, heads(source, "master", "a")), is(false));
+    }
+
+    private static final class Revision extends SCMRevision {
+
+        private final String hash;
+
+        Revision(SCMHead head, String hash) {
+            super(head);
+            this.hash = hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Revision && hash.equals(((Revision) o).hash)
+                    && getHead().equals(((Revision) o).getHead());
+        }
+
+        @Override
+        public int hashCode() {
+            return hash.hashCode();
+        }
+    }
+}
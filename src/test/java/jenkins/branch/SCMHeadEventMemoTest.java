@@ -0,0 +1,127 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package jenkins.branch;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.scm.SCM;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import jenkins.scm.api.SCMHead;
+import jenkins.scm.api.SCMHeadEvent;
+import jenkins.scm.api.SCMNavigator;
+import jenkins.scm.api.SCMRevision;
+import jenkins.scm.api.SCMSource;
+import jenkins.scm.impl.mock.MockSCMController;
+import jenkins.scm.impl.mock.MockSCMDiscoverBranches;
+import jenkins.scm.impl.mock.MockSCMSource;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+public class SCMHeadEventMemoTest {
+
+    @Rule
+    public JenkinsRule r = new JenkinsRule();
+
+    @Test
+    public void equivalentSourcesShareResultsWhileOpen() throws Exception {
+        try (MockSCMController c = MockSCMController.create()) {
+            c.createRepository("foo");
+            c.createRepository("bar");
+            MockSCMSource foo1 = new MockSCMSource(c, "foo", new MockSCMDiscoverBranches());
+            foo1.setId("one");
+            MockSCMSource foo2 = new MockSCMSource(c, "foo", new MockSCMDiscoverBranches());
+            foo2.setId("two");
+            MockSCMSource bar = new MockSCMSource(c, "bar", new MockSCMDiscoverBranches());
+
+            CountingEvent event = new CountingEvent("foo");
+            long hits = SCMHeadEventMemo.getMatchHitCount();
+            try (SCMHeadEventMemo memo = SCMHeadEventMemo.open(event)) {
+                assertThat(memo.keyOf(foo1), is(memo.keyOf(foo2)));
+                assertThat(memo.keyOf(foo1), not(memo.keyOf(bar)));
+                assertThat(SCMHeadEventMemo.of(event).isMatch(foo1), is(true));
+                assertThat(SCMHeadEventMemo.of(event).isMatch(foo2), is(true));
+                assertThat(SCMHeadEventMemo.of(event).isMatch(bar), is(false));
+                memo.heads(foo1);
+                memo.heads(foo2);
+            }
+            assertThat(event.matchCalls.get(), is(2));
+            assertThat(event.headsCalls.get(), is(1));
+            assertThat(SCMHeadEventMemo.getMatchHitCount() - hits, is(1L));
+
+            // once closed nothing is remembered
+            SCMHeadEventMemo.of(event).isMatch(foo1);
+            SCMHeadEventMemo.of(event).heads(foo1);
+            assertThat(event.matchCalls.get(), is(3));
+            assertThat(event.headsCalls.get(), is(2));
+        }
+    }
+
+    public static class CountingEvent extends SCMHeadEvent<String> {
+
+        final AtomicInteger matchCalls = new AtomicInteger();
+
+        final AtomicInteger headsCalls = new AtomicInteger();
+
+        public CountingEvent(String repository) {
+            super(Type.UPDATED, System.currentTimeMillis(), repository, "test");
+        }
+
+        @Override
+        public boolean isMatch(@NonNull SCMNavigator navigator) {
+            return false;
+        }
+
+        @Override
+        public boolean isMatch(@NonNull SCMSource source) {
+            matchCalls.incrementAndGet();
+            return source instanceof MockSCMSource && getPayload().equals(((MockSCMSource) source).getRepository());
+        }
+
+        @NonNull
+        @Override
+        public String getSourceName() {
+            return getPayload();
+        }
+
+        @NonNull
+        @Override
+        public Map<SCMHead, SCMRevision> heads(@NonNull SCMSource source) {
+            headsCalls.incrementAndGet();
+            return Collections.singletonMap(new SCMHead("master"), null);
+        }
+
+        @Override
+        public boolean isMatch(@NonNull SCM scm) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package jenkins.branch;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import jenkins.scm.api.SCMEvent;
+import jenkins.scm.api.SCMNavigator;
+import jenkins.scm.api.SCMSource;
+import jenkins.scm.impl.mock.MockSCMController;
+import jenkins.scm.impl.mock.MockSCMDiscoverBranches;
+import jenkins.scm.impl.mock.MockSCMHeadEvent;
+import jenkins.scm.impl.mock.MockSCMNavigator;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.MockFolder;
+import org.jvnet.hudson.test.TestExtension;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.nullValue;
+
+public class SCMNavigatorRoutingIndexTest {
+
+    @Rule
+    public JenkinsRule r = new JenkinsRule();
+
+    @Test
+    public void eventsAreRoutedToFoldersWithMatchingKeys() throws Exception {
+        try (MockSCMController c1 = MockSCMController.create();
+             MockSCMController c2 = MockSCMController.create()) {
+            OrganizationFolder foo = r.jenkins.createProject(OrganizationFolder.class, "foo");
+            foo.getNavigators().add(new MockSCMNavigator(c1, new MockSCMDiscoverBranches()));
+            OrganizationFolder bar = r.jenkins.createProject(OrganizationFolder.class, "bar");
+            bar.getNavigators().add(new MockSCMNavigator(c2, new MockSCMDiscoverBranches()));
+            SCMNavigatorRoutingIndex index = SCMNavigatorRoutingIndex.get();
+            assertThat(index.candidates(event(c1)), contains(foo));
+            assertThat(index.candidates(event(c2)), contains(bar));
+            assertThat(index.candidates(new MockSCMHeadEvent(SCMEvent.Type.UPDATED, c1, "repo", "master", "junk")),
+                    nullValue());
+        }
+    }
+
+    @Test
+    public void indexFollowsNavigatorChangesAndDeletes() throws Exception {
+        try (MockSCMController c1 = MockSCMController.create();
+             MockSCMController c2 = MockSCMController.create()) {
+            OrganizationFolder foo = r.jenkins.createProject(OrganizationFolder.class, "foo");
+            foo.getNavigators().add(new MockSCMNavigator(c1, new MockSCMDiscoverBranches()));
+            OrganizationFolder bar = r.jenkins.createProject(OrganizationFolder.class, "bar");
+            bar.getNavigators().add(new MockSCMNavigator(c2, new MockSCMDiscoverBranches()));
+            SCMNavigatorRoutingIndex index = SCMNavigatorRoutingIndex.get();
+            assertThat(index.candidates(event(c1)), contains(foo));
+            bar.getNavigators().replace(new MockSCMNavigator(c1, new MockSCMDiscoverBranches()));
+            assertThat(index.candidates(event(c1)), containsInAnyOrder(foo, bar));
+            assertThat(index.candidates(event(c2)), empty());
+            foo.delete();
+            assertThat(index.candidates(event(c1)), contains(bar));
+        }
+    }
+
+    @Test
+    public void indexFollowsFoldersThatAreRenamed() throws Exception {
+        try (MockSCMController c = MockSCMController.create()) {
+            MockFolder parent = r.createFolder("parent");
+            OrganizationFolder foo = parent.createProject(OrganizationFolder.class, "foo");
+            foo.getNavigators().add(new MockSCMNavigator(c, new MockSCMDiscoverBranches()));
+            SCMNavigatorRoutingIndex index = SCMNavigatorRoutingIndex.get();
+            assertThat(index.candidates(event(c)), contains(foo));
+            parent.renameTo("renamed");
+            assertThat(index.candidates(event(c)), contains(foo));
+        }
+    }
+
+    private static MockSCMHeadEvent event(MockSCMController c) {
+        return new MockSCMHeadEvent(c.getId(), SCMEvent.Type.UPDATED, c, "repo", "master", "junk");
+    }
+
+    @TestExtension
+    public static class MockRoutingKeyProvider extends SCMEventRoutingKeyProvider {
+
+        @CheckForNull
+        @Override
+        public String sourceKey(@NonNull SCMSource source) {
+            return null;
+        }
+
+        @CheckForNull
+        @Override
+        public String eventKey(@NonNull SCMEvent<?> event) {
+            return null;
+        }
+
+        @CheckForNull
+        @Override
+        public String navigatorKey(@NonNull SCMNavigator navigator) {
+            return navigator instanceof MockSCMNavigator ? ((MockSCMNavigator) navigator).getControllerId() : null;
+        }
+
+        @CheckForNull
+        @Override
+        public String navigatorEventKey(@NonNull SCMEvent<?> event) {
+            // the tests use the controller id as the origin of the events that they want routed
+            return event.getOrigin();
+        }
+    }
+}
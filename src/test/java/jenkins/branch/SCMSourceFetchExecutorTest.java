@@ -0,0 +1,96 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package jenkins.branch;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+public class SCMSourceFetchExecutorTest {
+
+    @Test
+    public void tasksAreBoundedByThePoolSize() throws Exception {
+        SCMSourceFetchExecutor executor = new SCMSourceFetchExecutor(3, 100, false);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        List<Future<Integer>> tasks = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            final int n = i;
+            tasks.add(executor.submit(() -> {
+                peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(5);
+                } finally {
+                    running.decrementAndGet();
+                }
+                return n;
+            }));
+        }
+        for (int i = 0; i < 20; i++) {
+            assertThat(SCMSourceFetchExecutor.get(tasks.get(i)), is(i));
+        }
+        assertThat(peak.get(), lessThanOrEqualTo(3));
+    }
+
+    @Test
+    public void tasksBeyondTheQueueDepthRunOnTheCaller() throws Exception {
+        SCMSourceFetchExecutor executor = new SCMSourceFetchExecutor(1, 1, false);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<Boolean> running = executor.submit(() -> release.await(10, TimeUnit.SECONDS));
+        Future<Thread> queued = executor.submit(Thread::currentThread);
+        Future<Thread> inline = executor.submit(Thread::currentThread);
+        assertThat(inline.isDone(), is(true));
+        assertThat(SCMSourceFetchExecutor.get(inline), is(Thread.currentThread()));
+        release.countDown();
+        assertThat(SCMSourceFetchExecutor.get(running), is(true));
+        assertThat(SCMSourceFetchExecutor.get(queued), not(Thread.currentThread()));
+    }
+
+    @Test
+    public void failuresAreUnwrapped() throws Exception {
+        SCMSourceFetchExecutor executor = new SCMSourceFetchExecutor(1, 100, false);
+        Future<Object> task = executor.submit(() -> {
+            throw new IOException("boom");
+        });
+        try {
+            SCMSourceFetchExecutor.get(task);
+            fail("expected the IOException of the task");
+        } catch (IOException e) {
+            assertThat(e.getMessage(), is("boom"));
+        }
+    }
+}
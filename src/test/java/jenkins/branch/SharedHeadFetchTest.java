@@ -0,0 +1,79 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package jenkins.branch;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.notNullValue;
+
+import integration.harness.BasicMultiBranchProject;
+import jenkins.scm.api.SCMEvent;
+import jenkins.scm.api.SCMEvents;
+import jenkins.scm.api.SCMHeadEvent;
+import jenkins.scm.impl.mock.MockSCMController;
+import jenkins.scm.impl.mock.MockSCMDiscoverBranches;
+import jenkins.scm.impl.mock.MockSCMHeadEvent;
+import jenkins.scm.impl.mock.MockSCMSource;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+public class SharedHeadFetchTest {
+
+    @Rule
+    public JenkinsRule r = new JenkinsRule();
+
+    @After
+    public void disable() {
+        SharedHeadFetch.ENABLED = false;
+    }
+
+    @Test
+    public void projectsWithEquivalentSourcesShareOneFetch() throws Exception {
+        SharedHeadFetch.ENABLED = true;
+        try (MockSCMController c = MockSCMController.create()) {
+            c.createRepository("foo");
+            BasicMultiBranchProject one = r.jenkins.createProject(BasicMultiBranchProject.class, "one");
+            one.getSourcesList().add(new BranchSource(new MockSCMSource(c, "foo", new MockSCMDiscoverBranches())));
+            BasicMultiBranchProject two = r.jenkins.createProject(BasicMultiBranchProject.class, "two");
+            two.getSourcesList().add(new BranchSource(new MockSCMSource(c, "foo", new MockSCMDiscoverBranches())));
+            one.scheduleBuild2(0).getFuture().get();
+            two.scheduleBuild2(0).getFuture().get();
+            r.waitUntilNoActivity();
+            assertThat(one.getItem("master"), notNullValue());
+            assertThat(two.getItem("master"), notNullValue());
+
+            c.createBranch("foo", "feature");
+            long watermark = SCMEvents.getWatermark();
+            SCMHeadEvent.fireNow(new MockSCMHeadEvent(SCMEvent.Type.CREATED, c, "foo", "feature",
+                    c.getRevision("foo", "feature")));
+            SCMEvents.awaitAll(watermark);
+            r.waitUntilNoActivity();
+            assertThat(one.getItem("feature"), notNullValue());
+            assertThat(two.getItem("feature"), notNullValue());
+        }
+    }
+}